@@ -18,6 +18,7 @@ package org.apache.commons.functor.aggregator;
 
 import java.util.List;
 
+import org.apache.commons.functor.Function;
 import org.apache.commons.functor.UnaryFunction;
 import org.apache.commons.lang3.Validate;
 
@@ -104,6 +105,26 @@ public abstract class AbstractListBackedAggregator<T> extends AbstractTimedAggre
         this.series = createList();
     }
 
+    /**
+     * Constructs an aggregator which will use the given function and reset
+     * itself at the given interval, as scheduled by the given scheduler.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #evaluate()}. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     * @param scheduler
+     *            scheduler to schedule the flush with
+     * @see AbstractTimedAggregator#AbstractTimedAggregator(long, AggregatorScheduler)
+     */
+    public AbstractListBackedAggregator(UnaryFunction<List<T>, T> aggregationFunction, long interval,
+            AggregatorScheduler scheduler) {
+        super(interval, scheduler);
+        this.aggregationFunction = Validate.notNull(aggregationFunction, "UnaryFunction argument must not be null");
+        this.series = createList();
+    }
+
     /**
      * Adds data to the series which will be aggregated. This implementation
      * simply adds the data to the {@link #series} list.
@@ -137,6 +158,28 @@ public abstract class AbstractListBackedAggregator<T> extends AbstractTimedAggre
         series.clear();
     }
 
+    /**
+     * Swaps the data series with a newly {@link #createList() created} empty
+     * list and returns a function which aggregates the previous one. This way
+     * the lock is only held while swapping the lists and the evaluation of the
+     * frozen list happens while writers already add to the new one.
+     *
+     * @return Function which evaluates to
+     *         <code>aggregationFunction.evaluate(series)</code> for the series
+     *         prior to the reset
+     * @see AbstractTimedAggregator#evaluateAndReset()
+     */
+    @Override
+    protected final Function<T> doSnapshotAndReset() {
+        final List<T> frozen = series;
+        series = createList();
+        return new Function<T>() {
+            public T evaluate() {
+                return aggregationFunction.evaluate(frozen);
+            }
+        };
+    }
+
     /**
      * Allows subclasses to create the list which will store the {@link #series
      * data series}.
@@ -16,6 +16,8 @@
  */
 package org.apache.commons.functor.aggregator;
 
+import java.util.concurrent.locks.Lock;
+
 import org.apache.commons.functor.BinaryFunction;
 
 /**
@@ -29,11 +31,17 @@ import org.apache.commons.functor.BinaryFunction;
  * point. This has a lower memory footprint compared to
  * {@link AbstractListBackedAggregator} however it only allows for simpler
  * processing on the data received.
+ * <p>
+ * The stored value is the partial state of this aggregator: it can be exported
+ * and merged into another instance via {@link #combine(Object, Object)}, so the
+ * data can be aggregated per thread or per node and rolled up centrally.
+ * </p>
  *
  * @param <T>
  *            Type of object stored.
  */
-public abstract class AbstractNoStoreAggregator<T> extends AbstractTimedAggregator<T> {
+public abstract class AbstractNoStoreAggregator<T> extends AbstractTimedAggregator<T> implements
+        MergeableAggregator<T, T> {
     /**
      * Function used to aggregate the data on the fly in {@link #add(Object)}.
      *
@@ -106,6 +114,29 @@ public abstract class AbstractNoStoreAggregator<T> extends AbstractTimedAggregat
         result = initialValue();
     }
 
+    /**
+     * Constructs an aggregator which will use the given function and reset
+     * itself at the given interval, as scheduled by the given scheduler.
+     * Similar to
+     * {@link #AbstractNoStoreAggregator(BinaryFunction, long, boolean)} but
+     * the flush is scheduled with <code>scheduler</code> rather than a timer.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #add(Object)}. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     * @param scheduler
+     *            scheduler to schedule the flush with
+     * @see AbstractTimedAggregator#AbstractTimedAggregator(long, AggregatorScheduler)
+     */
+    public AbstractNoStoreAggregator(BinaryFunction<T, T, T> aggregationFunction, long interval,
+            AggregatorScheduler scheduler) {
+        super(interval, scheduler);
+        this.aggregationFunction = aggregationFunction;
+        result = initialValue();
+    }
+
     /**
      * Receives data to be aggregated/processed on the fly. This implementation
      * simply calls {@link #aggregationFunction} and stores the result.
@@ -139,6 +170,50 @@ public abstract class AbstractNoStoreAggregator<T> extends AbstractTimedAggregat
         result = initialValue();
     }
 
+    /**
+     * Retrieves the value stored in {@link #result}, which is all the state
+     * this aggregator has.
+     *
+     * @return Current (aggregated) value, as per {@link #evaluate()}
+     */
+    public final T exportState() {
+        return evaluate();
+    }
+
+    /**
+     * Merges the aggregated value of another aggregator into {@link #result},
+     * using {@link #combine(Object, Object)}.
+     *
+     * @param state
+     *            value exported by another aggregator
+     */
+    public final void merge(T state) {
+        Lock lock = getDataLock().writeLock();
+        lock.lock();
+        try {
+            result = combine(result, state);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Combines two aggregated values, when {@link #merge(Object) merging}. By
+     * default this uses the {@link #aggregationFunction}, which is correct for
+     * functions such as sum, max or min; subclasses whose aggregation function
+     * doesn't combine aggregated values (e.g. counting) must override this
+     * (e.g. to sum the counts).
+     *
+     * @param value
+     *            aggregated value of this aggregator
+     * @param other
+     *            aggregated value to merge into it
+     * @return result of the combination
+     */
+    protected T combine(T value, T other) {
+        return aggregationFunction.evaluate(value, other);
+    }
+
     /**
      * Allows subclasses to define the "initial" value. This value will be
      * stored in {@link #result} when an instance of this class is created or
@@ -0,0 +1,428 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.core.Constant;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * A variant of {@link AbstractNoStoreAggregator} meant for aggregators which
+ * are fed from a lot of threads at the same time (e.g. counters on the request
+ * path of a server). Rather than storing a single result which every call to
+ * {@link #add(Object)} has to update while holding the write lock, this class
+ * stores a number of partial results ("cells"). Each call to
+ * {@link #add(Object)} picks a cell based on the calling thread and updates it
+ * via a compare-and-set operation, so no lock is acquired when adding data and
+ * threads only contend with each other when they hit the same cell. When
+ * {@link #evaluate()} is called, the partial results are combined in a single
+ * value.
+ * <p>
+ * Because partial results are computed independently and combined at the end,
+ * this class only produces correct results if:
+ * </p>
+ * <ul>
+ * <li>the combine function is associative and commutative (e.g. sum, max, min)
+ * </li>
+ * <li>the value returned by {@link #initialValue()} is an identity for the
+ * combine function (e.g. 0 for sum)</li>
+ * </ul>
+ * <p>
+ * By default, the aggregation function is used to combine the partial results
+ * too. For aggregation functions which don't combine partial results
+ * correctly (e.g.
+ * {@link org.apache.commons.functor.aggregator.functions.IntegerCountAggregatorBinaryFunction
+ * counting}) a separate combine function (e.g. sum) can be specified.
+ * </p>
+ * <p>
+ * <b>Synchronization</b>: {@link #evaluate()} and {@link #reset()} can run at
+ * the same time as {@link #add(Object)}. As such, data added while one of these
+ * is in progress might or might not be reflected in the result, or might or
+ * might not be reset. {@link #evaluateAndReset()} (used when the timer kicks
+ * in) doesn't have this problem: every piece of data is accounted for either
+ * in the value it returns or in the next one.
+ * </p>
+ *
+ * @param <T>
+ *            Type of object stored.
+ */
+public abstract class AbstractStripedNoStoreAggregator<T> extends AbstractTimedAggregator<T> implements
+        MergeableAggregator<T, T> {
+    /**
+     * Maximum number of stripes: the largest power of 2 an <code>int</code>
+     * can hold.
+     */
+    public static final int         MAX_STRIPES = 1 << 30;
+
+    /**
+     * Upper bound for the number of cells created by default.
+     */
+    private static final int        MAX_DEFAULT_STRIPES = 64;
+
+    /**
+     * Function used to aggregate the data on the fly in {@link #add(Object)}.
+     *
+     * @see #add(Object)
+     */
+    private BinaryFunction<T, T, T> aggregationFunction;
+
+    /**
+     * Function used to combine the partial results stored in {@link #cells}
+     * in {@link #evaluate()}.
+     *
+     * @see #evaluate()
+     */
+    private BinaryFunction<T, T, T> combineFunction;
+
+    /**
+     * Stores the partial results. Each cell is the result of applying
+     * {@link #aggregationFunction} on a subset of the data passed to
+     * {@link #add(Object)}. The number of cells is always a power of 2.
+     */
+    private AtomicReferenceArray<T> cells;
+
+    /**
+     * Similar to
+     * {@link #AbstractStripedNoStoreAggregator(BinaryFunction, long)
+     * AbstractStripedNoStoreAggregator(aggregationFunction,0L)}.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #add(Object)} and to
+     *            combine the partial results in {@link #evaluate()}. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     */
+    public AbstractStripedNoStoreAggregator(BinaryFunction<T, T, T> aggregationFunction) {
+        this(aggregationFunction, 0L);
+    }
+
+    /**
+     * Similar to
+     * {@link #AbstractStripedNoStoreAggregator(BinaryFunction, long, boolean)
+     * AbstractStripedNoStoreAggregator(aggregationFunction,interval,false)}.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #add(Object)} and to
+     *            combine the partial results in {@link #evaluate()}. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     */
+    public AbstractStripedNoStoreAggregator(BinaryFunction<T, T, T> aggregationFunction, long interval) {
+        this(aggregationFunction, interval, false);
+    }
+
+    /**
+     * Constructs an aggregator which uses the given function both to aggregate
+     * the data and to combine the partial results, with a number of cells
+     * based on the number of available processors.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #add(Object)} and to
+     *            combine the partial results in {@link #evaluate()}. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     * @param useSharedTimer
+     *            if set to true, it will use a shared timer, as per
+     *            {@link AbstractTimedAggregator#AbstractTimedAggregator(long, boolean)}
+     *            ; otherwise if it's false it will use its own timer instance
+     * @see AbstractTimedAggregator#AbstractTimedAggregator(long, boolean)
+     */
+    public AbstractStripedNoStoreAggregator(BinaryFunction<T, T, T> aggregationFunction, long interval,
+            boolean useSharedTimer) {
+        this(aggregationFunction, aggregationFunction, defaultStripes(), interval, useSharedTimer);
+    }
+
+    /**
+     * Constructs an aggregator which uses the given function to aggregate the
+     * data, the given combine function to combine the partial results and
+     * stores (at least) the given number of partial results. Also it
+     * initializes all the cells with the value returned by
+     * {@link #initialValue()}.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #add(Object)}. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     * @param combineFunction
+     *            Function used to combine the partial results in
+     *            {@link #evaluate()}. Throws <code>NullPointerException</code>
+     *            if this is <code>null</code>
+     * @param stripes
+     *            Number of partial results to store. This will be rounded up to
+     *            the next power of 2. Must be greater than zero and at most
+     *            {@link #MAX_STRIPES}.
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     * @param useSharedTimer
+     *            if set to true, it will use a shared timer, as per
+     *            {@link AbstractTimedAggregator#AbstractTimedAggregator(long, boolean)}
+     *            ; otherwise if it's false it will use its own timer instance
+     */
+    public AbstractStripedNoStoreAggregator(BinaryFunction<T, T, T> aggregationFunction,
+            BinaryFunction<T, T, T> combineFunction, int stripes, long interval, boolean useSharedTimer) {
+        super(interval, useSharedTimer);
+        this.cells = createCells(aggregationFunction, combineFunction, stripes);
+    }
+
+    /**
+     * Constructs an aggregator similar to
+     * {@link #AbstractStripedNoStoreAggregator(BinaryFunction, BinaryFunction, int, long, boolean)}
+     * whose flush is scheduled with the given scheduler rather than a timer.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #add(Object)}. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     * @param combineFunction
+     *            Function used to combine the partial results in
+     *            {@link #evaluate()}. Throws <code>NullPointerException</code>
+     *            if this is <code>null</code>
+     * @param stripes
+     *            Number of partial results to store. This will be rounded up to
+     *            the next power of 2. Must be greater than zero and at most
+     *            {@link #MAX_STRIPES}.
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     * @param scheduler
+     *            scheduler to schedule the flush with, as per
+     *            {@link AbstractTimedAggregator#AbstractTimedAggregator(long, AggregatorScheduler)}
+     */
+    public AbstractStripedNoStoreAggregator(BinaryFunction<T, T, T> aggregationFunction,
+            BinaryFunction<T, T, T> combineFunction, int stripes, long interval, AggregatorScheduler scheduler) {
+        super(interval, scheduler);
+        this.cells = createCells(aggregationFunction, combineFunction, stripes);
+    }
+
+    /**
+     * Validates and stores the functions, then creates the cells and
+     * initializes them with the value returned by {@link #initialValue()}.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #add(Object)}
+     * @param combineFunction
+     *            Function used to combine the partial results
+     * @param stripes
+     *            Number of partial results to store
+     * @return newly created cells
+     */
+    private AtomicReferenceArray<T> createCells(BinaryFunction<T, T, T> aggregationFunction,
+            BinaryFunction<T, T, T> combineFunction, int stripes) {
+        this.aggregationFunction = Validate.notNull(aggregationFunction, "BinaryFunction argument must not be null");
+        this.combineFunction = Validate.notNull(combineFunction, "Combine function argument must not be null");
+        Validate.isTrue(stripes > 0, "Number of stripes must be positive: %d", stripes);
+        Validate.isTrue(stripes <= MAX_STRIPES, "Number of stripes must be at most %d: %d", MAX_STRIPES, stripes);
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        AtomicReferenceArray<T> created = new AtomicReferenceArray<T>(size);
+        for (int i = 0; i < size; i++) {
+            created.set(i, initialValue());
+        }
+        return created;
+    }
+
+    /**
+     * Computes the default number of cells: the number of available processors,
+     * capped at {@link #MAX_DEFAULT_STRIPES}.
+     *
+     * @return default number of stripes
+     */
+    private static int defaultStripes() {
+        return Math.min(Runtime.getRuntime().availableProcessors(), MAX_DEFAULT_STRIPES);
+    }
+
+    /**
+     * Receives data to be aggregated/processed on the fly. This picks the cell
+     * for the current thread and tries to replace its value with the result of
+     * {@link #aggregationFunction}; if another thread updated the same cell in
+     * the meantime, it moves on to the next cell and retries.
+     *
+     * @param data
+     *            Data to aggregate
+     */
+    @Override
+    protected final void doAdd(T data) {
+        int mask = cells.length() - 1;
+        int index = hash(Thread.currentThread().getId()) & mask;
+        while (true) {
+            T current = cells.get(index);
+            if (cells.compareAndSet(index, current, aggregationFunction.evaluate(current, data))) {
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Spreads the bits of the thread id, so consecutive thread ids don't end
+     * up in adjacent cells.
+     *
+     * @param id
+     *            thread id
+     * @return hash of the given id
+     */
+    private static int hash(long id) {
+        int h = (int) (id ^ (id >>> 32));
+        h ^= (h >>> 20) ^ (h >>> 12);
+        return h ^ (h >>> 7) ^ (h >>> 4);
+    }
+
+    /**
+     * This aggregator updates its cells atomically, so {@link #add(Object)}
+     * doesn't need to lock.
+     *
+     * @return <code>true</code>
+     */
+    @Override
+    protected final boolean isLockFreeAdd() {
+        return true;
+    }
+
+    /**
+     * Combines all the partial results using {@link #combineFunction}.
+     *
+     * @return Current (aggregated) value
+     * @see Aggregator#evaluate()
+     */
+    @Override
+    protected final T doEvaluate() {
+        T result = cells.get(0);
+        for (int i = 1; i < cells.length(); i++) {
+            result = combineFunction.evaluate(result, cells.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Resets all the partial results to the {@link #initialValue()}.
+     *
+     * @see #initialValue()
+     */
+    @Override
+    protected final void doReset() {
+        for (int i = 0; i < cells.length(); i++) {
+            cells.set(i, initialValue());
+        }
+    }
+
+    /**
+     * Atomically replaces each partial result with the {@link #initialValue()}
+     * and combines the values replaced, so data added concurrently ends up
+     * either in the returned snapshot or in the aggregator after the reset,
+     * but never gets lost.
+     *
+     * @return Function which evaluates to the combined partial results prior
+     *         to the reset
+     * @see AbstractTimedAggregator#evaluateAndReset()
+     */
+    @Override
+    protected final Function<T> doSnapshotAndReset() {
+        T result = cells.getAndSet(0, initialValue());
+        for (int i = 1; i < cells.length(); i++) {
+            result = combineFunction.evaluate(result, cells.getAndSet(i, initialValue()));
+        }
+        return Constant.of(result);
+    }
+
+    /**
+     * Combines all the partial results, as per {@link #evaluate()}: the
+     * combined value is all the state needed to merge this aggregator into
+     * another one.
+     *
+     * @return Current (aggregated) value
+     */
+    public final T exportState() {
+        return evaluate();
+    }
+
+    /**
+     * Merges the aggregated value of another aggregator into the cell of the
+     * current thread, using {@link #combineFunction}. Like
+     * {@link #add(Object)}, this doesn't lock.
+     *
+     * @param state
+     *            value exported by another aggregator
+     */
+    public final void merge(T state) {
+        int mask = cells.length() - 1;
+        int index = hash(Thread.currentThread().getId()) & mask;
+        while (true) {
+            T current = cells.get(index);
+            if (cells.compareAndSet(index, current, combineFunction.evaluate(current, state))) {
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Allows subclasses to define the "initial" value. This value will be
+     * stored in every cell when an instance of this class is created or when
+     * {@link #reset()} is called. It should be an identity for
+     * {@link #combineFunction}.
+     *
+     * @return Initial value to be used in each cell.
+     */
+    protected abstract T initialValue();
+
+    /**
+     * Getter for {@link #aggregationFunction}.
+     *
+     * @return Current value of the member.
+     */
+    final BinaryFunction<T, T, T> getAggregationFunction() {
+        return aggregationFunction;
+    }
+
+    /**
+     * Getter for {@link #combineFunction}.
+     *
+     * @return Current value of the member.
+     */
+    final BinaryFunction<T, T, T> getCombineFunction() {
+        return combineFunction;
+    }
+
+    /**
+     * Retrieves the number of cells used by this instance. Provided for test
+     * purposes only.
+     *
+     * @return Number of cells.
+     */
+    final int getStripes() {
+        return cells.length();
+    }
+
+    /**
+     * This aggregator doesn't store any data, so the data series size is always
+     * 0 (zero).
+     *
+     * @return 0
+     */
+    @Override
+    protected int retrieveDataSize() {
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return AbstractStripedNoStoreAggregator.class.getName();
+    }
+}
@@ -21,9 +21,15 @@ import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.core.Constant;
+import org.apache.commons.lang3.Validate;
+
 /**
  * An aggregator which automatically resets the aggregated data at regular
  * intervals and sends a notification when it is about to do so, so listeners
@@ -51,12 +57,20 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * this route make sure when you are finished with this instance, to always stop
  * the timer at the end.</li>
  * </ul>
+ * Alternatively, the flush can be scheduled with an {@link AggregatorScheduler}
+ * (e.g. a {@link TimerWheelScheduler} shared by many aggregators), in which
+ * case no <code>Timer</code> is used at all and the flush is only scheduled
+ * once {@link #start()} is called. In every case, the listeners are
+ * notified on the thread performing the flush, unless a
+ * {@link #setListenerExecutor(Executor) listener executor} is set.
  * <p>
  * <b>Synchronization</b>: This class provides a thread safe framework so when
  * {@link #doAdd(Object)}, {@link #reset()} and {@link #evaluate()} is called,
  * access is synchronized via a read-write lock. {@link #evaluate()} is
  * considered a read operation and {@link #doAdd(Object)} and {@link #reset()}
- * are considered write operations.
+ * are considered write operations. Subclasses whose {@link #doAdd(Object)} is
+ * thread safe on its own can override {@link #isLockFreeAdd()} so that
+ * {@link #add(Object)} does not acquire the lock at all.
  * </p>
  *
  * @param <T>
@@ -131,6 +145,32 @@ public abstract class AbstractTimedAggregator<T> implements Aggregator<T> {
      */
     private TimerTask                        task;
 
+    /**
+     * Scheduler the flush is scheduled with, if this instance was created with
+     * one rather than with a <code>Timer</code>.
+     *
+     * @see #flush
+     */
+    private AggregatorScheduler              scheduler;
+
+    /**
+     * Task scheduled with the {@link #scheduler}, if any; similar to
+     * {@link #task}, it is set to <code>null</code> by {@link #stop()}.
+     */
+    private Procedure                        flush;
+
+    /**
+     * Whether {@link #flush} has been scheduled by {@link #start()}.
+     */
+    private boolean                          flushScheduled;
+
+    /**
+     * Executor the listener notifications are dispatched to. If
+     * <code>null</code>, the listeners are notified on the thread which
+     * flushed this aggregator.
+     */
+    private volatile Executor                listenerExecutor;
+
     /**
      * Lock used internally to synchronize access to {@link #add(Object)},
      * {@link #reset()} and {@link #evaluate()}. Locks for writing when
@@ -210,6 +250,51 @@ public abstract class AbstractTimedAggregator<T> implements Aggregator<T> {
         this.dataLock = new ReentrantReadWriteLock();
     }
 
+    /**
+     * Creates an aggregator whose flush is scheduled, at the specified
+     * interval, with the given scheduler rather than with a <code>Timer</code>.
+     *
+     * @param interval
+     *            interval in miliseconds to set the timer for. If this is zero
+     *            or less, no flush is scheduled (and the scheduler is not
+     *            used).
+     * @param scheduler
+     *            scheduler to use. Throws <code>NullPointerException</code> if
+     *            this is <code>null</code>. The flush is only scheduled with it
+     *            when {@link #start()} is called, so that it can't run before
+     *            the construction of this aggregator has completed.
+     */
+    public AbstractTimedAggregator(long interval, AggregatorScheduler scheduler) {
+        this(NO_TIMER);
+        Validate.notNull(scheduler, "Scheduler argument must not be null");
+        if (interval > NO_TIMER) {
+            this.interval = interval;
+            this.timerListeners = new CopyOnWriteArrayList<TimedAggregatorListener<T>>();
+            this.scheduler = scheduler;
+            this.flush = new Procedure() {
+                public void run() {
+                    timer();
+                }
+            };
+        }
+    }
+
+    /**
+     * Schedules the flush of an aggregator created with an
+     * {@link AggregatorScheduler}: the first flush takes place (at least) one
+     * interval from now. Call this once the aggregator is fully constructed.
+     * Does nothing if this aggregator doesn't use a scheduler, has already
+     * been started or has been {@link #stop() stopped}.
+     *
+     * @see #AbstractTimedAggregator(long, AggregatorScheduler)
+     */
+    public final synchronized void start() {
+        if (flush != null && !flushScheduled) {
+            scheduler.schedule(flush, interval);
+            flushScheduled = true;
+        }
+    }
+
     /**
      * Getter for {@link #interval}.
      *
@@ -219,11 +304,25 @@ public abstract class AbstractTimedAggregator<T> implements Aggregator<T> {
         return interval;
     }
 
+    /**
+     * Getter for {@link #dataLock}. Allows subclasses to offer other ways of
+     * accessing the data (e.g. adding primitive values without boxing them)
+     * while still honouring the same locking as {@link #add(Object)},
+     * {@link #evaluate()} and {@link #reset()}.
+     *
+     * @return Lock used to synchronize access to the data
+     */
+    protected final ReadWriteLock getDataLock() {
+        return dataLock;
+    }
+
     /**
      * Adds the data to this aggregator. This function first locks
      * {@link #dataLock} for writing then calls {@link #doAdd(Object)}, which
      * allows subclasses to perform the actual adding to the aggregator and then
-     * at the end it unlocks {@link #dataLock}.
+     * at the end it unlocks {@link #dataLock}. If {@link #isLockFreeAdd()}
+     * returns <code>true</code>, {@link #doAdd(Object)} is called directly,
+     * without locking.
      *
      * @param data
      *            Data to be added to the aggregator.
@@ -231,6 +330,10 @@ public abstract class AbstractTimedAggregator<T> implements Aggregator<T> {
      * @see #dataLock
      */
     public final void add(T data) {
+        if (isLockFreeAdd()) {
+            doAdd(data);
+            return;
+        }
         dataLock.writeLock().lock();
         try {
             doAdd(data);
@@ -254,6 +357,24 @@ public abstract class AbstractTimedAggregator<T> implements Aggregator<T> {
      */
     protected abstract void doAdd(T data);
 
+    /**
+     * Allows subclasses to specify that their {@link #doAdd(Object)}
+     * implementation is thread safe on its own (e.g. it only uses atomic
+     * operations) and as such {@link #add(Object)} doesn't need to acquire the
+     * write lock on {@link #dataLock} before calling it. Note that in this case
+     * {@link #doAdd(Object)} can run concurrently with {@link #doEvaluate()}
+     * and {@link #doReset()} as well. By default this returns
+     * <code>false</code>.
+     *
+     * @return <code>true</code> if {@link #add(Object)} should call
+     *         {@link #doAdd(Object)} without locking, <code>false</code>
+     *         otherwise.
+     * @see #add(Object)
+     */
+    protected boolean isLockFreeAdd() {
+        return false;
+    }
+
     /**
      * Aggregates all the data this object has been "fed" via calls to
      * {@link #add(Object)}. Note that this object delegates the call to
@@ -315,6 +436,51 @@ public abstract class AbstractTimedAggregator<T> implements Aggregator<T> {
      */
     protected abstract void doReset();
 
+    /**
+     * Evaluates this aggregator and resets it as a single atomic operation, so
+     * no data added concurrently is lost between the evaluation and the reset.
+     * This function locks {@link #dataLock} for writing then calls
+     * {@link #doSnapshotAndReset()}, and unlocks {@link #dataLock} before
+     * evaluating the returned snapshot. This way, subclasses can keep the time
+     * spent holding the lock down to swapping their data series with an empty
+     * one, while the (possibly expensive) evaluation of the frozen series
+     * happens without blocking writers.
+     *
+     * @return result of aggregating the data added before the reset
+     * @see #doSnapshotAndReset()
+     */
+    public final T evaluateAndReset() {
+        Function<T> snapshot;
+        dataLock.writeLock().lock();
+        try {
+            snapshot = doSnapshotAndReset();
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+        return snapshot.evaluate();
+    }
+
+    /**
+     * Function provided to allow subclasses to capture the current state of the
+     * aggregator and reset it. This function is wrapped by
+     * {@link #evaluateAndReset()} so that access to data (via
+     * {@link #add(Object)} or {@link #evaluate()} or {@link #reset()}) is
+     * prohibited during this call, as a <b>write</b> lock is acquired prior to
+     * this function call. The returned <code>Function</code> is evaluated
+     * after the lock is released, so it must not access any data series which
+     * can be modified by subsequent calls to {@link #add(Object)}. The default
+     * implementation calls {@link #doEvaluate()} then {@link #doReset()} and
+     * returns the result of the evaluation wrapped in a {@link Constant}.
+     *
+     * @return Function which evaluates to the aggregated value prior to the
+     *         reset
+     */
+    protected Function<T> doSnapshotAndReset() {
+        T result = doEvaluate();
+        doReset();
+        return Constant.of(result);
+    }
+
     /**
      * Retrieves the size of the currently-stored data series. This function
      * first locks {@link #dataLock} for reading then calls
@@ -403,42 +569,85 @@ public abstract class AbstractTimedAggregator<T> implements Aggregator<T> {
     }
 
     /**
-     * Computes the current aggregated value (by calling {@link #evaluate()},
-     * resets this aggregator then notifies all listeners. Go through all the
-     * {@link #timerListeners} and sends
+     * Sets the executor the listener notifications are dispatched to, so slow
+     * listeners don't hold up the thread flushing this aggregator (which, with
+     * a shared timer or scheduler, flushes other aggregators too). Note that
+     * if the executor runs tasks concurrently, the notifications for two
+     * consecutive flushes might be received out of order.
+     *
+     * @param listenerExecutor
+     *            executor to notify the listeners with, or <code>null</code>
+     *            to notify them on the thread flushing this aggregator
+     */
+    public final void setListenerExecutor(Executor listenerExecutor) {
+        this.listenerExecutor = listenerExecutor;
+    }
+
+    /**
+     * Getter for {@link #listenerExecutor}.
+     *
+     * @return Current value of {@link #listenerExecutor}.
+     */
+    public final Executor getListenerExecutor() {
+        return listenerExecutor;
+    }
+
+    /**
+     * Computes the current aggregated value and resets this aggregator (in one
+     * atomic operation, by calling {@link #evaluateAndReset()}) then notifies
+     * all listeners. Go through all the {@link #timerListeners} and sends
      * {@link TimedAggregatorListener#onTimer(AbstractTimedAggregator,Object)
-     * notification messages} to each of them. Does nothing if
-     * {@link #timerListeners} is <code>null</code>. Please note that
-     * {@link #evaluate()} is called only once at the beginning of this
-     * function, and only if there are listeners configured, then this value is
-     * passed to every notification. This is in order to ensure all listeners
-     * receive the same value -- the value of the evaluation prior to resetting
-     * it.
+     * notification messages} to each of them -- directly, or via the
+     * {@link #listenerExecutor} if set. Does nothing if
+     * {@link #timerListeners} is <code>null</code>. Please note that the
+     * evaluation is done only once at the beginning of this function, and only
+     * if there are listeners configured, then this value is passed to every
+     * notification. This is in order to ensure all listeners receive the same
+     * value -- the value of the evaluation prior to resetting it.
      */
     private void timer() {
         if (timerListeners != null) {
             // if we have listeners, notify them
-            T aggregated = evaluate(); // NOTE: shouldn't evaluate() and reset()
-                                       // be done atomically here?
-            reset();
-            for (TimedAggregatorListener<T> i : timerListeners) {
-                i.onTimer(this, aggregated);
+            final T aggregated = evaluateAndReset();
+            Executor executor = listenerExecutor;
+            if (executor == null) {
+                notifyListeners(aggregated);
+            } else {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        notifyListeners(aggregated);
+                    }
+                });
             }
         } else {
             reset();
         }
     }
 
+    /**
+     * Sends the given evaluation to all the {@link #timerListeners}.
+     *
+     * @param aggregated
+     *            value to pass to the listeners
+     */
+    private void notifyListeners(T aggregated) {
+        for (TimedAggregatorListener<T> i : timerListeners) {
+            i.onTimer(this, aggregated);
+        }
+    }
+
     /**
      * Checks whether this instance has a timer associated with it or not. If
-     * there is a timer for this Aggregator, then the {@link #task} member
-     * should be set to a non-null value.
+     * there is a timer for this Aggregator, then the {@link #task} member (or
+     * the {@link #flush} member, when using a {@link #scheduler}) should be set
+     * to a non-null value.
      *
-     * @return <code>true</code> if {@link #task} is not null,
-     *         <code>false</code> otherwise (in which case there is no timer).
+     * @return <code>true</code> if {@link #task} or {@link #flush} is not
+     *         null, <code>false</code> otherwise (in which case there is no
+     *         timer).
      */
     public final boolean isTimerEnabled() {
-        return (task != null);
+        return (task != null || flush != null);
     }
 
     /**
@@ -455,10 +664,19 @@ public abstract class AbstractTimedAggregator<T> implements Aggregator<T> {
     /**
      * Cancels the current timer task (if set) -- which means from there on the
      * data will not be reset anymore. Also, if {@link #timer} is not set to
-     * {@link #MAIN_TIMER the shared timer} then it will be cancelled as well
+     * {@link #MAIN_TIMER the shared timer} then it will be cancelled as well.
+     * If a {@link #scheduler} is used instead, the flush is cancelled with it.
      * Also releases all the listeners from the {@link #timerListeners list}.
      */
     public final void stop() {
+        synchronized (this) {
+            if (flush != null) {
+                if (flushScheduled) {
+                    scheduler.cancel(flush);
+                }
+                flush = null;
+            }
+        }
         // cancel the task first
         if (task != null) {
             task.cancel();
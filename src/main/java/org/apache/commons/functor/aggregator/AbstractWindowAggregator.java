@@ -0,0 +1,393 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * An aggregator which aggregates the data over a window of time which moves
+ * along with the clock, e.g. "the last 60 seconds, updated every second".
+ * Rather than storing the data series, the window is split into a number of
+ * buckets of equal duration (e.g. 60 buckets of 1 second), each holding the
+ * data added during that time aggregated on the fly -- in the same way as
+ * {@link AbstractNoStoreAggregator} does -- using a {@link BinaryFunction}.
+ * The buckets are stored in a ring buffer: as time goes by, the oldest bucket
+ * is dropped and a new one is started.
+ * <p>
+ * {@link #evaluate()} combines the bucket currently being filled with the
+ * buckets before it in the window, so it reflects the most recent data.
+ * {@link #evaluateCompleted()} only combines completed buckets, so its result
+ * only changes when a bucket is completed (e.g. every second in the example
+ * above). In both cases the combination of the completed buckets is computed
+ * once per bucket and cached, so reading the window doesn't recompute it.
+ * </p>
+ * <p>
+ * A window made of a single bucket is a <i>tumbling</i> window:
+ * {@link #evaluate()} returns the aggregation of the data added since the
+ * start of the current period and {@link #evaluateCompleted()} returns the
+ * aggregation of the data added during the previous period.
+ * </p>
+ * <p>
+ * The window moves lazily, when data is added or the window is evaluated, so
+ * unlike {@link AbstractTimedAggregator} no timer is needed.
+ * </p>
+ * <p>
+ * The aggregation function (used to add data to a bucket) is also used by
+ * default to combine the buckets; as with
+ * {@link AbstractStripedNoStoreAggregator}, a separate combine function (e.g.
+ * sum, when counting) can be specified. The combine function must be
+ * associative and {@link #initialValue()} must be an identity for it.
+ * </p>
+ * <p>
+ * <b>Synchronization</b>: access to the buckets is synchronized via a lock, so
+ * this class is thread safe.
+ * </p>
+ *
+ * @param <T>
+ *            Type of object stored.
+ */
+public abstract class AbstractWindowAggregator<T> implements Aggregator<T> {
+    /**
+     * Value of {@link #period} until the window is first used.
+     */
+    private static final long             NOT_STARTED = Long.MIN_VALUE;
+
+    /**
+     * Function used to aggregate the data on the fly in {@link #add(Object)}.
+     */
+    private final BinaryFunction<T, T, T> aggregationFunction;
+
+    /**
+     * Function used to combine the buckets.
+     */
+    private final BinaryFunction<T, T, T> combineFunction;
+
+    /**
+     * Number of buckets in the window.
+     */
+    private final int                     bucketCount;
+
+    /**
+     * Duration of a bucket, in miliseconds.
+     */
+    private final long                    bucketDuration;
+
+    /**
+     * Ring buffer of buckets: the current one and the {@link #bucketCount}
+     * completed ones before it.
+     */
+    private final List<T>                 buckets;
+
+    /**
+     * Lock used to synchronize access to the buckets.
+     */
+    private final Lock                    lock = new ReentrantLock();
+
+    /**
+     * Index in {@link #buckets} of the bucket currently being filled.
+     */
+    private int                           head;
+
+    /**
+     * Number of the period (time since the epoch divided by
+     * {@link #bucketDuration}) the current bucket corresponds to, or
+     * {@link #NOT_STARTED} if the window hasn't been used yet.
+     */
+    private long                          period;
+
+    /**
+     * Cached combination of the <code>bucketCount - 1</code> most recent
+     * completed buckets.
+     */
+    private T                             recentCompleted;
+
+    /**
+     * Cached combination of the <code>bucketCount</code> most recent completed
+     * buckets.
+     */
+    private T                             allCompleted;
+
+    /**
+     * Whether {@link #recentCompleted} and {@link #allCompleted} are up to
+     * date. Cleared whenever the completed buckets change.
+     */
+    private boolean                       cached;
+
+    /**
+     * Similar to
+     * {@link #AbstractWindowAggregator(BinaryFunction, BinaryFunction, int, long)
+     * AbstractWindowAggregator(aggregationFunction,aggregationFunction,bucketCount,bucketDuration)}.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #add(Object)} and to
+     *            combine the buckets. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     * @param bucketCount
+     *            Number of buckets in the window. Must be greater than zero.
+     * @param bucketDuration
+     *            Duration of a bucket in miliseconds. Must be greater than
+     *            zero.
+     */
+    public AbstractWindowAggregator(BinaryFunction<T, T, T> aggregationFunction, int bucketCount,
+            long bucketDuration) {
+        this(aggregationFunction, aggregationFunction, bucketCount, bucketDuration);
+    }
+
+    /**
+     * Constructs a window made of <code>bucketCount</code> buckets of
+     * <code>bucketDuration</code> miliseconds each. Also it initializes all the
+     * buckets with the value returned by {@link #initialValue()}.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #add(Object)}. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     * @param combineFunction
+     *            Function used to combine the buckets. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     * @param bucketCount
+     *            Number of buckets in the window. Must be greater than zero.
+     * @param bucketDuration
+     *            Duration of a bucket in miliseconds. Must be greater than
+     *            zero.
+     */
+    public AbstractWindowAggregator(BinaryFunction<T, T, T> aggregationFunction,
+            BinaryFunction<T, T, T> combineFunction, int bucketCount, long bucketDuration) {
+        this.aggregationFunction = Validate.notNull(aggregationFunction, "BinaryFunction argument must not be null");
+        this.combineFunction = Validate.notNull(combineFunction, "Combine function argument must not be null");
+        Validate.isTrue(bucketCount > 0, "Number of buckets must be positive: %d", bucketCount);
+        Validate.isTrue(bucketDuration > 0L, "Bucket duration must be positive: %d", bucketDuration);
+        this.bucketCount = bucketCount;
+        this.bucketDuration = bucketDuration;
+        this.buckets = new ArrayList<T>(bucketCount + 1);
+        for (int i = 0; i <= bucketCount; i++) {
+            buckets.add(initialValue());
+        }
+        this.head = 0;
+        this.period = NOT_STARTED;
+    }
+
+    /**
+     * Adds the data to the current bucket, using the
+     * {@link #aggregationFunction}.
+     *
+     * @param data
+     *            Data to aggregate
+     */
+    public final void add(T data) {
+        lock.lock();
+        try {
+            advance();
+            buckets.set(head, aggregationFunction.evaluate(buckets.get(head), data));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Combines the current bucket and the <code>bucketCount - 1</code> buckets
+     * before it.
+     *
+     * @return aggregated value of the data added during the window which ends
+     *         now
+     */
+    public final T evaluate() {
+        lock.lock();
+        try {
+            advance();
+            updateCache();
+            return combineFunction.evaluate(recentCompleted, buckets.get(head));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Combines the <code>bucketCount</code> most recent completed buckets.
+     *
+     * @return aggregated value of the data added during the window which ended
+     *         at the start of the current bucket
+     */
+    public final T evaluateCompleted() {
+        lock.lock();
+        try {
+            advance();
+            updateCache();
+            return allCompleted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Resets all the buckets to the {@link #initialValue()}.
+     */
+    public final void reset() {
+        lock.lock();
+        try {
+            for (int i = 0; i < buckets.size(); i++) {
+                buckets.set(i, initialValue());
+            }
+            cached = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the window to the current time: starts a new bucket for each
+     * period elapsed since the current bucket was started, dropping the
+     * oldest ones. Must be called while holding the {@link #lock}.
+     */
+    private void advance() {
+        long now = currentTimeMillis() / bucketDuration;
+        if (period == NOT_STARTED) {
+            // first use: the current bucket starts now
+            period = now;
+            return;
+        }
+        if (now <= period) {
+            // same period (or the clock went back): keep the current bucket
+            return;
+        }
+        long elapsed = Math.min(now - period, buckets.size());
+        for (long i = 0; i < elapsed; i++) {
+            head = next(head);
+            buckets.set(head, initialValue());
+        }
+        period = now;
+        cached = false;
+    }
+
+    /**
+     * Recomputes {@link #recentCompleted} and {@link #allCompleted} if needed,
+     * by combining the completed buckets starting with the most recent one.
+     * Must be called while holding the {@link #lock}.
+     */
+    private void updateCache() {
+        if (cached) {
+            return;
+        }
+        T result = initialValue();
+        int index = head;
+        for (int i = 0; i < bucketCount - 1; i++) {
+            index = previous(index);
+            result = combineFunction.evaluate(result, buckets.get(index));
+        }
+        recentCompleted = result;
+        allCompleted = combineFunction.evaluate(result, buckets.get(previous(index)));
+        cached = true;
+    }
+
+    /**
+     * Computes the index of the bucket after the given one in the ring buffer.
+     *
+     * @param index
+     *            index of a bucket
+     * @return index of the next bucket
+     */
+    private int next(int index) {
+        return (index + 1) % buckets.size();
+    }
+
+    /**
+     * Computes the index of the bucket before the given one in the ring
+     * buffer.
+     *
+     * @param index
+     *            index of a bucket
+     * @return index of the previous bucket
+     */
+    private int previous(int index) {
+        return (index + buckets.size() - 1) % buckets.size();
+    }
+
+    /**
+     * Allows subclasses to define the "initial" value. This value will be
+     * stored in every new bucket, and when {@link #reset()} is called. It
+     * should be an identity for the combine function.
+     *
+     * @return Initial value to be used in each bucket.
+     */
+    protected abstract T initialValue();
+
+    /**
+     * Retrieves the current time, used to decide which bucket the data goes
+     * in. Returns <code>System.currentTimeMillis()</code>; subclasses can
+     * override it, e.g. to use a different clock.
+     *
+     * @return current time in miliseconds
+     */
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Getter for {@link #bucketCount}.
+     *
+     * @return Number of buckets in the window
+     */
+    public final int getBucketCount() {
+        return bucketCount;
+    }
+
+    /**
+     * Getter for {@link #bucketDuration}.
+     *
+     * @return Duration of a bucket in miliseconds
+     */
+    public final long getBucketDuration() {
+        return bucketDuration;
+    }
+
+    /**
+     * Computes the duration of the window.
+     *
+     * @return <code>bucketCount * bucketDuration</code>, in miliseconds
+     */
+    public final long getWindowDuration() {
+        return bucketCount * bucketDuration;
+    }
+
+    /**
+     * Getter for {@link #aggregationFunction}.
+     *
+     * @return Current value of the member.
+     */
+    final BinaryFunction<T, T, T> getAggregationFunction() {
+        return aggregationFunction;
+    }
+
+    /**
+     * Getter for {@link #combineFunction}.
+     *
+     * @return Current value of the member.
+     */
+    final BinaryFunction<T, T, T> getCombineFunction() {
+        return combineFunction;
+    }
+
+    @Override
+    public String toString() {
+        return AbstractWindowAggregator.class.getName();
+    }
+}
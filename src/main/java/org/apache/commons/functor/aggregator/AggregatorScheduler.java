@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import org.apache.commons.functor.Procedure;
+
+/**
+ * Schedules the regular flush/reset of {@link AbstractTimedAggregator timed
+ * aggregators}. By default, each timed aggregator schedules its flush with a
+ * <code>java.util.Timer</code> (either its own or a shared one); an instance of
+ * this interface can be passed in instead, e.g. a {@link TimerWheelScheduler}
+ * which batches all the aggregators with the same interval.
+ */
+public interface AggregatorScheduler {
+    /**
+     * Schedules the given task to run repeatedly, at the given interval. The
+     * first run takes place (roughly) one interval from now.
+     *
+     * @param task
+     *            task to run. The same task can't be scheduled twice.
+     * @param interval
+     *            interval in miliseconds between runs. Must be greater than
+     *            zero.
+     */
+    void schedule(Procedure task, long interval);
+
+    /**
+     * Cancels a task previously {@link #schedule(Procedure, long) scheduled},
+     * so it won't run again (though it might be running at the time of the
+     * call).
+     *
+     * @param task
+     *            task to cancel
+     * @return <code>true</code> if the task was scheduled (and is now
+     *         cancelled), <code>false</code> otherwise
+     */
+    boolean cancel(Procedure task);
+}
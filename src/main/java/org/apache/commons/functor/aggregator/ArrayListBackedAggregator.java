@@ -75,6 +75,24 @@ public class ArrayListBackedAggregator<T> extends AbstractListBackedAggregator<T
         super(aggregationFunction, interval, useSharedTimer);
     }
 
+    /**
+     * Initializes an aggregator with the given function and interval, whose
+     * flush is scheduled with the given scheduler.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #evaluate()}. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     * @param scheduler
+     *            scheduler to schedule the flush with, as per
+     *            {@link AbstractTimedAggregator#AbstractTimedAggregator(long, AggregatorScheduler)}
+     */
+    public ArrayListBackedAggregator(UnaryFunction<List<T>, T> aggregationFunction, long interval,
+            AggregatorScheduler scheduler) {
+        super(aggregationFunction, interval, scheduler);
+    }
+
     /**
      * Creates an instance of <code>ArrayList</code> and returns it.
      *
@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import java.util.concurrent.locks.Lock;
+
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.UnaryFunction;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Implementation of an aggregator which stores the data series in a growable
+ * array of primitive <code>double</code> values (a {@link DoubleSeries}) rather
+ * than a <code>List&lt;Double&gt;</code>. This avoids allocating an object for
+ * every value added, which matters when a lot of data is aggregated within
+ * each interval. Values can be added without boxing them at all via
+ * {@link #add(double)}.
+ * <p>
+ * The data series is aggregated by a {@link UnaryFunction
+ * UnaryFunction&lt;DoubleSeries, Double&gt;} passed in the constructor -- see the
+ * <code>DoubleSeries*AggregatorFunction</code> classes in
+ * <code>org.apache.commons.functor.aggregator.functions</code>. Note that
+ * <code>null</code> values cannot be stored.
+ * </p>
+ */
+public class DoubleArrayBackedAggregator extends AbstractTimedAggregator<Double> {
+    /**
+     * Stores the data series we ought to aggregate/evaluate. This can only be
+     * modified via {@link #reset()} and {@link #add(Object)} and will be
+     * traversed during {@link #evaluate()}.
+     */
+    private DoubleSeries                        series;
+
+    /**
+     * Used to actually aggregate the data when {@link #evaluate()} is called.
+     */
+    private UnaryFunction<DoubleSeries, Double> aggregationFunction;
+
+    /**
+     * Initial capacity of the {@link #series}.
+     */
+    private int                                 initialCapacity;
+
+    /**
+     * Similar to {@link #DoubleArrayBackedAggregator(UnaryFunction, long)
+     * DoubleArrayBackedAggregator(aggregationFunction, 0L)}.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #evaluate()}. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     */
+    public DoubleArrayBackedAggregator(UnaryFunction<DoubleSeries, Double> aggregationFunction) {
+        this(aggregationFunction, 0L);
+    }
+
+    /**
+     * Similar to
+     * {@link #DoubleArrayBackedAggregator(UnaryFunction, long, boolean)
+     * DoubleArrayBackedAggregator(aggregationFunction,interval,false)}.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #evaluate()}. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     */
+    public DoubleArrayBackedAggregator(UnaryFunction<DoubleSeries, Double> aggregationFunction, long interval) {
+        this(aggregationFunction, interval, false);
+    }
+
+    /**
+     * Similar to
+     * {@link #DoubleArrayBackedAggregator(UnaryFunction, int, long, boolean)
+     * DoubleArrayBackedAggregator(aggregationFunction,DoubleSeries.DEFAULT_CAPACITY,interval,useSharedTimer)}.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #evaluate()}. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     * @param useSharedTimer
+     *            if set to true, it shares a timer across instances as per
+     *            {@link AbstractTimedAggregator#AbstractTimedAggregator(long,boolean)}
+     *            , otherwise this instance will use its private timer
+     */
+    public DoubleArrayBackedAggregator(UnaryFunction<DoubleSeries, Double> aggregationFunction, long interval,
+            boolean useSharedTimer) {
+        this(aggregationFunction, DoubleSeries.DEFAULT_CAPACITY, interval, useSharedTimer);
+    }
+
+    /**
+     * Initializes an aggregator with the given function, initial capacity of
+     * the data series, interval and decides whether to use the shared timer or
+     * own timer.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #evaluate()}. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     * @param initialCapacity
+     *            initial capacity of the data series. Throws
+     *            <code>IllegalArgumentException</code> if negative.
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     * @param useSharedTimer
+     *            if set to true, it shares a timer across instances as per
+     *            {@link AbstractTimedAggregator#AbstractTimedAggregator(long,boolean)}
+     *            , otherwise this instance will use its private timer
+     */
+    public DoubleArrayBackedAggregator(UnaryFunction<DoubleSeries, Double> aggregationFunction, int initialCapacity,
+            long interval, boolean useSharedTimer) {
+        super(interval, useSharedTimer);
+        this.aggregationFunction = Validate.notNull(aggregationFunction, "UnaryFunction argument must not be null");
+        this.series = new DoubleSeries(initialCapacity);
+        this.initialCapacity = initialCapacity;
+    }
+
+    /**
+     * Adds a primitive value to the data series, without boxing it. Access to
+     * the data series is synchronized in the same way as for
+     * {@link #add(Object)}.
+     *
+     * @param data
+     *            Data to be added to the data series.
+     */
+    public final void add(double data) {
+        Lock lock = getDataLock().writeLock();
+        lock.lock();
+        try {
+            series.add(data);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds data to the series which will be aggregated. This implementation
+     * simply unboxes the data and adds it to the {@link #series}.
+     *
+     * @param data
+     *            Data to be added to the data series. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     */
+    @Override
+    protected final void doAdd(Double data) {
+        series.add(data.doubleValue());
+    }
+
+    /**
+     * Aggregates the data series by calling
+     * <code>aggregationFunction.evaluate(series)</code>.
+     *
+     * @return the result of <code>aggregationFunction.evaluate(series)</code>
+     * @see Aggregator#evaluate()
+     */
+    @Override
+    protected final Double doEvaluate() {
+        return aggregationFunction.evaluate(series);
+    }
+
+    /**
+     * Resets the data series to the empty state, keeping the underlying array.
+     */
+    @Override
+    protected final void doReset() {
+        series.clear();
+    }
+
+    /**
+     * Swaps the data series with a new, empty one and returns a function which
+     * aggregates the previous one. The new series is created with enough
+     * capacity to hold as much data as the previous one, so it doesn't need to
+     * grow again if the rate at which data is added stays the same.
+     *
+     * @return Function which evaluates to
+     *         <code>aggregationFunction.evaluate(series)</code> for the series
+     *         prior to the reset
+     * @see AbstractTimedAggregator#evaluateAndReset()
+     */
+    @Override
+    protected final Function<Double> doSnapshotAndReset() {
+        final DoubleSeries frozen = series;
+        series = new DoubleSeries(Math.max(initialCapacity, frozen.size()));
+        return new Function<Double>() {
+            public Double evaluate() {
+                return aggregationFunction.evaluate(frozen);
+            }
+        };
+    }
+
+    /**
+     * Simply returns the size of the data series.
+     *
+     * @return Size of {@link #series}
+     */
+    @Override
+    protected final int retrieveDataSize() {
+        return series.size();
+    }
+
+    /**
+     * Getter for {@link #series}.
+     *
+     * @return Value of {@link #series}
+     */
+    protected final DoubleSeries getSeries() {
+        return series;
+    }
+
+    /**
+     * Getter for {@link #aggregationFunction}. Provided for testing purposes
+     * only.
+     *
+     * @return Current value of {@link #aggregationFunction}
+     */
+    final UnaryFunction<DoubleSeries, Double> getAggregationFunction() {
+        return aggregationFunction;
+    }
+
+    @Override
+    public String toString() {
+        return DoubleArrayBackedAggregator.class.getName();
+    }
+}
@@ -0,0 +1,646 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A bounded-memory summary of a stream of <code>double</code> values which can
+ * answer percentile queries with a guaranteed <i>relative</i> error, without
+ * storing the values themselves. Used by
+ * {@link DoubleSketchPercentileAggregator}.
+ * <p>
+ * Values are counted in logarithmically sized buckets: bucket <code>i</code>
+ * holds the values in <code>(gamma<sup>i-1</sup>, gamma<sup>i</sup>]</code>
+ * where <code>gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy)</code>.
+ * Any value returned by {@link #getPercentile(double)} is then within
+ * <code>relativeAccuracy</code> (relative) of the exact percentile of the data
+ * added. For instance, with a relative accuracy of 1%, the values between 1
+ * microsecond and 1 hour are covered by about 1100 buckets. Negative values
+ * are counted in a separate set of buckets, and zeroes in a single counter.
+ * </p>
+ * <p>
+ * The number of buckets is capped: if the values added span more buckets than
+ * allowed, the buckets holding the values closest to zero are collapsed into
+ * one, which only affects the accuracy of the lowest percentiles.
+ * </p>
+ * <p>
+ * <b>Thread safety</b> : This class is not synchronized; when used by
+ * {@link DoubleSketchPercentileAggregator}, access to it is synchronized by
+ * {@link AbstractTimedAggregator}.
+ * </p>
+ */
+public final class DoubleQuantileSketch {
+    /**
+     * Default relative accuracy: 1%.
+     */
+    public static final double  DEFAULT_RELATIVE_ACCURACY = 0.01;
+
+    /**
+     * Default maximum number of buckets used for positive values (and the same
+     * again for negative values).
+     */
+    public static final int     DEFAULT_MAX_BUCKETS = 2048;
+
+    /** A percentile goes from 0 to 100% and that's it. */
+    private static final double MAX_PERCENTAGE = 100.0;
+
+    /**
+     * Relative accuracy guaranteed for the percentiles.
+     */
+    private final double        relativeAccuracy;
+
+    /**
+     * Maximum number of buckets in each of {@link #positive} and
+     * {@link #negative}.
+     */
+    private final int           maxBuckets;
+
+    /**
+     * Base of the logarithmic buckets.
+     */
+    private final double        gamma;
+
+    /**
+     * Natural logarithm of {@link #gamma}, cached.
+     */
+    private final double        logGamma;
+
+    /**
+     * Buckets for the positive values.
+     */
+    private final Buckets       positive;
+
+    /**
+     * Buckets for the negative values (indexed by their absolute value).
+     */
+    private final Buckets       negative;
+
+    /**
+     * Number of zeroes added.
+     */
+    private long                zeroCount;
+
+    /**
+     * Total number of values added.
+     */
+    private long                count;
+
+    /**
+     * Sum of all the values added.
+     */
+    private double              sum;
+
+    /**
+     * Smallest value added.
+     */
+    private double              min;
+
+    /**
+     * Largest value added.
+     */
+    private double              max;
+
+    /**
+     * Creates a sketch with the {@link #DEFAULT_RELATIVE_ACCURACY default
+     * relative accuracy} and {@link #DEFAULT_MAX_BUCKETS default maximum
+     * number of buckets}.
+     */
+    public DoubleQuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    /**
+     * Creates a sketch with the given relative accuracy and the
+     * {@link #DEFAULT_MAX_BUCKETS default maximum number of buckets}.
+     *
+     * @param relativeAccuracy
+     *            relative accuracy guaranteed for the percentiles. Must be
+     *            greater than 0 and less than 1.
+     */
+    public DoubleQuantileSketch(double relativeAccuracy) {
+        this(relativeAccuracy, DEFAULT_MAX_BUCKETS);
+    }
+
+    /**
+     * Creates a sketch with the given relative accuracy and maximum number of
+     * buckets.
+     *
+     * @param relativeAccuracy
+     *            relative accuracy guaranteed for the percentiles. Must be
+     *            greater than 0 and less than 1.
+     * @param maxBuckets
+     *            maximum number of buckets used for positive values (and the
+     *            same again for negative values). Must be greater than zero.
+     */
+    public DoubleQuantileSketch(double relativeAccuracy, int maxBuckets) {
+        if (!(relativeAccuracy > 0.0 && relativeAccuracy < 1.0)) {
+            throw new IllegalArgumentException("Invalid value for relative accuracy: " + relativeAccuracy);
+        }
+        if (maxBuckets <= 0) {
+            throw new IllegalArgumentException("Invalid value for maximum number of buckets: " + maxBuckets);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxBuckets = maxBuckets;
+        this.gamma = (1.0 + relativeAccuracy) / (1.0 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.positive = new Buckets(maxBuckets);
+        this.negative = new Buckets(maxBuckets);
+        clear();
+    }
+
+    /**
+     * Adds a value to this sketch.
+     *
+     * @param value
+     *            value to add. Throws <code>IllegalArgumentException</code> if
+     *            this is <code>NaN</code> or infinite.
+     */
+    public void add(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("Invalid value: " + value);
+        }
+        if (value > 0.0) {
+            positive.add(index(value), 1L);
+        } else if (value < 0.0) {
+            negative.add(index(-value), 1L);
+        } else {
+            zeroCount++;
+        }
+        count++;
+        sum += value;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Computes the approximate value of the given percentile of the data added
+     * so far. The rank of the value is computed in the same way as in
+     * {@link org.apache.commons.functor.aggregator.functions.DoublePercentileAggregatorFunction}
+     * : <code>floor((percentile / 100) * (N - 1))</code>. The smallest and
+     * largest values are tracked exactly, so the first and last ranks are
+     * always returned exactly.
+     *
+     * @param percentile
+     *            percentile to compute, between 0 and 100
+     * @return approximate value of the percentile, within the relative
+     *         accuracy of this sketch; <code>NaN</code> if the sketch is empty
+     */
+    public double getPercentile(double percentile) {
+        if (percentile < 0.0 || percentile > MAX_PERCENTAGE) {
+            throw new IllegalArgumentException("Invalid value for percentile: " + percentile);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) Math.floor((percentile * (count - 1)) / MAX_PERCENTAGE);
+        // the extremes are known exactly
+        if (rank == 0) {
+            return min;
+        }
+        if (rank == count - 1) {
+            return max;
+        }
+        double estimate;
+        if (rank < negative.total) {
+            estimate = -value(negative.indexOfRank(negative.total - 1 - rank));
+        } else if (rank < negative.total + zeroCount) {
+            estimate = 0.0;
+        } else {
+            estimate = value(positive.indexOfRank(rank - negative.total - zeroCount));
+        }
+        // never return anything outside the extremes
+        return Math.max(min, Math.min(max, estimate));
+    }
+
+    /**
+     * Removes all the data from this sketch, keeping the buckets allocated.
+     */
+    public void clear() {
+        positive.clear();
+        negative.clear();
+        zeroCount = 0;
+        count = 0;
+        sum = 0.0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Creates an empty sketch with the same relative accuracy and maximum
+     * number of buckets as this one.
+     *
+     * @return newly created empty sketch
+     */
+    public DoubleQuantileSketch newEmpty() {
+        return new DoubleQuantileSketch(relativeAccuracy, maxBuckets);
+    }
+
+    /**
+     * Creates a copy of this sketch.
+     *
+     * @return newly created sketch holding the same data as this one
+     */
+    public DoubleQuantileSketch copy() {
+        DoubleQuantileSketch copy = newEmpty();
+        copy.positive.addAll(positive);
+        copy.negative.addAll(negative);
+        copy.zeroCount = zeroCount;
+        copy.count = count;
+        copy.sum = sum;
+        copy.min = min;
+        copy.max = max;
+        return copy;
+    }
+
+    /**
+     * Adds all the data of another sketch to this one, as if every value added
+     * to <code>other</code> had been added to this sketch. This allows the data
+     * to be counted in several sketches (e.g. per thread or per node) and
+     * rolled up afterwards: the percentiles of the merged sketch have the same
+     * accuracy as if all the data had been added to a single sketch.
+     *
+     * @param other
+     *            sketch to merge into this one; it is not modified. Throws
+     *            <code>IllegalArgumentException</code> if its relative
+     *            accuracy differs from the one of this sketch, as the buckets
+     *            wouldn't match
+     */
+    public void merge(DoubleQuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge a sketch with relative accuracy "
+                    + other.relativeAccuracy + " into a sketch with relative accuracy " + relativeAccuracy);
+        }
+        if (other.count == 0) {
+            return;
+        }
+        positive.addAll(other.positive);
+        negative.addAll(other.negative);
+        zeroCount += other.zeroCount;
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Writes this sketch, for {@link SnapshotCodec}.
+     *
+     * @param out
+     *            where to write
+     */
+    void writeTo(SnapshotCodec.Output out) {
+        out.writeDouble(relativeAccuracy);
+        out.writeVarLong(maxBuckets);
+        out.writeVarLong(count);
+        out.writeVarLong(zeroCount);
+        out.writeDouble(sum);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        positive.writeTo(out);
+        negative.writeTo(out);
+    }
+
+    /**
+     * Reads a sketch written by {@link #writeTo(SnapshotCodec.Output)}.
+     *
+     * @param in
+     *            where to read from
+     * @return sketch read
+     */
+    static DoubleQuantileSketch readFrom(ByteBuffer in) {
+        double relativeAccuracy = in.getDouble();
+        long maxBuckets = SnapshotCodec.readVarLong(in);
+        if (maxBuckets <= 0L || maxBuckets > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid value for maximum number of buckets: " + maxBuckets);
+        }
+        DoubleQuantileSketch sketch = new DoubleQuantileSketch(relativeAccuracy, (int) maxBuckets);
+        sketch.count = SnapshotCodec.readVarLong(in);
+        sketch.zeroCount = SnapshotCodec.readVarLong(in);
+        sketch.sum = in.getDouble();
+        sketch.min = in.getDouble();
+        sketch.max = in.getDouble();
+        sketch.positive.readFrom(in);
+        sketch.negative.readFrom(in);
+        return sketch;
+    }
+
+    /**
+     * Checks whether any data has been added to this sketch.
+     *
+     * @return <code>true</code> if no data was added since the sketch was
+     *         created or last cleared
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Retrieves the number of values added.
+     *
+     * @return number of values added
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Retrieves the (exact) sum of the values added.
+     *
+     * @return sum of the values added, 0 if the sketch is empty
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * Retrieves the (exact) smallest value added.
+     *
+     * @return smallest value added, <code>NaN</code> if the sketch is empty
+     */
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * Retrieves the (exact) largest value added.
+     *
+     * @return largest value added, <code>NaN</code> if the sketch is empty
+     */
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * Getter for {@link #relativeAccuracy}.
+     *
+     * @return relative accuracy guaranteed for the percentiles
+     */
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Getter for {@link #maxBuckets}.
+     *
+     * @return maximum number of buckets used for positive (and negative)
+     *         values
+     */
+    public int getMaxBuckets() {
+        return maxBuckets;
+    }
+
+    /**
+     * Computes the index of the bucket for a (strictly positive) value.
+     *
+     * @param value
+     *            value to find the bucket for
+     * @return index of the bucket
+     */
+    private int index(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    /**
+     * Computes the value representing a bucket: this is within the relative
+     * accuracy of any value in the bucket.
+     *
+     * @param index
+     *            index of the bucket
+     * @return value representing all the values in the bucket
+     */
+    private double value(int index) {
+        return 2.0 * Math.pow(gamma, index) / (gamma + 1.0);
+    }
+
+    @Override
+    public String toString() {
+        return DoubleQuantileSketch.class.getName();
+    }
+
+    /**
+     * A contiguous range of bucket counters, which grows in both directions as
+     * needed (up to a maximum number of buckets) and collapses the lowest
+     * buckets when the maximum is exceeded.
+     */
+    private static final class Buckets {
+        /**
+         * Initial number of counters allocated.
+         */
+        private static final int INITIAL_CAPACITY = 64;
+
+        /**
+         * Maximum number of buckets.
+         */
+        private final int        maxBuckets;
+
+        /**
+         * Counters; <code>counts[i]</code> holds the count for the bucket
+         * with index <code>i + offset</code>.
+         */
+        private long[]           counts;
+
+        /**
+         * Index of the bucket stored in <code>counts[0]</code>.
+         */
+        private int              offset;
+
+        /**
+         * Lowest bucket index used.
+         */
+        private int              minIndex;
+
+        /**
+         * Highest bucket index used.
+         */
+        private int              maxIndex;
+
+        /**
+         * Sum of all the counters.
+         */
+        private long             total;
+
+        /**
+         * Creates an empty set of buckets.
+         *
+         * @param maxBuckets
+         *            maximum number of buckets
+         */
+        Buckets(int maxBuckets) {
+            this.maxBuckets = maxBuckets;
+            this.counts = new long[Math.min(INITIAL_CAPACITY, maxBuckets)];
+        }
+
+        /**
+         * Adds <code>n</code> to the counter of the given bucket.
+         *
+         * @param index
+         *            index of the bucket
+         * @param n
+         *            value to add to the counter
+         */
+        void add(int index, long n) {
+            int target = index;
+            if (total == 0) {
+                offset = index - counts.length / 2;
+                minIndex = index;
+                maxIndex = index;
+            } else if (index < minIndex || index > maxIndex) {
+                target = extendRange(index);
+            }
+            counts[target - offset] += n;
+            total += n;
+        }
+
+        /**
+         * Adds all the counters of the given buckets to these ones.
+         *
+         * @param other
+         *            buckets to add
+         */
+        void addAll(Buckets other) {
+            if (other.total == 0) {
+                return;
+            }
+            for (int i = other.minIndex; i <= other.maxIndex; i++) {
+                long n = other.counts[i - other.offset];
+                if (n != 0) {
+                    add(i, n);
+                }
+            }
+        }
+
+        /**
+         * Extends the range of buckets used so it includes the given index,
+         * reallocating the counters if needed and collapsing the lowest
+         * buckets if the maximum number of buckets would be exceeded.
+         *
+         * @param index
+         *            index of the bucket to include
+         * @return index of the bucket the value should be counted in (which is
+         *         <code>index</code> unless it had to be collapsed)
+         */
+        private int extendRange(int index) {
+            int newMin = Math.min(minIndex, index);
+            int newMax = Math.max(maxIndex, index);
+            if (newMax - newMin >= maxBuckets) {
+                newMin = newMax - maxBuckets + 1;
+            }
+            if (newMin < offset || newMax >= offset + counts.length) {
+                int needed = newMax - newMin + 1;
+                int capacity = counts.length;
+                while (capacity < needed) {
+                    capacity <<= 1;
+                }
+                long[] grown = new long[capacity];
+                int newOffset = newMin - (capacity - needed) / 2;
+                for (int i = minIndex; i <= maxIndex; i++) {
+                    grown[Math.max(i, newMin) - newOffset] += counts[i - offset];
+                }
+                counts = grown;
+                offset = newOffset;
+            } else if (newMin > minIndex) {
+                long collapsed = 0;
+                for (int i = minIndex; i < newMin; i++) {
+                    collapsed += counts[i - offset];
+                    counts[i - offset] = 0;
+                }
+                counts[newMin - offset] += collapsed;
+            }
+            minIndex = newMin;
+            maxIndex = newMax;
+            return Math.max(index, newMin);
+        }
+
+        /**
+         * Finds the bucket holding the value with the given rank (zero-based,
+         * in ascending order of the bucket indexes).
+         *
+         * @param rank
+         *            rank of the value, less than {@link #total}
+         * @return index of the bucket holding it
+         */
+        int indexOfRank(long rank) {
+            long seen = 0;
+            for (int i = minIndex; i < maxIndex; i++) {
+                seen += counts[i - offset];
+                if (seen > rank) {
+                    return i;
+                }
+            }
+            return maxIndex;
+        }
+
+        /**
+         * Resets all the counters to zero.
+         */
+        void clear() {
+            if (total != 0) {
+                for (int i = minIndex; i <= maxIndex; i++) {
+                    counts[i - offset] = 0;
+                }
+            }
+            total = 0;
+        }
+
+        /**
+         * Writes the counters: the number of buckets in use, then (if any) the
+         * index of the first one and each counter.
+         *
+         * @param out
+         *            where to write
+         */
+        void writeTo(SnapshotCodec.Output out) {
+            if (total == 0) {
+                out.writeVarLong(0L);
+                return;
+            }
+            out.writeVarLong(maxIndex - minIndex + 1);
+            out.writeSignedVarLong(minIndex);
+            for (int i = minIndex; i <= maxIndex; i++) {
+                out.writeVarLong(counts[i - offset]);
+            }
+        }
+
+        /**
+         * Adds the counters written by {@link #writeTo(SnapshotCodec.Output)}.
+         *
+         * @param in
+         *            where to read from
+         */
+        void readFrom(ByteBuffer in) {
+            long used = SnapshotCodec.readVarLong(in);
+            if (used == 0L) {
+                return;
+            }
+            if (used < 0L || used > maxBuckets || used > in.remaining()) {
+                throw new IllegalArgumentException("Invalid number of buckets: " + used);
+            }
+            int first = (int) SnapshotCodec.readSignedVarLong(in);
+            for (int i = 0; i < used; i++) {
+                long n = SnapshotCodec.readVarLong(in);
+                if (n != 0) {
+                    add(first + i, n);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import java.util.concurrent.locks.Lock;
+
+import org.apache.commons.functor.Function;
+
+/**
+ * An aggregator which computes an approximate percentile of the data added,
+ * without storing the data series. Unlike using an
+ * {@link ArrayListBackedAggregator} with a
+ * {@link org.apache.commons.functor.aggregator.functions.DoublePercentileAggregatorFunction}
+ * -- which stores every value and sorts them all on each evaluation -- this
+ * aggregator counts the values in a {@link DoubleQuantileSketch}, which uses a
+ * bounded amount of memory regardless of how much data is added, and
+ * evaluates in time proportional to the number of buckets rather than the
+ * number of values. The result is guaranteed to be within the configured
+ * relative accuracy of the exact percentile.
+ * <p>
+ * {@link #evaluate()} returns the percentile specified in the constructor;
+ * other percentiles (e.g. p50, p99 and p999 of the same data) can be
+ * retrieved via {@link #getPercentile(double)}.
+ * </p>
+ * <p>
+ * The sketch can be exported and merged into another aggregator (with the same
+ * relative accuracy), so percentiles can be computed per thread or per node
+ * and rolled up centrally -- which is not possible with the percentiles
+ * themselves.
+ * </p>
+ */
+public class DoubleSketchPercentileAggregator extends AbstractTimedAggregator<Double> implements
+        MergeableAggregator<Double, DoubleQuantileSketch> {
+    /** A percentile goes from 0 to 100% and that's it. */
+    private static final double  MAX_PERCENTAGE = 100.0;
+
+    /**
+     * Percentile returned by {@link #evaluate()}.
+     */
+    private double               percentile;
+
+    /**
+     * Counts the data added since the last reset.
+     */
+    private DoubleQuantileSketch sketch;
+
+    /**
+     * Similar to
+     * {@link #DoubleSketchPercentileAggregator(double, double, long)
+     * DoubleSketchPercentileAggregator(percentile,relativeAccuracy,0L)}.
+     *
+     * @param percentile
+     *            Percentile returned by {@link #evaluate()}
+     * @param relativeAccuracy
+     *            Relative accuracy of the results. Must be greater than 0 and
+     *            less than 1.
+     */
+    public DoubleSketchPercentileAggregator(double percentile, double relativeAccuracy) {
+        this(percentile, relativeAccuracy, 0L);
+    }
+
+    /**
+     * Similar to
+     * {@link #DoubleSketchPercentileAggregator(double, double, long, boolean)
+     * DoubleSketchPercentileAggregator(percentile,relativeAccuracy,interval,false)}.
+     *
+     * @param percentile
+     *            Percentile returned by {@link #evaluate()}
+     * @param relativeAccuracy
+     *            Relative accuracy of the results. Must be greater than 0 and
+     *            less than 1.
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     */
+    public DoubleSketchPercentileAggregator(double percentile, double relativeAccuracy, long interval) {
+        this(percentile, relativeAccuracy, interval, false);
+    }
+
+    /**
+     * Similar to
+     * {@link #DoubleSketchPercentileAggregator(double, double, int, long, boolean)
+     * DoubleSketchPercentileAggregator(percentile,relativeAccuracy,DoubleQuantileSketch.DEFAULT_MAX_BUCKETS,
+     * interval,useSharedTimer)}.
+     *
+     * @param percentile
+     *            Percentile returned by {@link #evaluate()}
+     * @param relativeAccuracy
+     *            Relative accuracy of the results. Must be greater than 0 and
+     *            less than 1.
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     * @param useSharedTimer
+     *            if set to true, it shares a timer across instances as per
+     *            {@link AbstractTimedAggregator#AbstractTimedAggregator(long,boolean)}
+     *            , otherwise this instance will use its private timer
+     */
+    public DoubleSketchPercentileAggregator(double percentile, double relativeAccuracy, long interval,
+            boolean useSharedTimer) {
+        this(percentile, relativeAccuracy, DoubleQuantileSketch.DEFAULT_MAX_BUCKETS, interval, useSharedTimer);
+    }
+
+    /**
+     * Initializes an aggregator for the given percentile, with the given
+     * accuracy and memory bound, interval and decides whether to use the
+     * shared timer or own timer.
+     *
+     * @param percentile
+     *            Percentile returned by {@link #evaluate()}
+     * @param relativeAccuracy
+     *            Relative accuracy of the results. Must be greater than 0 and
+     *            less than 1.
+     * @param maxBuckets
+     *            Maximum number of buckets used by the sketch, see
+     *            {@link DoubleQuantileSketch#DoubleQuantileSketch(double, int)}
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     * @param useSharedTimer
+     *            if set to true, it shares a timer across instances as per
+     *            {@link AbstractTimedAggregator#AbstractTimedAggregator(long,boolean)}
+     *            , otherwise this instance will use its private timer
+     */
+    public DoubleSketchPercentileAggregator(double percentile, double relativeAccuracy, int maxBuckets,
+            long interval, boolean useSharedTimer) {
+        super(interval, useSharedTimer);
+        if (percentile < 0.0 || percentile > MAX_PERCENTAGE) {
+            throw new IllegalArgumentException("Invalid value for percentile: " + percentile);
+        }
+        this.percentile = percentile;
+        this.sketch = new DoubleQuantileSketch(relativeAccuracy, maxBuckets);
+    }
+
+    /**
+     * Adds a primitive value, without boxing it. Access to the sketch is
+     * synchronized in the same way as for {@link #add(Object)}.
+     *
+     * @param data
+     *            Data to be added.
+     */
+    public final void add(double data) {
+        Lock lock = getDataLock().writeLock();
+        lock.lock();
+        try {
+            sketch.add(data);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the data to the {@link #sketch}.
+     *
+     * @param data
+     *            Data to be added. Throws <code>NullPointerException</code> if
+     *            this is <code>null</code>.
+     */
+    @Override
+    protected final void doAdd(Double data) {
+        sketch.add(data.doubleValue());
+    }
+
+    /**
+     * Computes the {@link #percentile} of the data added since the last reset.
+     *
+     * @return approximate value of the percentile or <code>null</code> if no
+     *         data was added
+     */
+    @Override
+    protected final Double doEvaluate() {
+        return evaluate(sketch, percentile);
+    }
+
+    /**
+     * Clears the {@link #sketch}.
+     */
+    @Override
+    protected final void doReset() {
+        sketch.clear();
+    }
+
+    /**
+     * Swaps the {@link #sketch} with an empty one and returns a function which
+     * computes the percentile of the previous one.
+     *
+     * @return Function which evaluates to the {@link #percentile} of the data
+     *         added prior to the reset
+     * @see AbstractTimedAggregator#evaluateAndReset()
+     */
+    @Override
+    protected final Function<Double> doSnapshotAndReset() {
+        final DoubleQuantileSketch frozen = sketch;
+        sketch = frozen.newEmpty();
+        return new Function<Double>() {
+            public Double evaluate() {
+                return DoubleSketchPercentileAggregator.evaluate(frozen, percentile);
+            }
+        };
+    }
+
+    /**
+     * Computes any percentile of the data added since the last reset. Access to
+     * the sketch is synchronized in the same way as for {@link #evaluate()}.
+     *
+     * @param p
+     *            Percentile to compute, between 0 and 100
+     * @return approximate value of the percentile or <code>null</code> if no
+     *         data was added
+     */
+    public final Double getPercentile(double p) {
+        Lock lock = getDataLock().readLock();
+        lock.lock();
+        try {
+            return evaluate(sketch, p);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves a copy of the sketch holding the data added since the last
+     * reset, e.g. to compute several percentiles of the same data.
+     *
+     * @return copy of the {@link #sketch}
+     */
+    public final DoubleQuantileSketch getSketch() {
+        Lock lock = getDataLock().readLock();
+        lock.lock();
+        try {
+            return sketch.copy();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves a copy of the sketch, as per {@link #getSketch()}.
+     *
+     * @return copy of the {@link #sketch}
+     */
+    public final DoubleQuantileSketch exportState() {
+        return getSketch();
+    }
+
+    /**
+     * Merges the data counted in the given sketch into the {@link #sketch}, as
+     * per {@link DoubleQuantileSketch#merge(DoubleQuantileSketch)}.
+     *
+     * @param state
+     *            sketch to merge, with the same relative accuracy as this
+     *            aggregator. It is not modified.
+     */
+    public final void merge(DoubleQuantileSketch state) {
+        Lock lock = getDataLock().writeLock();
+        lock.lock();
+        try {
+            sketch.merge(state);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Getter for {@link #percentile}.
+     *
+     * @return Percentile returned by {@link #evaluate()}
+     */
+    public final double getPercentile() {
+        return percentile;
+    }
+
+    /**
+     * Computes the given percentile of a sketch.
+     *
+     * @param sketch
+     *            sketch to compute the percentile of
+     * @param p
+     *            percentile to compute
+     * @return approximate value of the percentile or <code>null</code> if the
+     *         sketch is empty
+     */
+    private static Double evaluate(DoubleQuantileSketch sketch, double p) {
+        if (sketch.isEmpty()) {
+            return null;
+        }
+        return sketch.getPercentile(p);
+    }
+
+    /**
+     * This aggregator doesn't store the data series, so the data series size
+     * is always 0 (zero).
+     *
+     * @return 0
+     */
+    @Override
+    protected final int retrieveDataSize() {
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return DoubleSketchPercentileAggregator.class.getName();
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+/**
+ * Immutable summary of a series of <code>double</code> values: their count,
+ * sum, minimum and maximum. This is the partial state exported by
+ * {@link DoubleSummaryAggregator}; two summaries can be merged into the
+ * summary of both series, which makes it possible to compute e.g. the exact
+ * mean of data aggregated in several places.
+ */
+public final class DoubleSummary {
+    /**
+     * Summary of an empty series.
+     */
+    public static final DoubleSummary EMPTY = new DoubleSummary(0L, 0.0, Double.POSITIVE_INFINITY,
+                                                Double.NEGATIVE_INFINITY);
+
+    /**
+     * Number of values.
+     */
+    private final long                count;
+
+    /**
+     * Sum of the values.
+     */
+    private final double              sum;
+
+    /**
+     * Smallest value, <code>+Infinity</code> if there are no values.
+     */
+    private final double              min;
+
+    /**
+     * Largest value, <code>-Infinity</code> if there are no values.
+     */
+    private final double              max;
+
+    /**
+     * Creates a summary.
+     *
+     * @param count
+     *            number of values. Must not be negative.
+     * @param sum
+     *            sum of the values
+     * @param min
+     *            smallest value, or <code>+Infinity</code> if
+     *            <code>count</code> is 0
+     * @param max
+     *            largest value, or <code>-Infinity</code> if
+     *            <code>count</code> is 0
+     */
+    public DoubleSummary(long count, double sum, double min, double max) {
+        if (count < 0L) {
+            throw new IllegalArgumentException("Invalid count: " + count);
+        }
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Merges this summary with another one.
+     *
+     * @param other
+     *            summary to merge with this one
+     * @return summary of the values summarized by both
+     */
+    public DoubleSummary merge(DoubleSummary other) {
+        if (other.count == 0L) {
+            return this;
+        }
+        if (count == 0L) {
+            return other;
+        }
+        return new DoubleSummary(count + other.count, sum + other.sum, Math.min(min, other.min),
+                Math.max(max, other.max));
+    }
+
+    /**
+     * Getter for {@link #count}.
+     *
+     * @return number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Getter for {@link #sum}.
+     *
+     * @return sum of the values, 0 if there are none
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * Getter for {@link #min}.
+     *
+     * @return smallest value, <code>NaN</code> if there are none
+     */
+    public double getMin() {
+        return count == 0L ? Double.NaN : min;
+    }
+
+    /**
+     * Getter for {@link #max}.
+     *
+     * @return largest value, <code>NaN</code> if there are none
+     */
+    public double getMax() {
+        return count == 0L ? Double.NaN : max;
+    }
+
+    /**
+     * Computes the arithmetic mean of the values.
+     *
+     * @return mean of the values, <code>NaN</code> if there are none
+     */
+    public double getMean() {
+        return count == 0L ? Double.NaN : sum / count;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof DoubleSummary)) {
+            return false;
+        }
+        DoubleSummary that = (DoubleSummary) obj;
+        return count == that.count && Double.compare(sum, that.sum) == 0 && Double.compare(min, that.min) == 0
+                && Double.compare(max, that.max) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = "DoubleSummary".hashCode();
+        hash ^= (int) (count ^ (count >>> 32));
+        hash = hash * 31 + hashCode(sum);
+        hash = hash * 31 + hashCode(min);
+        hash = hash * 31 + hashCode(max);
+        return hash;
+    }
+
+    /**
+     * Computes the hash code of a <code>double</code>, in the same way as
+     * <code>Double.hashCode()</code>.
+     *
+     * @param value
+     *            value to hash
+     * @return hash code of the value
+     */
+    private static int hashCode(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return (int) (bits ^ (bits >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "DoubleSummary<count=" + count + ", sum=" + sum + ", min=" + getMin() + ", max=" + getMax() + ">";
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import java.util.concurrent.locks.Lock;
+
+/**
+ * An aggregator which computes the arithmetic mean of the data added, without
+ * storing the data series: it only keeps the count, sum, minimum and maximum
+ * of the values, which are exported as a {@link DoubleSummary}. Unlike means,
+ * summaries can be merged, so instances of this class can aggregate data per
+ * thread or per node and be rolled up into the exact overall mean (and
+ * count, sum, minimum and maximum) via {@link #merge(DoubleSummary)}.
+ */
+public class DoubleSummaryAggregator extends AbstractTimedAggregator<Double> implements
+        MergeableAggregator<Double, DoubleSummary> {
+    /**
+     * Number of values added since the last reset.
+     */
+    private long   count;
+
+    /**
+     * Sum of the values added since the last reset.
+     */
+    private double sum;
+
+    /**
+     * Smallest value added since the last reset.
+     */
+    private double min;
+
+    /**
+     * Largest value added since the last reset.
+     */
+    private double max;
+
+    /**
+     * Similar to {@link #DoubleSummaryAggregator(long)
+     * DoubleSummaryAggregator(0L)}.
+     */
+    public DoubleSummaryAggregator() {
+        this(0L);
+    }
+
+    /**
+     * Similar to {@link #DoubleSummaryAggregator(long, boolean)
+     * DoubleSummaryAggregator(interval,false)}.
+     *
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     */
+    public DoubleSummaryAggregator(long interval) {
+        this(interval, false);
+    }
+
+    /**
+     * Initializes an aggregator with the given interval and decides whether to
+     * use the shared timer or own timer.
+     *
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     * @param useSharedTimer
+     *            if set to true, it shares a timer across instances as per
+     *            {@link AbstractTimedAggregator#AbstractTimedAggregator(long,boolean)}
+     *            , otherwise this instance will use its private timer
+     */
+    public DoubleSummaryAggregator(long interval, boolean useSharedTimer) {
+        super(interval, useSharedTimer);
+        doReset();
+    }
+
+    /**
+     * Initializes an aggregator which resets itself at the given interval, as
+     * scheduled by the given scheduler.
+     *
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     * @param scheduler
+     *            scheduler to schedule the flush with
+     * @see AbstractTimedAggregator#AbstractTimedAggregator(long, AggregatorScheduler)
+     */
+    public DoubleSummaryAggregator(long interval, AggregatorScheduler scheduler) {
+        super(interval, scheduler);
+        doReset();
+    }
+
+    /**
+     * Adds a primitive value, without boxing it. Access to the summary is
+     * synchronized in the same way as for {@link #add(Object)}.
+     *
+     * @param data
+     *            Data to be added.
+     */
+    public final void add(double data) {
+        Lock lock = getDataLock().writeLock();
+        lock.lock();
+        try {
+            doAdd(data);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the data to the summary.
+     *
+     * @param data
+     *            Data to be added. Throws <code>NullPointerException</code> if
+     *            this is <code>null</code>.
+     */
+    @Override
+    protected final void doAdd(Double data) {
+        doAdd(data.doubleValue());
+    }
+
+    /**
+     * Adds a value to the summary. Called while holding the write lock.
+     *
+     * @param data
+     *            Data to be added.
+     */
+    private void doAdd(double data) {
+        count++;
+        sum += data;
+        if (data < min) {
+            min = data;
+        }
+        if (data > max) {
+            max = data;
+        }
+    }
+
+    /**
+     * Computes the arithmetic mean of the data added since the last reset.
+     *
+     * @return mean of the data, or <code>null</code> if no data was added
+     */
+    @Override
+    protected final Double doEvaluate() {
+        if (count == 0L) {
+            return null;
+        }
+        return sum / count;
+    }
+
+    /**
+     * Clears the summary.
+     */
+    @Override
+    protected final void doReset() {
+        count = 0L;
+        sum = 0.0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final DoubleSummary exportState() {
+        Lock lock = getDataLock().readLock();
+        lock.lock();
+        try {
+            return new DoubleSummary(count, sum, min, max);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final void merge(DoubleSummary state) {
+        if (state.getCount() == 0L) {
+            return;
+        }
+        Lock lock = getDataLock().writeLock();
+        lock.lock();
+        try {
+            count += state.getCount();
+            sum += state.getSum();
+            min = Math.min(min, state.getMin());
+            max = Math.max(max, state.getMax());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * This aggregator doesn't store the data series, so the data series size
+     * is always 0 (zero).
+     *
+     * @return 0
+     */
+    @Override
+    protected final int retrieveDataSize() {
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return DoubleSummaryAggregator.class.getName();
+    }
+}
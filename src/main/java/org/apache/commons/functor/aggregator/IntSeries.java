@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import java.util.Arrays;
+
+/**
+ * A growable array of primitive <code>int</code> values, used by
+ * {@link IntArrayBackedAggregator} to store the data series without boxing
+ * every value. Functions which aggregate the data (see the
+ * <code>IntSeries*AggregatorFunction</code> classes in
+ * <code>org.apache.commons.functor.aggregator.functions</code>) read the values
+ * directly via {@link #get(int)}.
+ * <p>
+ * <b>Thread safety</b> : This class is not synchronized; when used by
+ * {@link IntArrayBackedAggregator}, access to it is synchronized by
+ * {@link AbstractTimedAggregator}.
+ * </p>
+ */
+public final class IntSeries {
+    /**
+     * Default initial capacity, used when none is specified.
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Stores the values. Only the first {@link #size} elements are valid.
+     */
+    private int[]            values;
+
+    /**
+     * Number of values stored.
+     */
+    private int              size;
+
+    /**
+     * Creates an empty series with the {@link #DEFAULT_CAPACITY default
+     * capacity}.
+     */
+    public IntSeries() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty series with the given initial capacity.
+     *
+     * @param initialCapacity
+     *            initial capacity of the series. Throws
+     *            <code>IllegalArgumentException</code> if negative.
+     */
+    public IntSeries(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + initialCapacity);
+        }
+        this.values = new int[initialCapacity];
+        this.size = 0;
+    }
+
+    /**
+     * Appends a value at the end of this series, growing the underlying array
+     * if needed.
+     *
+     * @param value
+     *            value to append
+     */
+    public void add(int value) {
+        if (size == values.length) {
+            grow(size + 1);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Retrieves the value at the given index.
+     *
+     * @param index
+     *            zero-based index of the value to retrieve
+     * @return value at the given index
+     * @throws IndexOutOfBoundsException
+     *             if <code>index</code> is negative or greater than or equal
+     *             to {@link #size()}
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return values[index];
+    }
+
+    /**
+     * Retrieves the number of values stored in this series.
+     *
+     * @return number of values stored
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether this series is empty.
+     *
+     * @return <code>true</code> if no values are stored, <code>false</code>
+     *         otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all the values from this series. The capacity is retained so
+     * the underlying array can be reused.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Sorts the values in this series in ascending order.
+     */
+    public void sort() {
+        Arrays.sort(values, 0, size);
+    }
+
+    /**
+     * Copies the values stored in this series in a newly allocated array.
+     *
+     * @return array of length {@link #size()} containing the values in this
+     *         series
+     */
+    public int[] toArray() {
+        int[] copy = new int[size];
+        System.arraycopy(values, 0, copy, 0, size);
+        return copy;
+    }
+
+    /**
+     * Grows the underlying array so it can hold at least the given number of
+     * values.
+     *
+     * @param minCapacity
+     *            minimum capacity required
+     */
+    private void grow(int minCapacity) {
+        int capacity = values.length + (values.length >> 1) + 1;
+        if (capacity < minCapacity) {
+            capacity = minCapacity;
+        }
+        int[] grown = new int[capacity];
+        System.arraycopy(values, 0, grown, 0, size);
+        values = grown;
+    }
+
+    @Override
+    public String toString() {
+        return IntSeries.class.getName();
+    }
+}
@@ -0,0 +1,580 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Aggregates data separately for each of a (potentially large) number of keys
+ * -- e.g. one value per tenant or per endpoint -- without creating an
+ * {@link AbstractTimedAggregator} per key. Each key only holds its current
+ * aggregated value, which {@link #add(Object, Object)} updates on the fly with
+ * a {@link BinaryFunction} via a compare-and-set operation (similar to
+ * {@link AbstractStripedNoStoreAggregator}), so there is no lock, listener
+ * list or timer per key.
+ * <p>
+ * If an interval is specified, all the keys are flushed together, in a single
+ * pass scheduled with an {@link AggregatorScheduler}: the value of each key is
+ * reset to the initial value and the values prior to the reset are sent to the
+ * {@link KeyedAggregatorListener listeners} in one map. The flush can also be
+ * triggered manually via {@link #flush()}.
+ * </p>
+ * <p>
+ * To keep the memory used bounded:
+ * </p>
+ * <ul>
+ * <li>keys which haven't received any data for longer than the idle timeout
+ * are evicted when flushing (or when calling {@link #evictIdle()}), once their
+ * data has been flushed</li>
+ * <li>the number of keys is capped: data for a new key is rejected (and
+ * counted, see {@link #getRejectedCount()}) once the cap has been reached. The
+ * cap is strict, even when new keys are added concurrently.</li>
+ * </ul>
+ *
+ * @param <K>
+ *            Type of the keys.
+ * @param <T>
+ *            Type of object stored.
+ */
+public class KeyedAggregator<K, T> {
+    /**
+     * Value stored in a cell once its key has been evicted, so data is never
+     * added to a cell which is no longer in {@link #cells}.
+     */
+    private static final Object                     EVICTED = new Object();
+
+    /**
+     * Function used to aggregate the data on the fly in
+     * {@link #add(Object, Object)}.
+     */
+    private final BinaryFunction<T, T, T>           aggregationFunction;
+
+    /**
+     * Provides the initial value of each key.
+     */
+    private final Function<T>                       initialValue;
+
+    /**
+     * Maximum number of keys.
+     */
+    private final int                               maxKeys;
+
+    /**
+     * Time in miliseconds after which a key which didn't receive any data is
+     * evicted. Zero or less means keys are never evicted.
+     */
+    private final long                              idleTimeout;
+
+    /**
+     * State of each key.
+     */
+    private final ConcurrentMap<K, Cell>            cells = new ConcurrentHashMap<K, Cell>();
+
+    /**
+     * Number of keys in {@link #cells}, plus the keys being inserted: a slot
+     * is reserved before inserting a new key (and released if the insert
+     * fails), so the maximum number of keys is never exceeded, even by
+     * concurrent insertions. Whoever removes a cell from {@link #cells}
+     * releases its slot.
+     */
+    private final AtomicInteger                     keyCount = new AtomicInteger();
+
+    /**
+     * Number of calls to {@link #add(Object, Object)} rejected because of the
+     * cardinality cap.
+     */
+    private final AtomicLong                        rejected = new AtomicLong();
+
+    /**
+     * Listeners notified when flushing.
+     */
+    private final List<KeyedAggregatorListener<K, T>> listeners =
+        new CopyOnWriteArrayList<KeyedAggregatorListener<K, T>>();
+
+    /**
+     * Interval in miliseconds between flushes; zero or less if there's no
+     * regular flush.
+     */
+    private final long                              interval;
+
+    /**
+     * Scheduler the flush is scheduled with, if any.
+     */
+    private AggregatorScheduler                     scheduler;
+
+    /**
+     * Task scheduled with the {@link #scheduler}; set to <code>null</code> by
+     * {@link #stop()}.
+     */
+    private Procedure                               flushTask;
+
+    /**
+     * Executor the listener notifications are dispatched to. If
+     * <code>null</code>, the listeners are notified on the thread flushing.
+     */
+    private volatile Executor                       listenerExecutor;
+
+    /**
+     * Creates an aggregator which isn't flushed regularly (only when
+     * {@link #flush()} is called).
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #add(Object, Object)}.
+     *            Throws <code>NullPointerException</code> if this is
+     *            <code>null</code>
+     * @param initialValue
+     *            Provides the initial value of each key. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     * @param maxKeys
+     *            Maximum number of keys. Must be greater than zero.
+     * @param idleTimeout
+     *            Time in miliseconds after which a key which doesn't receive
+     *            any data is evicted; zero or less to never evict keys.
+     */
+    public KeyedAggregator(BinaryFunction<T, T, T> aggregationFunction, Function<T> initialValue, int maxKeys,
+            long idleTimeout) {
+        this.aggregationFunction = Validate.notNull(aggregationFunction, "BinaryFunction argument must not be null");
+        this.initialValue = Validate.notNull(initialValue, "Initial value argument must not be null");
+        Validate.isTrue(maxKeys > 0, "Maximum number of keys must be positive: %d", maxKeys);
+        this.maxKeys = maxKeys;
+        this.idleTimeout = idleTimeout;
+        this.interval = AbstractTimedAggregator.NO_TIMER;
+    }
+
+    /**
+     * Creates an aggregator which is flushed at the given interval, as
+     * scheduled by the given scheduler.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #add(Object, Object)}.
+     *            Throws <code>NullPointerException</code> if this is
+     *            <code>null</code>
+     * @param initialValue
+     *            Provides the initial value of each key. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     * @param maxKeys
+     *            Maximum number of keys. Must be greater than zero.
+     * @param idleTimeout
+     *            Time in miliseconds after which a key which doesn't receive
+     *            any data is evicted; zero or less to never evict keys.
+     * @param interval
+     *            interval in miliseconds to flush this aggregator. Must be
+     *            greater than zero.
+     * @param scheduler
+     *            scheduler to schedule the flush with. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     */
+    public KeyedAggregator(BinaryFunction<T, T, T> aggregationFunction, Function<T> initialValue, int maxKeys,
+            long idleTimeout, long interval, AggregatorScheduler scheduler) {
+        this.aggregationFunction = Validate.notNull(aggregationFunction, "BinaryFunction argument must not be null");
+        this.initialValue = Validate.notNull(initialValue, "Initial value argument must not be null");
+        Validate.isTrue(maxKeys > 0, "Maximum number of keys must be positive: %d", maxKeys);
+        Validate.isTrue(interval > 0L, "Interval must be positive: %d", interval);
+        this.maxKeys = maxKeys;
+        this.idleTimeout = idleTimeout;
+        this.interval = interval;
+        this.scheduler = Validate.notNull(scheduler, "Scheduler argument must not be null");
+        this.flushTask = new Procedure() {
+            public void run() {
+                flush();
+            }
+        };
+        this.scheduler.schedule(flushTask, interval);
+    }
+
+    /**
+     * Adds data to the value of the given key, creating it if needed.
+     *
+     * @param key
+     *            Key to add the data to. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     * @param data
+     *            Data to aggregate
+     * @return <code>true</code> if the data was added, <code>false</code> if
+     *         the key is new and the maximum number of keys has been reached
+     */
+    @SuppressWarnings("unchecked")
+    public final boolean add(K key, T data) {
+        while (true) {
+            Cell cell = cells.get(key);
+            if (cell == null) {
+                if (!reserveKey()) {
+                    rejected.incrementAndGet();
+                    return false;
+                }
+                Cell created = new Cell(initialValue.evaluate());
+                cell = cells.putIfAbsent(key, created);
+                if (cell == null) {
+                    cell = created;
+                } else {
+                    // inserted concurrently by another thread
+                    keyCount.decrementAndGet();
+                }
+            }
+            cell.lastUpdate = currentTimeMillis();
+            while (true) {
+                Object current = cell.value.get();
+                if (current == EVICTED) {
+                    // evicted in the meantime: start again with a new cell
+                    remove(key, cell);
+                    break;
+                }
+                if (cell.value.compareAndSet(current, aggregationFunction.evaluate((T) current, data))) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the current aggregated value of the given key.
+     *
+     * @param key
+     *            Key to retrieve the value of
+     * @return Current value of the key, or <code>null</code> if the key is not
+     *         known (never added or evicted)
+     */
+    @SuppressWarnings("unchecked")
+    public final T evaluate(K key) {
+        Cell cell = cells.get(key);
+        if (cell == null) {
+            return null;
+        }
+        Object current = cell.value.get();
+        return current == EVICTED ? null : (T) current;
+    }
+
+    /**
+     * Retrieves the current aggregated value of all the keys.
+     *
+     * @return Map of each key to its current value. This is a copy: changes
+     *         to this aggregator are not reflected in it.
+     */
+    @SuppressWarnings("unchecked")
+    public final Map<K, T> evaluateAll() {
+        Map<K, T> result = new HashMap<K, T>();
+        for (Map.Entry<K, Cell> entry : cells.entrySet()) {
+            Object current = entry.getValue().value.get();
+            if (current != EVICTED) {
+                result.put(entry.getKey(), (T) current);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Resets the value of every key to the initial value, then evicts the idle
+     * keys and notifies the listeners with the values prior to the reset. The
+     * value of each key is swapped atomically, so every piece of data added
+     * concurrently is accounted for either in this flush or in the next one.
+     *
+     * @return Map of each key to its value prior to the flush
+     */
+    @SuppressWarnings("unchecked")
+    public final synchronized Map<K, T> flush() {
+        Map<K, T> result = new HashMap<K, T>();
+        for (Map.Entry<K, Cell> entry : cells.entrySet()) {
+            Cell cell = entry.getValue();
+            Object initial = initialValue.evaluate();
+            Object current = cell.value.get();
+            while (current != EVICTED && !cell.value.compareAndSet(current, initial)) {
+                current = cell.value.get();
+            }
+            if (current != EVICTED) {
+                cell.flushed = initial;
+                result.put(entry.getKey(), (T) current);
+            }
+        }
+        doEvictIdle();
+        final Map<K, T> values = Collections.unmodifiableMap(result);
+        if (!listeners.isEmpty()) {
+            Executor executor = listenerExecutor;
+            if (executor == null) {
+                notifyListeners(values);
+            } else {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        notifyListeners(values);
+                    }
+                });
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Evicts the keys which haven't received any data for longer than the idle
+     * timeout. Only keys whose data has all been flushed are evicted: a key
+     * still holding data added since the last {@link #flush()} is kept until
+     * a flush has passed that data on, and so is a key receiving data
+     * concurrently, so no data is ever lost.
+     *
+     * @return number of keys evicted
+     */
+    public final synchronized int evictIdle() {
+        return doEvictIdle();
+    }
+
+    /**
+     * Evicts the idle keys. Called while synchronized on this instance.
+     *
+     * @return number of keys evicted
+     */
+    private int doEvictIdle() {
+        if (idleTimeout <= 0L) {
+            return 0;
+        }
+        long limit = currentTimeMillis() - idleTimeout;
+        int evicted = 0;
+        for (Map.Entry<K, Cell> entry : cells.entrySet()) {
+            Cell cell = entry.getValue();
+            if (cell.lastUpdate >= limit) {
+                continue;
+            }
+            Object current = cell.value.get();
+            // only evict if no data was added since the last flush, nor since we checked
+            if (current == cell.flushed && cell.lastUpdate < limit && cell.value.compareAndSet(current, EVICTED)) {
+                remove(entry.getKey(), cell);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Removes all the keys.
+     */
+    public final synchronized void reset() {
+        for (Map.Entry<K, Cell> entry : cells.entrySet()) {
+            Cell cell = entry.getValue();
+            cell.value.set(EVICTED);
+            remove(entry.getKey(), cell);
+        }
+    }
+
+    /**
+     * Reserves a slot for a new key, unless the maximum number of keys has
+     * been reached.
+     *
+     * @return <code>true</code> if a slot was reserved
+     */
+    private boolean reserveKey() {
+        while (true) {
+            int count = keyCount.get();
+            if (count >= maxKeys) {
+                return false;
+            }
+            if (keyCount.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Removes an evicted cell from {@link #cells}, releasing its slot if it
+     * was still there.
+     *
+     * @param key
+     *            key of the cell
+     * @param cell
+     *            cell to remove
+     */
+    private void remove(K key, Cell cell) {
+        if (cells.remove(key, cell)) {
+            keyCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Sends the given values to all the {@link #listeners}.
+     *
+     * @param values
+     *            values to pass to the listeners
+     */
+    private void notifyListeners(Map<K, T> values) {
+        for (KeyedAggregatorListener<K, T> listener : listeners) {
+            listener.onFlush(this, values);
+        }
+    }
+
+    /**
+     * Adds a listener, which will be notified on each flush.
+     *
+     * @param listener
+     *            Listener to add
+     */
+    public final void addListener(KeyedAggregatorListener<K, T> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener previously added.
+     *
+     * @param listener
+     *            Listener to remove
+     * @return <code>true</code> if the listener was previously added
+     */
+    public final boolean removeListener(KeyedAggregatorListener<K, T> listener) {
+        return listeners.remove(listener);
+    }
+
+    /**
+     * Sets the executor the listener notifications are dispatched to, as per
+     * {@link AbstractTimedAggregator#setListenerExecutor(Executor)}.
+     *
+     * @param listenerExecutor
+     *            executor to notify the listeners with, or <code>null</code>
+     *            to notify them on the thread flushing this aggregator
+     */
+    public final void setListenerExecutor(Executor listenerExecutor) {
+        this.listenerExecutor = listenerExecutor;
+    }
+
+    /**
+     * Cancels the regular flush (if any) and releases all the listeners.
+     */
+    public final synchronized void stop() {
+        if (flushTask != null) {
+            scheduler.cancel(flushTask);
+            flushTask = null;
+        }
+        listeners.clear();
+    }
+
+    /**
+     * Retrieves the current time, used to decide which keys are idle. Returns
+     * <code>System.currentTimeMillis()</code>; subclasses can override it, e.g.
+     * to use a different clock.
+     *
+     * @return current time in miliseconds
+     */
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Retrieves the keys currently known.
+     *
+     * @return unmodifiable view of the keys
+     */
+    public final Set<K> keySet() {
+        return Collections.unmodifiableSet(cells.keySet());
+    }
+
+    /**
+     * Retrieves the number of keys currently known.
+     *
+     * @return number of keys
+     */
+    public final int size() {
+        return cells.size();
+    }
+
+    /**
+     * Getter for {@link #rejected}.
+     *
+     * @return number of calls to {@link #add(Object, Object)} rejected because
+     *         the maximum number of keys had been reached
+     */
+    public final long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Getter for {@link #maxKeys}.
+     *
+     * @return Maximum number of keys
+     */
+    public final int getMaxKeys() {
+        return maxKeys;
+    }
+
+    /**
+     * Getter for {@link #idleTimeout}.
+     *
+     * @return Time in miliseconds after which an idle key is evicted
+     */
+    public final long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Getter for {@link #interval}.
+     *
+     * @return Interval in miliseconds between flushes, or zero if there's no
+     *         regular flush
+     */
+    public final long getInterval() {
+        return interval;
+    }
+
+    @Override
+    public String toString() {
+        return KeyedAggregator.class.getName();
+    }
+
+    /**
+     * State of a key.
+     */
+    private static final class Cell {
+        /**
+         * Current aggregated value, or {@link KeyedAggregator#EVICTED}.
+         */
+        private final AtomicReference<Object> value;
+
+        /**
+         * Time of the last call to {@link KeyedAggregator#add(Object, Object)}
+         * for this key.
+         */
+        private volatile long                 lastUpdate;
+
+        /**
+         * Value set by the last flush (or the initial value, for a key never
+         * flushed): while {@link #value} is still this very instance, the key
+         * holds no data which hasn't been flushed. Apart from the constructor,
+         * only accessed while synchronized on the aggregator.
+         */
+        private Object                        flushed;
+
+        /**
+         * Creates the state for a new key.
+         *
+         * @param initial
+         *            initial value
+         */
+        Cell(Object initial) {
+            this.value = new AtomicReference<Object>(initial);
+            this.flushed = initial;
+        }
+    }
+}
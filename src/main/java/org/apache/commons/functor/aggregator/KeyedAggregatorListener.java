@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import java.util.Map;
+
+/**
+ * Listener to be used with instances of {@link KeyedAggregator} to receive the
+ * values of all the keys when the aggregator is flushed.
+ *
+ * @param <K>
+ *            Type of the keys.
+ * @param <T>
+ *            Type of object the <code>Aggregator</code> is operating on.
+ */
+public interface KeyedAggregatorListener<K, T> {
+    /**
+     * Received when the aggregator listening to has been flushed.
+     *
+     * @param aggregator
+     *            Aggregator which has been flushed.
+     * @param values
+     *            Aggregated value of each key, prior to the flush. Keys which
+     *            received no data since the previous flush are included, with
+     *            the initial value. This map is not modified afterwards.
+     */
+    void onFlush(KeyedAggregator<K, T> aggregator, Map<K, T> values);
+}
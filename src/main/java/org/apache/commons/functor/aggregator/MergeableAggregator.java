@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+/**
+ * An {@link Aggregator} whose partial state can be exported and merged into
+ * another aggregator of the same kind. This allows the data to be aggregated
+ * in several places -- e.g. per thread or per node -- and rolled up centrally
+ * with correct results: for instance a mean can't be computed from two means,
+ * nor a percentile from two percentiles, but it can be computed from the
+ * merged count/sum or the merged sketch.
+ * <p>
+ * To roll up aggregator <code>b</code> into aggregator <code>a</code>:
+ * </p>
+ *
+ * <pre>
+ * a.merge(b.exportState());
+ * </pre>
+ * <p>
+ * Merging is associative and commutative, and merging the state of an
+ * aggregator to which no data was added leaves the target unchanged.
+ * </p>
+ *
+ * @param <T>
+ *            type of data to aggregate
+ * @param <S>
+ *            type of the partial state
+ */
+public interface MergeableAggregator<T, S> extends Aggregator<T> {
+    /**
+     * Captures the partial state of this aggregator, i.e. everything needed
+     * to merge the data added so far into another aggregator.
+     *
+     * @return the partial state; this is a copy (or is immutable), so
+     *         subsequent changes to this aggregator are not reflected in it
+     */
+    S exportState();
+
+    /**
+     * Merges a partial state exported by another aggregator into this one, as
+     * if the data added to the other aggregator had been added to this one.
+     *
+     * @param state
+     *            partial state to merge, as returned by
+     *            {@link #exportState()}. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     */
+    void merge(S state);
+}
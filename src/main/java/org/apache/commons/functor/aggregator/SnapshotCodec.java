@@ -0,0 +1,627 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Compact, versioned binary encoding of aggregator state and snapshots, as an
+ * alternative to Java serialization when shipping the evaluations received by
+ * a {@link TimedAggregatorListener} or checkpointing the state exported by a
+ * {@link MergeableAggregator}. The following types are supported:
+ * <ul>
+ * <li><code>Integer</code>, <code>Long</code> and <code>Double</code>, e.g.
+ * the evaluation of most aggregators; integral values are written as
+ * variable-length integers</li>
+ * <li>{@link IntSeries}: the values are delta-encoded, as variable-length
+ * integers, so series of close values take one or two bytes per value</li>
+ * <li>{@link DoubleSeries}: each value is XOR-ed with the previous one and only
+ * the significant bits of the result are written, so series of close (or
+ * equal) values take a few bytes per value, and never more than 9</li>
+ * <li>{@link DoubleQuantileSketch}: the bucket counters, as variable-length
+ * integers</li>
+ * <li>{@link DoubleSummary}</li>
+ * <li><code>null</code></li>
+ * </ul>
+ * <p>
+ * Each encoded value starts with a 2-byte header: a magic byte and the
+ * {@link #FORMAT_VERSION format version}, followed by a byte identifying the
+ * type. When written to a channel, the encoded value is preceded by its length
+ * (4 bytes), so values can be written one after the other and read back in
+ * the same order.
+ * </p>
+ */
+public final class SnapshotCodec {
+    /**
+     * Version of the encoding written by this class.
+     */
+    public static final byte   FORMAT_VERSION     = 1;
+
+    /**
+     * First byte of every encoded value.
+     */
+    private static final byte  MAGIC              = (byte) 0xAF;
+
+    /** Type tag for <code>null</code>. */
+    private static final byte  TYPE_NULL          = 0;
+
+    /** Type tag for <code>Integer</code>. */
+    private static final byte  TYPE_INTEGER       = 1;
+
+    /** Type tag for <code>Long</code>. */
+    private static final byte  TYPE_LONG          = 2;
+
+    /** Type tag for <code>Double</code>. */
+    private static final byte  TYPE_DOUBLE        = 3;
+
+    /** Type tag for {@link IntSeries}. */
+    private static final byte  TYPE_INT_SERIES    = 4;
+
+    /** Type tag for {@link DoubleSeries}. */
+    private static final byte  TYPE_DOUBLE_SERIES = 5;
+
+    /** Type tag for {@link DoubleQuantileSketch}. */
+    private static final byte  TYPE_SKETCH        = 6;
+
+    /** Type tag for {@link DoubleSummary}. */
+    private static final byte  TYPE_SUMMARY       = 7;
+
+    /**
+     * Header written by {@link #encodeDouble(Output, long, long)} when the
+     * value is the same as the previous one.
+     */
+    private static final int   SAME_DOUBLE        = 0;
+
+    /**
+     * Header written by {@link #encodeDouble(Output, long, long)} when the
+     * value is written as is.
+     */
+    private static final int   RAW_DOUBLE         = 65;
+
+    /**
+     * Number of bits of data in each byte of a variable-length integer.
+     */
+    private static final int   VARINT_BITS        = 7;
+
+    /**
+     * Mask of the bits of data in each byte of a variable-length integer.
+     */
+    private static final int   VARINT_DATA        = 0x7F;
+
+    /**
+     * Bit set in each byte of a variable-length integer, except the last one.
+     */
+    private static final int   VARINT_MORE        = 0x80;
+
+    /**
+     * Size of the length written before each value by
+     * {@link #write(Object, WritableByteChannel)}.
+     */
+    private static final int   LENGTH_SIZE        = 4;
+
+    /**
+     * Size of the buffer first allocated by
+     * {@link #read(ReadableByteChannel)}; it is then doubled as the value is
+     * read, so a corrupt length can't make it allocate much more than what the
+     * channel holds.
+     */
+    private static final int   READ_CAPACITY      = 8192;
+
+    /**
+     * No instances.
+     */
+    private SnapshotCodec() {
+    }
+
+    /**
+     * Encodes a snapshot.
+     *
+     * @param snapshot
+     *            value to encode: one of the supported types, or
+     *            <code>null</code>. Throws
+     *            <code>IllegalArgumentException</code> if the type is not
+     *            supported.
+     * @return buffer holding the encoded value, ready to be read (its position
+     *         is 0 and its limit is the size of the encoded value)
+     */
+    public static ByteBuffer encode(Object snapshot) {
+        Output out = new Output();
+        out.writeByte(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+        if (snapshot == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (snapshot instanceof Integer) {
+            out.writeByte(TYPE_INTEGER);
+            out.writeSignedVarLong(((Integer) snapshot).intValue());
+        } else if (snapshot instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeSignedVarLong(((Long) snapshot).longValue());
+        } else if (snapshot instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble(((Double) snapshot).doubleValue());
+        } else if (snapshot instanceof IntSeries) {
+            out.writeByte(TYPE_INT_SERIES);
+            encodeIntSeries(out, (IntSeries) snapshot);
+        } else if (snapshot instanceof DoubleSeries) {
+            out.writeByte(TYPE_DOUBLE_SERIES);
+            encodeDoubleSeries(out, (DoubleSeries) snapshot);
+        } else if (snapshot instanceof DoubleQuantileSketch) {
+            out.writeByte(TYPE_SKETCH);
+            ((DoubleQuantileSketch) snapshot).writeTo(out);
+        } else if (snapshot instanceof DoubleSummary) {
+            out.writeByte(TYPE_SUMMARY);
+            DoubleSummary summary = (DoubleSummary) snapshot;
+            out.writeVarLong(summary.getCount());
+            out.writeDouble(summary.getSum());
+            if (summary.getCount() > 0L) {
+                out.writeDouble(summary.getMin());
+                out.writeDouble(summary.getMax());
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported snapshot type: " + snapshot.getClass().getName());
+        }
+        return out.toByteBuffer();
+    }
+
+    /**
+     * Decodes a value encoded by {@link #encode(Object)}. The buffer is read
+     * from its current position, which is moved past the encoded value.
+     *
+     * @param buffer
+     *            buffer to read from
+     * @return decoded value
+     * @throws IllegalArgumentException
+     *             if the buffer doesn't hold a value encoded by this class, or
+     *             was encoded with an unsupported version
+     * @throws java.nio.BufferUnderflowException
+     *             if the encoded value is truncated
+     */
+    public static Object decode(ByteBuffer buffer) {
+        if (buffer.get() != MAGIC) {
+            throw new IllegalArgumentException("Not an encoded snapshot");
+        }
+        byte version = buffer.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported format version: " + version);
+        }
+        byte type = buffer.get();
+        switch (type) {
+        case TYPE_NULL:
+            return null;
+        case TYPE_INTEGER:
+            return Integer.valueOf((int) readSignedVarLong(buffer));
+        case TYPE_LONG:
+            return Long.valueOf(readSignedVarLong(buffer));
+        case TYPE_DOUBLE:
+            return Double.valueOf(buffer.getDouble());
+        case TYPE_INT_SERIES:
+            return decodeIntSeries(buffer);
+        case TYPE_DOUBLE_SERIES:
+            return decodeDoubleSeries(buffer);
+        case TYPE_SKETCH:
+            return DoubleQuantileSketch.readFrom(buffer);
+        case TYPE_SUMMARY:
+            long count = readVarLong(buffer);
+            double sum = buffer.getDouble();
+            if (count == 0L) {
+                return new DoubleSummary(count, sum, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY);
+            }
+            return new DoubleSummary(count, sum, buffer.getDouble(), buffer.getDouble());
+        default:
+            throw new IllegalArgumentException("Unknown snapshot type: " + type);
+        }
+    }
+
+    /**
+     * Decodes a value of the given type, as per {@link #decode(ByteBuffer)}.
+     *
+     * @param <T>
+     *            type of the value
+     * @param buffer
+     *            buffer to read from
+     * @param type
+     *            expected type of the value
+     * @return decoded value
+     * @throws ClassCastException
+     *             if the decoded value is not of the expected type
+     */
+    public static <T> T decode(ByteBuffer buffer, Class<T> type) {
+        return type.cast(decode(buffer));
+    }
+
+    /**
+     * Encodes a snapshot and writes it to the given channel, preceded by its
+     * length.
+     *
+     * @param snapshot
+     *            value to write, as per {@link #encode(Object)}
+     * @param channel
+     *            channel to write to
+     * @throws IOException
+     *             if writing to the channel fails
+     */
+    public static void write(Object snapshot, WritableByteChannel channel) throws IOException {
+        ByteBuffer encoded = encode(snapshot);
+        ByteBuffer length = ByteBuffer.allocate(LENGTH_SIZE);
+        length.putInt(encoded.remaining());
+        length.flip();
+        while (length.hasRemaining()) {
+            channel.write(length);
+        }
+        while (encoded.hasRemaining()) {
+            channel.write(encoded);
+        }
+    }
+
+    /**
+     * Reads a value written by {@link #write(Object, WritableByteChannel)}.
+     *
+     * @param channel
+     *            channel to read from
+     * @return decoded value
+     * @throws EOFException
+     *             if the end of the channel is reached, including before
+     *             reading anything
+     * @throws IOException
+     *             if reading from the channel fails, or what is read is not a
+     *             valid encoded value
+     */
+    public static Object read(ReadableByteChannel channel) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(LENGTH_SIZE);
+        readFully(channel, length);
+        int size = length.getInt();
+        if (size < 0) {
+            throw new IOException("Invalid snapshot length: " + size);
+        }
+        ByteBuffer encoded = ByteBuffer.allocate(Math.min(size, READ_CAPACITY));
+        readFully(channel, encoded);
+        while (encoded.limit() < size) {
+            ByteBuffer grown = ByteBuffer.allocate((int) Math.min(2L * encoded.limit(), size));
+            grown.put(encoded);
+            readFully(channel, grown);
+            encoded = grown;
+        }
+        try {
+            return decode(encoded);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid snapshot: " + e.getMessage(), e);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated snapshot", e);
+        }
+    }
+
+    /**
+     * Fills the given buffer from the channel, then flips it.
+     *
+     * @param channel
+     *            channel to read from
+     * @param buffer
+     *            buffer to fill
+     * @throws IOException
+     *             if the end of the channel is reached before the buffer is
+     *             full, or reading from the channel fails
+     */
+    private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Writes the size of a series then each value as the (signed) difference
+     * with the previous one.
+     *
+     * @param out
+     *            where to write
+     * @param series
+     *            series to write
+     */
+    private static void encodeIntSeries(Output out, IntSeries series) {
+        int size = series.size();
+        out.writeVarLong(size);
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            long value = series.get(i);
+            out.writeSignedVarLong(value - previous);
+            previous = value;
+        }
+    }
+
+    /**
+     * Reads a series written by {@link #encodeIntSeries(Output, IntSeries)}.
+     *
+     * @param in
+     *            where to read from
+     * @return decoded series
+     */
+    private static IntSeries decodeIntSeries(ByteBuffer in) {
+        int size = readSize(in);
+        IntSeries series = new IntSeries(size);
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            previous += readSignedVarLong(in);
+            series.add((int) previous);
+        }
+        return series;
+    }
+
+    /**
+     * Writes the size of a series then each value, XOR-ed with the previous
+     * one.
+     *
+     * @param out
+     *            where to write
+     * @param series
+     *            series to write
+     */
+    private static void encodeDoubleSeries(Output out, DoubleSeries series) {
+        int size = series.size();
+        out.writeVarLong(size);
+        long previous = 0L;
+        for (int i = 0; i < size; i++) {
+            long bits = Double.doubleToRawLongBits(series.get(i));
+            encodeDouble(out, bits, previous);
+            previous = bits;
+        }
+    }
+
+    /**
+     * Writes a value XOR-ed with the previous one: a header byte, which is
+     * {@link #SAME_DOUBLE} if the value is the same as the previous one, the
+     * number of trailing zero bits plus one if the significant bits of the
+     * result follow (as a variable-length integer) or {@link #RAW_DOUBLE} if
+     * the value follows as is, because that is shorter.
+     *
+     * @param out
+     *            where to write
+     * @param bits
+     *            bits of the value to write
+     * @param previous
+     *            bits of the previous value
+     */
+    private static void encodeDouble(Output out, long bits, long previous) {
+        long xor = bits ^ previous;
+        if (xor == 0L) {
+            out.writeByte((byte) SAME_DOUBLE);
+            return;
+        }
+        int trailing = Long.numberOfTrailingZeros(xor);
+        long significant = xor >>> trailing;
+        if (varLongSize(significant) >= Double.SIZE / Byte.SIZE) {
+            out.writeByte((byte) RAW_DOUBLE);
+            out.writeLong(bits);
+        } else {
+            out.writeByte((byte) (trailing + 1));
+            out.writeVarLong(significant);
+        }
+    }
+
+    /**
+     * Reads a series written by
+     * {@link #encodeDoubleSeries(Output, DoubleSeries)}.
+     *
+     * @param in
+     *            where to read from
+     * @return decoded series
+     */
+    private static DoubleSeries decodeDoubleSeries(ByteBuffer in) {
+        int size = readSize(in);
+        DoubleSeries series = new DoubleSeries(size);
+        long previous = 0L;
+        for (int i = 0; i < size; i++) {
+            int header = in.get();
+            if (header == RAW_DOUBLE) {
+                previous = in.getLong();
+            } else if (header > SAME_DOUBLE && header < RAW_DOUBLE) {
+                previous ^= readVarLong(in) << (header - 1);
+            } else if (header != SAME_DOUBLE) {
+                throw new IllegalArgumentException("Invalid value header: " + header);
+            }
+            series.add(Double.longBitsToDouble(previous));
+        }
+        return series;
+    }
+
+    /**
+     * Reads the size of a series. As each value takes at least one byte, the
+     * size can't be more than the number of bytes remaining.
+     *
+     * @param in
+     *            where to read from
+     * @return size of the series
+     */
+    private static int readSize(ByteBuffer in) {
+        long size = readVarLong(in);
+        if (size < 0L || size > in.remaining()) {
+            throw new IllegalArgumentException("Invalid series size: " + size);
+        }
+        return (int) size;
+    }
+
+    /**
+     * Computes the number of bytes needed to write the given value as a
+     * variable-length integer.
+     *
+     * @param value
+     *            value to write, considered as unsigned
+     * @return number of bytes needed
+     */
+    private static int varLongSize(long value) {
+        int size = 1;
+        long remaining = value >>> VARINT_BITS;
+        while (remaining != 0L) {
+            size++;
+            remaining >>>= VARINT_BITS;
+        }
+        return size;
+    }
+
+    /**
+     * Reads a variable-length integer written by
+     * {@link Output#writeVarLong(long)}.
+     *
+     * @param in
+     *            where to read from
+     * @return value read
+     */
+    static long readVarLong(ByteBuffer in) {
+        long result = 0L;
+        for (int shift = 0; shift < Long.SIZE; shift += VARINT_BITS) {
+            byte b = in.get();
+            result |= (long) (b & VARINT_DATA) << shift;
+            if ((b & VARINT_MORE) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed variable-length integer");
+    }
+
+    /**
+     * Reads a signed variable-length integer written by
+     * {@link Output#writeSignedVarLong(long)}.
+     *
+     * @param in
+     *            where to read from
+     * @return value read
+     */
+    static long readSignedVarLong(ByteBuffer in) {
+        long zigzag = readVarLong(in);
+        return (zigzag >>> 1) ^ -(zigzag & 1L);
+    }
+
+    @Override
+    public String toString() {
+        return SnapshotCodec.class.getName();
+    }
+
+    /**
+     * Growable buffer the encoded values are written to.
+     */
+    static final class Output {
+        /**
+         * Initial capacity of the buffer.
+         */
+        private static final int INITIAL_CAPACITY = 64;
+
+        /**
+         * Buffer written to; replaced by a larger one when full.
+         */
+        private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+        /**
+         * Writes a byte.
+         *
+         * @param b
+         *            byte to write
+         */
+        void writeByte(byte b) {
+            ensureRemaining(1);
+            buffer.put(b);
+        }
+
+        /**
+         * Writes a <code>long</code> as is (8 bytes).
+         *
+         * @param value
+         *            value to write
+         */
+        void writeLong(long value) {
+            ensureRemaining(Long.SIZE / Byte.SIZE);
+            buffer.putLong(value);
+        }
+
+        /**
+         * Writes a <code>double</code> as is (8 bytes).
+         *
+         * @param value
+         *            value to write
+         */
+        void writeDouble(double value) {
+            ensureRemaining(Double.SIZE / Byte.SIZE);
+            buffer.putDouble(value);
+        }
+
+        /**
+         * Writes a variable-length integer: 7 bits per byte, least significant
+         * first, the most significant bit of each byte being set if more bytes
+         * follow. Small (non-negative) values take fewer bytes.
+         *
+         * @param value
+         *            value to write, considered as unsigned
+         */
+        void writeVarLong(long value) {
+            ensureRemaining(varLongSize(value));
+            long remaining = value;
+            while ((remaining & ~VARINT_DATA) != 0L) {
+                buffer.put((byte) ((remaining & VARINT_DATA) | VARINT_MORE));
+                remaining >>>= VARINT_BITS;
+            }
+            buffer.put((byte) remaining);
+        }
+
+        /**
+         * Writes a signed variable-length integer, zigzag-encoded so small
+         * negative values take fewer bytes too.
+         *
+         * @param value
+         *            value to write
+         */
+        void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> (Long.SIZE - 1)));
+        }
+
+        /**
+         * Grows the buffer if needed, so the given number of bytes can be
+         * written.
+         *
+         * @param n
+         *            number of bytes about to be written
+         */
+        private void ensureRemaining(int n) {
+            if (buffer.remaining() >= n) {
+                return;
+            }
+            int capacity = buffer.capacity() << 1;
+            while (capacity - buffer.position() < n) {
+                capacity <<= 1;
+            }
+            ByteBuffer grown = ByteBuffer.allocate(capacity);
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+
+        /**
+         * Retrieves what has been written.
+         *
+         * @return buffer holding the bytes written, ready to be read
+         */
+        ByteBuffer toByteBuffer() {
+            ByteBuffer result = buffer.duplicate();
+            result.flip();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,453 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.functor.Procedure;
+
+/**
+ * An {@link AggregatorScheduler} backed by a hashed timer wheel, driven by a
+ * single (daemon) thread. All the tasks scheduled with the same interval are
+ * grouped together and run one after the other in the same tick, so scheduling
+ * thousands of aggregators with a handful of distinct intervals costs a
+ * handful of wheel entries rather than thousands of timer threads or timer
+ * queue entries.
+ * <p>
+ * A task joining an existing group is armed at the first run of the group
+ * taking place a full interval (or more) after it has been scheduled, so its
+ * first run takes place between one and two intervals after it has been
+ * scheduled, never sooner; subsequent runs take place at the interval.
+ * </p>
+ * <p>
+ * The wheel advances every {@link #getTickDuration() tick}; intervals are
+ * rounded up to a whole number of ticks. Each slot of the wheel holds the
+ * groups of tasks due in that slot, and a group whose interval is longer than
+ * a full turn of the wheel simply waits for the required number of turns.
+ * </p>
+ * <p>
+ * All the tasks run on the wheel thread, so they should be short: for
+ * {@link AbstractTimedAggregator timed aggregators}, the flush itself is (the
+ * data series is swapped under the lock) and the listener notifications can be
+ * moved to another thread via
+ * {@link AbstractTimedAggregator#setListenerExecutor(java.util.concurrent.Executor)}.
+ * Anything thrown by a task, exception or error, is passed to the uncaught
+ * exception handler of the wheel thread and doesn't prevent the other tasks
+ * from running.
+ * </p>
+ */
+public class TimerWheelScheduler implements AggregatorScheduler {
+    /**
+     * Default duration of a tick, in miliseconds.
+     */
+    public static final long                         DEFAULT_TICK_DURATION = 10L;
+
+    /**
+     * Default number of slots in the wheel.
+     */
+    public static final int                          DEFAULT_WHEEL_SIZE = 512;
+
+    /**
+     * Maximum number of slots in the wheel: the largest power of 2 an
+     * <code>int</code> can hold.
+     */
+    public static final int                          MAX_WHEEL_SIZE = 1 << 30;
+
+    /**
+     * Name of the thread driving the wheel.
+     */
+    public static final String                       THREAD_NAME = "AggregatorTimerWheel";
+
+    /**
+     * Duration of a tick, in miliseconds.
+     */
+    private final long                               tickDuration;
+
+    /**
+     * The wheel: each slot holds the groups due when the wheel reaches it.
+     * Only accessed from the wheel thread.
+     */
+    private final List<IntervalGroup>[]              wheel;
+
+    /**
+     * Groups of tasks, by interval (in ticks).
+     */
+    private final ConcurrentMap<Long, IntervalGroup> groups = new ConcurrentHashMap<Long, IntervalGroup>();
+
+    /**
+     * Groups created since the last tick, waiting to be placed in the wheel by
+     * the wheel thread.
+     */
+    private final Queue<IntervalGroup>               pending = new ConcurrentLinkedQueue<IntervalGroup>();
+
+    /**
+     * Drives the wheel.
+     */
+    private final ScheduledExecutorService           executor;
+
+    /**
+     * Number of ticks elapsed. Only updated from the wheel thread.
+     */
+    private volatile long                            currentTick;
+
+    /**
+     * Similar to {@link #TimerWheelScheduler(long, int)
+     * TimerWheelScheduler(DEFAULT_TICK_DURATION,DEFAULT_WHEEL_SIZE)}.
+     */
+    public TimerWheelScheduler() {
+        this(DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Creates a timer wheel and starts its thread.
+     *
+     * @param tickDuration
+     *            duration of a tick in miliseconds; this is the resolution of
+     *            the scheduler. Must be greater than zero.
+     * @param wheelSize
+     *            number of slots in the wheel. This will be rounded up to the
+     *            next power of 2. Must be greater than zero and at most
+     *            {@link #MAX_WHEEL_SIZE}.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public TimerWheelScheduler(long tickDuration, int wheelSize) {
+        if (tickDuration <= 0L) {
+            throw new IllegalArgumentException("Invalid tick duration: " + tickDuration);
+        }
+        if (wheelSize <= 0 || wheelSize > MAX_WHEEL_SIZE) {
+            throw new IllegalArgumentException("Invalid wheel size: " + wheelSize);
+        }
+        this.tickDuration = tickDuration;
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new List[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayList<IntervalGroup>();
+        }
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, THREAD_NAME + TimerWheelScheduler.this.hashCode());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.executor.scheduleAtFixedRate(new Runnable() {
+            public void run() {
+                tick();
+            }
+        }, tickDuration, tickDuration, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * {@inheritDoc} Tasks with the same interval (in ticks) are added to the
+     * same group and run together.
+     */
+    public void schedule(Procedure task, long interval) {
+        if (task == null) {
+            throw new NullPointerException("Task must not be null");
+        }
+        if (interval <= 0L) {
+            throw new IllegalArgumentException("Invalid interval: " + interval);
+        }
+        Long ticks = Long.valueOf((interval + tickDuration - 1) / tickDuration);
+        // the current tick may have started up to a tick ago: one more tick
+        // makes sure a full interval elapses before the first run
+        long firstDue = currentTick + ticks.longValue() + 1L;
+        while (true) {
+            IntervalGroup group = groups.get(ticks);
+            if (group == null) {
+                IntervalGroup created = new IntervalGroup(ticks.longValue());
+                group = groups.putIfAbsent(ticks, created);
+                if (group == null) {
+                    group = created;
+                    pending.add(created);
+                }
+            }
+            if (group.add(task, firstDue)) {
+                return;
+            }
+            // the group was discarded in the meantime, create a new one
+            groups.remove(ticks, group);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean cancel(Procedure task) {
+        for (IntervalGroup group : groups.values()) {
+            if (group.remove(task)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stops the wheel thread. No task will run after this.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Getter for {@link #tickDuration}.
+     *
+     * @return duration of a tick in miliseconds
+     */
+    public final long getTickDuration() {
+        return tickDuration;
+    }
+
+    /**
+     * Retrieves the number of groups of tasks, i.e. the number of distinct
+     * intervals scheduled. Provided for test purposes only.
+     *
+     * @return number of groups
+     */
+    final int getGroupCount() {
+        return groups.size();
+    }
+
+    /**
+     * Advances the wheel by one tick: places the groups created since the last
+     * tick in the wheel, then runs the groups due in the current slot and
+     * places them back in the wheel for their next run.
+     */
+    private void tick() {
+        currentTick++;
+        IntervalGroup created = pending.poll();
+        while (created != null) {
+            place(created, currentTick + created.ticks);
+            created = pending.poll();
+        }
+        List<IntervalGroup> slot = wheel[(int) (currentTick & (wheel.length - 1))];
+        if (slot.isEmpty()) {
+            return;
+        }
+        List<IntervalGroup> due = new ArrayList<IntervalGroup>();
+        for (Iterator<IntervalGroup> i = slot.iterator(); i.hasNext();) {
+            IntervalGroup group = i.next();
+            if (group.deadline <= currentTick) {
+                i.remove();
+                due.add(group);
+            }
+        }
+        for (IntervalGroup group : due) {
+            if (group.discardIfEmpty()) {
+                groups.remove(Long.valueOf(group.ticks), group);
+                continue;
+            }
+            group.run(group.deadline);
+            place(group, group.deadline + group.ticks);
+        }
+    }
+
+    /**
+     * Places a group in the slot of the wheel corresponding to the given tick.
+     *
+     * @param group
+     *            group to place
+     * @param deadline
+     *            tick at which the group is due
+     */
+    private void place(IntervalGroup group, long deadline) {
+        group.deadline = deadline;
+        wheel[(int) (deadline & (wheel.length - 1))].add(group);
+    }
+
+    @Override
+    public String toString() {
+        return TimerWheelScheduler.class.getName();
+    }
+
+    /**
+     * All the tasks scheduled with the same interval.
+     */
+    private static final class IntervalGroup {
+        /**
+         * Interval, in ticks.
+         */
+        private final long            ticks;
+
+        /**
+         * Tasks to run.
+         */
+        private final List<Procedure> tasks = new CopyOnWriteArrayList<Procedure>();
+
+        /**
+         * Tasks added since the last run, not armed yet. Guarded by this
+         * group's lock.
+         */
+        private final List<JoiningTask> joining = new ArrayList<JoiningTask>();
+
+        /**
+         * Tick at which the group is next due. Only accessed from the wheel
+         * thread.
+         */
+        private long                  deadline;
+
+        /**
+         * Set when the group has no tasks left and has been removed from the
+         * wheel; no task can be added to it from then on.
+         */
+        private boolean               discarded;
+
+        /**
+         * Creates an empty group.
+         *
+         * @param ticks
+         *            interval in ticks
+         */
+        IntervalGroup(long ticks) {
+            this.ticks = ticks;
+        }
+
+        /**
+         * Adds a task to this group, unless it has been discarded. The task
+         * is armed at the first run of this group due at or after
+         * <code>firstDue</code>.
+         *
+         * @param task
+         *            task to add
+         * @param firstDue
+         *            tick before which the task must not run
+         * @return <code>false</code> if this group has been discarded,
+         *         <code>true</code> otherwise
+         */
+        synchronized boolean add(Procedure task, long firstDue) {
+            if (discarded) {
+                return false;
+            }
+            joining.add(new JoiningTask(task, firstDue));
+            return true;
+        }
+
+        /**
+         * Removes a task from this group, whether it is armed or not.
+         *
+         * @param task
+         *            task to remove
+         * @return <code>true</code> if the task was in this group
+         */
+        synchronized boolean remove(Procedure task) {
+            for (Iterator<JoiningTask> i = joining.iterator(); i.hasNext();) {
+                if (i.next().task == task) {
+                    i.remove();
+                    return true;
+                }
+            }
+            return tasks.remove(task);
+        }
+
+        /**
+         * Discards this group if it has no tasks.
+         *
+         * @return <code>true</code> if this group was discarded
+         */
+        synchronized boolean discardIfEmpty() {
+            discarded = tasks.isEmpty() && joining.isEmpty();
+            return discarded;
+        }
+
+        /**
+         * Arms the joining tasks due at the given tick, all at once.
+         *
+         * @param deadline
+         *            tick of the run about to take place
+         */
+        private synchronized void arm(long deadline) {
+            if (joining.isEmpty()) {
+                return;
+            }
+            List<Procedure> armed = new ArrayList<Procedure>();
+            List<JoiningTask> waiting = new ArrayList<JoiningTask>();
+            for (JoiningTask next : joining) {
+                if (next.firstDue <= deadline) {
+                    armed.add(next.task);
+                } else {
+                    waiting.add(next);
+                }
+            }
+            joining.clear();
+            joining.addAll(waiting);
+            // a single copy of the task list, however many tasks joined
+            tasks.addAll(armed);
+        }
+
+        /**
+         * Runs all the armed tasks, passing anything thrown by a task to the
+         * uncaught exception handler of the current thread, so that a failing
+         * task doesn't kill the wheel thread.
+         *
+         * @param deadline
+         *            tick at which this run is due
+         */
+        void run(long deadline) {
+            arm(deadline);
+            for (Procedure task : tasks) {
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    Thread current = Thread.currentThread();
+                    current.getUncaughtExceptionHandler().uncaughtException(current, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * A task added to a group, waiting for its first run.
+     */
+    private static final class JoiningTask {
+        /**
+         * The task.
+         */
+        private final Procedure task;
+
+        /**
+         * Tick before which the task must not run.
+         */
+        private final long      firstDue;
+
+        /**
+         * Creates a new JoiningTask.
+         *
+         * @param task
+         *            the task
+         * @param firstDue
+         *            tick before which the task must not run
+         */
+        JoiningTask(Procedure task, long firstDue) {
+            this.task = task;
+            this.firstDue = firstDue;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator.functions;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.functor.UnaryFunction;
+
+/**
+ * Aggregator function to be used with subclasses of
+ * {@link org.apache.commons.functor.aggregator.AbstractListBackedAggregator}
+ * which computes the <a href="http://en.wikipedia.org/wiki/Median">median</a>
+ * of all the numbers in the list. Returns the same value as
+ * {@link DoubleMedianValueAggregatorFunction}, but rather than sorting the
+ * whole list it copies it into a primitive array reused between calls and
+ * selects the middle item(s), in expected linear time. The list passed in is
+ * never modified.
+ */
+public final class DoubleSelectMedianValueAggregatorFunction implements UnaryFunction<List<Double>, Double> {
+    /**
+     * Scratch array reused between calls.
+     */
+    private final AtomicReference<double[]> scratch = new AtomicReference<double[]>();
+
+    /**
+     * Copies the list into the scratch array and selects the median value.
+     *
+     * @param data
+     *            List to compute the median value for
+     * @return the median value of the given list or <code>null</code> if the
+     *         list is <code>null</code> or empty.
+     */
+    public Double evaluate(List<Double> data) {
+        if (data == null || data.size() == 0) {
+            return null;
+        }
+        // if only one element in it, it is the mean
+        if (data.size() == 1) {
+            return data.get(0);
+        }
+        int n = data.size();
+        int middle = n / 2;
+        double[] a = Selection.borrowDoubles(scratch, data);
+        try {
+            int numbers = Selection.countNumbers(a, n);
+            if (middle >= numbers) {
+                return Double.NaN;
+            }
+            double upper = Selection.select(a, numbers, middle);
+            if (n % 2 == 0) {
+                // all the items before the middle are smaller, so the largest
+                // of them is the one at middle-1 (zero based index!)
+                return (upper + Selection.max(a, middle)) / 2;
+            }
+            return upper;
+        } finally {
+            scratch.set(a);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return DoubleSelectMedianValueAggregatorFunction.class.getName();
+    }
+}
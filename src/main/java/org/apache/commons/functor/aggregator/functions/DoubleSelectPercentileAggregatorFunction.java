@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator.functions;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.functor.UnaryFunction;
+
+/**
+ * Aggregator function to be used with subclasses of
+ * {@link org.apache.commons.functor.aggregator.AbstractListBackedAggregator}
+ * which retrieves the <a
+ * href="http://en.wikipedia.org/wiki/Percentile">percentile</a> value for a
+ * given percentile. Returns the same value as
+ * {@link DoublePercentileAggregatorFunction}, but rather than sorting the whole
+ * list it copies it into a primitive array reused between calls and selects
+ * the item with the required rank, in expected linear time. The list passed in
+ * is never modified.
+ */
+public class DoubleSelectPercentileAggregatorFunction implements UnaryFunction<List<Double>, Double> {
+    /** A percentile goes from 0 to 100% and that's it. */
+    private static final double             MAX_PERCENTAGE = 100.0;
+    /**
+     * Percentile value to calculate. 0 &lt; percentile &lt;= 100
+     */
+    private final double                    percentile;
+
+    /**
+     * Scratch array reused between calls.
+     */
+    private final AtomicReference<double[]> scratch        = new AtomicReference<double[]>();
+
+    /**
+     * Initializes the function with the given percentile.
+     *
+     * @param percentile
+     *            Percentile this function will return the value for
+     */
+    public DoubleSelectPercentileAggregatorFunction(double percentile) {
+        if (percentile < 0.0 || percentile > MAX_PERCENTAGE) {
+            throw new IllegalArgumentException("Invalid value for percentile: " + percentile);
+        }
+        this.percentile = percentile;
+    }
+
+    /**
+     * Used internally to compute the rank of the item in the list for the
+     * requested percentile. This is invoked internally from
+     * {@link #evaluate(List)}.
+     *
+     * @param size
+     *            Number of items in the list. Must be greater than zero.
+     * @return Index of the item for the requested percentile
+     * @see #getPercentile()
+     */
+    final int computeRank(int size) {
+        int maxRank = size - 1;
+        return (int) Math.floor((percentile * maxRank) / MAX_PERCENTAGE);
+    }
+
+    /**
+     * Copies the list into the scratch array and selects the item for the
+     * requested percentile.
+     *
+     * @param data
+     *            List to compute the percentile for
+     * @return percentile of the given list or null if list is <code>null</code>
+     *         or empty (zero size).
+     */
+    public Double evaluate(List<Double> data) {
+        if (data == null || data.size() == 0) {
+            return null;
+        }
+        int size = data.size();
+        int rank = computeRank(size);
+        double[] a = Selection.borrowDoubles(scratch, data);
+        try {
+            int numbers = Selection.countNumbers(a, size);
+            if (rank >= numbers) {
+                return Double.NaN;
+            }
+            return Selection.select(a, numbers, rank);
+        } finally {
+            scratch.set(a);
+        }
+    }
+
+    /**
+     * Getter for {@link #percentile}.
+     *
+     * @return Retrieves the percentile this instance will return
+     */
+    public double getPercentile() {
+        return percentile;
+    }
+
+    @Override
+    public String toString() {
+        return DoubleSelectPercentileAggregatorFunction.class.getName();
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator.functions;
+
+import org.apache.commons.functor.UnaryFunction;
+import org.apache.commons.functor.aggregator.DoubleSeries;
+
+/**
+ * Aggregator function to be used with
+ * {@link org.apache.commons.functor.aggregator.DoubleArrayBackedAggregator} which
+ * computes the arithmetic mean of all the numbers in the series. Primitive
+ * counterpart of {@link DoubleMeanValueAggregatorFunction}: the values are read
+ * directly from the {@link DoubleSeries}, without unboxing.
+ */
+public final class DoubleSeriesMeanValueAggregatorFunction implements UnaryFunction<DoubleSeries, Double> {
+    /**
+     * Does the actual computation and returns the result. Please note that
+     * caller is responsible for synchronizing access to the series.
+     *
+     * @param data
+     *            Series to traverse and sum
+     * @return arithmetic mean (average) of all the data in the series or null
+     *         if the series is empty.
+     */
+    public Double evaluate(DoubleSeries data) {
+        if (data == null || data.isEmpty()) {
+            return null;
+        }
+        double sum = 0;
+        int n = data.size();
+        for (int i = 0; i < n; i++) {
+            sum += data.get(i);
+        }
+        return (sum / n);
+    }
+
+    @Override
+    public String toString() {
+        return DoubleSeriesMeanValueAggregatorFunction.class.getName();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator.functions;
+
+import java.util.Arrays;
+
+import org.apache.commons.functor.UnaryFunction;
+import org.apache.commons.functor.aggregator.DoubleSeries;
+
+/**
+ * Aggregator function to be used with
+ * {@link org.apache.commons.functor.aggregator.DoubleArrayBackedAggregator} which
+ * computes the <a href="http://en.wikipedia.org/wiki/Median">median</a> of all
+ * the numbers in the series. Primitive counterpart of
+ * {@link DoubleMedianValueAggregatorFunction}: the values are read directly from the
+ * {@link DoubleSeries}, without unboxing.
+ */
+public final class DoubleSeriesMedianValueAggregatorFunction implements UnaryFunction<DoubleSeries, Double> {
+    /**
+     * Flag to indicate whether we are going to operate on a copy of the series
+     * given or not. In order to compute the median, we need to sort the data
+     * first. This function offers 2 ways of doing the sorting:
+     * <ul>
+     * <li>by sorting (modifying) the original series (<code>useCopy=false</code>)
+     * </li>
+     * <li>by operating on a copy of the original series and leaving the
+     * original untouched (<code>useCopy=true</code>)</li>
+     * </ul>
+     * NOTE: While using a copy ensures the original series is untouched, it
+     * does mean we are creating a temporary array for the purpose of this
+     * computation so it will have an impact on memory!
+     */
+    private boolean useCopy;
+
+    /**
+     * By default create a function which will operate on a copy of the original
+     * series ({@link #useCopy} = true).
+     *
+     * @see #useCopy
+     */
+    public DoubleSeriesMedianValueAggregatorFunction() {
+        this(true);
+    }
+
+    /**
+     * Constructor which allows the caller to specify whether to operate on the
+     * original series or a copy of it.
+     *
+     * @param useCopy
+     *            Set to true to operate on a copy of the series or false to
+     *            operate on the original series.
+     * @see #useCopy
+     */
+    public DoubleSeriesMedianValueAggregatorFunction(boolean useCopy) {
+        this.useCopy = useCopy;
+    }
+
+    /**
+     * Getter for {@link #useCopy}.
+     *
+     * @return Current value of {@link #useCopy}.
+     * @see #useCopy
+     */
+    public boolean isUseCopy() {
+        return useCopy;
+    }
+
+    /**
+     * Sorts the given series and chooses the median value. The sorting can be
+     * carried out against the original series or a copy of it, based on the
+     * value of {@link #useCopy}.
+     *
+     * @param data
+     *            Series to compute the median value for
+     * @return the median value of the given series or <code>null</code> if the
+     *         series is <code>null</code> or empty.
+     */
+    public Double evaluate(DoubleSeries data) {
+        if (data == null || data.isEmpty()) {
+            return null;
+        }
+        int n = data.size();
+        if (n == 1) {
+            return data.get(0);
+        }
+        int middle = n / 2;
+        double upper;
+        double lower;
+        if (useCopy) {
+            double[] sorted = data.toArray();
+            Arrays.sort(sorted);
+            upper = sorted[middle];
+            lower = sorted[middle - 1];
+        } else {
+            data.sort();
+            upper = data.get(middle);
+            lower = data.get(middle - 1);
+        }
+        if (n % 2 == 0) {
+            // need to compute the mean of middle and middle-1 (zero based
+            // index!)
+            return (upper + lower) / 2;
+        }
+        return upper;
+    }
+
+    @Override
+    public String toString() {
+        return DoubleSeriesMedianValueAggregatorFunction.class.getName();
+    }
+}
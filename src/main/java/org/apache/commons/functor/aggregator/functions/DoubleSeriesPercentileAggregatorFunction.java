@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator.functions;
+
+import java.util.Arrays;
+
+import org.apache.commons.functor.UnaryFunction;
+import org.apache.commons.functor.aggregator.DoubleSeries;
+
+/**
+ * Aggregator function to be used with
+ * {@link org.apache.commons.functor.aggregator.DoubleArrayBackedAggregator} which
+ * retrieves the <a
+ * href="http://en.wikipedia.org/wiki/Percentile">percentile</a> value for a
+ * given percentile. Primitive counterpart of
+ * {@link DoublePercentileAggregatorFunction}: the values are read directly from the
+ * {@link DoubleSeries}, without unboxing.
+ */
+public class DoubleSeriesPercentileAggregatorFunction implements UnaryFunction<DoubleSeries, Double> {
+    /** A percentile goes from 0 to 100% and that's it. */
+    private static final double MAX_PERCENTAGE = 100.0;
+    /**
+     * Percentile value to calculate. 0 &lt; percentile &lt;= 100
+     */
+    private double              percentile;
+
+    /**
+     * Flag to indicate whether we are going to operate on a copy of the series
+     * given or not. In order to compute the percentile, we need to sort the data
+     * first. This function offers 2 ways of doing the sorting:
+     * <ul>
+     * <li>by sorting (modifying) the original series (<code>useCopy=false</code>)
+     * </li>
+     * <li>by operating on a copy of the original series and leaving the
+     * original untouched (<code>useCopy=true</code>)</li>
+     * </ul>
+     * NOTE: While using a copy ensures the original series is untouched, it
+     * does mean we are creating a temporary array for the purpose of this
+     * computation so it will have an impact on memory!
+     */
+    private boolean             useCopy;
+
+    /**
+     * Similar to {@link #DoubleSeriesPercentileAggregatorFunction(double, boolean)
+     * DoubleSeriesPercentileAggregatorFunction(percentile,true)}.
+     *
+     * @param percentile
+     *            Percentile this function will return the value for
+     */
+    public DoubleSeriesPercentileAggregatorFunction(double percentile) {
+        this(percentile, true);
+    }
+
+    /**
+     * Initializes the function with the given percentile and decides whether
+     * the function will modify the original series or not.
+     *
+     * @param percentile
+     *            Percentile this function will return the value for
+     * @param useCopy
+     *            If set to false, the original series will be modified and
+     *            will contain the data in sorted order, if true, this instance
+     *            will operate on a copy of the series
+     */
+    public DoubleSeriesPercentileAggregatorFunction(double percentile, boolean useCopy) {
+        if (percentile < 0.0 || percentile > MAX_PERCENTAGE) {
+            throw new IllegalArgumentException("Invalid value for percentile: " + percentile);
+        }
+        this.percentile = percentile;
+        this.useCopy = useCopy;
+    }
+
+    /**
+     * Used internally to compute the rank of the item in the series for the
+     * requested percentile. This is invoked internally from
+     * {@link #evaluate(DoubleSeries)}.
+     *
+     * @param size
+     *            Number of items in the series. Must be greater than zero.
+     * @return Index of the item for the requested percentile
+     * @see #getPercentile()
+     */
+    final int computeRank(int size) {
+        int maxRank = size - 1;
+        return (int) Math.floor((percentile * maxRank) / MAX_PERCENTAGE);
+    }
+
+    /**
+     * Traverses the series and computes the percentile. In doing so, it sorts
+     * the data first -- and might or might not use the original series or a
+     * copy depending on {@link #isUseCopy()}.
+     *
+     * @param data
+     *            Series to compute the percentile for
+     * @return percentile of the given series or null if series is
+     *         <code>null</code> or empty (zero size).
+     */
+    public Double evaluate(DoubleSeries data) {
+        if (data == null || data.isEmpty()) {
+            return null;
+        }
+        int rank = computeRank(data.size());
+        if (useCopy) {
+            double[] sorted = data.toArray();
+            Arrays.sort(sorted);
+            return sorted[rank];
+        }
+        data.sort();
+        return data.get(rank);
+    }
+
+    /**
+     * Getter for {@link #percentile}.
+     *
+     * @return Retrieves the percentile this instance will return
+     */
+    public double getPercentile() {
+        return percentile;
+    }
+
+    /**
+     * Does this instance modify the passed in series or not?
+     *
+     * @return If false, this instance will sort the series passed in and then
+     *         use it to compute the percentile; if true, it will operate on a
+     *         copy of the series
+     */
+    public boolean isUseCopy() {
+        return useCopy;
+    }
+
+    @Override
+    public String toString() {
+        return DoubleSeriesPercentileAggregatorFunction.class.getName();
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator.functions;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.functor.UnaryFunction;
+
+/**
+ * Function which retrieves the values for several <a
+ * href="http://en.wikipedia.org/wiki/Percentile">percentiles</a> of a list at
+ * once (e.g. p50, p90, p99 and p999 for a dashboard). Each value is the same
+ * as the one returned by a {@link IntegerPercentileAggregatorFunction} for that
+ * percentile; however, rather than sorting the list, it copies it into a
+ * primitive array reused between calls and partitions it just enough to place
+ * every rank requested, in a single pass. The list passed in is never
+ * modified.
+ * <p>
+ * Since this returns more than one value, it can't be used as the aggregation
+ * function of an
+ * {@link org.apache.commons.functor.aggregator.AbstractListBackedAggregator};
+ * it is meant to be applied to a list retrieved from one, e.g. in a
+ * {@link org.apache.commons.functor.aggregator.TimedAggregatorListener}.
+ * </p>
+ */
+public class IntegerMultiPercentileAggregatorFunction implements UnaryFunction<List<Integer>, int[]> {
+    /** A percentile goes from 0 to 100% and that's it. */
+    private static final double          MAX_PERCENTAGE = 100.0;
+    /**
+     * Percentile values to calculate, in the order the results are returned.
+     */
+    private final double[]               percentiles;
+
+    /**
+     * Scratch array reused between calls.
+     */
+    private final AtomicReference<int[]> scratch        = new AtomicReference<int[]>();
+
+    /**
+     * Initializes the function with the given percentiles.
+     *
+     * @param percentiles
+     *            Percentiles this function will return the values for, each
+     *            between 0 and 100. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>.
+     */
+    public IntegerMultiPercentileAggregatorFunction(double... percentiles) {
+        for (double percentile : percentiles) {
+            if (percentile < 0.0 || percentile > MAX_PERCENTAGE) {
+                throw new IllegalArgumentException("Invalid value for percentile: " + percentile);
+            }
+        }
+        this.percentiles = percentiles.clone();
+    }
+
+    /**
+     * Used internally to compute the ranks of the items in the list for the
+     * requested percentiles. This is invoked internally from
+     * {@link #evaluate(List)}.
+     *
+     * @param size
+     *            Number of items in the list. Must be greater than zero.
+     * @return Index of the item for each of the requested percentiles, in the
+     *         same order as {@link #getPercentiles()}
+     */
+    final int[] computeRanks(int size) {
+        int maxRank = size - 1;
+        int[] ranks = new int[percentiles.length];
+        for (int i = 0; i < ranks.length; i++) {
+            ranks[i] = (int) Math.floor((percentiles[i] * maxRank) / MAX_PERCENTAGE);
+        }
+        return ranks;
+    }
+
+    /**
+     * Copies the list into the scratch array and selects the items for all the
+     * requested percentiles.
+     *
+     * @param data
+     *            List to compute the percentiles for
+     * @return values of the percentiles, in the same order as
+     *         {@link #getPercentiles()}, or <code>null</code> if the list is
+     *         <code>null</code> or empty (zero size).
+     */
+    public int[] evaluate(List<Integer> data) {
+        if (data == null || data.size() == 0) {
+            return null;
+        }
+        int size = data.size();
+        int[] ranks = computeRanks(size);
+        int[] a = Selection.borrowInts(scratch, data);
+        try {
+            int[] sorted = ranks.clone();
+            Arrays.sort(sorted);
+            Selection.selectAll(a, size, sorted, sorted.length);
+            int[] result = new int[ranks.length];
+            for (int i = 0; i < ranks.length; i++) {
+                result[i] = a[ranks[i]];
+            }
+            return result;
+        } finally {
+            scratch.set(a);
+        }
+    }
+
+    /**
+     * Getter for {@link #percentiles}.
+     *
+     * @return Retrieves a copy of the percentiles this instance will return
+     */
+    public double[] getPercentiles() {
+        return percentiles.clone();
+    }
+
+    @Override
+    public String toString() {
+        return IntegerMultiPercentileAggregatorFunction.class.getName();
+    }
+}
@@ -0,0 +1,531 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator.functions;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Selection algorithms used by the aggregator functions which need one or more
+ * ranks of the data (median, percentiles) but not the whole data in sorted
+ * order. These run an introselect: a quickselect (median-of-three pivot) which
+ * falls back to sorting the remaining range if partitioning doesn't make
+ * enough progress, so the expected running time is linear and the worst case
+ * is <code>O(n log n)</code>.
+ * <p>
+ * The data is copied into a primitive scratch array which the functions keep
+ * between calls, so no memory is allocated unless the data grows. The scratch
+ * array is "borrowed" atomically for the duration of a call, so a function can
+ * be evaluated by several threads at the same time: a thread which finds the
+ * array already borrowed simply allocates its own.
+ * </p>
+ */
+final class Selection {
+    /**
+     * Ranges with at most this many items are sorted by insertion.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    /**
+     * Utility class, no instances.
+     */
+    private Selection() {
+    }
+
+    /**
+     * Copies the given list into the scratch array held by <code>scratch</code>
+     * (or a new array, if that one is too small or in use by another thread).
+     * <code>NaN</code> values are moved at the end of the array, after all the
+     * other values, consistent with the ordering of {@link Double#compareTo}.
+     *
+     * @param scratch
+     *            holds the scratch array reused between calls
+     * @param data
+     *            list to copy. Throws <code>NullPointerException</code> if it
+     *            contains <code>null</code> items.
+     * @return array holding the data in its first <code>data.size()</code>
+     *         items
+     */
+    static double[] borrowDoubles(AtomicReference<double[]> scratch, List<Double> data) {
+        int size = data.size();
+        double[] a = scratch.getAndSet(null);
+        if (a == null || a.length < size) {
+            a = new double[size];
+        }
+        int head = 0;
+        int tail = size;
+        for (Double d : data) {
+            double value = d.doubleValue();
+            if (value != value) {
+                a[--tail] = value;
+            } else {
+                a[head++] = value;
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Copies the given list into the scratch array held by <code>scratch</code>
+     * (or a new array, if that one is too small or in use by another thread).
+     *
+     * @param scratch
+     *            holds the scratch array reused between calls
+     * @param data
+     *            list to copy. Throws <code>NullPointerException</code> if it
+     *            contains <code>null</code> items.
+     * @return array holding the data in its first <code>data.size()</code>
+     *         items
+     */
+    static int[] borrowInts(AtomicReference<int[]> scratch, List<Integer> data) {
+        int size = data.size();
+        int[] a = scratch.getAndSet(null);
+        if (a == null || a.length < size) {
+            a = new int[size];
+        }
+        int i = 0;
+        for (Integer n : data) {
+            a[i++] = n.intValue();
+        }
+        return a;
+    }
+
+    /**
+     * Counts the <code>NaN</code> values which {@link #borrowDoubles(AtomicReference, List)}
+     * moved at the end of the array.
+     *
+     * @param a
+     *            array returned by {@link #borrowDoubles(AtomicReference, List)}
+     * @param size
+     *            number of items copied in the array
+     * @return number of items which are not <code>NaN</code>
+     */
+    static int countNumbers(double[] a, int size) {
+        int n = size;
+        while (n > 0 && a[n - 1] != a[n - 1]) {
+            n--;
+        }
+        return n;
+    }
+
+    /**
+     * Rearranges the first <code>size</code> items of the array so the item
+     * with the given rank (zero based) is in its final sorted position, all
+     * the items before it are less than or equal to it and all the items after
+     * it are greater than or equal to it. The items must not be
+     * <code>NaN</code>.
+     *
+     * @param a
+     *            array to rearrange
+     * @param size
+     *            number of items to consider
+     * @param rank
+     *            rank of the item to select, <code>0 &lt;= rank &lt; size</code>
+     * @return the item with the given rank
+     */
+    static double select(double[] a, int size, int rank) {
+        select(a, 0, size - 1, rank, depthLimit(size));
+        return a[rank];
+    }
+
+    /**
+     * Rearranges the first <code>size</code> items of the array so the item
+     * with the given rank (zero based) is in its final sorted position, all
+     * the items before it are less than or equal to it and all the items after
+     * it are greater than or equal to it.
+     *
+     * @param a
+     *            array to rearrange
+     * @param size
+     *            number of items to consider
+     * @param rank
+     *            rank of the item to select, <code>0 &lt;= rank &lt; size</code>
+     * @return the item with the given rank
+     */
+    static int select(int[] a, int size, int rank) {
+        select(a, 0, size - 1, rank, depthLimit(size));
+        return a[rank];
+    }
+
+    /**
+     * Rearranges the first <code>size</code> items of the array so each of the
+     * given ranks holds the item it would hold if the array was sorted. This
+     * partitions the array once for all the ranks rather than once per rank.
+     * The items must not be <code>NaN</code>.
+     *
+     * @param a
+     *            array to rearrange
+     * @param size
+     *            number of items to consider
+     * @param ranks
+     *            ranks to select, sorted in ascending order
+     * @param count
+     *            number of ranks to select (from the start of
+     *            <code>ranks</code>)
+     */
+    static void selectAll(double[] a, int size, int[] ranks, int count) {
+        selectAll(a, 0, size - 1, ranks, 0, count - 1, depthLimit(size));
+    }
+
+    /**
+     * Rearranges the first <code>size</code> items of the array so each of the
+     * given ranks holds the item it would hold if the array was sorted. This
+     * partitions the array once for all the ranks rather than once per rank.
+     *
+     * @param a
+     *            array to rearrange
+     * @param size
+     *            number of items to consider
+     * @param ranks
+     *            ranks to select, sorted in ascending order
+     * @param count
+     *            number of ranks to select (from the start of
+     *            <code>ranks</code>)
+     */
+    static void selectAll(int[] a, int size, int[] ranks, int count) {
+        selectAll(a, 0, size - 1, ranks, 0, count - 1, depthLimit(size));
+    }
+
+    /**
+     * Finds the largest of the given items. Used to retrieve the item just
+     * before a selected rank, since all the items before it are smaller.
+     *
+     * @param a
+     *            array to search
+     * @param to
+     *            number of items to search, must be greater than zero
+     * @return largest of the first <code>to</code> items
+     */
+    static double max(double[] a, int to) {
+        double result = a[0];
+        for (int i = 1; i < to; i++) {
+            if (a[i] > result) {
+                result = a[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the largest of the given items. Used to retrieve the item just
+     * before a selected rank, since all the items before it are smaller.
+     *
+     * @param a
+     *            array to search
+     * @param to
+     *            number of items to search, must be greater than zero
+     * @return largest of the first <code>to</code> items
+     */
+    static int max(int[] a, int to) {
+        int result = a[0];
+        for (int i = 1; i < to; i++) {
+            if (a[i] > result) {
+                result = a[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes how many partitioning steps are allowed before falling back to
+     * sorting: twice the (base 2) logarithm of the number of items.
+     *
+     * @param size
+     *            number of items
+     * @return maximum depth
+     */
+    private static int depthLimit(int size) {
+        return 2 * (Integer.SIZE - Integer.numberOfLeadingZeros(size));
+    }
+
+    /**
+     * Recursive part of {@link #selectAll(double[], int, int[], int)}: selects the
+     * middle rank, then the ranks before it in the left part and the ranks
+     * after it in the right part.
+     *
+     * @param a
+     *            array to rearrange
+     * @param lo
+     *            first index of the range
+     * @param hi
+     *            last index of the range
+     * @param ranks
+     *            ranks to select
+     * @param first
+     *            first rank (index in <code>ranks</code>) to select
+     * @param last
+     *            last rank (index in <code>ranks</code>) to select
+     * @param depth
+     *            partitioning steps left before falling back to sorting
+     */
+    private static void selectAll(double[] a, int lo, int hi, int[] ranks, int first, int last, int depth) {
+        // skip the ranks already placed (e.g. duplicates of a rank selected)
+        int from = first;
+        int to = last;
+        while (from <= to && ranks[from] < lo) {
+            from++;
+        }
+        while (from <= to && ranks[to] > hi) {
+            to--;
+        }
+        if (from > to || lo >= hi) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        int rank = ranks[mid];
+        select(a, lo, hi, rank, depth);
+        selectAll(a, lo, rank - 1, ranks, from, mid - 1, depth);
+        selectAll(a, rank + 1, hi, ranks, mid + 1, to, depth);
+    }
+
+    /**
+     * Recursive part of {@link #selectAll(int[], int, int[], int)}: selects the
+     * middle rank, then the ranks before it in the left part and the ranks
+     * after it in the right part.
+     *
+     * @param a
+     *            array to rearrange
+     * @param lo
+     *            first index of the range
+     * @param hi
+     *            last index of the range
+     * @param ranks
+     *            ranks to select
+     * @param first
+     *            first rank (index in <code>ranks</code>) to select
+     * @param last
+     *            last rank (index in <code>ranks</code>) to select
+     * @param depth
+     *            partitioning steps left before falling back to sorting
+     */
+    private static void selectAll(int[] a, int lo, int hi, int[] ranks, int first, int last, int depth) {
+        // skip the ranks already placed (e.g. duplicates of a rank selected)
+        int from = first;
+        int to = last;
+        while (from <= to && ranks[from] < lo) {
+            from++;
+        }
+        while (from <= to && ranks[to] > hi) {
+            to--;
+        }
+        if (from > to || lo >= hi) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        int rank = ranks[mid];
+        select(a, lo, hi, rank, depth);
+        selectAll(a, lo, rank - 1, ranks, from, mid - 1, depth);
+        selectAll(a, rank + 1, hi, ranks, mid + 1, to, depth);
+    }
+
+    /**
+     * Introselect on the range <code>[lo, hi]</code>.
+     *
+     * @param a
+     *            array to rearrange
+     * @param lo
+     *            first index of the range
+     * @param hi
+     *            last index of the range
+     * @param rank
+     *            index of the item to select, within the range
+     * @param depth
+     *            partitioning steps allowed before falling back to sorting
+     */
+    private static void select(double[] a, int lo, int hi, int rank, int depth) {
+        int left = lo;
+        int right = hi;
+        int steps = depth;
+        while (right - left >= INSERTION_SORT_THRESHOLD) {
+            if (steps-- == 0) {
+                Arrays.sort(a, left, right + 1);
+                return;
+            }
+            // median of three: a[left] <= a[mid] <= a[right]
+            int mid = (left + right) >>> 1;
+            if (a[mid] < a[left]) {
+                swap(a, mid, left);
+            }
+            if (a[right] < a[left]) {
+                swap(a, right, left);
+            }
+            if (a[right] < a[mid]) {
+                swap(a, right, mid);
+            }
+            double pivot = a[mid];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (a[i] < pivot) {
+                    i++;
+                }
+                while (pivot < a[j]) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(a, i++, j--);
+                }
+            }
+            // now [left, j] <= pivot, [i, right] >= pivot and (j, i) == pivot
+            if (rank <= j) {
+                right = j;
+            } else if (rank >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+        insertionSort(a, left, right);
+    }
+
+    /**
+     * Introselect on the range <code>[lo, hi]</code>.
+     *
+     * @param a
+     *            array to rearrange
+     * @param lo
+     *            first index of the range
+     * @param hi
+     *            last index of the range
+     * @param rank
+     *            index of the item to select, within the range
+     * @param depth
+     *            partitioning steps allowed before falling back to sorting
+     */
+    private static void select(int[] a, int lo, int hi, int rank, int depth) {
+        int left = lo;
+        int right = hi;
+        int steps = depth;
+        while (right - left >= INSERTION_SORT_THRESHOLD) {
+            if (steps-- == 0) {
+                Arrays.sort(a, left, right + 1);
+                return;
+            }
+            // median of three: a[left] <= a[mid] <= a[right]
+            int mid = (left + right) >>> 1;
+            if (a[mid] < a[left]) {
+                swap(a, mid, left);
+            }
+            if (a[right] < a[left]) {
+                swap(a, right, left);
+            }
+            if (a[right] < a[mid]) {
+                swap(a, right, mid);
+            }
+            int pivot = a[mid];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (a[i] < pivot) {
+                    i++;
+                }
+                while (pivot < a[j]) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(a, i++, j--);
+                }
+            }
+            // now [left, j] <= pivot, [i, right] >= pivot and (j, i) == pivot
+            if (rank <= j) {
+                right = j;
+            } else if (rank >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+        insertionSort(a, left, right);
+    }
+
+    /**
+     * Sorts the range <code>[lo, hi]</code> by insertion.
+     *
+     * @param a
+     *            array to sort
+     * @param lo
+     *            first index of the range
+     * @param hi
+     *            last index of the range
+     */
+    private static void insertionSort(double[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++) {
+            double value = a[i];
+            int j = i - 1;
+            while (j >= lo && value < a[j]) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = value;
+        }
+    }
+
+    /**
+     * Sorts the range <code>[lo, hi]</code> by insertion.
+     *
+     * @param a
+     *            array to sort
+     * @param lo
+     *            first index of the range
+     * @param hi
+     *            last index of the range
+     */
+    private static void insertionSort(int[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++) {
+            int value = a[i];
+            int j = i - 1;
+            while (j >= lo && value < a[j]) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = value;
+        }
+    }
+
+    /**
+     * Swaps two items of an array.
+     *
+     * @param a
+     *            array
+     * @param i
+     *            index of the first item
+     * @param j
+     *            index of the second item
+     */
+    private static void swap(double[] a, int i, int j) {
+        double tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+    }
+
+    /**
+     * Swaps two items of an array.
+     *
+     * @param a
+     *            array
+     * @param i
+     *            index of the first item
+     * @param j
+     *            index of the second item
+     */
+    private static void swap(int[] a, int i, int j) {
+        int tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+    }
+}
@@ -21,8 +21,8 @@ import java.util.NoSuchElementException;
 
 import org.apache.commons.functor.BinaryFunction;
 import org.apache.commons.functor.UnaryPredicate;
-import org.apache.commons.functor.UnaryProcedure;
 import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.StoppableUnaryProcedure;
 
 /**
  * Return the first Object in a {@link Generator} matching a {@link UnaryPredicate}.
@@ -48,7 +48,7 @@ public final class FindWithinGenerator<E>
      *
      * @param <T> the argument type.
      */
-    private static class FindProcedure<T> implements UnaryProcedure<T> {
+    private static class FindProcedure<T> implements StoppableUnaryProcedure<T> {
         /**
          * The object found, if any.
          */
@@ -79,6 +79,14 @@ public final class FindWithinGenerator<E>
                 found = obj;
             }
         }
+
+        /**
+         * {@inheritDoc}
+         * Stops at the first match.
+         */
+        public boolean isStopped() {
+            return wasFound;
+        }
     }
 
     /**
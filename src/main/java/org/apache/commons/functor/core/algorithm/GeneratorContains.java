@@ -20,8 +20,8 @@ import java.io.Serializable;
 
 import org.apache.commons.functor.BinaryPredicate;
 import org.apache.commons.functor.UnaryPredicate;
-import org.apache.commons.functor.UnaryProcedure;
 import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.StoppableUnaryProcedure;
 
 /**
  * Tests whether a {@link Generator} contains an element that matches a {@link UnaryPredicate}.
@@ -45,7 +45,7 @@ public final class GeneratorContains<T> implements BinaryPredicate<Generator<? e
      *
      * @param <T> the predicate argument type.
      */
-    private static class ContainsProcedure<T> implements UnaryProcedure<T> {
+    private static class ContainsProcedure<T> implements StoppableUnaryProcedure<T> {
         /**
          * The wrapped predicate.
          */
@@ -68,7 +68,15 @@ public final class GeneratorContains<T> implements BinaryPredicate<Generator<? e
          * {@inheritDoc}
          */
         public void run(T obj) {
-            found |= pred.test(obj);
+            found = found || pred.test(obj);
+        }
+
+        /**
+         * {@inheritDoc}
+         * Stops at the first match.
+         */
+        public boolean isStopped() {
+            return found;
         }
     }
 
@@ -20,7 +20,7 @@ import java.io.Serializable;
 
 import org.apache.commons.functor.BinaryFunction;
 import org.apache.commons.functor.UnaryPredicate;
-import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.functor.generator.StoppableUnaryProcedure;
 import org.apache.commons.functor.generator.loop.LoopGenerator;
 
 /**
@@ -46,7 +46,7 @@ public final class IndexOfInGenerator<T>
      *
      * @param <T> the procedure argument type
      */
-    private static class IndexProcedure<T> implements UnaryProcedure<T> {
+    private static class IndexProcedure<T> implements StoppableUnaryProcedure<T> {
         /**
          * The wrapped generator.
          */
@@ -86,6 +86,14 @@ public final class IndexOfInGenerator<T>
             }
             current++;
         }
+
+        /**
+         * {@inheritDoc}
+         * Stops at the first match.
+         */
+        public boolean isStopped() {
+            return index >= 0;
+        }
     }
 
     /**
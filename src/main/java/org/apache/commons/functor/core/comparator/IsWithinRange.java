@@ -23,6 +23,9 @@ import org.apache.commons.lang3.Validate;
 /**
  * A {@link UnaryPredicate} that tests whether a {@link Comparable} object is
  * within a range. The range is defined in the constructor.
+ * To test objects against many ranges, a single
+ * {@link org.apache.commons.functor.range.RangeSet} is faster than a
+ * predicate per range.
  *
  * @since 1.0
  * @param <A> the predicate argument type.
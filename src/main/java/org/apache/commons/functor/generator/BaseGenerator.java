@@ -14,10 +14,16 @@
 
 package org.apache.commons.functor.generator;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.functor.UnaryFunction;
+import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.functor.generator.loop.ConcurrentTransformedGenerator;
 import org.apache.commons.functor.generator.util.CollectionTransformer;
+import org.apache.commons.lang3.Validate;
 
 /**
  * Base class for generators. Adds support for all of the Algorithms to
@@ -59,4 +65,128 @@ public abstract class BaseGenerator<E> implements Generator<E> {
     public final Collection<E> toCollection() {
         return to(CollectionTransformer.<E> toCollection());
     }
+
+    /**
+     * Transform the elements of this generator concurrently, keeping their
+     * order; see {@link ConcurrentTransformedGenerator}.
+     * @param <T> the type of elements held in the returned generator
+     * @param maxInFlight maximum number of elements being transformed at any
+     * time. Must be greater than zero.
+     * @param func thread safe UnaryFunction to apply to each element
+     * @return ConcurrentTransformedGenerator
+     */
+    public final <T> ConcurrentTransformedGenerator<E, T> mapConcurrent(int maxInFlight,
+            UnaryFunction<? super E, ? extends T> func) {
+        return new ConcurrentTransformedGenerator<E, T>(this, maxInFlight, func);
+    }
+
+    /**
+     * Transform the elements of this generator concurrently on
+     * <code>executor</code>; see {@link ConcurrentTransformedGenerator}.
+     * @param <T> the type of elements held in the returned generator
+     * @param maxInFlight maximum number of elements being transformed at any
+     * time. Must be greater than zero.
+     * @param func thread safe UnaryFunction to apply to each element
+     * @param ordered whether the results are passed on in the order of this
+     * generator
+     * @param executor Executor to run the function on
+     * @return ConcurrentTransformedGenerator
+     */
+    public final <T> ConcurrentTransformedGenerator<E, T> mapConcurrent(int maxInFlight,
+            UnaryFunction<? super E, ? extends T> func, boolean ordered, Executor executor) {
+        return new ConcurrentTransformedGenerator<E, T>(this, maxInFlight, func, ordered, executor);
+    }
+
+    /**
+     * Run this generator, passing the elements to <code>proc</code> in
+     * batches of <code>size</code> elements (the last batch may be smaller),
+     * e.g. so that they can be written in bulk. Each batch is a new list
+     * which belongs to <code>proc</code>.
+     * <p>
+     * This implementation collects the elements passed by {@link #run}; sources
+     * which can fill the batches themselves override it.
+     * </p>
+     * @param size maximum number of elements in a batch, must be positive
+     * @param proc UnaryProcedure to run with each batch
+     */
+    public void runBatched(int size, UnaryProcedure<? super List<E>> proc) {
+        checkBatched(size, proc);
+        Batcher<E> batcher = new Batcher<E>(size, proc);
+        run(batcher);
+        batcher.flush();
+    }
+
+    /**
+     * Learn whether a procedure has asked the generator running it to stop.
+     * Generators call this after passing each element to <code>proc</code>.
+     * @param proc UnaryProcedure being run
+     * @return <code>true</code> if <code>proc</code> is a
+     * {@link StoppableUnaryProcedure} which is stopped
+     */
+    public static boolean isStopRequested(UnaryProcedure<?> proc) {
+        return proc instanceof StoppableUnaryProcedure<?> && ((StoppableUnaryProcedure<?>) proc).isStopped();
+    }
+
+    /**
+     * Check the arguments of {@link #runBatched(int, UnaryProcedure)}.
+     * @param size maximum number of elements in a batch
+     * @param proc UnaryProcedure to run with each batch
+     */
+    protected static void checkBatched(int size, UnaryProcedure<?> proc) {
+        Validate.isTrue(size > 0, "Batch size must be positive: %d", size);
+        Validate.notNull(proc, "UnaryProcedure argument was null");
+    }
+
+    /**
+     * Procedure which collects elements into batches.
+     * @param <E> the type of elements collected.
+     */
+    private static final class Batcher<E> implements UnaryProcedure<E> {
+        /**
+         * Maximum number of elements in a batch.
+         */
+        private final int size;
+
+        /**
+         * Procedure to run with each batch.
+         */
+        private final UnaryProcedure<? super List<E>> proc;
+
+        /**
+         * The batch being filled.
+         */
+        private List<E> batch;
+
+        /**
+         * Create a new Batcher.
+         * @param size maximum number of elements in a batch
+         * @param proc procedure to run with each batch
+         */
+        Batcher(int size, UnaryProcedure<? super List<E>> proc) {
+            this.size = size;
+            this.proc = proc;
+            this.batch = new ArrayList<E>(size);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void run(E obj) {
+            batch.add(obj);
+            if (batch.size() == size) {
+                flush();
+            }
+        }
+
+        /**
+         * Pass the current batch, unless it is empty, to the procedure.
+         */
+        void flush() {
+            if (!batch.isEmpty()) {
+                List<E> full = batch;
+                batch = new ArrayList<E>(size);
+                proc.run(full);
+            }
+        }
+    }
 }
@@ -18,7 +18,6 @@ package org.apache.commons.functor.generator;
 
 import org.apache.commons.functor.UnaryPredicate;
 import org.apache.commons.functor.UnaryProcedure;
-import org.apache.commons.functor.core.composite.ConditionalUnaryProcedure;
 import org.apache.commons.lang3.Validate;
 
 /**
@@ -54,7 +53,7 @@ public class FilteredGenerator<E> extends BaseGenerator<E> {
      * {@inheritDoc}
      */
     public void run(UnaryProcedure<? super E> proc) {
-        getWrappedGenerator().run(new ConditionalUnaryProcedure<E>(pred, proc));
+        getWrappedGenerator().run(new FilterProcedure<E>(pred, proc));
     }
 
     /**
@@ -93,4 +92,48 @@ public class FilteredGenerator<E> extends BaseGenerator<E> {
         result ^= pred.hashCode();
         return result;
     }
+
+    /**
+     * Procedure which runs another one for the elements matched by a
+     * predicate, and stops when it does.
+     *
+     * @param <E> the argument type.
+     */
+    private static final class FilterProcedure<E> implements StoppableUnaryProcedure<E> {
+        /**
+         * The filter.
+         */
+        private final UnaryPredicate<? super E> pred;
+
+        /**
+         * The procedure to run for the matching elements.
+         */
+        private final UnaryProcedure<? super E> proc;
+
+        /**
+         * Create a new FilterProcedure.
+         * @param pred the filter
+         * @param proc the procedure to run for the matching elements
+         */
+        FilterProcedure(UnaryPredicate<? super E> pred, UnaryProcedure<? super E> proc) {
+            this.pred = pred;
+            this.proc = proc;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void run(E obj) {
+            if (pred.test(obj)) {
+                proc.run(obj);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean isStopped() {
+            return isStopRequested(proc);
+        }
+    }
 }
@@ -27,7 +27,9 @@ import org.apache.commons.functor.UnaryProcedure;
  */
 public interface Generator<E> {
     /**
-     * Generators must implement this method.
+     * Generators must implement this method. If <code>proc</code> is a
+     * {@link StoppableUnaryProcedure}, generators should return as soon as it
+     * is stopped.
      * @param proc UnaryProcedure to run
      */
     void run(UnaryProcedure<? super E> proc);
@@ -0,0 +1,375 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.UnaryFunction;
+import org.apache.commons.functor.UnaryPredicate;
+import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.functor.generator.loop.TransformedGenerator;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Generator which runs a filter/transform pipeline over the elements of a
+ * {@link SplittableGenerator} on several threads. The source is split into
+ * parts (a few per thread, so threads which finish early can pick up more
+ * work), each part is run through the pipeline -- made of
+ * {@link FilteredGenerator}s and {@link TransformedGenerator}s -- on a thread
+ * of the executor, and the results of the parts are combined in order.
+ * <p>
+ * The calling thread takes part in the work, so a parallel generator never
+ * waits for a part nobody is running, even if the executor is busy (or
+ * rejects the tasks).
+ * </p>
+ * <p>
+ * {@link #run(UnaryProcedure)} (and therefore {@link #to(java.util.Collection)}
+ * and the other methods of {@link BaseGenerator}) buffers the output of each
+ * part and runs the procedure on the calling thread, in the order of the
+ * source, so it can be used in place of a sequential generator. The
+ * predicates and functions of the pipeline however run concurrently, so they
+ * must be thread safe. {@link #runUnordered(UnaryProcedure)} and
+ * {@link #reduce(Object, BinaryFunction)} don't buffer anything.
+ * </p>
+ *
+ * @param <E> the type of elements held in this generator.
+ * @version $Revision:$ $Date:$
+ */
+public class ParallelGenerator<E> extends BaseGenerator<E> {
+    /**
+     * Number of parts the source is split into for each thread.
+     */
+    public static final int SPLITS_PER_THREAD = 4;
+
+    /**
+     * The source of the elements.
+     */
+    private final SplittableGenerator<?> source;
+
+    /**
+     * Builds the pipeline to run each part of the source through.
+     */
+    private final UnaryFunction<Generator<?>, Generator<? extends E>> pipeline;
+
+    /**
+     * Executor the parts are run on.
+     */
+    private final Executor executor;
+
+    /**
+     * Maximum number of threads (including the calling thread) to use.
+     */
+    private final int parallelism;
+
+    /**
+     * Create a new ParallelGenerator.
+     * @param source the source of the elements
+     * @param pipeline builds the pipeline to run each part through
+     * @param executor Executor to run the parts on
+     * @param parallelism maximum number of threads to use
+     */
+    private ParallelGenerator(SplittableGenerator<?> source,
+            UnaryFunction<Generator<?>, Generator<? extends E>> pipeline, Executor executor, int parallelism) {
+        this.source = source;
+        this.pipeline = pipeline;
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Create a parallel generator over the elements of <code>source</code>,
+     * using a shared executor with one (daemon) thread per available
+     * processor.
+     * @param <E> the type of elements held in the source.
+     * @param source the source of the elements
+     * @return ParallelGenerator
+     */
+    public static <E> ParallelGenerator<E> of(SplittableGenerator<E> source) {
+        return of(source, DefaultExecutor.INSTANCE, DefaultExecutor.PARALLELISM);
+    }
+
+    /**
+     * Create a parallel generator over the elements of <code>source</code>.
+     * @param <E> the type of elements held in the source.
+     * @param source the source of the elements
+     * @param executor Executor to run the parts on
+     * @param parallelism maximum number of threads to use, including the
+     * calling thread. Must be greater than zero.
+     * @return ParallelGenerator
+     */
+    public static <E> ParallelGenerator<E> of(SplittableGenerator<E> source, Executor executor, int parallelism) {
+        Validate.notNull(source, "SplittableGenerator argument was null");
+        Validate.notNull(executor, "Executor argument was null");
+        Validate.isTrue(parallelism > 0, "Parallelism must be positive: %d", parallelism);
+        return new ParallelGenerator<E>(source, new UnaryFunction<Generator<?>, Generator<? extends E>>() {
+            @SuppressWarnings("unchecked")
+            public Generator<? extends E> evaluate(Generator<?> part) {
+                return (Generator<? extends E>) part;
+            }
+        }, executor, parallelism);
+    }
+
+    /**
+     * Create a parallel generator which only passes through the elements of
+     * this generator matched by <code>pred</code>.
+     * @param pred filtering UnaryPredicate, run concurrently
+     * @return ParallelGenerator
+     */
+    public ParallelGenerator<E> filter(final UnaryPredicate<? super E> pred) {
+        Validate.notNull(pred, "UnaryPredicate argument was null");
+        final UnaryFunction<Generator<?>, Generator<? extends E>> previous = pipeline;
+        return new ParallelGenerator<E>(source, new UnaryFunction<Generator<?>, Generator<? extends E>>() {
+            public Generator<? extends E> evaluate(Generator<?> part) {
+                return new FilteredGenerator<E>(previous.evaluate(part), pred);
+            }
+        }, executor, parallelism);
+    }
+
+    /**
+     * Create a parallel generator which transforms the elements of this
+     * generator using <code>func</code>.
+     * @param <T> the type of elements held in the new generator.
+     * @param func UnaryFunction to apply to each element, run concurrently
+     * @return ParallelGenerator
+     */
+    public <T> ParallelGenerator<T> map(final UnaryFunction<? super E, ? extends T> func) {
+        Validate.notNull(func, "UnaryFunction argument was null");
+        final UnaryFunction<Generator<?>, Generator<? extends E>> previous = pipeline;
+        return new ParallelGenerator<T>(source, new UnaryFunction<Generator<?>, Generator<? extends T>>() {
+            public Generator<? extends T> evaluate(Generator<?> part) {
+                return new TransformedGenerator<E, T>(previous.evaluate(part), func);
+            }
+        }, executor, parallelism);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The elements are computed in parallel, but <code>proc</code> is run on
+     * the calling thread, in the order of the source.
+     */
+    public void run(UnaryProcedure<? super E> proc) {
+        List<List<E>> parts = execute(new UnaryFunction<Generator<? extends E>, List<E>>() {
+            public List<E> evaluate(Generator<? extends E> part) {
+                return part.to(new ArrayList<E>());
+            }
+        });
+        for (List<E> part : parts) {
+            for (E element : part) {
+                proc.run(element);
+                if (isStopRequested(proc)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Run <code>proc</code> for each element, concurrently and in no
+     * particular order, without buffering the elements.
+     * @param proc thread safe UnaryProcedure to run
+     */
+    public void runUnordered(final UnaryProcedure<? super E> proc) {
+        Validate.notNull(proc, "UnaryProcedure argument was null");
+        execute(new UnaryFunction<Generator<? extends E>, Object>() {
+            public Object evaluate(Generator<? extends E> part) {
+                part.run(proc);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Combine the elements using <code>func</code>: each part is folded in
+     * parallel, starting from <code>identity</code>, then the results of the
+     * parts are folded in order.
+     * @param identity identity of <code>func</code>, e.g. 0 for a sum
+     * @param func associative BinaryFunction, run concurrently
+     * @return the combination of <code>identity</code> and all the elements
+     */
+    public E reduce(final E identity, final BinaryFunction<? super E, ? super E, ? extends E> func) {
+        Validate.notNull(func, "BinaryFunction argument was null");
+        List<E> parts = execute(new UnaryFunction<Generator<? extends E>, E>() {
+            public E evaluate(Generator<? extends E> part) {
+                final List<E> result = new ArrayList<E>(1);
+                result.add(identity);
+                part.run(new UnaryProcedure<E>() {
+                    public void run(E element) {
+                        result.set(0, func.evaluate(result.get(0), element));
+                    }
+                });
+                return result.get(0);
+            }
+        });
+        E result = identity;
+        for (E part : parts) {
+            result = func.evaluate(result, part);
+        }
+        return result;
+    }
+
+    /**
+     * Count the elements, in parallel.
+     * @return number of elements generated
+     */
+    public long count() {
+        long result = 0L;
+        for (Long part : execute(new UnaryFunction<Generator<? extends E>, Long>() {
+            public Long evaluate(Generator<? extends E> part) {
+                final long[] count = new long[1];
+                part.run(new UnaryProcedure<E>() {
+                    public void run(E element) {
+                        count[0]++;
+                    }
+                });
+                return count[0];
+            }
+        })) {
+            result += part.longValue();
+        }
+        return result;
+    }
+
+    /**
+     * Get the maximum number of threads used.
+     * @return parallelism
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Split the source, run each part through the pipeline then
+     * <code>task</code>, in parallel, and collect the results.
+     * @param <R> the type of the result of each part.
+     * @param task UnaryFunction to apply to the pipeline of each part
+     * @return the results of the parts, in order
+     */
+    private <R> List<R> execute(final UnaryFunction<Generator<? extends E>, ? extends R> task) {
+        final List<? extends SplittableGenerator<?>> parts = source.split(parallelism * SPLITS_PER_THREAD);
+        final int count = parts.size();
+        if (count == 1 || parallelism == 1) {
+            List<R> results = new ArrayList<R>(count);
+            for (SplittableGenerator<?> part : parts) {
+                results.add(task.evaluate(pipeline.evaluate(part)));
+            }
+            return results;
+        }
+        final Object[] results = new Object[count];
+        final AtomicInteger next = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(count);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Runnable worker = new Runnable() {
+            public void run() {
+                for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+                    try {
+                        if (failure.get() == null) {
+                            results[i] = task.evaluate(pipeline.evaluate(parts.get(i)));
+                        }
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } catch (Error e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }
+        };
+        try {
+            for (int i = 1; i < Math.min(parallelism, count); i++) {
+                executor.execute(worker);
+            }
+        } catch (RejectedExecutionException e) {
+            // the calling thread does the rest of the work
+        }
+        worker.run();
+        awaitUninterruptibly(done);
+        Throwable t = failure.get();
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        @SuppressWarnings("unchecked")
+        List<R> list = (List<R>) Arrays.asList(results);
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Wait for the latch to reach zero. If the current thread is interrupted
+     * in the meantime, keep waiting (the parts being run can't be abandoned)
+     * and restore the interrupt status afterwards.
+     * @param latch CountDownLatch to wait for
+     */
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ParallelGenerator<" + source + ", parallelism=" + parallelism + ">";
+    }
+
+    /**
+     * Holds the shared default executor, created on first use.
+     */
+    private static final class DefaultExecutor {
+        /**
+         * Number of threads of the default executor.
+         */
+        static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * The default executor.
+         */
+        static final Executor INSTANCE = Executors.newFixedThreadPool(PARALLELISM, new ThreadFactory() {
+            private final AtomicInteger threads = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ParallelGenerator-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+}
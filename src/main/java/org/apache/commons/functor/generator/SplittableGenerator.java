@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import java.util.List;
+
+/**
+ * A generator over a source whose elements can be divided into consecutive,
+ * independent parts -- e.g. an array, a list or a range -- so that the parts
+ * can be generated concurrently by a {@link ParallelGenerator}.
+ *
+ * @param <E> the type of elements held in this generator.
+ * @version $Revision:$ $Date:$
+ */
+public interface SplittableGenerator<E> extends Generator<E> {
+    /**
+     * Get the number of elements this generator will generate.
+     * @return number of elements
+     */
+    long size();
+
+    /**
+     * Split this generator into at most <code>parts</code> generators, which
+     * generate consecutive parts of the elements of this generator: running
+     * them one after the other, in order, generates the same elements as
+     * running this generator. This generator is left unchanged.
+     * @param parts maximum number of parts, must be greater than zero
+     * @return the parts, a single one (which may be this generator) if this
+     * generator can't be split
+     */
+    List<? extends SplittableGenerator<E>> split(int parts);
+
+    /**
+     * Create a parallel generator over the elements of this generator, using
+     * the {@link ParallelGenerator#of(SplittableGenerator) default executor}.
+     * @return ParallelGenerator
+     */
+    ParallelGenerator<E> parallel();
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import org.apache.commons.functor.UnaryProcedure;
+
+/**
+ * A procedure run by a {@link Generator} which can tell the generator that it
+ * doesn't need any more elements, e.g. because it is looking for an element
+ * and has found it. Generators check {@link #isStopped()} after passing each
+ * element and return as soon as it is <code>true</code>; generators which wrap
+ * another one (filtering or transforming its elements, for instance) pass the
+ * signal on by running the wrapped generator with a stoppable procedure too
+ * (see {@link BaseGenerator#isStopRequested(UnaryProcedure)}).
+ * <p>
+ * Unlike {@link org.apache.commons.functor.generator.loop.LoopGenerator#stop()},
+ * stopping a procedure doesn't change the generator, so it can be run again.
+ * </p>
+ *
+ * @param <A> the argument type.
+ * @version $Revision:$ $Date:$
+ */
+public interface StoppableUnaryProcedure<A> extends UnaryProcedure<A> {
+    /**
+     * Learn whether this procedure needs more elements.
+     * @return <code>true</code> if the generator running this procedure can
+     * return without passing it any more elements
+     */
+    boolean isStopped();
+}
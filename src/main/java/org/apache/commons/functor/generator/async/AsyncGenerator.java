@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.async;
+
+/**
+ * Source of elements which are produced asynchronously, and passed to
+ * {@link AsyncSubscriber}s only as fast as they request them. Unlike a
+ * {@link org.apache.commons.functor.generator.Generator}, which runs its
+ * procedure until it is done, an asynchronous generator passes the elements
+ * when they become available, possibly on another thread, and never more than
+ * the subscriber has asked for: a slow subscriber slows the source down
+ * instead of letting elements pile up.
+ * <p>
+ * The protocol is the one of Reactive Streams publishers: after
+ * {@link AsyncSubscriber#onSubscribe(AsyncSubscription) onSubscribe}, the
+ * subscriber receives at most as many
+ * {@link AsyncSubscriber#onNext(Object) onNext} calls as it has
+ * {@link AsyncSubscription#request(long) requested}, followed by either
+ * {@link AsyncSubscriber#onComplete() onComplete} or
+ * {@link AsyncSubscriber#onError(Throwable) onError}, unless it cancels its
+ * subscription first. The calls to a subscriber never overlap.
+ * </p>
+ *
+ * @param <E> the type of elements held in this generator.
+ * @version $Revision:$ $Date:$
+ */
+public interface AsyncGenerator<E> {
+    /**
+     * Start passing the elements to a subscriber, as it requests them.
+     * @param subscriber AsyncSubscriber to pass the elements to
+     */
+    void subscribe(AsyncSubscriber<? super E> subscriber);
+}
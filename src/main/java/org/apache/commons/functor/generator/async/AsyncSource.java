@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.async;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Asynchronous generator fed by the application, e.g. with events received
+ * from the network, through a bounded buffer. Elements are passed to the
+ * subscriber as it requests them; when it doesn't keep up, the buffer fills
+ * up and {@link #offer(Object)} returns <code>false</code> (or
+ * {@link #put(Object)} waits), so the producer is throttled instead of
+ * queueing elements without bounds.
+ * <p>
+ * A source has a single subscriber; elements offered before it subscribes are
+ * kept in the buffer. Once it has cancelled its subscription, offered
+ * elements are dropped. The elements are passed to the subscriber on the
+ * threads which offer them or request them, one thread at a time.
+ * </p>
+ *
+ * @param <E> the type of elements held in this generator.
+ * @version $Revision:$ $Date:$
+ */
+public class AsyncSource<E> extends BaseAsyncGenerator<E> {
+
+    /**
+     * The elements not passed to the subscriber yet.
+     */
+    private final BlockingQueue<Object> buffer;
+
+    /**
+     * The subscription of the subscriber, once it has subscribed.
+     */
+    private final AtomicReference<SourceSubscription> subscription = new AtomicReference<SourceSubscription>();
+
+    /**
+     * Set once no more elements will be offered.
+     */
+    private volatile boolean completed;
+
+    /**
+     * The reason of the failure of the source, if any.
+     */
+    private volatile Throwable error;
+
+    /**
+     * Create a new AsyncSource.
+     * @param capacity maximum number of elements buffered, must be positive
+     */
+    public AsyncSource(int capacity) {
+        Validate.isTrue(capacity > 0, "Capacity must be positive: %d", capacity);
+        this.buffer = new ArrayBlockingQueue<Object>(capacity);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Only one subscriber is allowed: any other one fails with an
+     * <code>IllegalStateException</code>.
+     */
+    public void subscribe(AsyncSubscriber<? super E> subscriber) {
+        Validate.notNull(subscriber, "AsyncSubscriber argument was null");
+        SourceSubscription s = new SourceSubscription(subscriber);
+        if (!subscription.compareAndSet(null, s)) {
+            subscriber.onSubscribe(new AsyncSubscription() {
+                public void request(long n) {
+                }
+
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("AsyncSource allows only one subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(s);
+        // tell the subscriber if the source is already exhausted
+        s.drain();
+    }
+
+    /**
+     * Add an element, unless the buffer is full.
+     * @param obj element to add
+     * @return <code>true</code> if the element was added (or dropped because
+     * the subscriber has cancelled), <code>false</code> if the buffer is full
+     */
+    public boolean offer(E obj) {
+        checkNotCompleted();
+        if (isCancelled()) {
+            return true;
+        }
+        if (!buffer.offer(obj == null ? DrainingSubscription.NULL : obj)) {
+            return false;
+        }
+        drain();
+        return true;
+    }
+
+    /**
+     * Add an element, waiting for space in the buffer if needed.
+     * @param obj element to add
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void put(E obj) throws InterruptedException {
+        checkNotCompleted();
+        if (isCancelled()) {
+            return;
+        }
+        buffer.put(obj == null ? DrainingSubscription.NULL : obj);
+        drain();
+    }
+
+    /**
+     * Signal that no more elements will be added. The subscriber completes
+     * once it has received the elements in the buffer.
+     */
+    public void complete() {
+        completed = true;
+        drain();
+    }
+
+    /**
+     * Signal that the source has failed. The subscriber receives the error
+     * once it has received the elements in the buffer.
+     * @param e reason of the failure
+     */
+    public void fail(Throwable e) {
+        Validate.notNull(e, "Throwable argument was null");
+        if (!completed) {
+            error = e;
+            completed = true;
+            drain();
+        }
+    }
+
+    /**
+     * Get the number of elements which can be added without waiting.
+     * @return int
+     */
+    public int remainingCapacity() {
+        return buffer.remainingCapacity();
+    }
+
+    /**
+     * Learn whether the subscriber has cancelled its subscription (or
+     * received the termination signal).
+     * @return boolean
+     */
+    public boolean isCancelled() {
+        SourceSubscription s = subscription.get();
+        return s != null && s.isCancelled();
+    }
+
+    /**
+     * Check that elements can still be added.
+     */
+    private void checkNotCompleted() {
+        if (completed) {
+            throw new IllegalStateException("AsyncSource has been completed");
+        }
+    }
+
+    /**
+     * Pass the elements to the subscriber, if there is one.
+     */
+    private void drain() {
+        SourceSubscription s = subscription.get();
+        if (s != null) {
+            s.drain();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "AsyncSource<capacity=" + (buffer.size() + buffer.remainingCapacity()) + ">";
+    }
+
+    /**
+     * Subscription which passes the buffered elements.
+     */
+    private final class SourceSubscription extends DrainingSubscription<E> {
+        /**
+         * Create a new SourceSubscription.
+         * @param subscriber the subscriber
+         */
+        SourceSubscription(AsyncSubscriber<? super E> subscriber) {
+            super(subscriber);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        Object poll() {
+            // read the flag first: anything added before completion is in the buffer
+            boolean done = completed;
+            Object next = buffer.poll();
+            if (next != null) {
+                return next;
+            }
+            return done ? END : EMPTY;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        boolean isExhausted() {
+            return completed && buffer.isEmpty();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        Throwable getError() {
+            return error;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void cancelled() {
+            buffer.clear();
+        }
+    }
+}
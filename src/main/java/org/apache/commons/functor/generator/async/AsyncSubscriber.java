@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.async;
+
+/**
+ * Receives the elements of an {@link AsyncGenerator}.
+ *
+ * @param <E> the type of elements received.
+ * @version $Revision:$ $Date:$
+ */
+public interface AsyncSubscriber<E> {
+    /**
+     * Called once, before any other method, when subscribing to a generator.
+     * No element is passed until some are requested through the subscription.
+     * @param subscription AsyncSubscription to request elements with
+     */
+    void onSubscribe(AsyncSubscription subscription);
+
+    /**
+     * Called for each element, as many times as requested at most.
+     * @param obj element
+     */
+    void onNext(E obj);
+
+    /**
+     * Called once if the generator fails. No method is called after this.
+     * @param error the reason of the failure
+     */
+    void onError(Throwable error);
+
+    /**
+     * Called once after the last element. No method is called after this.
+     */
+    void onComplete();
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.async;
+
+/**
+ * Link between an {@link AsyncGenerator} and one of its
+ * {@link AsyncSubscriber}s, through which the subscriber tells the generator
+ * how many elements it can take.
+ *
+ * @version $Revision:$ $Date:$
+ */
+public interface AsyncSubscription {
+    /**
+     * Allow the generator to pass <code>n</code> more elements. Requests add
+     * up; requesting <code>Long.MAX_VALUE</code> elements lifts the limit.
+     * @param n number of elements, must be positive (otherwise the subscriber
+     * receives an <code>IllegalArgumentException</code> through
+     * {@link AsyncSubscriber#onError(Throwable)})
+     */
+    void request(long n);
+
+    /**
+     * Stop receiving elements. A few elements may still arrive if they were
+     * being passed at the time.
+     */
+    void cancel();
+}
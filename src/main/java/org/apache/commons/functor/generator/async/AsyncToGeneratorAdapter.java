@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.async;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.functor.generator.BaseGenerator;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Adapts an {@link AsyncGenerator} to the synchronous
+ * {@link org.apache.commons.functor.generator.Generator} interface: each run
+ * subscribes to the asynchronous generator and runs the procedure on the
+ * calling thread, which waits for the elements as needed. At most
+ * <code>prefetch</code> elements are requested ahead of the procedure, and
+ * more are requested as it consumes them, so a slow procedure slows the source
+ * down.
+ * <p>
+ * If the procedure is a
+ * {@link org.apache.commons.functor.generator.StoppableUnaryProcedure} and
+ * gets stopped, the subscription is cancelled. A failure of the source is
+ * thrown back by the run: as is if it is unchecked, wrapped in an
+ * <code>IllegalStateException</code> otherwise.
+ * </p>
+ *
+ * @param <E> the type of elements held in this generator.
+ * @version $Revision:$ $Date:$
+ */
+public final class AsyncToGeneratorAdapter<E> extends BaseGenerator<E> {
+
+    /**
+     * The adapted generator.
+     */
+    private final AsyncGenerator<? extends E> source;
+
+    /**
+     * Maximum number of elements requested ahead.
+     */
+    private final int prefetch;
+
+    /**
+     * Create a new AsyncToGeneratorAdapter.
+     * @param source AsyncGenerator to adapt
+     * @param prefetch maximum number of elements requested ahead, must be
+     * positive
+     */
+    public AsyncToGeneratorAdapter(AsyncGenerator<? extends E> source, int prefetch) {
+        this.source = Validate.notNull(source, "AsyncGenerator argument was null");
+        Validate.isTrue(prefetch > 0, "Prefetch must be positive: %d", prefetch);
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public void run(UnaryProcedure<? super E> proc) {
+        Validate.notNull(proc, "UnaryProcedure argument was null");
+        Receiver receiver = new Receiver(prefetch);
+        source.subscribe(receiver);
+        try {
+            while (true) {
+                Object next = receiver.take();
+                if (next == DrainingSubscription.END) {
+                    receiver.rethrow();
+                    return;
+                }
+                proc.run(next == DrainingSubscription.NULL ? null : (E) next);
+                if (isStopRequested(proc)) {
+                    return;
+                }
+                receiver.consumed();
+            }
+        } finally {
+            receiver.cancel();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof AsyncToGeneratorAdapter<?>)) {
+            return false;
+        }
+        AsyncToGeneratorAdapter<?> that = (AsyncToGeneratorAdapter<?>) obj;
+        return this.source.equals(that.source) && this.prefetch == that.prefetch;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = "AsyncToGeneratorAdapter".hashCode();
+        hash <<= 2;
+        hash ^= source.hashCode();
+        hash <<= 2;
+        hash ^= prefetch;
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "AsyncToGeneratorAdapter<" + source + ", prefetch=" + prefetch + ">";
+    }
+
+    /**
+     * Subscriber which buffers the elements until the procedure takes them.
+     */
+    private static final class Receiver implements AsyncSubscriber<Object> {
+        /**
+         * The elements received and not taken yet, followed by
+         * {@link DrainingSubscription#END} once the source has terminated.
+         * Never holds more than requested, plus the end marker.
+         */
+        private final BlockingQueue<Object> buffer;
+
+        /**
+         * Number of elements to consume before requesting more.
+         */
+        private final int limit;
+
+        /**
+         * The subscription.
+         */
+        private volatile AsyncSubscription subscription;
+
+        /**
+         * The reason of the failure of the source, if any.
+         */
+        private volatile Throwable error;
+
+        /**
+         * Number of elements consumed since the last request.
+         */
+        private int consumed;
+
+        /**
+         * Create a new Receiver.
+         * @param prefetch maximum number of elements requested ahead
+         */
+        Receiver(int prefetch) {
+            this.buffer = new ArrayBlockingQueue<Object>(prefetch + 1);
+            this.limit = Math.max(1, prefetch - prefetch / 4);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void onSubscribe(AsyncSubscription s) {
+            this.subscription = s;
+            s.request(buffer.remainingCapacity() - 1);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void onNext(Object obj) {
+            if (!buffer.offer(obj == null ? DrainingSubscription.NULL : obj)) {
+                subscription.cancel();
+                onError(new IllegalStateException("More elements received than requested"));
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void onError(Throwable e) {
+            this.error = e;
+            buffer.offer(DrainingSubscription.END);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void onComplete() {
+            buffer.offer(DrainingSubscription.END);
+        }
+
+        /**
+         * Take the next element, waiting for it if needed. If the current
+         * thread is interrupted while waiting, keep waiting and restore the
+         * interrupt status afterwards.
+         * @return element, or {@link DrainingSubscription#END}
+         */
+        Object take() {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        return buffer.take();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        /**
+         * Count an element as consumed, requesting more once enough have
+         * been.
+         */
+        void consumed() {
+            if (++consumed == limit) {
+                consumed = 0;
+                subscription.request(limit);
+            }
+        }
+
+        /**
+         * Cancel the subscription, if the source has not terminated.
+         */
+        void cancel() {
+            AsyncSubscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+        }
+
+        /**
+         * Throw the failure of the source, if any.
+         */
+        void rethrow() {
+            Throwable t = error;
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            }
+            if (t instanceof Error) {
+                throw (Error) t;
+            }
+            if (t != null) {
+                throw new IllegalStateException("Asynchronous generator failed", t);
+            }
+        }
+    }
+}
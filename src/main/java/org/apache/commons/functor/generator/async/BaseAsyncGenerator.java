@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.async;
+
+import org.apache.commons.functor.UnaryFunction;
+import org.apache.commons.functor.UnaryPredicate;
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Base class for asynchronous generators. Adds the operators which reuse the
+ * synchronous functors -- filtering with a {@link UnaryPredicate},
+ * transforming with a {@link UnaryFunction} -- and the conversion to a
+ * synchronous {@link Generator}. The operators keep the backpressure: a
+ * filtered generator requests one more element from its source for each
+ * element it drops.
+ *
+ * @param <E> the type of elements held in this generator.
+ * @version $Revision:$ $Date:$
+ */
+public abstract class BaseAsyncGenerator<E> implements AsyncGenerator<E> {
+
+    /** Create a new asynchronous generator. */
+    public BaseAsyncGenerator() {
+        super();
+    }
+
+    /**
+     * Create a generator of the elements of this one matched by a predicate.
+     * @param pred UnaryPredicate to test the elements with
+     * @return BaseAsyncGenerator
+     */
+    public final BaseAsyncGenerator<E> filter(final UnaryPredicate<? super E> pred) {
+        Validate.notNull(pred, "UnaryPredicate argument was null");
+        final AsyncGenerator<E> source = this;
+        return new BaseAsyncGenerator<E>() {
+            public void subscribe(AsyncSubscriber<? super E> subscriber) {
+                source.subscribe(new Operator<E, E>(subscriber) {
+                    @Override
+                    boolean apply(E obj) {
+                        if (pred.test(obj)) {
+                            emit(obj);
+                            return true;
+                        }
+                        return false;
+                    }
+                });
+            }
+
+            @Override
+            public String toString() {
+                return "AsyncGenerator<" + source + ".filter(" + pred + ")>";
+            }
+        };
+    }
+
+    /**
+     * Create a generator of the elements of this one transformed by a
+     * function.
+     * @param <T> the type of elements held in the new generator.
+     * @param func UnaryFunction to apply to the elements
+     * @return BaseAsyncGenerator
+     */
+    public final <T> BaseAsyncGenerator<T> map(final UnaryFunction<? super E, ? extends T> func) {
+        Validate.notNull(func, "UnaryFunction argument was null");
+        final AsyncGenerator<E> source = this;
+        return new BaseAsyncGenerator<T>() {
+            public void subscribe(AsyncSubscriber<? super T> subscriber) {
+                source.subscribe(new Operator<E, T>(subscriber) {
+                    @Override
+                    boolean apply(E obj) {
+                        emit(func.evaluate(obj));
+                        return true;
+                    }
+                });
+            }
+
+            @Override
+            public String toString() {
+                return "AsyncGenerator<" + source + ".map(" + func + ")>";
+            }
+        };
+    }
+
+    /**
+     * Create a synchronous generator of the elements of this one: see
+     * {@link AsyncToGeneratorAdapter}.
+     * @param prefetch maximum number of elements requested ahead
+     * @return Generator
+     */
+    public final Generator<E> toGenerator(int prefetch) {
+        return new AsyncToGeneratorAdapter<E>(this, prefetch);
+    }
+
+    /**
+     * Subscriber which applies an operation to the elements of a source and
+     * passes the results to another subscriber, along with the requests and
+     * cancellation from it.
+     *
+     * @param <I> the type of elements received.
+     * @param <O> the type of elements passed on.
+     */
+    private abstract static class Operator<I, O> implements AsyncSubscriber<I>, AsyncSubscription {
+        /**
+         * The downstream subscriber.
+         */
+        private final AsyncSubscriber<? super O> downstream;
+
+        /**
+         * The upstream subscription.
+         */
+        private AsyncSubscription upstream;
+
+        /**
+         * Set when the operation failed, or the upstream terminated.
+         */
+        private boolean done;
+
+        /**
+         * Create a new Operator.
+         * @param downstream subscriber to pass the results to
+         */
+        Operator(AsyncSubscriber<? super O> downstream) {
+            this.downstream = downstream;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void onSubscribe(AsyncSubscription subscription) {
+            this.upstream = subscription;
+            downstream.onSubscribe(this);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void onNext(I obj) {
+            if (done) {
+                return;
+            }
+            boolean passed;
+            try {
+                passed = apply(obj);
+            } catch (RuntimeException e) {
+                done = true;
+                upstream.cancel();
+                downstream.onError(e);
+                return;
+            }
+            if (!passed) {
+                // the element was dropped: replace it
+                upstream.request(1L);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void onError(Throwable error) {
+            if (!done) {
+                done = true;
+                downstream.onError(error);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void onComplete() {
+            if (!done) {
+                done = true;
+                downstream.onComplete();
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void request(long n) {
+            upstream.request(n);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void cancel() {
+            upstream.cancel();
+        }
+
+        /**
+         * Pass a result downstream.
+         * @param obj result
+         */
+        final void emit(O obj) {
+            downstream.onNext(obj);
+        }
+
+        /**
+         * Apply the operation to an element.
+         * @param obj element
+         * @return <code>false</code> if nothing was passed downstream
+         */
+        abstract boolean apply(I obj);
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.async;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Subscription which passes the elements of a source to its subscriber as
+ * they are requested. Whichever thread requests elements or makes new ones
+ * available calls {@link #drain()} (unless {@link #scheduleDrain()} hands it
+ * to another thread); only one thread at a time passes elements, the others
+ * just tell it to check again before it leaves, so the calls to the
+ * subscriber never overlap.
+ *
+ * @param <E> the type of elements passed.
+ * @version $Revision:$ $Date:$
+ */
+abstract class DrainingSubscription<E> implements AsyncSubscription {
+
+    /**
+     * Returned by {@link #poll()} when no element is available yet.
+     */
+    static final Object EMPTY = new Object();
+
+    /**
+     * Returned by {@link #poll()} when there are no more elements.
+     */
+    static final Object END = new Object();
+
+    /**
+     * Stands for <code>null</code> elements, where <code>null</code> can't be
+     * used.
+     */
+    static final Object NULL = new Object();
+
+    /**
+     * The subscriber.
+     */
+    private final AsyncSubscriber<? super E> subscriber;
+
+    /**
+     * Number of elements requested and not passed yet.
+     */
+    private final AtomicLong requested = new AtomicLong();
+
+    /**
+     * Number of calls to {@link #drain()} not yet handled.
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Set once the subscription has been cancelled or terminated.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Create a new DrainingSubscription.
+     * @param subscriber the subscriber
+     */
+    DrainingSubscription(AsyncSubscriber<? super E> subscriber) {
+        this.subscriber = subscriber;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final void request(long n) {
+        if (n <= 0L) {
+            if (!cancelled) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("Invalid request: " + n));
+            }
+            return;
+        }
+        long current;
+        long next;
+        do {
+            current = requested.get();
+            if (current == Long.MAX_VALUE) {
+                return;
+            }
+            next = current + n < 0L ? Long.MAX_VALUE : current + n;
+        } while (!requested.compareAndSet(current, next));
+        scheduleDrain();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final void cancel() {
+        if (!cancelled) {
+            cancelled = true;
+            cancelled();
+        }
+    }
+
+    /**
+     * Learn whether this subscription has been cancelled or terminated.
+     * @return boolean
+     */
+    final boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Called when elements are requested, to pass them. This implementation
+     * calls {@link #drain()} on the requesting thread; sources which may have
+     * to wait for their elements drain on another thread instead, as
+     * {@link #request(long)} must not block.
+     */
+    void scheduleDrain() {
+        drain();
+    }
+
+    /**
+     * Pass as many elements as requested and available, and the termination
+     * signal if the source is exhausted.
+     */
+    @SuppressWarnings("unchecked")
+    final void drain() {
+        if (pending.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        while (true) {
+            long r = requested.get();
+            long e = 0L;
+            while (e != r) {
+                if (cancelled) {
+                    return;
+                }
+                Object next;
+                try {
+                    next = poll();
+                } catch (RuntimeException ex) {
+                    terminate(ex);
+                    return;
+                }
+                if (next == EMPTY) {
+                    break;
+                }
+                if (next == END) {
+                    terminate(getError());
+                    return;
+                }
+                subscriber.onNext(next == NULL ? null : (E) next);
+                e++;
+            }
+            if (cancelled) {
+                return;
+            }
+            if (e == r && isExhausted()) {
+                terminate(getError());
+                return;
+            }
+            if (e != 0L && r != Long.MAX_VALUE) {
+                requested.addAndGet(-e);
+            }
+            missed = pending.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Pass the termination signal to the subscriber.
+     * @param error reason of the failure, or <code>null</code> on completion
+     */
+    private void terminate(Throwable error) {
+        cancel();
+        if (error == null) {
+            subscriber.onComplete();
+        } else {
+            subscriber.onError(error);
+        }
+    }
+
+    /**
+     * Take the next element from the source. Only called when an element
+     * has been requested.
+     * @return the element ({@link #NULL} for <code>null</code>),
+     * {@link #EMPTY} if none is available yet or {@link #END} if the source
+     * is exhausted
+     */
+    abstract Object poll();
+
+    /**
+     * Learn whether the source is exhausted, without taking anything from it.
+     * Called when no element is requested, so that the subscriber can be told
+     * about the end of the source without requesting more.
+     * @return <code>true</code> if there are no more elements
+     */
+    abstract boolean isExhausted();
+
+    /**
+     * Get the reason why the source failed.
+     * @return Throwable, or <code>null</code> if the source completed normally
+     */
+    abstract Throwable getError();
+
+    /**
+     * Called once when the subscription is cancelled or terminated, to
+     * release the source.
+     */
+    abstract void cancelled();
+}
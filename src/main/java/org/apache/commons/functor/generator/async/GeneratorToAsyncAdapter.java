@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.async;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.util.GeneratorToIteratorAdapter;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Adapts a synchronous {@link Generator} to the {@link AsyncGenerator}
+ * interface. Each subscriber gets its own run of the generator, which is
+ * stepped through (see {@link GeneratorToIteratorAdapter#adapt(Generator, int)})
+ * as the subscriber requests elements, and suspended while no elements are
+ * requested.
+ * <p>
+ * As waiting for the generator to produce the elements may block, they are
+ * passed on a thread of the executor, and requesting elements returns right
+ * away, including when the subscriber requests more from
+ * {@link AsyncSubscriber#onNext(Object)}. If the executor rejects the task,
+ * the subscription is cancelled and the subscriber is passed the
+ * <code>RejectedExecutionException</code>.
+ * </p>
+ *
+ * @param <E> the type of elements held in this generator.
+ * @version $Revision:$ $Date:$
+ */
+public final class GeneratorToAsyncAdapter<E> extends BaseAsyncGenerator<E> {
+
+    /**
+     * The adapted generator.
+     */
+    private final Generator<? extends E> generator;
+
+    /**
+     * Maximum number of elements generated ahead of the requests.
+     */
+    private final int capacity;
+
+    /**
+     * Executor the elements are passed on.
+     */
+    private final Executor executor;
+
+    /**
+     * Create a new GeneratorToAsyncAdapter, passing the elements on a shared
+     * pool of (daemon) threads created as needed.
+     * @param generator Generator to adapt
+     * @param capacity maximum number of elements generated ahead of the
+     * requests, must be positive
+     */
+    public GeneratorToAsyncAdapter(Generator<? extends E> generator, int capacity) {
+        this(generator, capacity, DefaultExecutor.INSTANCE);
+    }
+
+    /**
+     * Create a new GeneratorToAsyncAdapter.
+     * @param generator Generator to adapt
+     * @param capacity maximum number of elements generated ahead of the
+     * requests, must be positive
+     * @param executor Executor to pass the elements on
+     */
+    public GeneratorToAsyncAdapter(Generator<? extends E> generator, int capacity, Executor executor) {
+        this.generator = Validate.notNull(generator, "Generator argument was null");
+        Validate.isTrue(capacity > 0, "Capacity must be positive: %d", capacity);
+        this.capacity = capacity;
+        this.executor = Validate.notNull(executor, "Executor argument was null");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void subscribe(AsyncSubscriber<? super E> subscriber) {
+        Validate.notNull(subscriber, "AsyncSubscriber argument was null");
+        Iterator<? extends E> iter = GeneratorToIteratorAdapter.adapt(generator, capacity);
+        subscriber.onSubscribe(new IteratorSubscription<E>(subscriber, iter, executor));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof GeneratorToAsyncAdapter<?>)) {
+            return false;
+        }
+        GeneratorToAsyncAdapter<?> that = (GeneratorToAsyncAdapter<?>) obj;
+        return this.generator.equals(that.generator) && this.capacity == that.capacity
+            && this.executor == that.executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = "GeneratorToAsyncAdapter".hashCode();
+        hash <<= 2;
+        hash ^= generator.hashCode();
+        hash <<= 2;
+        hash ^= capacity;
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "GeneratorToAsyncAdapter<" + generator + ", capacity=" + capacity + ">";
+    }
+
+    /**
+     * Subscription passing the elements of the generator, stepped through by
+     * an iterator, on a thread of the executor.
+     *
+     * @param <E> the type of elements passed.
+     */
+    private static final class IteratorSubscription<E> extends DrainingSubscription<E> implements Runnable {
+
+        /**
+         * The subscriber.
+         */
+        private final AsyncSubscriber<? super E> subscriber;
+
+        /**
+         * Iterator stepping through the generator.
+         */
+        private final Iterator<? extends E> iter;
+
+        /**
+         * Executor the elements are passed on.
+         */
+        private final Executor executor;
+
+        /**
+         * Create a new IteratorSubscription.
+         * @param subscriber the subscriber
+         * @param iter Iterator stepping through the generator
+         * @param executor Executor to pass the elements on
+         */
+        IteratorSubscription(AsyncSubscriber<? super E> subscriber, Iterator<? extends E> iter, Executor executor) {
+            super(subscriber);
+            this.subscriber = subscriber;
+            this.iter = iter;
+            this.executor = executor;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void run() {
+            drain();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void scheduleDrain() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                if (!isCancelled()) {
+                    cancel();
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        Object poll() {
+            if (!iter.hasNext()) {
+                return END;
+            }
+            Object next = iter.next();
+            return next == null ? NULL : next;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        boolean isExhausted() {
+            // finding out may mean waiting for the generator
+            return false;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        Throwable getError() {
+            return null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void cancelled() {
+            if (iter instanceof GeneratorToIteratorAdapter<?>) {
+                ((GeneratorToIteratorAdapter<?>) iter).close();
+            }
+        }
+    }
+
+    /**
+     * Holds the shared default executor, created on first use.
+     */
+    private static final class DefaultExecutor {
+        /**
+         * The default executor.
+         */
+        static final Executor INSTANCE = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger threads = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "GeneratorToAsyncAdapter-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+}
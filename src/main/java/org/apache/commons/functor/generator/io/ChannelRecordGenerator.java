@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.functor.generator.loop.LoopGenerator;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Generator over the records read from a (blocking)
+ * <code>ReadableByteChannel</code>: either fixed-size records, or records
+ * ending with a delimiter byte. The channel is read into a direct buffer
+ * taken from a {@link DirectBufferPool}, and each record is passed to the
+ * procedure as a read-only view of that buffer, positioned on the record
+ * (the delimiter excluded). The view is reused for every record, so it is
+ * only valid during the call to the procedure.
+ * <p>
+ * If the channel ends in the middle of a record, the bytes read are passed as
+ * a last, shorter, record. Delimited records longer than the buffer are read
+ * into a larger buffer, allocated for the rest of the run.
+ * </p>
+ * <p>
+ * The generator owns the channel, and can be run once: the channel is closed
+ * when the run completes, fails or is stopped, or when the generator is
+ * {@link #close() closed} -- which may be done from another thread to stop a
+ * run. I/O failures are thrown as {@link GeneratorIOException}s.
+ * </p>
+ *
+ * @version $Revision:$ $Date:$
+ */
+public final class ChannelRecordGenerator extends LoopGenerator<ByteBuffer> implements Closeable {
+    /**
+     * The channel to read.
+     */
+    private final ReadableByteChannel channel;
+
+    /**
+     * The size of the records, or 0 if the records are delimited.
+     */
+    private final int recordSize;
+
+    /**
+     * The byte each record ends with, if the records are delimited.
+     */
+    private final byte delimiter;
+
+    /**
+     * The pool the buffer is taken from.
+     */
+    private final DirectBufferPool pool;
+
+    /**
+     * Create a new ChannelRecordGenerator.
+     * @param channel the channel to read
+     * @param recordSize the size of the records, or 0 if the records are
+     * delimited
+     * @param delimiter the byte each record ends with
+     * @param pool the pool to take the buffer from
+     */
+    private ChannelRecordGenerator(ReadableByteChannel channel, int recordSize, byte delimiter,
+            DirectBufferPool pool) {
+        this.channel = Validate.notNull(channel, "ReadableByteChannel argument was null");
+        this.recordSize = recordSize;
+        this.delimiter = delimiter;
+        this.pool = Validate.notNull(pool, "DirectBufferPool argument was null");
+    }
+
+    /**
+     * Create a generator over the records of <code>recordSize</code> bytes
+     * read from <code>channel</code>, using the default pool.
+     * @param channel the channel to read
+     * @param recordSize the size of the records, must be greater than zero
+     * @return ChannelRecordGenerator
+     */
+    public static ChannelRecordGenerator fixed(ReadableByteChannel channel, int recordSize) {
+        return fixed(channel, recordSize, DirectBufferPool.getDefault());
+    }
+
+    /**
+     * Create a generator over the records of <code>recordSize</code> bytes
+     * read from <code>channel</code>.
+     * @param channel the channel to read
+     * @param recordSize the size of the records, must be greater than zero
+     * @param pool the pool to take the buffer from
+     * @return ChannelRecordGenerator
+     */
+    public static ChannelRecordGenerator fixed(ReadableByteChannel channel, int recordSize, DirectBufferPool pool) {
+        Validate.isTrue(recordSize > 0, "Record size must be positive: %d", recordSize);
+        return new ChannelRecordGenerator(channel, recordSize, (byte) 0, pool);
+    }
+
+    /**
+     * Create a generator over the records ending with <code>delimiter</code>
+     * read from <code>channel</code>, using the default pool.
+     * @param channel the channel to read
+     * @param delimiter the byte each record ends with
+     * @return ChannelRecordGenerator
+     */
+    public static ChannelRecordGenerator delimited(ReadableByteChannel channel, byte delimiter) {
+        return delimited(channel, delimiter, DirectBufferPool.getDefault());
+    }
+
+    /**
+     * Create a generator over the records ending with <code>delimiter</code>
+     * read from <code>channel</code>.
+     * @param channel the channel to read
+     * @param delimiter the byte each record ends with
+     * @param pool the pool to take the buffer from
+     * @return ChannelRecordGenerator
+     */
+    public static ChannelRecordGenerator delimited(ReadableByteChannel channel, byte delimiter,
+            DirectBufferPool pool) {
+        return new ChannelRecordGenerator(channel, 0, delimiter, pool);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The procedure is passed the same buffer for each record.
+     */
+    public void run(UnaryProcedure<? super ByteBuffer> proc) {
+        try {
+            read(proc);
+        } catch (IOException e) {
+            if (!isStopped()) {
+                throw new GeneratorIOException(e);
+            }
+        } finally {
+            closeQuietly();
+        }
+    }
+
+    /**
+     * Read the channel until its end, or until the generation is stopped.
+     * @param proc the procedure to run
+     * @throws IOException if the channel can't be read
+     */
+    private void read(UnaryProcedure<? super ByteBuffer> proc) throws IOException {
+        ByteBuffer buffer = pool.acquire();
+        if (buffer.capacity() < recordSize) {
+            pool.release(buffer);
+            buffer = ByteBuffer.allocateDirect(recordSize);
+        }
+        try {
+            ByteBuffer view = buffer.asReadOnlyBuffer();
+            int scanned = 0;
+            while (!isStopped()) {
+                boolean end = channel.read(buffer) < 0;
+                buffer.flip();
+                int start = buffer.position();
+                int limit = buffer.limit();
+                if (recordSize > 0) {
+                    for (; limit - start >= recordSize; start += recordSize) {
+                        if (pass(view, start, start + recordSize, proc)) {
+                            return;
+                        }
+                    }
+                } else {
+                    for (int i = start + scanned; i < limit; i++) {
+                        if (buffer.get(i) == delimiter) {
+                            if (pass(view, start, i, proc)) {
+                                return;
+                            }
+                            start = i + 1;
+                        }
+                    }
+                }
+                if (end) {
+                    if (start < limit) {
+                        pass(view, start, limit, proc);
+                    }
+                    return;
+                }
+                scanned = limit - start;
+                buffer.position(start);
+                buffer.compact();
+                if (!buffer.hasRemaining()) {
+                    // a delimited record longer than the buffer
+                    ByteBuffer grown = ByteBuffer.allocateDirect(2 * buffer.capacity());
+                    buffer.flip();
+                    grown.put(buffer);
+                    pool.release(buffer);
+                    buffer = grown;
+                    view = buffer.asReadOnlyBuffer();
+                }
+            }
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    /**
+     * Pass a record to the procedure.
+     * @param view the view to position on the record
+     * @param start index of the first byte of the record
+     * @param end index after the last byte of the record
+     * @param proc the procedure to run
+     * @return whether the generation should stop
+     */
+    private boolean pass(ByteBuffer view, int start, int end, UnaryProcedure<? super ByteBuffer> proc) {
+        view.limit(end);
+        view.position(start);
+        proc.run(view);
+        return isStopped() || isStopRequested(proc);
+    }
+
+    /**
+     * Stop the generation and close the channel.
+     * @throws IOException if the channel can't be closed
+     */
+    public void close() throws IOException {
+        stop();
+        channel.close();
+    }
+
+    /**
+     * Close the channel, ignoring failures: the records have been read.
+     */
+    private void closeQuietly() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ChannelRecordGenerator<" + channel + (recordSize > 0 ? ", size=" + recordSize : ", delimiter="
+            + delimiter) + ">";
+    }
+}
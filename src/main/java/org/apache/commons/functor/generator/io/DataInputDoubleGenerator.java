@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.io;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.IOException;
+
+import org.apache.commons.functor.generator.primitive.BaseDoubleGenerator;
+import org.apache.commons.functor.primitive.DoubleUnaryProcedure;
+
+/**
+ * Generator over the <code>double</code> values read from a
+ * <code>DataInput</code> (e.g. a <code>DataInputStream</code> over a
+ * buffered stream, or a <code>RandomAccessFile</code>), without boxing them.
+ * <p>
+ * The generator owns the input, and can be run once: the input is closed (if
+ * it is <code>Closeable</code>) when the run completes, fails or is stopped by
+ * its procedure, or when the generator is {@link #close() closed} -- which
+ * stops the run. If no count is given, the input is read until its end. I/O
+ * failures are thrown as {@link GeneratorIOException}s.
+ * </p>
+ *
+ * @version $Revision:$ $Date:$
+ */
+public final class DataInputDoubleGenerator extends BaseDoubleGenerator implements Closeable {
+    /**
+     * The input to read.
+     */
+    private final DataInputSource source;
+
+    /**
+     * Create a new DataInputDoubleGenerator reading <code>input</code> until its
+     * end.
+     * @param input the input to read
+     */
+    public DataInputDoubleGenerator(DataInput input) {
+        this.source = new DataInputSource(input, DataInputSource.UNTIL_END);
+    }
+
+    /**
+     * Create a new DataInputDoubleGenerator reading <code>count</code> values from
+     * <code>input</code>.
+     * @param input the input to read
+     * @param count the number of values to read, must not be negative
+     */
+    public DataInputDoubleGenerator(DataInput input, long count) {
+        this.source = new DataInputSource(input, count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void runDouble(DoubleUnaryProcedure proc) {
+        DataInput input = source.getInput();
+        try {
+            for (long i = 0L; source.hasNext(i); i++) {
+                proc.run(input.readDouble());
+                if (isStopRequestedDouble(proc)) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            source.failed(e);
+        } finally {
+            source.closeQuietly();
+        }
+    }
+
+    /**
+     * Stop the generation and close the input, if it is <code>Closeable</code>.
+     * @throws IOException if the input can't be closed
+     */
+    public void close() throws IOException {
+        source.close();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "DataInputDoubleGenerator<" + source + ">";
+    }
+}
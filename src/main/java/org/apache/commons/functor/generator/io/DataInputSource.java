@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.io;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * The <code>DataInput</code> read by the primitive generators of this
+ * package: counts the values read, and closes the input (if it is
+ * <code>Closeable</code>) when the generation ends or is stopped.
+ *
+ * @version $Revision:$ $Date:$
+ */
+final class DataInputSource implements Closeable {
+    /**
+     * Marks an input read until its end.
+     */
+    static final long UNTIL_END = -1L;
+
+    /**
+     * The input to read.
+     */
+    private final DataInput input;
+
+    /**
+     * The number of values to read, or {@link #UNTIL_END}.
+     */
+    private final long count;
+
+    /**
+     * Set when the input has been closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Create a new DataInputSource.
+     * @param input the input to read
+     * @param count the number of values to read, or {@link #UNTIL_END}
+     */
+    DataInputSource(DataInput input, long count) {
+        this.input = Validate.notNull(input, "DataInput argument was null");
+        Validate.isTrue(count >= 0L || count == UNTIL_END, "Invalid count: %d", count);
+        this.count = count;
+    }
+
+    /**
+     * Get the input to read.
+     * @return DataInput
+     */
+    DataInput getInput() {
+        return input;
+    }
+
+    /**
+     * Learn whether the value with the given index should be read.
+     * @param index the number of values read so far
+     * @return boolean
+     */
+    boolean hasNext(long index) {
+        return !closed && (count == UNTIL_END || index < count);
+    }
+
+    /**
+     * Handle a failure to read a value: the end of the input is expected if
+     * the input is read until its end, and failures after the input has been
+     * closed are the result of closing it.
+     * @param e the failure
+     */
+    void failed(IOException e) {
+        if (closed || (e instanceof EOFException && count == UNTIL_END)) {
+            return;
+        }
+        throw new GeneratorIOException(e);
+    }
+
+    /**
+     * Close the input, if it is <code>Closeable</code>.
+     * @throws IOException if the input can't be closed
+     */
+    public void close() throws IOException {
+        closed = true;
+        if (input instanceof Closeable) {
+            ((Closeable) input).close();
+        }
+    }
+
+    /**
+     * Close the input at the end of the generation, ignoring failures: the
+     * values have been read.
+     */
+    void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return input + (count == UNTIL_END ? "" : ", count=" + count);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.io;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * A thread safe pool of direct buffers of the same size, used by the
+ * generators of this package so that reading many sources doesn't allocate
+ * (and leave to the garbage collector) a direct buffer for each of them.
+ * <p>
+ * At most <code>maxPooled</code> buffers are kept: the others are released to
+ * the garbage collector. Buffers of another size (or not direct) are never
+ * pooled.
+ * </p>
+ *
+ * @version $Revision:$ $Date:$
+ */
+public final class DirectBufferPool {
+    /**
+     * Size of the buffers of the {@link #getDefault() default pool}.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Maximum number of buffers kept by the {@link #getDefault() default
+     * pool}.
+     */
+    public static final int DEFAULT_MAX_POOLED = 16;
+
+    /**
+     * Size of the buffers.
+     */
+    private final int bufferSize;
+
+    /**
+     * Maximum number of buffers kept.
+     */
+    private final int maxPooled;
+
+    /**
+     * The buffers available.
+     */
+    private final Queue<ByteBuffer> pooled = new ConcurrentLinkedQueue<ByteBuffer>();
+
+    /**
+     * Number of buffers in {@link #pooled}, or about to be.
+     */
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * Create a new DirectBufferPool.
+     * @param bufferSize size of the buffers, must be greater than zero
+     * @param maxPooled maximum number of buffers kept, must not be negative
+     */
+    public DirectBufferPool(int bufferSize, int maxPooled) {
+        Validate.isTrue(bufferSize > 0, "Buffer size must be positive: %d", bufferSize);
+        Validate.isTrue(maxPooled >= 0, "Maximum number of pooled buffers must not be negative: %d", maxPooled);
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Get the shared pool of {@link #DEFAULT_BUFFER_SIZE} byte buffers.
+     * @return DirectBufferPool
+     */
+    public static DirectBufferPool getDefault() {
+        return DefaultPool.INSTANCE;
+    }
+
+    /**
+     * Take a buffer from the pool, or allocate one if none is available.
+     * @return a cleared direct buffer of {@link #getBufferSize()} bytes
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = pooled.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        count.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Give a buffer back to the pool. The buffer must not be used afterwards.
+     * @param buffer the buffer to release
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || buffer.isReadOnly() || buffer.capacity() != bufferSize) {
+            return;
+        }
+        if (count.incrementAndGet() > maxPooled) {
+            count.decrementAndGet();
+            return;
+        }
+        pooled.add(buffer);
+    }
+
+    /**
+     * Get the size of the buffers of this pool.
+     * @return bufferSize
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Get the number of buffers currently available in this pool.
+     * @return int
+     */
+    public int getPooledCount() {
+        return count.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "DirectBufferPool<" + bufferSize + ", maxPooled=" + maxPooled + ">";
+    }
+
+    /**
+     * Holds the shared default pool, created on first use.
+     */
+    private static final class DefaultPool {
+        /**
+         * The default pool.
+         */
+        static final DirectBufferPool INSTANCE = new DirectBufferPool(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED);
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.io;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.functor.generator.loop.LoopGenerator;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Generator over a directory tree: generates the root, then -- depth first --
+ * each file and directory below it, down to a maximum depth (the children of
+ * the root being at depth 1). The entries of a directory are generated in the
+ * order of their names.
+ * <p>
+ * The traversal is lazy: a directory is only listed when the generation
+ * reaches it, so stopping the generation early (e.g. after finding a file)
+ * doesn't list the rest of the tree. A directory which is also one of its
+ * own ancestors (through a symbolic link) is generated but not listed again.
+ * </p>
+ * <p>
+ * If the root doesn't exist, or a directory can't be listed, a
+ * {@link GeneratorIOException} is thrown.
+ * </p>
+ *
+ * @version $Revision:$ $Date:$
+ */
+public class DirectoryGenerator extends LoopGenerator<File> {
+    /**
+     * The root of the tree.
+     */
+    private final File root;
+
+    /**
+     * The maximum depth of the files generated.
+     */
+    private final int maxDepth;
+
+    /**
+     * Create a new DirectoryGenerator over the whole tree.
+     * @param root the root of the tree
+     */
+    public DirectoryGenerator(File root) {
+        this(root, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Create a new DirectoryGenerator.
+     * @param root the root of the tree
+     * @param maxDepth the maximum depth of the files generated; 0 only
+     * generates the root. Must not be negative.
+     */
+    public DirectoryGenerator(File root, int maxDepth) {
+        this.root = Validate.notNull(root, "File argument was null");
+        Validate.isTrue(maxDepth >= 0, "Maximum depth must not be negative: %d", maxDepth);
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(UnaryProcedure<? super File> proc) {
+        if (!root.exists()) {
+            throw new GeneratorIOException(new FileNotFoundException(root.getPath()));
+        }
+        try {
+            walk(proc);
+        } catch (IOException e) {
+            throw new GeneratorIOException(e);
+        }
+    }
+
+    /**
+     * Walk the tree, listing the directories on the way.
+     * @param proc the procedure to run
+     * @throws IOException if a directory can't be listed
+     */
+    private void walk(UnaryProcedure<? super File> proc) throws IOException {
+        if (pass(root, proc) || maxDepth == 0 || !root.isDirectory()) {
+            return;
+        }
+        List<Level> stack = new ArrayList<Level>();
+        stack.add(new Level(root));
+        while (!stack.isEmpty()) {
+            Level level = stack.get(stack.size() - 1);
+            if (level.next == level.children.length) {
+                stack.remove(stack.size() - 1);
+                continue;
+            }
+            File child = level.children[level.next++];
+            if (pass(child, proc)) {
+                return;
+            }
+            if (stack.size() < maxDepth && child.isDirectory() && !isAncestor(child, stack)) {
+                stack.add(new Level(child));
+            }
+        }
+    }
+
+    /**
+     * Pass a file to the procedure.
+     * @param file the file to pass
+     * @param proc the procedure to run
+     * @return whether the generation should stop
+     */
+    private boolean pass(File file, UnaryProcedure<? super File> proc) {
+        proc.run(file);
+        return isStopped() || isStopRequested(proc);
+    }
+
+    /**
+     * Learn whether a directory is the same as one of the directories being
+     * listed.
+     * @param dir the directory
+     * @param stack the directories being listed
+     * @return boolean
+     * @throws IOException if the canonical path can't be computed
+     */
+    private static boolean isAncestor(File dir, List<Level> stack) throws IOException {
+        String path = dir.getCanonicalPath();
+        for (Level level : stack) {
+            if (level.path.equals(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the root of the tree.
+     * @return File
+     */
+    public File getRoot() {
+        return root;
+    }
+
+    /**
+     * Get the maximum depth of the files generated.
+     * @return int
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof DirectoryGenerator)) {
+            return false;
+        }
+        DirectoryGenerator other = (DirectoryGenerator) obj;
+        return other.root.equals(root) && other.maxDepth == maxDepth;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = "DirectoryGenerator".hashCode();
+        hash <<= 2;
+        hash ^= root.hashCode();
+        hash <<= 2;
+        hash ^= maxDepth;
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "DirectoryGenerator<" + root + (maxDepth == Integer.MAX_VALUE ? "" : ", maxDepth=" + maxDepth) + ">";
+    }
+
+    /**
+     * A directory being listed.
+     */
+    private static final class Level {
+        /**
+         * The canonical path of the directory.
+         */
+        private final String path;
+
+        /**
+         * The entries of the directory, sorted by name.
+         */
+        private final File[] children;
+
+        /**
+         * Index of the next entry to generate.
+         */
+        private int next;
+
+        /**
+         * List a directory.
+         * @param dir the directory
+         * @throws IOException if the directory can't be listed
+         */
+        Level(File dir) throws IOException {
+            this.path = dir.getCanonicalPath();
+            File[] files = dir.listFiles();
+            if (files == null) {
+                throw new IOException("Cannot list directory " + dir);
+            }
+            Arrays.sort(files);
+            this.children = files;
+        }
+    }
+}
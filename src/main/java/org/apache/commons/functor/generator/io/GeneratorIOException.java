@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.io;
+
+import java.io.IOException;
+
+/**
+ * Unchecked exception thrown by the generators of this package when the
+ * underlying I/O operation fails, since {@link
+ * org.apache.commons.functor.generator.Generator#run(org.apache.commons.functor.UnaryProcedure)
+ * Generator.run} can't throw checked exceptions.
+ *
+ * @version $Revision:$ $Date:$
+ */
+public class GeneratorIOException extends RuntimeException {
+    /**
+     * serialVersionUID declaration.
+     */
+    private static final long serialVersionUID = -4632102215373816410L;
+
+    /**
+     * Create a new GeneratorIOException.
+     * @param cause the I/O failure
+     */
+    public GeneratorIOException(IOException cause) {
+        super(cause);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IOException getCause() {
+        return (IOException) super.getCause();
+    }
+}
@@ -0,0 +1,389 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.functor.generator.ParallelGenerator;
+import org.apache.commons.functor.generator.SplittableGenerator;
+import org.apache.commons.functor.generator.loop.LoopGenerator;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Generator over the lines (or, more generally, the records ending with a
+ * given delimiter byte) of a file, read through a memory mapping rather than
+ * a <code>Reader</code>: each record is passed to the procedure as a
+ * {@link MappedRecord}, a view of the mapped bytes, so scanning the file
+ * doesn't copy or allocate anything per record. The view is reused for
+ * every record; see {@link MappedRecord} for how to keep records.
+ * <p>
+ * The file is mapped in windows of at most {@link #DEFAULT_WINDOW} bytes (or
+ * more, for records which don't fit), so files larger than 2GB can be
+ * read. In line mode, a <code>'\r'</code> before the <code>'\n'</code> is
+ * dropped. A last record without a delimiter is generated as well; an empty
+ * file generates nothing.
+ * </p>
+ * <p>
+ * The generator can be split at record boundaries (see
+ * {@link #split(int)}), so large files can be scanned by a
+ * {@link ParallelGenerator}. Since a parallel generator buffers the records
+ * of each part, {@link #parallel()} {@link MappedRecord#copy() copies} every
+ * record before passing it down the parallel pipeline, whose filters and
+ * maps therefore never see a reused view.
+ * </p>
+ * <p>
+ * I/O failures are thrown as {@link GeneratorIOException}s.
+ * </p>
+ *
+ * @version $Revision:$ $Date:$
+ */
+public class MappedLineGenerator extends LoopGenerator<CharSequence> implements SplittableGenerator<CharSequence> {
+    /**
+     * Default size of the windows the file is mapped in.
+     */
+    public static final int DEFAULT_WINDOW = 1 << 28;
+
+    /**
+     * Size of the buffer used to look for record boundaries when splitting.
+     */
+    private static final int SCAN_BUFFER = 8192;
+
+    /**
+     * Marks the end of the file, whatever its length when run.
+     */
+    private static final long END_OF_FILE = -1L;
+
+    /**
+     * The file to read.
+     */
+    private final File file;
+
+    /**
+     * The byte each record ends with.
+     */
+    private final byte delimiter;
+
+    /**
+     * Whether a <code>'\r'</code> before the delimiter is dropped.
+     */
+    private final boolean lines;
+
+    /**
+     * Position of the first byte to read.
+     */
+    private final long from;
+
+    /**
+     * Position after the last byte to read, or {@link #END_OF_FILE}.
+     */
+    private final long to;
+
+    /**
+     * Size of the windows the file is mapped in.
+     */
+    private final int window;
+
+    /**
+     * Create a new MappedLineGenerator over the lines of <code>file</code>.
+     * @param file the file to read
+     */
+    public MappedLineGenerator(File file) {
+        this(file, (byte) '\n', true, 0L, END_OF_FILE, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Create a new MappedLineGenerator over the records of <code>file</code>.
+     * @param file the file to read
+     * @param delimiter the byte each record ends with; it isn't part of the
+     * records
+     */
+    public MappedLineGenerator(File file, byte delimiter) {
+        this(file, delimiter, false, 0L, END_OF_FILE, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Create a new MappedLineGenerator.
+     * @param file the file to read
+     * @param delimiter the byte each record ends with
+     * @param lines whether a <code>'\r'</code> before the delimiter is dropped
+     * @param from position of the first byte to read
+     * @param to position after the last byte to read, or
+     * {@link #END_OF_FILE}
+     * @param window size of the windows the file is mapped in
+     */
+    MappedLineGenerator(File file, byte delimiter, boolean lines, long from, long to, int window) {
+        this.file = Validate.notNull(file, "File argument was null");
+        Validate.isTrue(window > 0, "Window size must be positive: %d", window);
+        this.delimiter = delimiter;
+        this.lines = lines;
+        this.from = from;
+        this.to = to;
+        this.window = window;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The procedure is passed the same {@link MappedRecord} for each record.
+     */
+    public void run(UnaryProcedure<? super CharSequence> proc) {
+        try {
+            RandomAccessFile in = new RandomAccessFile(file, "r");
+            try {
+                run(in.getChannel(), proc);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            throw new GeneratorIOException(e);
+        }
+    }
+
+    /**
+     * Map the part of the file to read window by window, and pass each record
+     * to the procedure.
+     * @param channel the channel to read
+     * @param proc the procedure to run
+     * @throws IOException if the file can't be mapped
+     */
+    private void run(FileChannel channel, UnaryProcedure<? super CharSequence> proc) throws IOException {
+        final long end = end(channel);
+        final MappedRecord record = new MappedRecord();
+        long position = from;
+        int size = window;
+        while (position < end && !isStopped()) {
+            boolean last = end - position <= size;
+            int mapped = (int) Math.min(end - position, size);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, mapped);
+            int start = 0;
+            for (int i = 0; i < mapped; i++) {
+                if (buffer.get(i) == delimiter) {
+                    if (pass(record, buffer, start, i, proc)) {
+                        return;
+                    }
+                    start = i + 1;
+                }
+            }
+            if (last) {
+                if (start < mapped) {
+                    pass(record, buffer, start, mapped, proc);
+                }
+                return;
+            }
+            if (start == 0) {
+                // the record doesn't fit in the window
+                if (size == Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Record longer than " + Integer.MAX_VALUE + " bytes at "
+                        + position + " in " + file);
+                }
+                size = (int) Math.min(2L * size, Integer.MAX_VALUE);
+            }
+            position += start;
+        }
+    }
+
+    /**
+     * Pass a record to the procedure.
+     * @param record the view to point to the record
+     * @param buffer the mapping holding the record
+     * @param start index of the first byte of the record
+     * @param end index after the last byte of the record
+     * @param proc the procedure to run
+     * @return whether the generation should stop
+     */
+    private boolean pass(MappedRecord record, ByteBuffer buffer, int start, int end,
+            UnaryProcedure<? super CharSequence> proc) {
+        int length = end - start;
+        if (lines && length > 0 && buffer.get(end - 1) == '\r') {
+            length--;
+        }
+        record.set(buffer, start, length);
+        proc.run(record);
+        return isStopped() || isStopRequested(proc);
+    }
+
+    /**
+     * Get the position after the last byte to read.
+     * @param channel the channel to read
+     * @return long
+     * @throws IOException if the size of the file can't be read
+     */
+    private long end(FileChannel channel) throws IOException {
+        long size = channel.size();
+        return to == END_OF_FILE ? size : Math.min(to, size);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Counting the records requires reading the file.
+     */
+    public long size() {
+        final long[] count = new long[1];
+        run(new UnaryProcedure<CharSequence>() {
+            public void run(CharSequence obj) {
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * {@inheritDoc}
+     * The parts cover byte ranges of (nearly) equal sizes, each moved to the
+     * next record boundary; small files may be split in fewer parts.
+     */
+    public List<MappedLineGenerator> split(int parts) {
+        if (parts <= 0) {
+            throw new IllegalArgumentException("Invalid number of parts: " + parts);
+        }
+        if (parts == 1) {
+            return Collections.singletonList(this);
+        }
+        try {
+            RandomAccessFile in = new RandomAccessFile(file, "r");
+            try {
+                return split(in.getChannel(), parts);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            throw new GeneratorIOException(e);
+        }
+    }
+
+    /**
+     * Split the part of the file to read at record boundaries.
+     * @param channel the channel to read
+     * @param parts maximum number of parts
+     * @return the parts
+     * @throws IOException if the file can't be read
+     */
+    private List<MappedLineGenerator> split(FileChannel channel, int parts) throws IOException {
+        long end = end(channel);
+        long size = end - from;
+        List<MappedLineGenerator> result = new ArrayList<MappedLineGenerator>();
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_BUFFER);
+        long start = from;
+        for (int i = 1; i < parts && start < end; i++) {
+            long boundary = nextBoundary(channel, Math.max(start, from + size * i / parts), end, scan);
+            if (boundary > start && boundary < end) {
+                result.add(new MappedLineGenerator(file, delimiter, lines, start, boundary, window));
+                start = boundary;
+            }
+        }
+        result.add(new MappedLineGenerator(file, delimiter, lines, start, end, window));
+        return result;
+    }
+
+    /**
+     * Find the first record boundary at or after <code>position</code>, i.e.
+     * the first position following a delimiter.
+     * @param channel the channel to read
+     * @param position where to start looking
+     * @param end position after the last byte to read
+     * @param scan buffer to read the file into
+     * @return the boundary, or <code>end</code> if there is none
+     * @throws IOException if the file can't be read
+     */
+    private long nextBoundary(FileChannel channel, long position, long end, ByteBuffer scan) throws IOException {
+        if (position <= from) {
+            return from;
+        }
+        long next = position - 1;
+        while (next < end) {
+            scan.clear();
+            scan.limit((int) Math.min(scan.capacity(), end - next));
+            int read = channel.read(scan, next);
+            if (read <= 0) {
+                return end;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == delimiter) {
+                    return next + i + 1;
+                }
+            }
+            next += read;
+        }
+        return end;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The records are generated as {@link MappedRecord#copy() copies} rather
+     * than as a reused view, since the parallel generator buffers them.
+     */
+    public ParallelGenerator<CharSequence> parallel() {
+        return ParallelGenerator.of(this).map(MappedRecord.copier());
+    }
+
+    /**
+     * Get the file read by this generator.
+     * @return File
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof MappedLineGenerator)) {
+            return false;
+        }
+        MappedLineGenerator other = (MappedLineGenerator) obj;
+        return other.file.equals(file) && other.delimiter == delimiter && other.lines == lines
+            && other.from == from && other.to == to;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = "MappedLineGenerator".hashCode();
+        hash <<= 2;
+        hash ^= file.hashCode();
+        hash <<= 2;
+        hash ^= delimiter;
+        hash <<= 2;
+        hash ^= (int) (from ^ (from >>> 32));
+        hash <<= 2;
+        hash ^= (int) (to ^ (to >>> 32));
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "MappedLineGenerator<" + file + (to == END_OF_FILE ? "" : ", " + from + ".." + to) + ">";
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import org.apache.commons.functor.UnaryFunction;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * A view of a record of a memory-mapped file, as generated by
+ * {@link MappedLineGenerator}. The bytes aren't copied: the view reads them
+ * from the mapping, one <code>char</code> per byte (i.e. as ISO-8859-1, which
+ * is also correct for the ASCII characters of UTF-8 and similar encodings).
+ * <p>
+ * The generator reuses the same view for every record, so a view is only
+ * valid during the call to the procedure it is passed to: use
+ * {@link #toString()}, {@link #toString(Charset)}, {@link #getBytes()} or
+ * {@link #copy()} (or {@link #decoder(Charset)} or {@link #copier()} in a
+ * pipeline) to keep the contents of a record.
+ * </p>
+ *
+ * @version $Revision:$ $Date:$
+ */
+public final class MappedRecord implements CharSequence {
+    /**
+     * Copies records, see {@link #copier()}.
+     */
+    private static final UnaryFunction<CharSequence, CharSequence> COPIER =
+        new UnaryFunction<CharSequence, CharSequence>() {
+            public CharSequence evaluate(CharSequence obj) {
+                return obj instanceof MappedRecord ? ((MappedRecord) obj).copy() : obj;
+            }
+
+            @Override
+            public String toString() {
+                return "MappedRecord.copier";
+            }
+        };
+
+    /**
+     * The mapping holding the record.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Index of the first byte of the record in {@link #buffer}.
+     */
+    private int offset;
+
+    /**
+     * Number of bytes of the record.
+     */
+    private int length;
+
+    /**
+     * Create a new, empty, MappedRecord.
+     */
+    MappedRecord() {
+        this(null, 0, 0);
+    }
+
+    /**
+     * Create a new MappedRecord.
+     * @param buffer the mapping holding the record
+     * @param offset index of the first byte of the record
+     * @param length number of bytes of the record
+     */
+    private MappedRecord(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Point this view to another record.
+     * @param buffer the mapping holding the record
+     * @param offset index of the first byte of the record
+     * @param length number of bytes of the record
+     */
+    void set(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public char charAt(int index) {
+        return (char) (byteAt(index) & 0xFF);
+    }
+
+    /**
+     * Get a byte of the record.
+     * @param index index of the byte
+     * @return byte
+     */
+    public byte byteAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        }
+        return buffer.get(offset + index);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The subsequence is also a view, valid as long as this one is.
+     */
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("Invalid subsequence: " + start + ".." + end);
+        }
+        return new MappedRecord(buffer, offset + start, end - start);
+    }
+
+    /**
+     * Find the first occurrence of <code>str</code> in this record, without
+     * copying it.
+     * @param str the characters to look for, one byte each
+     * @return the index of the first occurrence, or -1 if not found
+     */
+    public int indexOf(CharSequence str) {
+        int count = str.length();
+        for (int i = 0; i <= length - count; i++) {
+            int j = 0;
+            while (j < count && charAt(i + j) == str.charAt(j)) {
+                j++;
+            }
+            if (j == count) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Copy the bytes of this record.
+     * @return byte[]
+     */
+    public byte[] getBytes() {
+        byte[] result = new byte[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = buffer.get(offset + i);
+        }
+        return result;
+    }
+
+    /**
+     * Copy this record into a record of its own, backed by a copy of its
+     * bytes, which stays valid after the generator has moved on.
+     * @return MappedRecord
+     */
+    public MappedRecord copy() {
+        return new MappedRecord(ByteBuffer.wrap(getBytes()), 0, length);
+    }
+
+    /**
+     * Get a read-only buffer over the bytes of this record, valid as long as
+     * this view is.
+     * @return ByteBuffer
+     */
+    public ByteBuffer asByteBuffer() {
+        ByteBuffer result = buffer.asReadOnlyBuffer();
+        result.limit(offset + length).position(offset);
+        return result.slice();
+    }
+
+    /**
+     * Decode this record.
+     * @param charset the encoding of the file
+     * @return String
+     */
+    public String toString(Charset charset) {
+        return charset.decode(asByteBuffer()).toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The bytes are copied one <code>char</code> each.
+     */
+    @Override
+    public String toString() {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) (buffer.get(offset + i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Get a UnaryFunction which decodes records (and calls
+     * <code>toString()</code> on other character sequences), e.g. to keep
+     * the records generated by a {@link MappedLineGenerator}.
+     * @param charset the encoding of the file
+     * @return UnaryFunction
+     */
+    public static UnaryFunction<CharSequence, String> decoder(final Charset charset) {
+        Validate.notNull(charset, "Charset argument was null");
+        return new UnaryFunction<CharSequence, String>() {
+            public String evaluate(CharSequence obj) {
+                return obj instanceof MappedRecord ? ((MappedRecord) obj).toString(charset) : obj.toString();
+            }
+
+            @Override
+            public String toString() {
+                return "MappedRecord.decoder<" + charset + ">";
+            }
+        };
+    }
+
+    /**
+     * Get a UnaryFunction which {@link #copy() copies} records (and passes
+     * other character sequences as they are), e.g. to buffer the records
+     * generated by a {@link MappedLineGenerator} without decoding them.
+     * @return UnaryFunction
+     */
+    public static UnaryFunction<CharSequence, CharSequence> copier() {
+        return COPIER;
+    }
+}
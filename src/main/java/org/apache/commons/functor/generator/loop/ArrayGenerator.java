@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.loop;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Splittable generator over the elements of an array, or part of it.
+ *
+ * @param <E> the type of elements held in this generator.
+ * @version $Revision:$ $Date:$
+ */
+public final class ArrayGenerator<E> extends IndexedGenerator<E> {
+
+    /**
+     * The array.
+     */
+    private final E[] array;
+
+    /**
+     * Create a new ArrayGenerator over all the elements of an array.
+     * @param array array to generate the elements of
+     */
+    public ArrayGenerator(E[] array) {
+        this(Validate.notNull(array, "Array argument was null"), 0, array.length);
+    }
+
+    /**
+     * Create a new ArrayGenerator over part of an array.
+     * @param array array to generate the elements of
+     * @param from index of the first element
+     * @param to index after the last element
+     */
+    public ArrayGenerator(E[] array, int from, int to) {
+        super(from, to);
+        this.array = Validate.notNull(array, "Array argument was null");
+        if (to > array.length) {
+            throw new IndexOutOfBoundsException("Invalid interval: [" + from + ", " + to + ")");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected E get(long index) {
+        return array[(int) index];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected IndexedGenerator<E> slice(long start, long end) {
+        return new ArrayGenerator<E>(array, (int) start, (int) end);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof ArrayGenerator<?>)) {
+            return false;
+        }
+        ArrayGenerator<?> that = (ArrayGenerator<?>) obj;
+        return this.array == that.array && this.getFrom() == that.getFrom() && this.getTo() == that.getTo();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = "ArrayGenerator".hashCode();
+        hash <<= 2;
+        hash ^= System.identityHashCode(array);
+        hash <<= 2;
+        hash ^= (int) getFrom();
+        hash <<= 2;
+        hash ^= (int) getTo();
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ArrayGenerator<[" + getFrom() + ", " + getTo() + ")>";
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.loop;
+
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.functor.UnaryFunction;
+import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.StoppableUnaryProcedure;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Generator that transforms the elements of another Generator concurrently,
+ * for functions which spend most of their time waiting (e.g. on I/O). Each
+ * element is handed to a thread of the executor as soon as the wrapped
+ * generator produces it, with at most <code>maxInFlight</code> elements being
+ * transformed at any time: when the limit is reached, the wrapped generator is
+ * held until a result has been passed on.
+ * <p>
+ * The wrapped generator and the procedure both run on the calling thread;
+ * only the function runs concurrently, so it must be thread safe. The results
+ * are passed on in the order of the wrapped generator, or -- if the generator
+ * is unordered -- as soon as they are available, so a slow element doesn't hold
+ * the others back. If the executor rejects a task, the function runs on the
+ * calling thread.
+ * </p>
+ * <p>
+ * If the function throws an exception, the elements in flight are cancelled
+ * and the exception is rethrown by {@link #run(UnaryProcedure)}. Stopping this
+ * generator, or the procedure requesting a stop, cancels them as well.
+ * </p>
+ *
+ * @param <I> the type of elements held in the wrapped generator.
+ * @param <E> the type of elements held in this generator.
+ * @version $Revision:$ $Date:$
+ */
+public class ConcurrentTransformedGenerator<I, E> extends LoopGenerator<E> {
+
+    /**
+     * The wrapped generator.
+     */
+    private final Generator<? extends I> wrapped;
+
+    /**
+     * The UnaryFunction to apply to each element.
+     */
+    private final UnaryFunction<? super I, ? extends E> func;
+
+    /**
+     * Maximum number of elements being transformed at any time.
+     */
+    private final int maxInFlight;
+
+    /**
+     * Whether the results are passed on in the order of the wrapped generator.
+     */
+    private final boolean ordered;
+
+    /**
+     * Executor the function is run on.
+     */
+    private final Executor executor;
+
+    /**
+     * Create a new ordered ConcurrentTransformedGenerator, using a shared pool
+     * of (daemon) threads created as needed.
+     * @param wrapped Generator to transform
+     * @param maxInFlight maximum number of elements being transformed at any
+     * time. Must be greater than zero.
+     * @param func thread safe UnaryFunction to apply to each element
+     */
+    public ConcurrentTransformedGenerator(Generator<? extends I> wrapped, int maxInFlight,
+            UnaryFunction<? super I, ? extends E> func) {
+        this(wrapped, maxInFlight, func, true, DefaultExecutor.INSTANCE);
+    }
+
+    /**
+     * Create a new ConcurrentTransformedGenerator.
+     * @param wrapped Generator to transform
+     * @param maxInFlight maximum number of elements being transformed at any
+     * time. Must be greater than zero.
+     * @param func thread safe UnaryFunction to apply to each element
+     * @param ordered whether the results are passed on in the order of the
+     * wrapped generator
+     * @param executor Executor to run the function on
+     */
+    public ConcurrentTransformedGenerator(Generator<? extends I> wrapped, int maxInFlight,
+            UnaryFunction<? super I, ? extends E> func, boolean ordered, Executor executor) {
+        this.wrapped = Validate.notNull(wrapped, "Generator argument was null");
+        Validate.isTrue(maxInFlight > 0, "Maximum number of elements in flight must be positive: %d", maxInFlight);
+        this.func = Validate.notNull(func, "UnaryFunction argument was null");
+        this.maxInFlight = maxInFlight;
+        this.ordered = ordered;
+        this.executor = Validate.notNull(executor, "Executor argument was null");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(final UnaryProcedure<? super E> proc) {
+        final Window window = new Window(proc);
+        try {
+            wrapped.run(new StoppableUnaryProcedure<I>() {
+                public void run(I obj) {
+                    window.submit(obj);
+                }
+
+                public boolean isStopped() {
+                    return window.done;
+                }
+            });
+            window.drain();
+        } finally {
+            window.cancel();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Stops the wrapped generator as well, if it is a LoopGenerator.
+     */
+    @Override
+    public void stop() {
+        if (wrapped instanceof LoopGenerator<?>) {
+            ((LoopGenerator<?>) wrapped).stop();
+        }
+        super.stop();
+    }
+
+    /**
+     * Get the maximum number of elements being transformed at any time.
+     * @return maxInFlight
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Learn whether the results are passed on in the order of the wrapped
+     * generator.
+     * @return boolean
+     */
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof ConcurrentTransformedGenerator<?, ?>)) {
+            return false;
+        }
+        ConcurrentTransformedGenerator<?, ?> other = (ConcurrentTransformedGenerator<?, ?>) obj;
+        return other.wrapped.equals(wrapped) && other.func == func
+            && other.maxInFlight == maxInFlight && other.ordered == ordered && other.executor == executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = "ConcurrentTransformedGenerator".hashCode();
+        result <<= 2;
+        result ^= wrapped.hashCode();
+        result <<= 2;
+        result ^= func.hashCode();
+        result <<= 2;
+        result ^= maxInFlight;
+        result <<= 2;
+        result ^= ordered ? 1 : 0;
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ConcurrentTransformedGenerator<" + wrapped + ", " + func + ", maxInFlight="
+            + maxInFlight + (ordered ? ", ordered>" : ", unordered>");
+    }
+
+    /**
+     * Wait for a task to complete. If the current thread is interrupted in the
+     * meantime, keep waiting (the procedure can't be run without the result)
+     * and restore the interrupt status afterwards.
+     * @param <T> the type of the result.
+     * @param task FutureTask to wait for
+     * @return the result of the task
+     */
+    private static <T> T getUninterruptibly(FutureTask<T> task) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IllegalStateException(cause);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Take an element from a queue. If the current thread is interrupted in
+     * the meantime, keep waiting and restore the interrupt status afterwards.
+     * @param <T> the type of elements held in the queue.
+     * @param queue BlockingQueue to take from
+     * @return the head of the queue
+     */
+    private static <T> T takeUninterruptibly(BlockingQueue<T> queue) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return queue.take();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The elements in flight during one run.
+     */
+    private final class Window {
+        /**
+         * The procedure to run for each result.
+         */
+        private final UnaryProcedure<? super E> proc;
+
+        /**
+         * The tasks in flight, in the order they were submitted.
+         */
+        private final Queue<FutureTask<E>> inFlight = new LinkedList<FutureTask<E>>();
+
+        /**
+         * The completed tasks, in the order they completed; only used when
+         * unordered.
+         */
+        private final BlockingQueue<FutureTask<E>> completed = new LinkedBlockingQueue<FutureTask<E>>();
+
+        /**
+         * Set when no more elements should be submitted.
+         */
+        private volatile boolean done;
+
+        /**
+         * Create a new Window.
+         * @param proc the procedure to run for each result
+         */
+        Window(UnaryProcedure<? super E> proc) {
+            this.proc = proc;
+        }
+
+        /**
+         * Submit an element to the executor, after waiting for a result to be
+         * passed on if the maximum number of elements is in flight.
+         * @param obj the element to transform
+         */
+        void submit(final I obj) {
+            if (done) {
+                return;
+            }
+            passAvailable();
+            while (!done && inFlight.size() >= maxInFlight) {
+                pass(next());
+            }
+            if (done) {
+                return;
+            }
+            FutureTask<E> task = new FutureTask<E>(new Callable<E>() {
+                public E call() {
+                    return func.evaluate(obj);
+                }
+            }) {
+                @Override
+                protected void done() {
+                    if (!ordered) {
+                        completed.add(this);
+                    }
+                }
+            };
+            inFlight.add(task);
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.run();
+            }
+        }
+
+        /**
+         * Pass on the results of all the elements in flight.
+         */
+        void drain() {
+            while (!done && !inFlight.isEmpty()) {
+                pass(next());
+            }
+        }
+
+        /**
+         * Stop submitting elements and cancel the ones in flight.
+         */
+        void cancel() {
+            done = true;
+            for (FutureTask<E> task : inFlight) {
+                task.cancel(true);
+            }
+            inFlight.clear();
+        }
+
+        /**
+         * Pass on the results which are available without waiting.
+         */
+        private void passAvailable() {
+            if (ordered) {
+                while (!done && !inFlight.isEmpty() && inFlight.peek().isDone()) {
+                    pass(inFlight.poll());
+                }
+            } else {
+                for (FutureTask<E> task = completed.poll(); task != null && !done; task = completed.poll()) {
+                    inFlight.remove(task);
+                    pass(task);
+                }
+            }
+        }
+
+        /**
+         * Remove the next task to pass on from the tasks in flight.
+         * @return FutureTask
+         */
+        private FutureTask<E> next() {
+            if (ordered) {
+                return inFlight.poll();
+            }
+            FutureTask<E> task = takeUninterruptibly(completed);
+            inFlight.remove(task);
+            return task;
+        }
+
+        /**
+         * Run the procedure for the result of a task.
+         * @param task the completed (or soon to be) task
+         */
+        private void pass(FutureTask<E> task) {
+            proc.run(getUninterruptibly(task));
+            if (isStopped() || isStopRequested(proc)) {
+                done = true;
+            }
+        }
+    }
+
+    /**
+     * Holds the shared default executor, created on first use.
+     */
+    private static final class DefaultExecutor {
+        /**
+         * The default executor.
+         */
+        static final Executor INSTANCE = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger threads = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ConcurrentTransformedGenerator-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+}
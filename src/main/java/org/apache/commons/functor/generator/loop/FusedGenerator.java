@@ -0,0 +1,516 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.loop;
+
+import java.util.Arrays;
+
+import org.apache.commons.functor.UnaryFunction;
+import org.apache.commons.functor.UnaryPredicate;
+import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.StoppableUnaryProcedure;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Generator which runs a pipeline of filter, map (transform) and limit stages
+ * over the elements of another generator in a single loop body. Building the
+ * same pipeline by wrapping {@link org.apache.commons.functor.generator.FilteredGenerator}s
+ * and {@link TransformedGenerator}s creates a procedure per stage on each run,
+ * and each element goes through one more procedure call per stage; here, each
+ * run creates a single procedure which applies all the stages, and the most
+ * common shapes (a single filter, a single map, a filter followed by a map,
+ * each optionally followed by a limit) have their own procedure class, so
+ * the calls they make are easy for the JIT compiler to inline.
+ * <p>
+ * Pipelines are built by chaining calls, each of which returns a new
+ * generator and leaves the original one unchanged:
+ * </p>
+ * <pre>
+ * FusedGenerator.from(generator).filter(isValid).map(toRecord).limit(100).run(proc);
+ * </pre>
+ * <p>
+ * Once a limit has been reached, the procedure the wrapped generator is run
+ * with reports that it is {@link StoppableUnaryProcedure#isStopped() stopped},
+ * so the wrapped generator returns early. Neither generator is changed, so
+ * the pipeline (and its source) can be run again.
+ * </p>
+ *
+ * @param <E> the type of elements held in this generator.
+ * @version $Revision:$ $Date:$
+ */
+public final class FusedGenerator<E> extends LoopGenerator<E> {
+
+    /** Kind of a filter stage. */
+    private static final int FILTER = 0;
+
+    /** Kind of a map stage. */
+    private static final int MAP = 1;
+
+    /** Kind of a limit stage. */
+    private static final int LIMIT = 2;
+
+    /** No stages. */
+    private static final int[] NO_KINDS = new int[0];
+
+    /**
+     * Kind of each stage.
+     */
+    private final int[] kinds;
+
+    /**
+     * Functor of each stage: a UnaryPredicate for a filter, a UnaryFunction
+     * for a map or a Long (the maximum number of elements) for a limit.
+     */
+    private final Object[] stages;
+
+    /**
+     * Create a new FusedGenerator.
+     * @param wrapped Generator to run the stages over
+     * @param kinds kind of each stage
+     * @param stages functor of each stage
+     */
+    @SuppressWarnings("unchecked")
+    private FusedGenerator(Generator<?> wrapped, int[] kinds, Object[] stages) {
+        super((Generator<? extends E>) wrapped);
+        this.kinds = kinds;
+        this.stages = stages;
+    }
+
+    /**
+     * Create a pipeline, with no stages yet, over the elements of a generator.
+     * @param <E> the type of elements held in the generator.
+     * @param generator Generator to wrap
+     * @return FusedGenerator
+     */
+    public static <E> FusedGenerator<E> from(Generator<? extends E> generator) {
+        return new FusedGenerator<E>(Validate.notNull(generator, "Generator argument was null"), NO_KINDS,
+            new Object[0]);
+    }
+
+    /**
+     * Add a stage which only passes through the elements matched by
+     * <code>pred</code>.
+     * @param pred filtering UnaryPredicate
+     * @return FusedGenerator
+     */
+    public FusedGenerator<E> filter(UnaryPredicate<? super E> pred) {
+        return append(FILTER, Validate.notNull(pred, "UnaryPredicate argument was null"));
+    }
+
+    /**
+     * Add a stage which transforms the elements using <code>func</code>.
+     * @param <T> the type of elements held in the new generator.
+     * @param func UnaryFunction to apply to each element
+     * @return FusedGenerator
+     */
+    public <T> FusedGenerator<T> map(UnaryFunction<? super E, ? extends T> func) {
+        return append(MAP, Validate.notNull(func, "UnaryFunction argument was null"));
+    }
+
+    /**
+     * Add a stage which only passes through the first <code>max</code>
+     * elements which reach it, then stops the generation.
+     * @param max maximum number of elements, must not be negative
+     * @return FusedGenerator
+     */
+    public FusedGenerator<E> limit(long max) {
+        Validate.isTrue(max >= 0L, "Limit must not be negative: %d", max);
+        int last = kinds.length - 1;
+        if (last >= 0 && kinds[last] == LIMIT) {
+            // consecutive limits: the lowest one wins
+            long previous = ((Long) stages[last]).longValue();
+            Object[] replaced = stages.clone();
+            replaced[last] = Long.valueOf(Math.min(previous, max));
+            return new FusedGenerator<E>(getWrappedGenerator(), kinds, replaced);
+        }
+        return append(LIMIT, Long.valueOf(max));
+    }
+
+    /**
+     * Create a generator with the same stages as this one, plus one.
+     * @param <T> the type of elements held in the new generator.
+     * @param kind kind of the new stage
+     * @param stage functor of the new stage
+     * @return FusedGenerator
+     */
+    private <T> FusedGenerator<T> append(int kind, Object stage) {
+        int[] newKinds = new int[kinds.length + 1];
+        System.arraycopy(kinds, 0, newKinds, 0, kinds.length);
+        newKinds[kinds.length] = kind;
+        Object[] newStages = new Object[stages.length + 1];
+        System.arraycopy(stages, 0, newStages, 0, stages.length);
+        newStages[stages.length] = stage;
+        return new FusedGenerator<T>(getWrappedGenerator(), newKinds, newStages);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public void run(UnaryProcedure<? super E> proc) {
+        int count = kinds.length;
+        long remaining = Long.MAX_VALUE;
+        if (count > 0 && kinds[count - 1] == LIMIT) {
+            // a trailing limit is handled by every sink
+            remaining = ((Long) stages[--count]).longValue();
+        }
+        if (remaining == 0L) {
+            return;
+        }
+        UnaryProcedure<Object> downstream = (UnaryProcedure<Object>) proc;
+        Sink sink;
+        if (count == 0) {
+            sink = new PassSink(downstream, remaining);
+        } else if (count == 1 && kinds[0] == FILTER) {
+            sink = new FilterSink(downstream, remaining, (UnaryPredicate<Object>) stages[0]);
+        } else if (count == 1 && kinds[0] == MAP) {
+            sink = new MapSink(downstream, remaining, (UnaryFunction<Object, Object>) stages[0]);
+        } else if (count == 2 && kinds[0] == FILTER && kinds[1] == MAP) {
+            sink = new FilterMapSink(downstream, remaining, (UnaryPredicate<Object>) stages[0],
+                (UnaryFunction<Object, Object>) stages[1]);
+        } else {
+            sink = new GeneralSink(downstream, remaining, kinds, stages, count);
+        }
+        getWrappedGenerator().run(sink);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof FusedGenerator<?>)) {
+            return false;
+        }
+        FusedGenerator<?> other = (FusedGenerator<?>) obj;
+        return other.getWrappedGenerator().equals(getWrappedGenerator()) && Arrays.equals(other.kinds, kinds)
+            && Arrays.equals(other.stages, stages);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = "FusedGenerator".hashCode();
+        result <<= 2;
+        Generator<?> gen = getWrappedGenerator();
+        result ^= gen.hashCode();
+        result <<= 2;
+        result ^= Arrays.hashCode(stages);
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder("FusedGenerator<").append(getWrappedGenerator());
+        for (int i = 0; i < kinds.length; i++) {
+            buf.append(kinds[i] == FILTER ? ".filter(" : kinds[i] == MAP ? ".map(" : ".limit(");
+            buf.append(stages[i]).append(')');
+        }
+        return buf.append('>').toString();
+    }
+
+    /**
+     * Procedure run for each element of the wrapped generator: applies the
+     * stages then passes the element (if any) downstream, counting the
+     * elements passed for the trailing limit. It stops once a limit has been
+     * reached or the downstream procedure is stopped.
+     */
+    private abstract static class Sink implements StoppableUnaryProcedure<Object> {
+        /**
+         * Procedure to pass the elements to.
+         */
+        private final UnaryProcedure<Object> downstream;
+
+        /**
+         * Number of elements which can still be passed downstream.
+         */
+        private long remaining;
+
+        /**
+         * Set once a limit has been reached: reported by {@link #isStopped()}
+         * so that the wrapped generator returns, and checked in case it
+         * ignores the signal.
+         */
+        private boolean done;
+
+        /**
+         * Create a new Sink.
+         * @param downstream procedure to pass the elements to
+         * @param remaining maximum number of elements to pass downstream
+         */
+        Sink(UnaryProcedure<Object> downstream, long remaining) {
+            this.downstream = downstream;
+            this.remaining = remaining;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public final void run(Object obj) {
+            if (!done) {
+                accept(obj);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public final boolean isStopped() {
+            return done || isStopRequested(downstream);
+        }
+
+        /**
+         * Apply the stages to an element.
+         * @param obj element of the wrapped generator
+         */
+        abstract void accept(Object obj);
+
+        /**
+         * Pass an element downstream.
+         * @param obj element which went through all the stages
+         */
+        final void emit(Object obj) {
+            downstream.run(obj);
+            if (--remaining == 0L) {
+                finish();
+            }
+        }
+
+        /**
+         * Stop the generation: nothing else will be passed downstream.
+         */
+        final void finish() {
+            done = true;
+        }
+    }
+
+    /**
+     * Sink with no stages other than the trailing limit.
+     */
+    private static final class PassSink extends Sink {
+        /**
+         * Create a new PassSink.
+         * @param downstream procedure to pass the elements to
+         * @param remaining maximum number of elements to pass downstream
+         */
+        PassSink(UnaryProcedure<Object> downstream, long remaining) {
+            super(downstream, remaining);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void accept(Object obj) {
+            emit(obj);
+        }
+    }
+
+    /**
+     * Sink with a single filter.
+     */
+    private static final class FilterSink extends Sink {
+        /**
+         * The filter.
+         */
+        private final UnaryPredicate<Object> pred;
+
+        /**
+         * Create a new FilterSink.
+         * @param downstream procedure to pass the elements to
+         * @param remaining maximum number of elements to pass downstream
+         * @param pred the filter
+         */
+        FilterSink(UnaryProcedure<Object> downstream, long remaining,
+                UnaryPredicate<Object> pred) {
+            super(downstream, remaining);
+            this.pred = pred;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void accept(Object obj) {
+            if (pred.test(obj)) {
+                emit(obj);
+            }
+        }
+    }
+
+    /**
+     * Sink with a single map.
+     */
+    private static final class MapSink extends Sink {
+        /**
+         * The transformation.
+         */
+        private final UnaryFunction<Object, Object> func;
+
+        /**
+         * Create a new MapSink.
+         * @param downstream procedure to pass the elements to
+         * @param remaining maximum number of elements to pass downstream
+         * @param func the transformation
+         */
+        MapSink(UnaryProcedure<Object> downstream, long remaining,
+                UnaryFunction<Object, Object> func) {
+            super(downstream, remaining);
+            this.func = func;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void accept(Object obj) {
+            emit(func.evaluate(obj));
+        }
+    }
+
+    /**
+     * Sink with a filter followed by a map.
+     */
+    private static final class FilterMapSink extends Sink {
+        /**
+         * The filter.
+         */
+        private final UnaryPredicate<Object> pred;
+
+        /**
+         * The transformation.
+         */
+        private final UnaryFunction<Object, Object> func;
+
+        /**
+         * Create a new FilterMapSink.
+         * @param downstream procedure to pass the elements to
+         * @param remaining maximum number of elements to pass downstream
+         * @param pred the filter
+         * @param func the transformation
+         */
+        FilterMapSink(UnaryProcedure<Object> downstream, long remaining,
+                UnaryPredicate<Object> pred, UnaryFunction<Object, Object> func) {
+            super(downstream, remaining);
+            this.pred = pred;
+            this.func = func;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void accept(Object obj) {
+            if (pred.test(obj)) {
+                emit(func.evaluate(obj));
+            }
+        }
+    }
+
+    /**
+     * Sink with any other combination of stages, which applies them in a loop.
+     */
+    private static final class GeneralSink extends Sink {
+        /**
+         * Kind of each stage.
+         */
+        private final int[] kinds;
+
+        /**
+         * Functor of each stage.
+         */
+        private final Object[] stages;
+
+        /**
+         * Number of elements which can still go through each limit stage.
+         */
+        private final long[] counters;
+
+        /**
+         * Number of stages to apply (the trailing limit excluded).
+         */
+        private final int count;
+
+        /**
+         * Create a new GeneralSink.
+         * @param downstream procedure to pass the elements to
+         * @param remaining maximum number of elements to pass downstream
+         * @param kinds kind of each stage
+         * @param stages functor of each stage
+         * @param count number of stages to apply
+         */
+        GeneralSink(UnaryProcedure<Object> downstream, long remaining, int[] kinds,
+                Object[] stages, int count) {
+            super(downstream, remaining);
+            this.kinds = kinds;
+            this.stages = stages;
+            this.count = count;
+            this.counters = new long[count];
+            for (int i = 0; i < count; i++) {
+                if (kinds[i] == LIMIT) {
+                    counters[i] = ((Long) stages[i]).longValue();
+                }
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        void accept(Object obj) {
+            Object value = obj;
+            boolean last = false;
+            for (int i = 0; i < count; i++) {
+                switch (kinds[i]) {
+                case FILTER:
+                    if (!((UnaryPredicate<Object>) stages[i]).test(value)) {
+                        if (last) {
+                            finish();
+                        }
+                        return;
+                    }
+                    break;
+                case MAP:
+                    value = ((UnaryFunction<Object, Object>) stages[i]).evaluate(value);
+                    break;
+                default:
+                    if (counters[i] == 0L) {
+                        // a limit of zero before other stages: nothing gets through
+                        finish();
+                        return;
+                    }
+                    // no element will get past this limit after this one
+                    last |= --counters[i] == 0L;
+                    break;
+                }
+            }
+            emit(value);
+            if (last) {
+                finish();
+            }
+        }
+    }
+}
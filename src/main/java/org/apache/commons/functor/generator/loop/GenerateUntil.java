@@ -19,6 +19,7 @@ package org.apache.commons.functor.generator.loop;
 import org.apache.commons.functor.UnaryPredicate;
 import org.apache.commons.functor.UnaryProcedure;
 import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.StoppableUnaryProcedure;
 import org.apache.commons.lang3.Validate;
 
 /**
@@ -49,13 +50,17 @@ public class GenerateUntil<E> extends LoopGenerator<E> {
      * {@inheritDoc}
      */
     public void run(final UnaryProcedure<? super E> proc) {
-        getWrappedGenerator().run(new UnaryProcedure<E>() {
+        getWrappedGenerator().run(new StoppableUnaryProcedure<E>() {
             public void run(E obj) {
                 proc.run(obj);
                 if (test.test(obj)) {
                     GenerateUntil.this.stop();
                 }
             }
+
+            public boolean isStopped() {
+                return GenerateUntil.this.isStopped() || isStopRequested(proc);
+            }
         });
     }
 
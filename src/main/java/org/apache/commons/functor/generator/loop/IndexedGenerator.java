@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.loop;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.functor.generator.ParallelGenerator;
+import org.apache.commons.functor.generator.SplittableGenerator;
+
+/**
+ * Base class for generators over sources whose elements can be accessed by
+ * index, such as arrays, lists and ranges. Such a generator covers the indexes
+ * from {@link #getFrom()} (inclusive) to {@link #getTo()} (exclusive), and is
+ * split by dividing this interval; since it doesn't consume its source, it can
+ * be run more than once.
+ *
+ * @param <E> the type of elements held in this generator.
+ * @version $Revision:$ $Date:$
+ */
+public abstract class IndexedGenerator<E> extends LoopGenerator<E> implements SplittableGenerator<E> {
+
+    /**
+     * Index of the first element.
+     */
+    private final long from;
+
+    /**
+     * Index after the last element.
+     */
+    private final long to;
+
+    /**
+     * Create a new IndexedGenerator.
+     * @param from index of the first element
+     * @param to index after the last element, not less than <code>from</code>
+     */
+    protected IndexedGenerator(long from, long to) {
+        if (from < 0L || to < from) {
+            throw new IndexOutOfBoundsException("Invalid interval: [" + from + ", " + to + ")");
+        }
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(UnaryProcedure<? super E> proc) {
+        for (long i = from; i < to; i++) {
+            proc.run(get(i));
+            if (isStopped() || isStopRequested(proc)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The batches are filled by index, each one with exactly the required
+     * capacity.
+     */
+    @Override
+    public void runBatched(int size, UnaryProcedure<? super List<E>> proc) {
+        checkBatched(size, proc);
+        long end;
+        for (long start = from; start < to; start = end) {
+            end = start + Math.min(size, to - start);
+            List<E> batch = new ArrayList<E>((int) (end - start));
+            for (long i = start; i < end; i++) {
+                batch.add(get(i));
+            }
+            proc.run(batch);
+            if (isStopped()) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final long size() {
+        return to - from;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The parts cover intervals of (nearly) equal sizes.
+     */
+    public final List<IndexedGenerator<E>> split(int parts) {
+        if (parts <= 0) {
+            throw new IllegalArgumentException("Invalid number of parts: " + parts);
+        }
+        long size = size();
+        if (parts == 1 || size <= 1L) {
+            return Collections.<IndexedGenerator<E>> singletonList(this);
+        }
+        int count = (int) Math.min(parts, size);
+        // size * (i + 1) / count, split into base and remainder so that it doesn't overflow
+        long base = size / count;
+        long extra = size % count;
+        List<IndexedGenerator<E>> result = new ArrayList<IndexedGenerator<E>>(count);
+        long start = from;
+        for (int i = 0; i < count; i++) {
+            long end = from + base * (i + 1) + extra * (i + 1) / count;
+            result.add(slice(start, end));
+            start = end;
+        }
+        return result;
+    }
+
+    /**
+     * Create an iterator over the elements of this generator, which steps
+     * through the indexes on the calling thread.
+     * @return Iterator
+     */
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private long index = from;
+
+            public boolean hasNext() {
+                return index < to;
+            }
+
+            public E next() {
+                if (index >= to) {
+                    throw new NoSuchElementException();
+                }
+                return get(index++);
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public ParallelGenerator<E> parallel() {
+        return ParallelGenerator.of(this);
+    }
+
+    /**
+     * Get the index of the first element.
+     * @return long
+     */
+    public final long getFrom() {
+        return from;
+    }
+
+    /**
+     * Get the index after the last element.
+     * @return long
+     */
+    public final long getTo() {
+        return to;
+    }
+
+    /**
+     * Get the element at the given index.
+     * @param index index, between {@link #getFrom()} (inclusive) and
+     * {@link #getTo()} (exclusive)
+     * @return element
+     */
+    protected abstract E get(long index);
+
+    /**
+     * Create a generator over the same source, covering the given interval.
+     * @param start index of the first element
+     * @param end index after the last element
+     * @return IndexedGenerator
+     */
+    protected abstract IndexedGenerator<E> slice(long start, long end);
+}
@@ -14,13 +14,17 @@
 
 package org.apache.commons.functor.generator.loop;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.commons.functor.UnaryProcedure;
 import org.apache.commons.lang3.Validate;
 
 /**
- * Adapts an {@link Iterator} to the {@link LoopGenerator} interface.
+ * Adapts an {@link Iterator} to the {@link LoopGenerator} interface. An
+ * adapter created from an {@link Iterable} gets a new iterator for each run,
+ * so it can be run more than once.
  *
  * @param <E> the type of elements held in this generator.
  * @since 1.0
@@ -31,10 +35,15 @@ public final class IteratorToGeneratorAdapter<E> extends LoopGenerator<E> {
     //-----------------------------------------------------
 
     /**
-     * The adapted iterator.
+     * The adapted iterator, if this adapter was created from an iterator.
      */
     private final Iterator<? extends E> iter;
 
+    /**
+     * The adapted iterable, if this adapter was created from an iterable.
+     */
+    private final Iterable<? extends E> iterable;
+
     // constructors
     //-----------------------------------------------------
     /**
@@ -42,7 +51,17 @@ public final class IteratorToGeneratorAdapter<E> extends LoopGenerator<E> {
      * @param iter Iterator to adapt
      */
     public IteratorToGeneratorAdapter(Iterator<? extends E> iter) {
-        this.iter = Validate.notNull(iter, "Iterator argument was null");
+        this(Validate.notNull(iter, "Iterator argument was null"), null);
+    }
+
+    /**
+     * Create a new IteratorToGeneratorAdapter.
+     * @param iter Iterator to adapt, or null
+     * @param iterable Iterable to adapt, or null
+     */
+    private IteratorToGeneratorAdapter(Iterator<? extends E> iter, Iterable<? extends E> iterable) {
+        this.iter = iter;
+        this.iterable = iterable;
     }
 
     // instance methods
@@ -51,8 +70,29 @@ public final class IteratorToGeneratorAdapter<E> extends LoopGenerator<E> {
      * {@inheritDoc}
      */
     public void run(UnaryProcedure<? super E> proc) {
+        final Iterator<? extends E> iter = iterator();
         while (iter.hasNext()) {
             proc.run(iter.next());
+            if (isStopped() || isStopRequested(proc)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The batches are filled straight from the iterator.
+     */
+    @Override
+    public void runBatched(int size, UnaryProcedure<? super List<E>> proc) {
+        checkBatched(size, proc);
+        final Iterator<? extends E> iter = iterator();
+        while (iter.hasNext()) {
+            List<E> batch = new ArrayList<E>(size);
+            while (batch.size() < size && iter.hasNext()) {
+                batch.add(iter.next());
+            }
+            proc.run(batch);
             if (isStopped()) {
                 break;
             }
@@ -71,7 +111,7 @@ public final class IteratorToGeneratorAdapter<E> extends LoopGenerator<E> {
             return false;
         }
         IteratorToGeneratorAdapter<?> that = (IteratorToGeneratorAdapter<?>) obj;
-        return this.iter.equals(that.iter);
+        return this.iterable == null ? this.iter.equals(that.iter) : this.iterable.equals(that.iterable);
     }
 
     /**
@@ -81,16 +121,24 @@ public final class IteratorToGeneratorAdapter<E> extends LoopGenerator<E> {
     public int hashCode() {
         int hash = "IteratorToGeneratorAdapater".hashCode();
         hash <<= 2;
-        hash ^= iter.hashCode();
+        hash ^= iterable == null ? iter.hashCode() : iterable.hashCode();
         return hash;
     }
 
+    /**
+     * Get the iterator to run.
+     * @return the adapted iterator, or a new iterator over the adapted iterable
+     */
+    private Iterator<? extends E> iterator() {
+        return iterable == null ? iter : iterable.iterator();
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public String toString() {
-        return "IteratorToGeneratorAdapter<" + iter + ">";
+        return "IteratorToGeneratorAdapter<" + (iterable == null ? iter : iterable) + ">";
     }
 
     // static methods
@@ -106,4 +154,16 @@ public final class IteratorToGeneratorAdapter<E> extends LoopGenerator<E> {
         return null == iter ? null : new IteratorToGeneratorAdapter<E>(iter);
     }
 
+    /**
+     * Adapt an Iterable (e.g. a {@link org.apache.commons.functor.range.Range
+     * Range}) to the Generator interface. Each run gets a new iterator.
+     *
+     * @param <E> the type of elements held in this generator.
+     * @param iterable to adapt
+     * @return IteratorToGeneratorAdapter
+     */
+    public static <E> IteratorToGeneratorAdapter<E> adapt(Iterable<? extends E> iterable) {
+        return null == iterable ? null : new IteratorToGeneratorAdapter<E>(null, iterable);
+    }
+
 }
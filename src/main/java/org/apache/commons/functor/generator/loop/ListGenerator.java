@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.loop;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Splittable generator over the elements of a list, or part of it. The list
+ * must not be structurally modified while the generator runs. Lists which
+ * don't support fast random access (e.g. linked lists) are iterated rather
+ * than accessed by index.
+ *
+ * @param <E> the type of elements held in this generator.
+ * @version $Revision:$ $Date:$
+ */
+public final class ListGenerator<E> extends IndexedGenerator<E> {
+
+    /**
+     * The list.
+     */
+    private final List<? extends E> list;
+
+    /**
+     * Create a new ListGenerator over all the elements of a list.
+     * @param list list to generate the elements of
+     */
+    public ListGenerator(List<? extends E> list) {
+        this(Validate.notNull(list, "List argument was null"), 0, list.size());
+    }
+
+    /**
+     * Create a new ListGenerator over part of a list.
+     * @param list list to generate the elements of
+     * @param from index of the first element
+     * @param to index after the last element
+     */
+    public ListGenerator(List<? extends E> list, int from, int to) {
+        super(from, to);
+        this.list = Validate.notNull(list, "List argument was null");
+        if (to > list.size()) {
+            throw new IndexOutOfBoundsException("Invalid interval: [" + from + ", " + to + ")");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run(UnaryProcedure<? super E> proc) {
+        if (list instanceof RandomAccess) {
+            super.run(proc);
+            return;
+        }
+        Iterator<? extends E> iter = list.listIterator((int) getFrom());
+        for (long i = getFrom(); i < getTo(); i++) {
+            proc.run(iter.next());
+            if (isStopped()) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected E get(long index) {
+        return list.get((int) index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected IndexedGenerator<E> slice(long start, long end) {
+        return new ListGenerator<E>(list, (int) start, (int) end);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof ListGenerator<?>)) {
+            return false;
+        }
+        ListGenerator<?> that = (ListGenerator<?>) obj;
+        return this.list == that.list && this.getFrom() == that.getFrom() && this.getTo() == that.getTo();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = "ListGenerator".hashCode();
+        hash <<= 2;
+        hash ^= System.identityHashCode(list);
+        hash <<= 2;
+        hash ^= (int) getFrom();
+        hash <<= 2;
+        hash ^= (int) getTo();
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ListGenerator<[" + getFrom() + ", " + getTo() + ")>";
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.loop;
+
+import org.apache.commons.functor.range.LongRange;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Splittable generator over the elements of a {@link LongRange}. Unlike the
+ * iterators of the range, this generator computes each element from its index,
+ * so it can be split.
+ *
+ * @version $Revision:$ $Date:$
+ */
+public final class LongRangeGenerator extends IndexedGenerator<Long> {
+
+    /**
+     * First element of the range.
+     */
+    private final long first;
+
+    /**
+     * Step between the elements.
+     */
+    private final long step;
+
+    /**
+     * Create a new LongRangeGenerator over all the elements of a range.
+     * @param range range to generate the elements of
+     */
+    public LongRangeGenerator(LongRange range) {
+        this(first(Validate.notNull(range, "Range argument was null")), range.getStep(), 0L, range.size());
+    }
+
+    /**
+     * Create a new LongRangeGenerator.
+     * @param first first element of the range
+     * @param step step between the elements
+     * @param from index of the first element
+     * @param to index after the last element
+     */
+    private LongRangeGenerator(long first, long step, long from, long to) {
+        super(from, to);
+        this.first = first;
+        this.step = step;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Long get(long index) {
+        return first + index * step;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected IndexedGenerator<Long> slice(long start, long end) {
+        return new LongRangeGenerator(first, step, start, end);
+    }
+
+    /**
+     * Compute the first element of a range.
+     * @param range LongRange
+     * @return the first element, or 0 if the range is empty
+     */
+    private static long first(LongRange range) {
+        return range.isEmpty() ? 0L : range.get(0L);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof LongRangeGenerator)) {
+            return false;
+        }
+        LongRangeGenerator that = (LongRangeGenerator) obj;
+        return this.first == that.first && this.step == that.step && this.getFrom() == that.getFrom()
+                && this.getTo() == that.getTo();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = "LongRangeGenerator".hashCode();
+        hash <<= 2;
+        hash ^= (int) (first ^ (first >>> 32));
+        hash <<= 2;
+        hash ^= (int) step;
+        hash <<= 2;
+        hash ^= (int) getFrom();
+        hash <<= 2;
+        hash ^= (int) getTo();
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "LongRangeGenerator<first=" + first + ", step=" + step + ", [" + getFrom() + ", " + getTo() + ")>";
+    }
+}
@@ -19,6 +19,7 @@ package org.apache.commons.functor.generator.loop;
 import org.apache.commons.functor.UnaryFunction;
 import org.apache.commons.functor.UnaryProcedure;
 import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.StoppableUnaryProcedure;
 import org.apache.commons.lang3.Validate;
 
 /**
@@ -55,10 +56,14 @@ public class TransformedGenerator<I, E> extends LoopGenerator<E> {
      */
     @SuppressWarnings("unchecked")
     public void run(final UnaryProcedure<? super E> proc) {
-        ((Generator<? extends I>) getWrappedGenerator()).run(new UnaryProcedure<I>() {
+        ((Generator<? extends I>) getWrappedGenerator()).run(new StoppableUnaryProcedure<I>() {
             public void run(I obj) {
                 proc.run(func.evaluate(obj));
             }
+
+            public boolean isStopped() {
+                return TransformedGenerator.this.isStopped() || isStopRequested(proc);
+            }
         });
     }
 
@@ -19,6 +19,7 @@ package org.apache.commons.functor.generator.loop;
 import org.apache.commons.functor.UnaryPredicate;
 import org.apache.commons.functor.UnaryProcedure;
 import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.StoppableUnaryProcedure;
 import org.apache.commons.lang3.Validate;
 
 /**
@@ -49,7 +50,7 @@ public class WhileGenerate<E> extends LoopGenerator<E> {
      * {@inheritDoc}
      */
     public void run(final UnaryProcedure<? super E> proc) {
-        getWrappedGenerator().run(new UnaryProcedure<E>() {
+        getWrappedGenerator().run(new StoppableUnaryProcedure<E>() {
             public void run(E obj) {
                 if (!test.test(obj)) {
                     WhileGenerate.this.stop();
@@ -57,6 +58,10 @@ public class WhileGenerate<E> extends LoopGenerator<E> {
                     proc.run(obj);
                 }
             }
+
+            public boolean isStopped() {
+                return WhileGenerate.this.isStopped() || isStopRequested(proc);
+            }
         });
     }
 
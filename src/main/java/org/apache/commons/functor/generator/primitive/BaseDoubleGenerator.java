@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.functor.generator.BaseGenerator;
+import org.apache.commons.functor.primitive.DoubleBinaryFunction;
+import org.apache.commons.functor.primitive.DoubleUnaryFunction;
+import org.apache.commons.functor.primitive.DoubleUnaryPredicate;
+import org.apache.commons.functor.primitive.DoubleUnaryProcedure;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Base class for {@link DoubleGenerator}s: subclasses only implement
+ * {@link #runDouble(DoubleUnaryProcedure)}. The folds, filters and maps run on
+ * primitive values, so they don't allocate anything per value.
+ * Boxed procedures, filters and maps forward the stop signal of a
+ * {@link org.apache.commons.functor.generator.StoppableUnaryProcedure} or a
+ * {@link StoppableDoubleUnaryProcedure} to the generator they run.
+ *
+ * @version $Revision:$ $Date:$
+ */
+public abstract class BaseDoubleGenerator extends BaseGenerator<Double> implements DoubleGenerator {
+
+    /**
+     * Initial capacity of the array built by {@link #toArray()}.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Create a new generator. */
+    public BaseDoubleGenerator() {
+        super();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The values are boxed before being passed to <code>proc</code>.
+     */
+    public final void run(final UnaryProcedure<? super Double> proc) {
+        Validate.notNull(proc, "UnaryProcedure argument was null");
+        runDouble(new StoppableDoubleUnaryProcedure() {
+            public void run(double value) {
+                proc.run(value);
+            }
+
+            public boolean isStopped() {
+                return isStopRequested(proc);
+            }
+        });
+    }
+
+    /**
+     * Learn whether a procedure has asked the generator running it to stop.
+     * Generators call this after passing each value to <code>proc</code>.
+     * @param proc DoubleUnaryProcedure being run
+     * @return <code>true</code> if <code>proc</code> is a
+     * {@link StoppableDoubleUnaryProcedure} which is stopped
+     */
+    public static boolean isStopRequestedDouble(DoubleUnaryProcedure proc) {
+        return proc instanceof StoppableDoubleUnaryProcedure && ((StoppableDoubleUnaryProcedure) proc).isStopped();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final double fold(double seed, DoubleBinaryFunction func) {
+        Folder folder = new Folder(seed, Validate.notNull(func, "DoubleBinaryFunction argument was null"));
+        runDouble(folder);
+        return folder.result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final DoubleGenerator filter(DoubleUnaryPredicate pred) {
+        return new Filtered(this, Validate.notNull(pred, "DoubleUnaryPredicate argument was null"));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final DoubleGenerator map(DoubleUnaryFunction func) {
+        return new Mapped(this, Validate.notNull(func, "DoubleUnaryFunction argument was null"));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public double[] toArray() {
+        Collector collector = new Collector();
+        runDouble(collector);
+        double[] result = new double[collector.size];
+        System.arraycopy(collector.values, 0, result, 0, collector.size);
+        return result;
+    }
+
+    /**
+     * Procedure which folds the values it is run with.
+     */
+    private static final class Folder implements DoubleUnaryProcedure {
+        /**
+         * The folding function.
+         */
+        private final DoubleBinaryFunction func;
+
+        /**
+         * The result so far.
+         */
+        private double result;
+
+        /**
+         * Create a new Folder.
+         * @param seed initial result
+         * @param func folding function
+         */
+        Folder(double seed, DoubleBinaryFunction func) {
+            this.result = seed;
+            this.func = func;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void run(double value) {
+            result = func.evaluate(result, value);
+        }
+    }
+
+    /**
+     * Procedure which collects the values it is run with into an array.
+     */
+    private static final class Collector implements DoubleUnaryProcedure {
+        /**
+         * The values collected, followed by free space.
+         */
+        private double[] values = new double[INITIAL_CAPACITY];
+
+        /**
+         * Number of values collected.
+         */
+        private int size;
+
+        /**
+         * {@inheritDoc}
+         */
+        public void run(double value) {
+            if (size == values.length) {
+                double[] grown = new double[size * 2];
+                System.arraycopy(values, 0, grown, 0, size);
+                values = grown;
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * Generator of the values of another generator matched by a predicate.
+     */
+    private static final class Filtered extends BaseDoubleGenerator {
+        /**
+         * The filtered generator.
+         */
+        private final DoubleGenerator wrapped;
+
+        /**
+         * The filter.
+         */
+        private final DoubleUnaryPredicate pred;
+
+        /**
+         * Create a new Filtered generator.
+         * @param wrapped generator to filter
+         * @param pred filter
+         */
+        Filtered(DoubleGenerator wrapped, DoubleUnaryPredicate pred) {
+            this.wrapped = wrapped;
+            this.pred = pred;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void runDouble(final DoubleUnaryProcedure proc) {
+            wrapped.runDouble(new StoppableDoubleUnaryProcedure() {
+                public void run(double value) {
+                    if (pred.test(value)) {
+                        proc.run(value);
+                    }
+                }
+
+                public boolean isStopped() {
+                    return isStopRequestedDouble(proc);
+                }
+            });
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "DoubleGenerator<" + wrapped + ".filter(" + pred + ")>";
+        }
+    }
+
+    /**
+     * Generator of the values of another generator transformed by a function.
+     */
+    private static final class Mapped extends BaseDoubleGenerator {
+        /**
+         * The transformed generator.
+         */
+        private final DoubleGenerator wrapped;
+
+        /**
+         * The transformation.
+         */
+        private final DoubleUnaryFunction func;
+
+        /**
+         * Create a new Mapped generator.
+         * @param wrapped generator to transform
+         * @param func transformation
+         */
+        Mapped(DoubleGenerator wrapped, DoubleUnaryFunction func) {
+            this.wrapped = wrapped;
+            this.func = func;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void runDouble(final DoubleUnaryProcedure proc) {
+            wrapped.runDouble(new StoppableDoubleUnaryProcedure() {
+                public void run(double value) {
+                    proc.run(func.evaluate(value));
+                }
+
+                public boolean isStopped() {
+                    return isStopRequestedDouble(proc);
+                }
+            });
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "DoubleGenerator<" + wrapped + ".map(" + func + ")>";
+        }
+    }
+}
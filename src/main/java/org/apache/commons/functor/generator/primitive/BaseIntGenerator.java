@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.functor.generator.BaseGenerator;
+import org.apache.commons.functor.primitive.IntBinaryFunction;
+import org.apache.commons.functor.primitive.IntUnaryFunction;
+import org.apache.commons.functor.primitive.IntUnaryPredicate;
+import org.apache.commons.functor.primitive.IntUnaryProcedure;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Base class for {@link IntGenerator}s: subclasses only implement
+ * {@link #runInt(IntUnaryProcedure)}. The folds, filters and maps run on
+ * primitive values, so they don't allocate anything per value.
+ * Boxed procedures, filters and maps forward the stop signal of a
+ * {@link org.apache.commons.functor.generator.StoppableUnaryProcedure} or a
+ * {@link StoppableIntUnaryProcedure} to the generator they run.
+ *
+ * @version $Revision:$ $Date:$
+ */
+public abstract class BaseIntGenerator extends BaseGenerator<Integer> implements IntGenerator {
+
+    /**
+     * Initial capacity of the array built by {@link #toArray()}.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Create a new generator. */
+    public BaseIntGenerator() {
+        super();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The values are boxed before being passed to <code>proc</code>.
+     */
+    public final void run(final UnaryProcedure<? super Integer> proc) {
+        Validate.notNull(proc, "UnaryProcedure argument was null");
+        runInt(new StoppableIntUnaryProcedure() {
+            public void run(int value) {
+                proc.run(value);
+            }
+
+            public boolean isStopped() {
+                return isStopRequested(proc);
+            }
+        });
+    }
+
+    /**
+     * Learn whether a procedure has asked the generator running it to stop.
+     * Generators call this after passing each value to <code>proc</code>.
+     * @param proc IntUnaryProcedure being run
+     * @return <code>true</code> if <code>proc</code> is a
+     * {@link StoppableIntUnaryProcedure} which is stopped
+     */
+    public static boolean isStopRequestedInt(IntUnaryProcedure proc) {
+        return proc instanceof StoppableIntUnaryProcedure && ((StoppableIntUnaryProcedure) proc).isStopped();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int fold(int seed, IntBinaryFunction func) {
+        Folder folder = new Folder(seed, Validate.notNull(func, "IntBinaryFunction argument was null"));
+        runInt(folder);
+        return folder.result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final IntGenerator filter(IntUnaryPredicate pred) {
+        return new Filtered(this, Validate.notNull(pred, "IntUnaryPredicate argument was null"));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final IntGenerator map(IntUnaryFunction func) {
+        return new Mapped(this, Validate.notNull(func, "IntUnaryFunction argument was null"));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int[] toArray() {
+        Collector collector = new Collector();
+        runInt(collector);
+        int[] result = new int[collector.size];
+        System.arraycopy(collector.values, 0, result, 0, collector.size);
+        return result;
+    }
+
+    /**
+     * Procedure which folds the values it is run with.
+     */
+    private static final class Folder implements IntUnaryProcedure {
+        /**
+         * The folding function.
+         */
+        private final IntBinaryFunction func;
+
+        /**
+         * The result so far.
+         */
+        private int result;
+
+        /**
+         * Create a new Folder.
+         * @param seed initial result
+         * @param func folding function
+         */
+        Folder(int seed, IntBinaryFunction func) {
+            this.result = seed;
+            this.func = func;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void run(int value) {
+            result = func.evaluate(result, value);
+        }
+    }
+
+    /**
+     * Procedure which collects the values it is run with into an array.
+     */
+    private static final class Collector implements IntUnaryProcedure {
+        /**
+         * The values collected, followed by free space.
+         */
+        private int[] values = new int[INITIAL_CAPACITY];
+
+        /**
+         * Number of values collected.
+         */
+        private int size;
+
+        /**
+         * {@inheritDoc}
+         */
+        public void run(int value) {
+            if (size == values.length) {
+                int[] grown = new int[size * 2];
+                System.arraycopy(values, 0, grown, 0, size);
+                values = grown;
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * Generator of the values of another generator matched by a predicate.
+     */
+    private static final class Filtered extends BaseIntGenerator {
+        /**
+         * The filtered generator.
+         */
+        private final IntGenerator wrapped;
+
+        /**
+         * The filter.
+         */
+        private final IntUnaryPredicate pred;
+
+        /**
+         * Create a new Filtered generator.
+         * @param wrapped generator to filter
+         * @param pred filter
+         */
+        Filtered(IntGenerator wrapped, IntUnaryPredicate pred) {
+            this.wrapped = wrapped;
+            this.pred = pred;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void runInt(final IntUnaryProcedure proc) {
+            wrapped.runInt(new StoppableIntUnaryProcedure() {
+                public void run(int value) {
+                    if (pred.test(value)) {
+                        proc.run(value);
+                    }
+                }
+
+                public boolean isStopped() {
+                    return isStopRequestedInt(proc);
+                }
+            });
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "IntGenerator<" + wrapped + ".filter(" + pred + ")>";
+        }
+    }
+
+    /**
+     * Generator of the values of another generator transformed by a function.
+     */
+    private static final class Mapped extends BaseIntGenerator {
+        /**
+         * The transformed generator.
+         */
+        private final IntGenerator wrapped;
+
+        /**
+         * The transformation.
+         */
+        private final IntUnaryFunction func;
+
+        /**
+         * Create a new Mapped generator.
+         * @param wrapped generator to transform
+         * @param func transformation
+         */
+        Mapped(IntGenerator wrapped, IntUnaryFunction func) {
+            this.wrapped = wrapped;
+            this.func = func;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void runInt(final IntUnaryProcedure proc) {
+            wrapped.runInt(new StoppableIntUnaryProcedure() {
+                public void run(int value) {
+                    proc.run(func.evaluate(value));
+                }
+
+                public boolean isStopped() {
+                    return isStopRequestedInt(proc);
+                }
+            });
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "IntGenerator<" + wrapped + ".map(" + func + ")>";
+        }
+    }
+}
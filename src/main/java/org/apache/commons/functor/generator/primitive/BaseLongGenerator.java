@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.functor.generator.BaseGenerator;
+import org.apache.commons.functor.primitive.LongBinaryFunction;
+import org.apache.commons.functor.primitive.LongUnaryFunction;
+import org.apache.commons.functor.primitive.LongUnaryPredicate;
+import org.apache.commons.functor.primitive.LongUnaryProcedure;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Base class for {@link LongGenerator}s: subclasses only implement
+ * {@link #runLong(LongUnaryProcedure)}. The folds, filters and maps run on
+ * primitive values, so they don't allocate anything per value.
+ * Boxed procedures, filters and maps forward the stop signal of a
+ * {@link org.apache.commons.functor.generator.StoppableUnaryProcedure} or a
+ * {@link StoppableLongUnaryProcedure} to the generator they run.
+ *
+ * @version $Revision:$ $Date:$
+ */
+public abstract class BaseLongGenerator extends BaseGenerator<Long> implements LongGenerator {
+
+    /**
+     * Initial capacity of the array built by {@link #toArray()}.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Create a new generator. */
+    public BaseLongGenerator() {
+        super();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The values are boxed before being passed to <code>proc</code>.
+     */
+    public final void run(final UnaryProcedure<? super Long> proc) {
+        Validate.notNull(proc, "UnaryProcedure argument was null");
+        runLong(new StoppableLongUnaryProcedure() {
+            public void run(long value) {
+                proc.run(value);
+            }
+
+            public boolean isStopped() {
+                return isStopRequested(proc);
+            }
+        });
+    }
+
+    /**
+     * Learn whether a procedure has asked the generator running it to stop.
+     * Generators call this after passing each value to <code>proc</code>.
+     * @param proc LongUnaryProcedure being run
+     * @return <code>true</code> if <code>proc</code> is a
+     * {@link StoppableLongUnaryProcedure} which is stopped
+     */
+    public static boolean isStopRequestedLong(LongUnaryProcedure proc) {
+        return proc instanceof StoppableLongUnaryProcedure && ((StoppableLongUnaryProcedure) proc).isStopped();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final long fold(long seed, LongBinaryFunction func) {
+        Folder folder = new Folder(seed, Validate.notNull(func, "LongBinaryFunction argument was null"));
+        runLong(folder);
+        return folder.result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final LongGenerator filter(LongUnaryPredicate pred) {
+        return new Filtered(this, Validate.notNull(pred, "LongUnaryPredicate argument was null"));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final LongGenerator map(LongUnaryFunction func) {
+        return new Mapped(this, Validate.notNull(func, "LongUnaryFunction argument was null"));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long[] toArray() {
+        Collector collector = new Collector();
+        runLong(collector);
+        long[] result = new long[collector.size];
+        System.arraycopy(collector.values, 0, result, 0, collector.size);
+        return result;
+    }
+
+    /**
+     * Procedure which folds the values it is run with.
+     */
+    private static final class Folder implements LongUnaryProcedure {
+        /**
+         * The folding function.
+         */
+        private final LongBinaryFunction func;
+
+        /**
+         * The result so far.
+         */
+        private long result;
+
+        /**
+         * Create a new Folder.
+         * @param seed initial result
+         * @param func folding function
+         */
+        Folder(long seed, LongBinaryFunction func) {
+            this.result = seed;
+            this.func = func;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void run(long value) {
+            result = func.evaluate(result, value);
+        }
+    }
+
+    /**
+     * Procedure which collects the values it is run with into an array.
+     */
+    private static final class Collector implements LongUnaryProcedure {
+        /**
+         * The values collected, followed by free space.
+         */
+        private long[] values = new long[INITIAL_CAPACITY];
+
+        /**
+         * Number of values collected.
+         */
+        private int size;
+
+        /**
+         * {@inheritDoc}
+         */
+        public void run(long value) {
+            if (size == values.length) {
+                long[] grown = new long[size * 2];
+                System.arraycopy(values, 0, grown, 0, size);
+                values = grown;
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * Generator of the values of another generator matched by a predicate.
+     */
+    private static final class Filtered extends BaseLongGenerator {
+        /**
+         * The filtered generator.
+         */
+        private final LongGenerator wrapped;
+
+        /**
+         * The filter.
+         */
+        private final LongUnaryPredicate pred;
+
+        /**
+         * Create a new Filtered generator.
+         * @param wrapped generator to filter
+         * @param pred filter
+         */
+        Filtered(LongGenerator wrapped, LongUnaryPredicate pred) {
+            this.wrapped = wrapped;
+            this.pred = pred;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void runLong(final LongUnaryProcedure proc) {
+            wrapped.runLong(new StoppableLongUnaryProcedure() {
+                public void run(long value) {
+                    if (pred.test(value)) {
+                        proc.run(value);
+                    }
+                }
+
+                public boolean isStopped() {
+                    return isStopRequestedLong(proc);
+                }
+            });
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "LongGenerator<" + wrapped + ".filter(" + pred + ")>";
+        }
+    }
+
+    /**
+     * Generator of the values of another generator transformed by a function.
+     */
+    private static final class Mapped extends BaseLongGenerator {
+        /**
+         * The transformed generator.
+         */
+        private final LongGenerator wrapped;
+
+        /**
+         * The transformation.
+         */
+        private final LongUnaryFunction func;
+
+        /**
+         * Create a new Mapped generator.
+         * @param wrapped generator to transform
+         * @param func transformation
+         */
+        Mapped(LongGenerator wrapped, LongUnaryFunction func) {
+            this.wrapped = wrapped;
+            this.func = func;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void runLong(final LongUnaryProcedure proc) {
+            wrapped.runLong(new StoppableLongUnaryProcedure() {
+                public void run(long value) {
+                    proc.run(func.evaluate(value));
+                }
+
+                public boolean isStopped() {
+                    return isStopRequestedLong(proc);
+                }
+            });
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "LongGenerator<" + wrapped + ".map(" + func + ")>";
+        }
+    }
+}
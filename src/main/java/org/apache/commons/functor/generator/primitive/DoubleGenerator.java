@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.primitive.DoubleBinaryFunction;
+import org.apache.commons.functor.primitive.DoubleUnaryFunction;
+import org.apache.commons.functor.primitive.DoubleUnaryPredicate;
+import org.apache.commons.functor.primitive.DoubleUnaryProcedure;
+
+/**
+ * Generator of <code>double</code> values, which passes them to
+ * {@link DoubleUnaryProcedure}s without boxing them. It can still be used as a
+ * <code>Generator&lt;Double&gt;</code>, in which case the values are boxed.
+ *
+ * @version $Revision:$ $Date:$
+ */
+public interface DoubleGenerator extends Generator<Double> {
+
+    /**
+     * Generators must implement this method. It is not an overload of
+     * {@link #run(org.apache.commons.functor.UnaryProcedure)} so that calls
+     * passing an anonymous procedure are never ambiguous.
+     * @param proc DoubleUnaryProcedure to run
+     */
+    void runDouble(DoubleUnaryProcedure proc);
+
+    /**
+     * Fold the values of this generator, from left to right.
+     * @param seed initial left argument of <code>func</code>
+     * @param func DoubleBinaryFunction to combine the result so far with each value
+     * @return the result of the last evaluation of <code>func</code>, or
+     * <code>seed</code> if there are no values
+     */
+    double fold(double seed, DoubleBinaryFunction func);
+
+    /**
+     * Create a generator of the values of this one matched by a predicate.
+     * @param pred DoubleUnaryPredicate to test the values with
+     * @return DoubleGenerator
+     */
+    DoubleGenerator filter(DoubleUnaryPredicate pred);
+
+    /**
+     * Create a generator of the values of this one transformed by a function.
+     * @param func DoubleUnaryFunction to apply to the values
+     * @return DoubleGenerator
+     */
+    DoubleGenerator map(DoubleUnaryFunction func);
+
+    /**
+     * Collect the values of this generator into an array.
+     * @return double[]
+     */
+    double[] toArray();
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+import org.apache.commons.functor.primitive.DoubleUnaryProcedure;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Generator of an arithmetic progression of <code>double</code> values:
+ * <code>first + i * step</code> for <code>i</code> from 0 to
+ * <code>count - 1</code>. Each value is computed from its index rather than by
+ * adding the step to the previous one, so rounding errors don't accumulate.
+ *
+ * @version $Revision:$ $Date:$
+ */
+public final class DoubleStepGenerator extends BaseDoubleGenerator {
+
+    /**
+     * First value.
+     */
+    private final double first;
+
+    /**
+     * Difference between two consecutive values.
+     */
+    private final double step;
+
+    /**
+     * Number of values.
+     */
+    private final long count;
+
+    /**
+     * Create a new DoubleStepGenerator.
+     * @param first first value
+     * @param step difference between two consecutive values
+     * @param count number of values, must not be negative
+     */
+    public DoubleStepGenerator(double first, double step, long count) {
+        Validate.isTrue(count >= 0L, "Count must not be negative: %d", count);
+        this.first = first;
+        this.step = step;
+        this.count = count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void runDouble(DoubleUnaryProcedure proc) {
+        Validate.notNull(proc, "DoubleUnaryProcedure argument was null");
+        for (long i = 0L; i < count; i++) {
+            proc.run(first + i * step);
+            if (isStopRequestedDouble(proc)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get the number of values.
+     * @return long
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof DoubleStepGenerator)) {
+            return false;
+        }
+        DoubleStepGenerator that = (DoubleStepGenerator) obj;
+        return Double.compare(this.first, that.first) == 0 && Double.compare(this.step, that.step) == 0
+                && this.count == that.count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = "DoubleStepGenerator".hashCode();
+        hash <<= 2;
+        long bits = Double.doubleToLongBits(first);
+        hash ^= (int) (bits ^ (bits >>> 32));
+        hash <<= 2;
+        bits = Double.doubleToLongBits(step);
+        hash ^= (int) (bits ^ (bits >>> 32));
+        hash <<= 2;
+        hash ^= (int) (count ^ (count >>> 32));
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "DoubleStepGenerator<first=" + first + ", step=" + step + ", count=" + count + ">";
+    }
+}
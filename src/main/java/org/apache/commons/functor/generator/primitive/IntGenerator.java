@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.primitive.IntBinaryFunction;
+import org.apache.commons.functor.primitive.IntUnaryFunction;
+import org.apache.commons.functor.primitive.IntUnaryPredicate;
+import org.apache.commons.functor.primitive.IntUnaryProcedure;
+
+/**
+ * Generator of <code>int</code> values, which passes them to
+ * {@link IntUnaryProcedure}s without boxing them. It can still be used as a
+ * <code>Generator&lt;Integer&gt;</code>, in which case the values are boxed.
+ *
+ * @version $Revision:$ $Date:$
+ */
+public interface IntGenerator extends Generator<Integer> {
+
+    /**
+     * Generators must implement this method. It is not an overload of
+     * {@link #run(org.apache.commons.functor.UnaryProcedure)} so that calls
+     * passing an anonymous procedure are never ambiguous.
+     * @param proc IntUnaryProcedure to run
+     */
+    void runInt(IntUnaryProcedure proc);
+
+    /**
+     * Fold the values of this generator, from left to right.
+     * @param seed initial left argument of <code>func</code>
+     * @param func IntBinaryFunction to combine the result so far with each value
+     * @return the result of the last evaluation of <code>func</code>, or
+     * <code>seed</code> if there are no values
+     */
+    int fold(int seed, IntBinaryFunction func);
+
+    /**
+     * Create a generator of the values of this one matched by a predicate.
+     * @param pred IntUnaryPredicate to test the values with
+     * @return IntGenerator
+     */
+    IntGenerator filter(IntUnaryPredicate pred);
+
+    /**
+     * Create a generator of the values of this one transformed by a function.
+     * @param func IntUnaryFunction to apply to the values
+     * @return IntGenerator
+     */
+    IntGenerator map(IntUnaryFunction func);
+
+    /**
+     * Collect the values of this generator into an array.
+     * @return int[]
+     */
+    int[] toArray();
+}
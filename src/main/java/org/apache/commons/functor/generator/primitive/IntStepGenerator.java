@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.functor.generator.ParallelGenerator;
+import org.apache.commons.functor.generator.SplittableGenerator;
+import org.apache.commons.functor.primitive.IntUnaryProcedure;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Generator of an arithmetic progression of <code>int</code> values:
+ * <code>first</code>, <code>first + step</code>, ... (<code>count</code>
+ * values).
+ *
+ * @version $Revision:$ $Date:$
+ */
+public final class IntStepGenerator extends BaseIntGenerator implements SplittableGenerator<Integer> {
+
+    /**
+     * First value.
+     */
+    private final int first;
+
+    /**
+     * Difference between two consecutive values.
+     */
+    private final int step;
+
+    /**
+     * Number of values.
+     */
+    private final long count;
+
+    /**
+     * Create a new IntStepGenerator.
+     * @param first first value
+     * @param step difference between two consecutive values
+     * @param count number of values, must not be negative
+     */
+    public IntStepGenerator(int first, int step, long count) {
+        Validate.isTrue(count >= 0L, "Count must not be negative: %d", count);
+        this.first = first;
+        this.step = step;
+        this.count = count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void runInt(IntUnaryProcedure proc) {
+        Validate.notNull(proc, "IntUnaryProcedure argument was null");
+        int value = first;
+        for (long i = 0L; i < count; i++) {
+            proc.run(value);
+            if (isStopRequestedInt(proc)) {
+                return;
+            }
+            value += step;
+        }
+    }
+
+    /**
+     * Get the number of values.
+     * @return long
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The parts are step generators whose counts differ by at most one.
+     */
+    public List<IntStepGenerator> split(int parts) {
+        if (parts <= 0) {
+            throw new IllegalArgumentException("Invalid number of parts: " + parts);
+        }
+        if (parts == 1 || count <= 1L) {
+            return Collections.singletonList(this);
+        }
+        int n = (int) Math.min(parts, count);
+        long base = count / n;
+        long extra = count % n;
+        List<IntStepGenerator> result = new ArrayList<IntStepGenerator>(n);
+        long start = 0L;
+        for (int i = 0; i < n; i++) {
+            long partCount = base + (i < extra ? 1L : 0L);
+            result.add(new IntStepGenerator((int) (first + start * step), step, partCount));
+            start += partCount;
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public ParallelGenerator<Integer> parallel() {
+        return ParallelGenerator.of(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof IntStepGenerator)) {
+            return false;
+        }
+        IntStepGenerator that = (IntStepGenerator) obj;
+        return this.first == that.first && this.step == that.step && this.count == that.count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = "IntStepGenerator".hashCode();
+        hash <<= 2;
+        hash ^= first;
+        hash <<= 2;
+        hash ^= step;
+        hash <<= 2;
+        hash ^= (int) (count ^ (count >>> 32));
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "IntStepGenerator<first=" + first + ", step=" + step + ", count=" + count + ">";
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+import org.apache.commons.functor.primitive.LongUnaryProcedure;
+
+/**
+ * A {@link LongUnaryProcedure} which can tell the {@link LongGenerator} running it
+ * that it doesn't need any more values: the <code>long</code> counterpart of
+ * {@link org.apache.commons.functor.generator.StoppableUnaryProcedure}.
+ * Generators check {@link #isStopped()} after passing each value (see
+ * {@link BaseLongGenerator#isStopRequestedLong(LongUnaryProcedure)}).
+ *
+ * @version $Revision:$ $Date:$
+ */
+public interface StoppableLongUnaryProcedure extends LongUnaryProcedure {
+    /**
+     * Learn whether this procedure needs more values.
+     * @return <code>true</code> if the generator running this procedure can
+     * return without passing it any more values
+     */
+    boolean isStopped();
+}
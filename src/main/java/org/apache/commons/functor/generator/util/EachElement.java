@@ -16,10 +16,14 @@ package org.apache.commons.functor.generator.util;
 
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.SplittableGenerator;
+import org.apache.commons.functor.generator.loop.ArrayGenerator;
 import org.apache.commons.functor.generator.loop.IteratorToGeneratorAdapter;
+import org.apache.commons.functor.generator.loop.ListGenerator;
 
 /**
  * Generator factory for each element of a "collection".
@@ -80,4 +84,26 @@ public final class EachElement {
     public static <E> Generator<E> from(Iterator<? extends E> iter) {
         return iter == null ? null : new IteratorToGeneratorAdapter<E>(iter);
     }
+
+    /**
+     * Get a SplittableGenerator for each element of a List, which can be run
+     * in {@link SplittableGenerator#parallel() parallel}.
+     * @param <E> the type of elements held in the input list.
+     * @param list to iterate
+     * @return SplittableGenerator
+     */
+    public static <E> SplittableGenerator<E> splittable(List<? extends E> list) {
+        return list == null ? null : new ListGenerator<E>(list);
+    }
+
+    /**
+     * Get a SplittableGenerator for each element of an Object[], which can be
+     * run in {@link SplittableGenerator#parallel() parallel}.
+     * @param <E> the type of elements held in the input array.
+     * @param array to iterate
+     * @return SplittableGenerator
+     */
+    public static <E> SplittableGenerator<E> splittable(E... array) {
+        return array == null ? null : new ArrayGenerator<E>(array);
+    }
 }
@@ -0,0 +1,347 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.util;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.StoppableUnaryProcedure;
+import org.apache.commons.functor.generator.loop.IndexedGenerator;
+import org.apache.commons.functor.generator.loop.LoopGenerator;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Adapts a {@link Generator} to the {@link Iterator} interface, without
+ * collecting all its elements first: the generator runs on another thread
+ * (the producer) and hands its elements over through a bounded buffer, so it
+ * is suspended while the buffer is full, until the elements are consumed.
+ * <p>
+ * The producer is started by the first call to {@link #hasNext()} or
+ * {@link #next()}. An exception thrown by the generator is thrown back by
+ * {@link #hasNext()} once the elements generated before it have been
+ * consumed. If the elements are not all consumed, {@link #close()} should be
+ * called to release the producer: the generator is run with a
+ * {@link StoppableUnaryProcedure} which is stopped then; a
+ * {@link LoopGenerator} is also stopped, and the run of any other generator
+ * which doesn't return is interrupted at the next element.
+ * </p>
+ * <p>
+ * Generators which can be stepped through, i.e. {@link IndexedGenerator}s,
+ * don't need a producer thread: {@link #adapt(Generator, int)} returns their
+ * own {@link IndexedGenerator#iterator() iterator}.
+ * </p>
+ * <p>
+ * Like other iterators, an adapter must only be used by one thread at a time.
+ * </p>
+ *
+ * @param <E> the type of elements held in the adapted generator.
+ * @version $Revision:$ $Date:$
+ */
+public final class GeneratorToIteratorAdapter<E> implements Iterator<E> {
+
+    /**
+     * Put in the buffer after the last element.
+     */
+    private static final Object END = new Object();
+
+    /**
+     * Put in the buffer in place of <code>null</code> elements.
+     */
+    private static final Object NULL = new Object();
+
+    /**
+     * The adapted generator.
+     */
+    private final Generator<? extends E> generator;
+
+    /**
+     * Buffer between the producer and the consumer.
+     */
+    private final BlockingQueue<Object> buffer;
+
+    /**
+     * Executor to run the producer on.
+     */
+    private final Executor executor;
+
+    /**
+     * Set by {@link #close()}, to tell the producer to give up.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Exception thrown by the generator, if any.
+     */
+    private volatile Throwable failure;
+
+    /**
+     * Whether the producer has been started.
+     */
+    private boolean started;
+
+    /**
+     * Whether the last element has been consumed.
+     */
+    private boolean finished;
+
+    /**
+     * Next element taken from the buffer, or <code>null</code> if it has not
+     * been taken yet.
+     */
+    private Object next;
+
+    /**
+     * Create a new GeneratorToIteratorAdapter, running the producer on a
+     * shared pool of daemon threads.
+     * @param generator Generator to adapt
+     * @param capacity maximum number of elements generated ahead of the
+     * consumer, must be positive
+     */
+    public GeneratorToIteratorAdapter(Generator<? extends E> generator, int capacity) {
+        this(generator, capacity, DefaultExecutor.INSTANCE);
+    }
+
+    /**
+     * Create a new GeneratorToIteratorAdapter.
+     * @param generator Generator to adapt
+     * @param capacity maximum number of elements generated ahead of the
+     * consumer, must be positive
+     * @param executor Executor to run the producer on; it keeps a thread busy
+     * until the generator has finished or the adapter is closed
+     */
+    public GeneratorToIteratorAdapter(Generator<? extends E> generator, int capacity, Executor executor) {
+        this.generator = Validate.notNull(generator, "Generator argument was null");
+        Validate.isTrue(capacity > 0, "Capacity must be positive: %d", capacity);
+        this.buffer = new ArrayBlockingQueue<Object>(capacity);
+        this.executor = Validate.notNull(executor, "Executor argument was null");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean hasNext() {
+        if (finished) {
+            return false;
+        }
+        if (next == null) {
+            start();
+            next = take();
+            if (next == END) {
+                finished = true;
+                next = null;
+                rethrow();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Object result = next;
+        next = null;
+        return result == NULL ? null : (E) result;
+    }
+
+    /**
+     * Not supported.
+     * @throws UnsupportedOperationException always
+     */
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Stop consuming the elements: releases the producer and discards the
+     * elements which have not been consumed yet.
+     */
+    public void close() {
+        closed = true;
+        finished = true;
+        next = null;
+        buffer.clear();
+    }
+
+    /**
+     * Start the producer, unless it has already been started.
+     */
+    private void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        executor.execute(new Runnable() {
+            public void run() {
+                produce();
+            }
+        });
+    }
+
+    /**
+     * Run the generator, putting its elements in the buffer, followed by
+     * {@link #END}.
+     */
+    private void produce() {
+        try {
+            generator.run(new StoppableUnaryProcedure<E>() {
+                public void run(E obj) {
+                    if (closed) {
+                        if (generator instanceof LoopGenerator<?>) {
+                            ((LoopGenerator<?>) generator).stop();
+                            return;
+                        }
+                        throw new Closed();
+                    }
+                    put(obj == null ? NULL : obj);
+                }
+
+                public boolean isStopped() {
+                    return closed;
+                }
+            });
+        } catch (Closed e) {
+            // the consumer is gone
+            return;
+        } catch (RuntimeException e) {
+            failure = e;
+        } catch (Error e) {
+            failure = e;
+        }
+        if (!closed) {
+            put(END);
+        }
+    }
+
+    /**
+     * Put an object in the buffer, waiting for some space if needed.
+     * @param obj object to put
+     */
+    private void put(Object obj) {
+        try {
+            buffer.put(obj);
+        } catch (InterruptedException e) {
+            // the producer thread is being shut down: give up
+            Thread.currentThread().interrupt();
+            closed = true;
+            throw new Closed();
+        }
+    }
+
+    /**
+     * Take an object from the buffer, waiting for it if needed. If the current
+     * thread is interrupted while waiting, keep waiting and restore the
+     * interrupt status afterwards.
+     * @return object taken
+     */
+    private Object take() {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return buffer.take();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Throw the exception thrown by the generator, if any.
+     */
+    private void rethrow() {
+        Throwable t = failure;
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+    }
+
+    /**
+     * Adapt a Generator to the Iterator interface.
+     * @param <E> the type of elements held in the generator.
+     * @param generator Generator to adapt
+     * @param capacity maximum number of elements generated ahead of the
+     * consumer, if the generator runs on a producer thread
+     * @return the iterator of <code>generator</code> if it is an
+     * {@link IndexedGenerator}, or a GeneratorToIteratorAdapter
+     */
+    public static <E> Iterator<E> adapt(Generator<? extends E> generator, int capacity) {
+        if (generator instanceof IndexedGenerator<?>) {
+            @SuppressWarnings("unchecked")
+            Iterator<E> result = ((IndexedGenerator<E>) generator).iterator();
+            return result;
+        }
+        return null == generator ? null : new GeneratorToIteratorAdapter<E>(generator, capacity);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "GeneratorToIteratorAdapter<" + generator + ">";
+    }
+
+    /**
+     * Thrown in the producer thread to interrupt the run of a generator which
+     * can't be stopped.
+     */
+    private static final class Closed extends RuntimeException {
+        /**
+         * serialVersionUID declaration.
+         */
+        private static final long serialVersionUID = -3521470234087564312L;
+    }
+
+    /**
+     * Holds the shared default executor, created on first use.
+     */
+    private static final class DefaultExecutor {
+        /**
+         * The default executor.
+         */
+        static final Executor INSTANCE = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger threads = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "GeneratorToIteratorAdapter-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+}
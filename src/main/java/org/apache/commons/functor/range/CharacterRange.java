@@ -19,6 +19,7 @@ package org.apache.commons.functor.range;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import org.apache.commons.functor.BinaryFunction;
 import org.apache.commons.lang3.Validate;
@@ -59,9 +60,9 @@ public final class CharacterRange implements Range<Character, Integer> {
     private final int step;
 
     /**
-     * Current value.
+     * Exact arithmetic over the elements.
      */
-    private char currentValue;
+    private final IntegralSteps steps;
 
     /**
      * Calculate default step.
@@ -155,11 +156,8 @@ public final class CharacterRange implements Range<Character, Integer> {
                                                + " from " + from
                                                + " using step " + step);
         }
-        if (this.leftEndpoint.getBoundType() == BoundType.CLOSED) {
-            this.currentValue = this.leftEndpoint.getValue();
-        } else {
-            this.currentValue = (char) (this.leftEndpoint.getValue() + this.step);
-        }
+        this.steps = new IntegralSteps(from, leftBoundType == BoundType.CLOSED, to,
+                rightBoundType == BoundType.CLOSED, step);
     }
 
     // range methods
@@ -185,50 +183,66 @@ public final class CharacterRange implements Range<Character, Integer> {
         return this.step;
     }
 
-    // iterable, iterator methods
+    // indexed methods
     // ---------------------------------------------------------------
     /**
-     * {@inheritDoc}
+     * Get the number of elements of this range, computed in constant time.
+     *
+     * @return long
      */
-    public boolean hasNext() {
-        final int to = this.rightEndpoint.getValue();
-        if (step < 0) {
-            if (this.rightEndpoint.getBoundType() == BoundType.CLOSED) {
-                return this.currentValue >= to;
-            } else {
-                return this.currentValue > to;
-            }
-        } else {
-            if (this.rightEndpoint.getBoundType() == BoundType.CLOSED) {
-                return this.currentValue <= to;
-            } else {
-                return this.currentValue < to;
-            }
-        }
+    public long size() {
+        return this.steps.size();
+    }
+
+    /**
+     * Get an element of this range, computed in constant time.
+     *
+     * @param index index of the element, starting from 0 at the left endpoint
+     * @return the element
+     * @throws IndexOutOfBoundsException if <code>index</code> is negative or
+     * not less than {@link #size()}
+     */
+    public char get(long index) {
+        return (char) this.steps.get(index);
+    }
+
+    /**
+     * Get the index of a value in this range, computed in constant time.
+     *
+     * @param value the value
+     * @return the index of <code>value</code>, such that
+     * <code>get(indexOf(value)) == value</code>, or -1 if
+     * <code>value</code> isn't an element of this range
+     */
+    public long indexOf(char value) {
+        return this.steps.indexOf(value);
     }
 
     /**
      * {@inheritDoc}
+     * Computed in constant time, without rounding.
      */
-    public Character next() {
-        final int step = this.getStep();
-        final char r = this.currentValue;
-        this.currentValue += step;
-        return r;
+    public boolean isEmpty() {
+        return this.steps.size() == 0L;
     }
 
     /**
      * {@inheritDoc}
+     * Computed in constant time, without rounding.
      */
-    public void remove() {
-        throw new UnsupportedOperationException();
+    public boolean contains(Character obj) {
+        return obj != null && this.steps.contains(obj.charValue());
     }
 
+    // iterable methods
+    // ---------------------------------------------------------------
     /**
      * {@inheritDoc}
+     * Each call returns a new iterator, starting from the left endpoint, so
+     * the range can be iterated any number of times, concurrently.
      */
     public Iterator<Character> iterator() {
-        return this;
+        return new RangeIterator(this.steps);
     }
 
     // object methods
@@ -274,63 +288,6 @@ public final class CharacterRange implements Range<Character, Integer> {
         return hash;
     }
 
-    /**
-     * {@inheritDoc}
-     */
-    public boolean isEmpty() {
-        double leftValue = this.getLeftEndpoint().getValue().charValue();
-        double rightValue = this.getRightEndpoint().getValue().charValue();
-        boolean closedLeft = this.getLeftEndpoint().getBoundType() == BoundType.CLOSED;
-        boolean closedRight = this.getRightEndpoint().getBoundType() == BoundType.CLOSED;
-        if (!closedLeft && !closedRight
-                && this.getLeftEndpoint().equals(this.getRightEndpoint())) {
-            return Boolean.TRUE;
-        }
-        double step = this.getStep().intValue();
-        if (step > 0.0) {
-            double firstValue = closedLeft ? leftValue : leftValue + step;
-            return closedRight ? firstValue > rightValue
-                              : firstValue >= rightValue;
-        } else {
-            double firstValue = closedLeft ? leftValue : leftValue + step;
-            return closedRight ? firstValue < rightValue
-                              : firstValue <= rightValue;
-        }
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    public boolean contains(Character obj) {
-        if (obj == null) {
-            return Boolean.FALSE;
-        }
-        char leftValue = this.getLeftEndpoint().getValue().charValue();
-        char rightValue = this.getRightEndpoint().getValue().charValue();
-        boolean includeLeft = this.getLeftEndpoint().getBoundType() == BoundType.CLOSED;
-        boolean includeRight = this.getRightEndpoint().getBoundType() == BoundType.CLOSED;
-        int step = this.getStep().intValue();
-        int value = (int) obj.charValue();
-
-        int firstValue = 0;
-        int lastValue = 0;
-
-        if (step < 0.0) {
-            firstValue = includeLeft ? leftValue : leftValue + step;
-            lastValue = includeRight ? rightValue : rightValue + 1;
-            if (value > firstValue || value < lastValue) {
-                return Boolean.FALSE;
-            }
-        } else {
-            firstValue = includeLeft ? leftValue : leftValue + step;
-            lastValue = includeRight ? rightValue : rightValue - 1;
-            if (value < firstValue || value > lastValue) {
-                return Boolean.FALSE;
-            }
-        }
-        return ((double) (value - firstValue) / step + 1) % 1.0 == 0.0;
-    }
-
     /**
      * {@inheritDoc}
      */
@@ -348,4 +305,55 @@ public final class CharacterRange implements Range<Character, Integer> {
         return r;
     }
 
+    // iterator
+    // ---------------------------------------------------------------
+    /**
+     * Iterator over the elements of a range, holding the index of the next
+     * element, so that it ends even when the last element is the largest
+     * value of its type.
+     */
+    private static final class RangeIterator implements Iterator<Character> {
+        /**
+         * Elements of the range.
+         */
+        private final IntegralSteps steps;
+
+        /**
+         * Index of the next element.
+         */
+        private long index;
+
+        /**
+         * Create a new RangeIterator.
+         *
+         * @param steps elements of the range
+         */
+        RangeIterator(IntegralSteps steps) {
+            this.steps = steps;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean hasNext() {
+            return this.index < this.steps.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Character next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return (char) this.steps.get(this.index++);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
 }
@@ -18,6 +18,7 @@
 package org.apache.commons.functor.range;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import org.apache.commons.functor.BinaryFunction;
 import org.apache.commons.lang3.Validate;
@@ -48,9 +49,9 @@ public class FloatRange extends NumericRange<Float> {
     private final float step;
 
     /**
-     * Current value.
+     * Index-based arithmetic over the elements.
      */
-    private float currentValue;
+    private final FloatingSteps steps;
 
     /**
      * Calculate default step.
@@ -164,11 +165,8 @@ public class FloatRange extends NumericRange<Float> {
                                                + " from " + from
                                                + " using step " + step);
         }
-        if (this.leftEndpoint.getBoundType() == BoundType.CLOSED) {
-            this.currentValue = this.leftEndpoint.getValue();
-        } else {
-            this.currentValue = this.leftEndpoint.getValue() + this.step;
-        }
+        this.steps = new FloatingSteps(leftBoundType == BoundType.CLOSED ? from : from + step, step, to,
+                rightBoundType == BoundType.CLOSED, true);
     }
 
     // range methods
@@ -194,50 +192,74 @@ public class FloatRange extends NumericRange<Float> {
         return this.step;
     }
 
-    // iterable, iterator methods
+    // indexed methods
     // ---------------------------------------------------------------
     /**
-     * {@inheritDoc}
+     * Get the number of elements of this range. It is computed once, when
+     * the range is created.
+     *
+     * @return long
      */
-    public boolean hasNext() {
-        final float to = this.rightEndpoint.getValue();
-        if (step < 0) {
-            if (this.rightEndpoint.getBoundType() == BoundType.CLOSED) {
-                return this.currentValue >= to;
-            } else {
-                return this.currentValue > to;
-            }
-        } else {
-            if (this.rightEndpoint.getBoundType() == BoundType.CLOSED) {
-                return this.currentValue <= to;
-            } else {
-                return this.currentValue < to;
-            }
-        }
+    public long size() {
+        return this.steps.size();
+    }
+
+    /**
+     * Get an element of this range: <code>first + index * step</code>, where
+     * <code>first</code> is the first element, computed with a single
+     * rounding to float.
+     *
+     * @param index index of the element, starting from 0 at the left endpoint
+     * @return the element
+     * @throws IndexOutOfBoundsException if <code>index</code> is negative or
+     * not less than {@link #size()}
+     */
+    public float get(long index) {
+        return (float) this.steps.get(index);
+    }
+
+    /**
+     * Get the index of a value in this range, in constant time unless the
+     * step is below the precision of the elements.
+     *
+     * @param value the value
+     * @return the lowest index such that <code>get(index) == value</code>,
+     * or -1 if <code>value</code> isn't an element of this range
+     */
+    public long indexOf(float value) {
+        return this.steps.indexOf(value);
     }
 
     /**
      * {@inheritDoc}
+     * Consistent with the elements generated by the iterators of this range.
      */
-    public Float next() {
-        final float step = this.getStep();
-        final float r = this.currentValue;
-        this.currentValue += step;
-        return r;
+    @Override
+    public boolean isEmpty() {
+        return this.steps.size() == 0L;
     }
 
     /**
      * {@inheritDoc}
+     * The value must be exactly one of the elements generated by the
+     * iterators of this range, as found by {@link #indexOf(float)}.
      */
-    public void remove() {
-        throw new UnsupportedOperationException();
+    @Override
+    public boolean contains(Float obj) {
+        return obj != null && this.steps.contains(obj.floatValue());
     }
 
+    // iterable methods
+    // ---------------------------------------------------------------
     /**
      * {@inheritDoc}
+     * Each call returns a new iterator, starting from the left endpoint, so
+     * the range can be iterated any number of times, concurrently. The
+     * elements are computed from their index, as {@link #get(long)}, so the
+     * rounding errors don't accumulate.
      */
     public Iterator<Float> iterator() {
-        return this;
+        return new RangeIterator(this.steps);
     }
 
     // object methods
@@ -283,4 +305,54 @@ public class FloatRange extends NumericRange<Float> {
         return hash;
     }
 
+    // iterator
+    // ---------------------------------------------------------------
+    /**
+     * Iterator over the elements of a range, holding the index of the next
+     * element.
+     */
+    private static final class RangeIterator implements Iterator<Float> {
+        /**
+         * Elements of the range.
+         */
+        private final FloatingSteps steps;
+
+        /**
+         * Index of the next element.
+         */
+        private long index;
+
+        /**
+         * Create a new RangeIterator.
+         *
+         * @param steps elements of the range
+         */
+        RangeIterator(FloatingSteps steps) {
+            this.steps = steps;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean hasNext() {
+            return this.index < this.steps.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Float next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return (float) this.steps.get(this.index++);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
 }
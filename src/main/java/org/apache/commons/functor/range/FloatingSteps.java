@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.range;
+
+/**
+ * Index-based arithmetic over the elements of a floating point range -- the
+ * values <code>first + i * step</code> for <code>0 &lt;= i &lt; size</code>
+ * -- used by {@link DoubleRange} and {@link FloatRange}.
+ * <p>
+ * Each element is computed from its index with a single multiplication and
+ * addition, rather than by adding the step over and over, so the rounding
+ * error doesn't accumulate along the range, and iterating, indexing and
+ * testing membership all agree on the same elements. The number of elements
+ * is computed once.
+ * </p>
+ *
+ * @version $Revision:$ $Date:$
+ */
+final class FloatingSteps {
+    /**
+     * First element.
+     */
+    private final double first;
+
+    /**
+     * Difference between an element and the previous one.
+     */
+    private final double step;
+
+    /**
+     * Right limit value.
+     */
+    private final double to;
+
+    /**
+     * Whether the right limit is included.
+     */
+    private final boolean closed;
+
+    /**
+     * Whether the elements are rounded to <code>float</code>.
+     */
+    private final boolean single;
+
+    /**
+     * Number of elements.
+     */
+    private final long size;
+
+    /**
+     * Create a new FloatingSteps.
+     *
+     * @param first first element, if before the right limit
+     * @param step increment
+     * @param to right limit value
+     * @param closed whether the right limit is included
+     * @param single whether the elements are rounded to <code>float</code>
+     */
+    FloatingSteps(double first, double step, double to, boolean closed, boolean single) {
+        this.first = first;
+        this.step = step;
+        this.to = to;
+        this.closed = closed;
+        this.single = single;
+        long count;
+        if (!isBeforeRight(first)) {
+            count = 0L;
+        } else if (step == 0.0) {
+            count = first == to ? 1L : 0L;
+        } else {
+            // estimate, then fix the rounding errors
+            double estimate = Math.floor((to - first) / step) + 1.0;
+            count = estimate >= Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(1L, (long) estimate);
+            while (count > 1L && !isBeforeRight(element(count - 1L))) {
+                count--;
+            }
+            while (count < Long.MAX_VALUE && isBeforeRight(element(count))) {
+                count++;
+            }
+        }
+        this.size = count;
+    }
+
+    /**
+     * Get the first element. Meaningless if there are no elements.
+     *
+     * @return double
+     */
+    double getFirst() {
+        return first;
+    }
+
+    /**
+     * Get the number of elements.
+     *
+     * @return long
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Get an element.
+     *
+     * @param index index of the element
+     * @return <code>first + index * step</code>
+     * @throws IndexOutOfBoundsException if <code>index</code> is negative or
+     * not less than the number of elements
+     */
+    double get(long index) {
+        if (index < 0L || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return element(index);
+    }
+
+    /**
+     * Get the index of a value. The index is estimated by a division, then
+     * corrected by comparing the value with the elements around the
+     * estimate, so this takes constant time unless the step is below the
+     * precision of the elements.
+     *
+     * @param value the value
+     * @return the lowest index of <code>value</code>, or -1 if it isn't one of
+     * the elements
+     */
+    long indexOf(double value) {
+        if (size == 0L) {
+            return -1L;
+        }
+        double estimate = step == 0.0 ? 0.0 : Math.rint((value - first) / step);
+        if (Double.isNaN(estimate)) {
+            return -1L;
+        }
+        long index = estimate <= 0.0 ? 0L : (estimate >= size - 1L ? size - 1L : (long) estimate);
+        while (index < size - 1L && isBefore(element(index), value)) {
+            index++;
+        }
+        while (index > 0L && !isBefore(element(index - 1L), value)) {
+            index--;
+        }
+        return element(index) == value ? index : -1L;
+    }
+
+    /**
+     * Learn whether a value is one of the elements.
+     *
+     * @param value the value
+     * @return boolean
+     */
+    boolean contains(double value) {
+        return indexOf(value) >= 0L;
+    }
+
+    /**
+     * Compute an element, whether or not it is before the right limit.
+     *
+     * @param index index of the element
+     * @return double
+     */
+    private double element(long index) {
+        double value = first + index * step;
+        return single ? (float) value : value;
+    }
+
+    /**
+     * Learn whether a value comes before another one, in the direction of
+     * the step.
+     *
+     * @param value value to check
+     * @param other the other value
+     * @return boolean
+     */
+    private boolean isBefore(double value, double other) {
+        return step < 0.0 ? value > other : value < other;
+    }
+
+    /**
+     * Learn whether a value is before the right limit, in the direction of
+     * the step.
+     *
+     * @param value value to check
+     * @return boolean
+     */
+    private boolean isBeforeRight(double value) {
+        return isBefore(value, to) || (closed && value == to);
+    }
+}
@@ -17,9 +17,14 @@
 
 package org.apache.commons.functor.range;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.generator.primitive.IntStepGenerator;
 import org.apache.commons.lang3.Validate;
 
 /**
@@ -48,9 +53,9 @@ public class IntegerRange extends NumericRange<Integer> {
     private final int step;
 
     /**
-     * Current value.
+     * Exact arithmetic over the elements.
      */
-    private int currentValue;
+    private final IntegralSteps steps;
 
     /**
      * Calculate default step.
@@ -160,16 +165,13 @@ public class IntegerRange extends NumericRange<Integer> {
             .notNull(new Endpoint<Integer>(to, rightBoundType),
                      "Right Endpoint argument must not be null");
         this.step = step;
-        if (from != to && Integer.signum(step) != Integer.signum(to - from)) {
+        if (from != to && Integer.signum(step) != (to > from ? 1 : -1)) {
             throw new IllegalArgumentException("Will never reach " + to
                                                + " from " + from
                                                + " using step " + step);
         }
-        if (this.leftEndpoint.getBoundType() == BoundType.CLOSED) {
-            this.currentValue = this.leftEndpoint.getValue();
-        } else {
-            this.currentValue = this.leftEndpoint.getValue() + this.step;
-        }
+        this.steps = new IntegralSteps(from, leftBoundType == BoundType.CLOSED, to,
+                rightBoundType == BoundType.CLOSED, step);
     }
 
     // range methods
@@ -195,50 +197,136 @@ public class IntegerRange extends NumericRange<Integer> {
         return this.step;
     }
 
-    // iterable, iterator methods
+    // indexed methods
     // ---------------------------------------------------------------
     /**
-     * {@inheritDoc}
+     * Get the number of elements of this range, computed in constant time.
+     *
+     * @return long
      */
-    public boolean hasNext() {
-        final int to = this.rightEndpoint.getValue();
-        if (step < 0) {
-            if (this.rightEndpoint.getBoundType() == BoundType.CLOSED) {
-                return this.currentValue >= to;
-            } else {
-                return this.currentValue > to;
-            }
-        } else {
-            if (this.rightEndpoint.getBoundType() == BoundType.CLOSED) {
-                return this.currentValue <= to;
-            } else {
-                return this.currentValue < to;
+    public long size() {
+        return this.steps.size();
+    }
+
+    /**
+     * Get an element of this range, computed in constant time.
+     *
+     * @param index index of the element, starting from 0 at the left endpoint
+     * @return the element
+     * @throws IndexOutOfBoundsException if <code>index</code> is negative or
+     * not less than {@link #size()}
+     */
+    public int get(long index) {
+        return (int) this.steps.get(index);
+    }
+
+    /**
+     * Get the index of a value in this range, computed in constant time.
+     *
+     * @param value the value
+     * @return the index of <code>value</code>, such that
+     * <code>get(indexOf(value)) == value</code>, or -1 if
+     * <code>value</code> isn't an element of this range
+     */
+    public long indexOf(int value) {
+        return this.steps.indexOf(value);
+    }
+
+    /**
+     * Split this range into at most <code>parts</code> ranges of consecutive
+     * elements, with the same step, whose sizes differ by at most one
+     * element: iterating them one after the other, in order, gives the
+     * elements of this range. The parts can then be processed concurrently,
+     * e.g. by {@link #fill(long, int[], int, int) filling} an array chunk
+     * or running the {@link #toIntGenerator() generator} of each.
+     *
+     * @param parts maximum number of parts, must be greater than zero
+     * @return the parts, a single one (this range) if this range has less
+     * than two elements or <code>parts</code> is 1
+     * @throws IllegalArgumentException if <code>parts</code> is not positive
+     */
+    public List<IntegerRange> split(int parts) {
+        long[] bounds = this.steps.split(parts);
+        if (bounds.length == 2) {
+            return Collections.singletonList(this);
+        }
+        List<IntegerRange> result = new ArrayList<IntegerRange>(bounds.length - 1);
+        for (int i = 1; i < bounds.length; i++) {
+            result.add(new IntegerRange(get(bounds[i - 1]), BoundType.CLOSED, get(bounds[i] - 1L), BoundType.CLOSED,
+                    this.step));
+        }
+        return result;
+    }
+
+    /**
+     * Copy consecutive elements of this range to an array, without boxing
+     * them.
+     *
+     * @param index index of the first element to copy
+     * @param array destination
+     * @param offset position of the first element in <code>array</code>
+     * @param length maximum number of elements to copy
+     * @return the number of elements copied: <code>length</code>, or less if
+     * the range ends before
+     * @throws IndexOutOfBoundsException if <code>index</code> is not between
+     * 0 and {@link #size()}, or <code>offset</code> and <code>length</code>
+     * don't denote a part of <code>array</code>
+     */
+    public int fill(long index, int[] array, int offset, int length) {
+        Validate.notNull(array, "Array argument must not be null");
+        int count = this.steps.fillCount(index, array.length, offset, length);
+        if (count > 0) {
+            int value = get(index);
+            for (int i = offset; i < offset + count; i++) {
+                array[i] = value;
+                value += this.step;
             }
         }
+        return count;
     }
 
     /**
      * {@inheritDoc}
+     * Computed in constant time, without rounding.
      */
-    public Integer next() {
-        final int step = this.getStep();
-        final int r = this.currentValue;
-        this.currentValue += step;
-        return r;
+    @Override
+    public boolean isEmpty() {
+        return this.steps.size() == 0L;
     }
 
     /**
      * {@inheritDoc}
+     * Computed in constant time, without rounding.
      */
-    public void remove() {
-        throw new UnsupportedOperationException();
+    @Override
+    public boolean contains(Integer obj) {
+        return obj != null && this.steps.contains(obj.intValue());
     }
 
+    // iterable methods
+    // ---------------------------------------------------------------
     /**
      * {@inheritDoc}
+     * Each call returns a new iterator, starting from the left endpoint, so
+     * the range can be iterated any number of times, concurrently.
      */
     public Iterator<Integer> iterator() {
-        return this;
+        return new RangeIterator(this.steps);
+    }
+
+    // primitive generator
+    // ---------------------------------------------------------------
+    /**
+     * Create a generator of the elements of this range which passes them
+     * as <code>int</code> values, without boxing them. Like the iterators of this
+     * range, the generator always starts from the left endpoint and can be run
+     * more than once. It can be {@link IntStepGenerator#split(int) split} into
+     * parts which can be run concurrently.
+     *
+     * @return IntStepGenerator
+     */
+    public IntStepGenerator toIntGenerator() {
+        return new IntStepGenerator((int) this.steps.getFirst(), this.step, this.steps.size());
     }
 
     // object methods
@@ -285,4 +373,55 @@ public class IntegerRange extends NumericRange<Integer> {
         return hash;
     }
 
+    // iterator
+    // ---------------------------------------------------------------
+    /**
+     * Iterator over the elements of a range, holding the index of the next
+     * element, so that it ends even when the last element is the largest
+     * value of its type.
+     */
+    private static final class RangeIterator implements Iterator<Integer> {
+        /**
+         * Elements of the range.
+         */
+        private final IntegralSteps steps;
+
+        /**
+         * Index of the next element.
+         */
+        private long index;
+
+        /**
+         * Create a new RangeIterator.
+         *
+         * @param steps elements of the range
+         */
+        RangeIterator(IntegralSteps steps) {
+            this.steps = steps;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean hasNext() {
+            return this.index < this.steps.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Integer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return (int) this.steps.get(this.index++);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
 }
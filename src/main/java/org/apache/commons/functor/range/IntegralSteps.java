@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.range;
+
+/**
+ * Exact arithmetic over the elements of an integral range -- the values
+ * <code>first + i * step</code> for <code>0 &lt;= i &lt; size</code> -- used
+ * by {@link IntegerRange}, {@link LongRange} and {@link CharacterRange} to
+ * compute their size, elements and indexes in constant time, without going
+ * through <code>double</code>s.
+ * <p>
+ * All the computations are done on <code>long</code>s. Differences between
+ * elements are computed modulo 2<sup>64</sup> and divided as unsigned values,
+ * so they are exact even when they don't fit in a signed <code>long</code>
+ * (e.g. from <code>Long.MIN_VALUE</code> to <code>Long.MAX_VALUE</code>).
+ * The only approximation is for ranges of more than
+ * <code>Long.MAX_VALUE</code> elements: their size is
+ * <code>Long.MAX_VALUE</code>, and only their first
+ * <code>Long.MAX_VALUE</code> elements have an index.
+ * </p>
+ *
+ * @version $Revision:$ $Date:$
+ */
+final class IntegralSteps {
+    /**
+     * First element.
+     */
+    private final long first;
+
+    /**
+     * Last element, if not empty.
+     */
+    private final long last;
+
+    /**
+     * Difference between an element and the previous one.
+     */
+    private final long step;
+
+    /**
+     * Number of elements, at most <code>Long.MAX_VALUE</code>.
+     */
+    private final long size;
+
+    /**
+     * Create a new IntegralSteps.
+     *
+     * @param left left limit value
+     * @param leftClosed whether the left limit is included
+     * @param right right limit value
+     * @param rightClosed whether the right limit is included
+     * @param step increment
+     */
+    IntegralSteps(long left, boolean leftClosed, long right, boolean rightClosed, long step) {
+        this.step = step;
+        long firstValue = leftClosed ? left : left + step;
+        boolean empty = !leftClosed && (step > 0L ? firstValue < left : firstValue > left);
+        long lastValue = right;
+        if (step > 0L) {
+            if (!rightClosed) {
+                empty |= right == Long.MIN_VALUE;
+                lastValue = right - 1L;
+            }
+            empty |= firstValue > lastValue;
+        } else if (step < 0L) {
+            if (!rightClosed) {
+                empty |= right == Long.MAX_VALUE;
+                lastValue = right + 1L;
+            }
+            empty |= firstValue < lastValue;
+        } else {
+            empty |= !rightClosed || firstValue != right;
+        }
+        this.first = firstValue;
+        if (empty) {
+            this.last = firstValue;
+            this.size = 0L;
+        } else if (step == 0L) {
+            this.last = firstValue;
+            this.size = 1L;
+        } else {
+            long steps = divideUnsigned(distance(firstValue, lastValue), magnitude());
+            // the last element on the grid, computed modulo 2^64
+            this.last = firstValue + steps * step;
+            this.size = steps < 0L || steps == Long.MAX_VALUE ? Long.MAX_VALUE : steps + 1L;
+        }
+    }
+
+    /**
+     * Get the first element. Meaningless if there are no elements.
+     *
+     * @return long
+     */
+    long getFirst() {
+        return first;
+    }
+
+    /**
+     * Get the number of elements.
+     *
+     * @return long
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Get an element.
+     *
+     * @param index index of the element
+     * @return <code>first + index * step</code>
+     * @throws IndexOutOfBoundsException if <code>index</code> is negative or
+     * not less than the number of elements
+     */
+    long get(long index) {
+        if (index < 0L || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return first + index * step;
+    }
+
+    /**
+     * Learn whether a value is one of the elements.
+     *
+     * @param value the value
+     * @return boolean
+     */
+    boolean contains(long value) {
+        if (size == 0L) {
+            return false;
+        }
+        if (step > 0L ? value < first || value > last : value > first || value < last) {
+            return false;
+        }
+        return step == 0L || remainderUnsigned(distance(first, value), magnitude()) == 0L;
+    }
+
+    /**
+     * Get the index of a value.
+     *
+     * @param value the value
+     * @return the index of <code>value</code>, or -1 if it isn't one of the
+     * (first <code>Long.MAX_VALUE</code>) elements
+     */
+    long indexOf(long value) {
+        if (!contains(value)) {
+            return -1L;
+        }
+        if (step == 0L) {
+            return 0L;
+        }
+        long index = divideUnsigned(distance(first, value), magnitude());
+        return index < 0L || index >= size ? -1L : index;
+    }
+
+    /**
+     * Divide the elements into balanced parts of consecutive elements. Only
+     * the first {@link #size()} elements are covered.
+     *
+     * @param parts maximum number of parts, must be greater than zero
+     * @return the index of the first element of each part, followed by the
+     * number of elements: parts differ in size by at most one element
+     * @throws IllegalArgumentException if <code>parts</code> is not positive
+     */
+    long[] split(int parts) {
+        if (parts <= 0) {
+            throw new IllegalArgumentException("Invalid number of parts: " + parts);
+        }
+        int count = (int) Math.max(1L, Math.min(parts, size));
+        long base = size / count;
+        long extra = size % count;
+        long[] bounds = new long[count + 1];
+        for (int i = 0; i < count; i++) {
+            bounds[i + 1] = bounds[i] + base + (i < extra ? 1L : 0L);
+        }
+        return bounds;
+    }
+
+    /**
+     * Check the arguments of a bulk copy of elements to an array.
+     *
+     * @param index index of the first element to copy
+     * @param arrayLength length of the array
+     * @param offset position of the first element in the array
+     * @param length maximum number of elements to copy
+     * @return the number of elements to copy
+     * @throws IndexOutOfBoundsException if <code>index</code> is not between
+     * 0 and the number of elements, or <code>offset</code> and
+     * <code>length</code> don't denote a part of the array
+     */
+    int fillCount(long index, int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > arrayLength - length) {
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", length: " + length + ", array length: "
+                    + arrayLength);
+        }
+        if (index < 0L || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return (int) Math.min(length, size - index);
+    }
+
+    /**
+     * Get the distance from an element to a later one, modulo 2<sup>64</sup>.
+     *
+     * @param from the element
+     * @param to the later element
+     * @return the distance, as an unsigned value
+     */
+    private long distance(long from, long to) {
+        return step > 0L ? to - from : from - to;
+    }
+
+    /**
+     * Get the absolute value of the step, as an unsigned value.
+     *
+     * @return long
+     */
+    private long magnitude() {
+        return step > 0L ? step : -step;
+    }
+
+    /**
+     * Divide two unsigned values.
+     *
+     * @param dividend unsigned dividend
+     * @param divisor unsigned divisor, not 0
+     * @return unsigned quotient
+     */
+    static long divideUnsigned(long dividend, long divisor) {
+        if (divisor < 0L) {
+            // divisor >= 2^63: the quotient is 0 or 1
+            return compareUnsigned(dividend, divisor) < 0 ? 0L : 1L;
+        }
+        if (dividend >= 0L) {
+            return dividend / divisor;
+        }
+        long quotient = ((dividend >>> 1) / divisor) << 1;
+        long remainder = dividend - quotient * divisor;
+        return quotient + (compareUnsigned(remainder, divisor) >= 0 ? 1L : 0L);
+    }
+
+    /**
+     * Get the remainder of the division of two unsigned values.
+     *
+     * @param dividend unsigned dividend
+     * @param divisor unsigned divisor, not 0
+     * @return unsigned remainder
+     */
+    static long remainderUnsigned(long dividend, long divisor) {
+        return dividend - divideUnsigned(dividend, divisor) * divisor;
+    }
+
+    /**
+     * Compare two unsigned values.
+     *
+     * @param left unsigned value
+     * @param right unsigned value
+     * @return a negative number, zero or a positive number as
+     * <code>left</code> is less than, equal to or greater than
+     * <code>right</code>
+     */
+    private static int compareUnsigned(long left, long right) {
+        long l = left + Long.MIN_VALUE;
+        long r = right + Long.MIN_VALUE;
+        return l < r ? -1 : (l == r ? 0 : 1);
+    }
+}
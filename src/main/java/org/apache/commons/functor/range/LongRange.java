@@ -14,9 +14,14 @@
 
 package org.apache.commons.functor.range;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.generator.primitive.LongStepGenerator;
 import org.apache.commons.lang3.Validate;
 
 /**
@@ -45,9 +50,9 @@ public final class LongRange extends NumericRange<Long> {
     private final long step;
 
     /**
-     * Current value.
+     * Exact arithmetic over the elements.
      */
-    private long currentValue;
+    private final IntegralSteps steps;
 
     /**
      * Calculate default step.
@@ -168,16 +173,13 @@ public final class LongRange extends NumericRange<Long> {
             .notNull(new Endpoint<Long>(to, rightBoundType),
                      "Right Endpoint argument must not be null");
         this.step = step;
-        if (from != to && Long.signum(step) != Long.signum(to - from)) {
+        if (from != to && Long.signum(step) != (to > from ? 1 : -1)) {
             throw new IllegalArgumentException("Will never reach " + to
                                                + " from " + from
                                                + " using step " + step);
         }
-        if (this.leftEndpoint.getBoundType() == BoundType.CLOSED) {
-            this.currentValue = this.leftEndpoint.getValue();
-        } else {
-            this.currentValue = this.leftEndpoint.getValue() + this.step;
-        }
+        this.steps = new IntegralSteps(from, leftBoundType == BoundType.CLOSED, to,
+                rightBoundType == BoundType.CLOSED, step);
     }
 
     // range methods
@@ -203,50 +205,147 @@ public final class LongRange extends NumericRange<Long> {
         return this.step;
     }
 
-    // iterable, iterator methods
+    // indexed methods
     // ---------------------------------------------------------------
     /**
-     * {@inheritDoc}
+     * Get the number of elements of this range, computed in constant time.
+     * A range of more than <code>Long.MAX_VALUE</code> elements reports
+     * <code>Long.MAX_VALUE</code>.
+     *
+     * @return long
      */
-    public boolean hasNext() {
-        final long to = this.rightEndpoint.getValue();
-        if (step < 0) {
-            if (this.rightEndpoint.getBoundType() == BoundType.CLOSED) {
-                return this.currentValue >= to;
-            } else {
-                return this.currentValue > to;
-            }
-        } else {
-            if (this.rightEndpoint.getBoundType() == BoundType.CLOSED) {
-                return this.currentValue <= to;
-            } else {
-                return this.currentValue < to;
+    public long size() {
+        return this.steps.size();
+    }
+
+    /**
+     * Get an element of this range, computed in constant time.
+     *
+     * @param index index of the element, starting from 0 at the left endpoint
+     * @return the element
+     * @throws IndexOutOfBoundsException if <code>index</code> is negative or
+     * not less than {@link #size()}
+     */
+    public long get(long index) {
+        return this.steps.get(index);
+    }
+
+    /**
+     * Get the index of a value in this range, computed in constant time.
+     *
+     * @param value the value
+     * @return the index of <code>value</code>, such that
+     * <code>get(indexOf(value)) == value</code>, or -1 if
+     * <code>value</code> isn't an element of this range
+     */
+    public long indexOf(long value) {
+        return this.steps.indexOf(value);
+    }
+
+    /**
+     * Split this range into at most <code>parts</code> ranges of consecutive
+     * elements, with the same step, whose sizes differ by at most one
+     * element: iterating them one after the other, in order, gives the
+     * elements of this range. The parts can then be processed concurrently,
+     * e.g. by {@link #fill(long, long[], int, int) filling} an array chunk
+     * or running the {@link #toLongGenerator() generator} of each.
+     * <p>
+     * Only the first {@link #size()} elements are covered: the parts of a
+     * range of more than <code>Long.MAX_VALUE</code> elements don't include
+     * the elements after the first <code>Long.MAX_VALUE</code> ones.
+     * </p>
+     *
+     * @param parts maximum number of parts, must be greater than zero
+     * @return the parts, a single one (this range) if this range has less
+     * than two elements or <code>parts</code> is 1
+     * @throws IllegalArgumentException if <code>parts</code> is not positive
+     */
+    public List<LongRange> split(int parts) {
+        long[] bounds = this.steps.split(parts);
+        if (bounds.length == 2) {
+            return Collections.singletonList(this);
+        }
+        List<LongRange> result = new ArrayList<LongRange>(bounds.length - 1);
+        for (int i = 1; i < bounds.length; i++) {
+            result.add(new LongRange(get(bounds[i - 1]), BoundType.CLOSED, get(bounds[i] - 1L), BoundType.CLOSED,
+                    this.step));
+        }
+        return result;
+    }
+
+    /**
+     * Copy consecutive elements of this range to an array, without boxing
+     * them. Only the first {@link #size()} elements have an index, so the
+     * elements of a range of more than <code>Long.MAX_VALUE</code> elements
+     * after the first <code>Long.MAX_VALUE</code> ones can't be copied.
+     *
+     * @param index index of the first element to copy
+     * @param array destination
+     * @param offset position of the first element in <code>array</code>
+     * @param length maximum number of elements to copy
+     * @return the number of elements copied: <code>length</code>, or less if
+     * the range ends before
+     * @throws IndexOutOfBoundsException if <code>index</code> is not between
+     * 0 and {@link #size()}, or <code>offset</code> and <code>length</code>
+     * don't denote a part of <code>array</code>
+     */
+    public int fill(long index, long[] array, int offset, int length) {
+        Validate.notNull(array, "Array argument must not be null");
+        int count = this.steps.fillCount(index, array.length, offset, length);
+        if (count > 0) {
+            long value = get(index);
+            for (int i = offset; i < offset + count; i++) {
+                array[i] = value;
+                value += this.step;
             }
         }
+        return count;
     }
 
     /**
      * {@inheritDoc}
+     * Computed in constant time, without rounding.
      */
-    public Long next() {
-        final long step = this.getStep();
-        final long r = this.currentValue;
-        this.currentValue += step;
-        return r;
+    @Override
+    public boolean isEmpty() {
+        return this.steps.size() == 0L;
     }
 
     /**
      * {@inheritDoc}
+     * Computed in constant time, without rounding.
      */
-    public void remove() {
-        throw new UnsupportedOperationException();
+    @Override
+    public boolean contains(Long obj) {
+        return obj != null && this.steps.contains(obj.longValue());
     }
 
+    // iterable methods
+    // ---------------------------------------------------------------
     /**
      * {@inheritDoc}
+     * Each call returns a new iterator, starting from the left endpoint, so
+     * the range can be iterated any number of times, concurrently. The
+     * iterator ends after the first {@link #size()} elements, i.e. after
+     * <code>Long.MAX_VALUE</code> elements of a larger range.
      */
     public Iterator<Long> iterator() {
-        return this;
+        return new RangeIterator(this.steps);
+    }
+
+    // primitive generator
+    // ---------------------------------------------------------------
+    /**
+     * Create a generator of the elements of this range which passes them
+     * as <code>long</code> values, without boxing them. Like the iterators of this
+     * range, the generator always starts from the left endpoint and can be run
+     * more than once. It can be {@link LongStepGenerator#split(int) split} into
+     * parts which can be run concurrently.
+     *
+     * @return LongStepGenerator
+     */
+    public LongStepGenerator toLongGenerator() {
+        return new LongStepGenerator(this.steps.getFirst(), this.step, this.steps.size());
     }
 
     // object methods
@@ -292,4 +391,55 @@ public final class LongRange extends NumericRange<Long> {
         return hash;
     }
 
+    // iterator
+    // ---------------------------------------------------------------
+    /**
+     * Iterator over the elements of a range, holding the index of the next
+     * element, so that it ends even when the last element is the largest
+     * value of its type.
+     */
+    private static final class RangeIterator implements Iterator<Long> {
+        /**
+         * Elements of the range.
+         */
+        private final IntegralSteps steps;
+
+        /**
+         * Index of the next element.
+         */
+        private long index;
+
+        /**
+         * Create a new RangeIterator.
+         *
+         * @param steps elements of the range
+         */
+        RangeIterator(IntegralSteps steps) {
+            this.steps = steps;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean hasNext() {
+            return this.index < this.steps.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Long next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return this.steps.get(this.index++);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
 }
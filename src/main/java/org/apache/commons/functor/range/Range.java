@@ -14,7 +14,6 @@
 package org.apache.commons.functor.range;
 
 import java.util.Collection;
-import java.util.Iterator;
 
 
 /**
@@ -27,6 +26,10 @@ import java.util.Iterator;
  * The difference between each element within this range is called <b>step</b>.
  * The step can be positive or negative, displaying whether the range elements
  * are ascending or descending.
+ * <p>
+ * Ranges are immutable: each call to {@link #iterator()} returns a new
+ * iterator over the elements of the range, so a range can be iterated any
+ * number of times, shared between threads and kept as a constant.
  *
  * @param <T> the type of elements held by this range.
  * @param <S> the type of the step of this range.
@@ -34,7 +37,7 @@ import java.util.Iterator;
  * @since 1.0
  * @version $Revision: $ $Date: $
  */
-public interface Range<T extends Comparable<?>, S extends Comparable<?>> extends Iterable<T>, Iterator<T> {
+public interface Range<T extends Comparable<?>, S extends Comparable<?>> extends Iterable<T> {
 
     /**
      * Default left bound type.
@@ -0,0 +1,681 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.range;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.functor.UnaryPredicate;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * A set of values made of disjoint intervals, e.g.
+ * <code>[1, 3) &cup; (5, 7] &cup; [10, +&infin;)</code>. Unlike a
+ * {@link Range}, a RangeSet has no step: it holds every value between the
+ * endpoints of its intervals.
+ * <p>
+ * A RangeSet is immutable and always normalized: its intervals are sorted,
+ * non-empty, and neither overlap nor touch (<code>[1, 3)</code> and
+ * <code>[3, 5]</code> are merged into <code>[1, 5]</code>), so two RangeSets
+ * holding the same values are equal. {@link #union(RangeSet) union},
+ * {@link #intersection(RangeSet) intersection},
+ * {@link #difference(RangeSet) difference} and {@link #complement()
+ * complement} return new RangeSets, in time linear in the number of
+ * intervals.
+ * </p>
+ * <p>
+ * The intervals are indexed by a sorted array of their bounds, so that
+ * testing whether a value is {@link #contains(Comparable) contained} (a
+ * stabbing query) or whether an interval {@link #intersects(Endpoint, Endpoint)
+ * overlaps} the set takes a binary search, in O(log n) time. Testing a value
+ * against thousands of intervals, e.g. of {@link Range}s or
+ * {@link org.apache.commons.functor.core.comparator.IsWithinRange}
+ * predicates, is then best done with a single RangeSet built by
+ * {@link #unionOf(Collection)}.
+ * </p>
+ * <p>
+ * A RangeSet is also a {@link UnaryPredicate} which tests whether it
+ * contains a value.
+ * </p>
+ *
+ * @param <T> type of the values
+ * @version $Revision:$ $Date:$
+ */
+public final class RangeSet<T extends Comparable<? super T>> implements UnaryPredicate<T> {
+    /**
+     * Combination of two sets: union.
+     */
+    private static final int UNION = 0;
+
+    /**
+     * Combination of two sets: intersection.
+     */
+    private static final int INTERSECTION = 1;
+
+    /**
+     * Combination of two sets: difference.
+     */
+    private static final int DIFFERENCE = 2;
+
+    /**
+     * Bounds of the intervals, in increasing order: the lower bound of the
+     * first interval, its upper bound, the lower bound of the second
+     * interval, and so on. A value is contained when an odd number of bounds
+     * are below it.
+     */
+    private final List<Cut<T>> cuts;
+
+    /**
+     * Create a new RangeSet.
+     *
+     * @param cuts normalized bounds
+     */
+    private RangeSet(List<Cut<T>> cuts) {
+        this.cuts = cuts;
+    }
+
+    // factory methods
+    // ---------------------------------------------------------------
+    /**
+     * Get an empty RangeSet.
+     *
+     * @param <T> type of the values
+     * @return RangeSet
+     */
+    public static <T extends Comparable<? super T>> RangeSet<T> empty() {
+        return new RangeSet<T>(Collections.<Cut<T>>emptyList());
+    }
+
+    /**
+     * Get a RangeSet holding all the values.
+     *
+     * @param <T> type of the values
+     * @return RangeSet
+     */
+    public static <T extends Comparable<? super T>> RangeSet<T> all() {
+        List<Cut<T>> cuts = new ArrayList<Cut<T>>(2);
+        cuts.add(Cut.<T>belowAll());
+        cuts.add(Cut.<T>aboveAll());
+        return new RangeSet<T>(Collections.unmodifiableList(cuts));
+    }
+
+    /**
+     * Get a RangeSet made of a single interval.
+     *
+     * @param <T> type of the values
+     * @param left left endpoint, or <code>null</code> if the interval is
+     * unbounded on the left
+     * @param right right endpoint, or <code>null</code> if the interval is
+     * unbounded on the right
+     * @return RangeSet, empty if <code>left</code> is after
+     * <code>right</code>
+     */
+    public static <T extends Comparable<? super T>> RangeSet<T> interval(Endpoint<T> left, Endpoint<T> right) {
+        Cut<T> lower = lower(left);
+        Cut<T> upper = upper(right);
+        if (lower.compareTo(upper) >= 0) {
+            return empty();
+        }
+        List<Cut<T>> cuts = new ArrayList<Cut<T>>(2);
+        cuts.add(lower);
+        cuts.add(upper);
+        return new RangeSet<T>(Collections.unmodifiableList(cuts));
+    }
+
+    /**
+     * Get a RangeSet made of a single bounded interval.
+     *
+     * @param <T> type of the values
+     * @param from left limit value
+     * @param leftBoundType type of left bound
+     * @param to right limit value
+     * @param rightBoundType type of right bound
+     * @return RangeSet, empty if <code>from</code> is after <code>to</code>
+     */
+    public static <T extends Comparable<? super T>> RangeSet<T> interval(T from, BoundType leftBoundType, T to,
+            BoundType rightBoundType) {
+        return interval(new Endpoint<T>(from, leftBoundType), new Endpoint<T>(to, rightBoundType));
+    }
+
+    /**
+     * Get a RangeSet holding all the values between the endpoints of a
+     * range, whatever its step. The endpoints are taken in increasing order,
+     * so a range with a negative step gives the same RangeSet as the range
+     * with its endpoints swapped.
+     *
+     * @param <T> type of the values
+     * @param range the range
+     * @return RangeSet
+     */
+    public static <T extends Comparable<? super T>> RangeSet<T> of(Range<T, ?> range) {
+        Validate.notNull(range, "Range argument must not be null");
+        Endpoint<T> left = range.getLeftEndpoint();
+        Endpoint<T> right = range.getRightEndpoint();
+        if (left.getValue().compareTo(right.getValue()) > 0) {
+            return interval(right, left);
+        }
+        return interval(left, right);
+    }
+
+    /**
+     * Get a RangeSet holding all the values between the endpoints of any of
+     * several ranges, as {@link #of(Range)}. This takes O(n log n) time,
+     * whereas combining the ranges one at a time with
+     * {@link #union(RangeSet)} takes O(n<sup>2</sup>) time.
+     *
+     * @param <T> type of the values
+     * @param ranges the ranges
+     * @return RangeSet
+     */
+    public static <T extends Comparable<? super T>> RangeSet<T> unionOf(Collection<? extends Range<T, ?>> ranges) {
+        Validate.notNull(ranges, "Ranges argument must not be null");
+        List<List<Cut<T>>> intervals = new ArrayList<List<Cut<T>>>(ranges.size());
+        for (Range<T, ?> range : ranges) {
+            RangeSet<T> set = of(range);
+            if (!set.isEmpty()) {
+                intervals.add(set.cuts);
+            }
+        }
+        Collections.sort(intervals, Cut.<T>byLowerBound());
+        List<Cut<T>> cuts = new ArrayList<Cut<T>>();
+        for (List<Cut<T>> interval : intervals) {
+            int last = cuts.size() - 1;
+            if (last > 0 && interval.get(0).compareTo(cuts.get(last)) <= 0) {
+                // overlaps or touches the previous interval: extend it
+                if (interval.get(1).compareTo(cuts.get(last)) > 0) {
+                    cuts.set(last, interval.get(1));
+                }
+            } else {
+                cuts.addAll(interval);
+            }
+        }
+        return new RangeSet<T>(Collections.unmodifiableList(cuts));
+    }
+
+    // queries
+    // ---------------------------------------------------------------
+    /**
+     * Learn whether this set is empty.
+     *
+     * @return boolean
+     */
+    public boolean isEmpty() {
+        return cuts.isEmpty();
+    }
+
+    /**
+     * Learn whether a value is in this set, in O(log n) time.
+     *
+     * @param value the value
+     * @return boolean
+     */
+    public boolean contains(T value) {
+        return value != null && (countNotAbove(Cut.below(value)) & 1) == 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Same as {@link #contains(Comparable)}.
+     */
+    public boolean test(T obj) {
+        return contains(obj);
+    }
+
+    /**
+     * Learn whether an interval overlaps this set, in O(log n) time.
+     *
+     * @param left left endpoint, or <code>null</code> if the interval is
+     * unbounded on the left
+     * @param right right endpoint, or <code>null</code> if the interval is
+     * unbounded on the right
+     * @return <code>true</code> if a value of the interval is in this set
+     */
+    public boolean intersects(Endpoint<T> left, Endpoint<T> right) {
+        Cut<T> lower = lower(left);
+        Cut<T> upper = upper(right);
+        if (lower.compareTo(upper) >= 0) {
+            return false;
+        }
+        int count = countNotAbove(lower);
+        if ((count & 1) == 1) {
+            // the lower bound is in an interval
+            return true;
+        }
+        // an interval starts after the lower bound: does it start before the upper bound?
+        return count < cuts.size() && cuts.get(count).compareTo(upper) < 0;
+    }
+
+    /**
+     * Learn whether an interval is entirely in this set, in O(log n) time.
+     *
+     * @param left left endpoint, or <code>null</code> if the interval is
+     * unbounded on the left
+     * @param right right endpoint, or <code>null</code> if the interval is
+     * unbounded on the right
+     * @return <code>true</code> if all the values of the interval are in
+     * this set
+     */
+    public boolean encloses(Endpoint<T> left, Endpoint<T> right) {
+        Cut<T> lower = lower(left);
+        Cut<T> upper = upper(right);
+        if (lower.compareTo(upper) >= 0) {
+            return true;
+        }
+        int count = countNotAbove(lower);
+        return (count & 1) == 1 && upper.compareTo(cuts.get(count)) <= 0;
+    }
+
+    /**
+     * Get the number of disjoint intervals of this set.
+     *
+     * @return int
+     */
+    public int getIntervalCount() {
+        return cuts.size() / 2;
+    }
+
+    /**
+     * Get the left endpoint of an interval of this set.
+     *
+     * @param index index of the interval, from 0 for the leftmost one
+     * @return Endpoint, or <code>null</code> if the interval is unbounded on
+     * the left
+     */
+    public Endpoint<T> getLeftEndpoint(int index) {
+        Validate.validIndex(cuts, 2 * index, "Invalid interval index: %d", index);
+        Cut<T> cut = cuts.get(2 * index);
+        return cut.isFinite() ? new Endpoint<T>(cut.value, cut.above ? BoundType.OPEN : BoundType.CLOSED) : null;
+    }
+
+    /**
+     * Get the right endpoint of an interval of this set.
+     *
+     * @param index index of the interval, from 0 for the leftmost one
+     * @return Endpoint, or <code>null</code> if the interval is unbounded on
+     * the right
+     */
+    public Endpoint<T> getRightEndpoint(int index) {
+        Validate.validIndex(cuts, 2 * index + 1, "Invalid interval index: %d", index);
+        Cut<T> cut = cuts.get(2 * index + 1);
+        return cut.isFinite() ? new Endpoint<T>(cut.value, cut.above ? BoundType.CLOSED : BoundType.OPEN) : null;
+    }
+
+    // set operations
+    // ---------------------------------------------------------------
+    /**
+     * Get the values which are in this set or in another one.
+     *
+     * @param that other set
+     * @return RangeSet
+     */
+    public RangeSet<T> union(RangeSet<T> that) {
+        return combine(that, UNION);
+    }
+
+    /**
+     * Get the values which are both in this set and in another one.
+     *
+     * @param that other set
+     * @return RangeSet
+     */
+    public RangeSet<T> intersection(RangeSet<T> that) {
+        return combine(that, INTERSECTION);
+    }
+
+    /**
+     * Get the values which are in this set but not in another one.
+     *
+     * @param that other set
+     * @return RangeSet
+     */
+    public RangeSet<T> difference(RangeSet<T> that) {
+        return combine(that, DIFFERENCE);
+    }
+
+    /**
+     * Get the values which are not in this set.
+     *
+     * @return RangeSet
+     */
+    public RangeSet<T> complement() {
+        return RangeSet.<T>all().difference(this);
+    }
+
+    /**
+     * Combine this set with another one, by sweeping through their bounds in
+     * increasing order.
+     *
+     * @param that other set
+     * @param operation {@link #UNION}, {@link #INTERSECTION} or
+     * {@link #DIFFERENCE}
+     * @return RangeSet
+     */
+    private RangeSet<T> combine(RangeSet<T> that, int operation) {
+        Validate.notNull(that, "RangeSet argument must not be null");
+        List<Cut<T>> a = this.cuts;
+        List<Cut<T>> b = that.cuts;
+        List<Cut<T>> result = new ArrayList<Cut<T>>();
+        boolean inA = false;
+        boolean inB = false;
+        boolean in = false;
+        int i = 0;
+        int j = 0;
+        while (i < a.size() || j < b.size()) {
+            Cut<T> next;
+            if (i == a.size()) {
+                next = b.get(j);
+            } else if (j == b.size() || a.get(i).compareTo(b.get(j)) <= 0) {
+                next = a.get(i);
+            } else {
+                next = b.get(j);
+            }
+            if (i < a.size() && a.get(i).compareTo(next) == 0) {
+                inA = !inA;
+                i++;
+            }
+            if (j < b.size() && b.get(j).compareTo(next) == 0) {
+                inB = !inB;
+                j++;
+            }
+            boolean now;
+            switch (operation) {
+            case UNION:
+                now = inA || inB;
+                break;
+            case INTERSECTION:
+                now = inA && inB;
+                break;
+            default:
+                now = inA && !inB;
+                break;
+            }
+            if (now != in) {
+                result.add(next);
+                in = now;
+            }
+        }
+        return new RangeSet<T>(Collections.unmodifiableList(result));
+    }
+
+    /**
+     * Count the bounds which are not above a cut, by binary search.
+     *
+     * @param cut the cut
+     * @return number of bounds less than or equal to <code>cut</code>
+     */
+    private int countNotAbove(Cut<T> cut) {
+        int low = 0;
+        int high = cuts.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cuts.get(mid).compareTo(cut) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get the cut a left endpoint starts an interval at.
+     *
+     * @param <T> type of the values
+     * @param left left endpoint, or <code>null</code>
+     * @return Cut
+     */
+    private static <T extends Comparable<? super T>> Cut<T> lower(Endpoint<T> left) {
+        if (left == null) {
+            return Cut.belowAll();
+        }
+        T value = Validate.notNull(left.getValue(), "Endpoint value must not be null");
+        return left.getBoundType() == BoundType.OPEN ? Cut.above(value) : Cut.below(value);
+    }
+
+    /**
+     * Get the cut a right endpoint ends an interval at.
+     *
+     * @param <T> type of the values
+     * @param right right endpoint, or <code>null</code>
+     * @return Cut
+     */
+    private static <T extends Comparable<? super T>> Cut<T> upper(Endpoint<T> right) {
+        if (right == null) {
+            return Cut.aboveAll();
+        }
+        T value = Validate.notNull(right.getValue(), "Endpoint value must not be null");
+        return right.getBoundType() == BoundType.OPEN ? Cut.below(value) : Cut.above(value);
+    }
+
+    // object methods
+    // ---------------------------------------------------------------
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof RangeSet<?>)) {
+            return false;
+        }
+        RangeSet<?> that = (RangeSet<?>) obj;
+        return this.cuts.equals(that.cuts);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = "RangeSet".hashCode();
+        hash <<= 2;
+        hash ^= cuts.hashCode();
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder("RangeSet<");
+        for (int i = 0; i < getIntervalCount(); i++) {
+            if (i > 0) {
+                buf.append(", ");
+            }
+            Endpoint<T> left = getLeftEndpoint(i);
+            Endpoint<T> right = getRightEndpoint(i);
+            buf.append(left == null ? "(-inf" : left.toLeftString()).append(", ");
+            buf.append(right == null ? "+inf)" : right.toRightString());
+        }
+        return buf.append('>').toString();
+    }
+
+    // cut
+    // ---------------------------------------------------------------
+    /**
+     * A point between values: just below or just above a value, or below
+     * or above all the values. Interval bounds are cuts: <code>[a, b)</code>
+     * goes from the cut below <code>a</code> to the cut below <code>b</code>,
+     * which makes open and closed bounds comparable with each other.
+     *
+     * @param <T> type of the values
+     */
+    private static final class Cut<T extends Comparable<? super T>> implements Comparable<Cut<T>> {
+        /**
+         * Rank of the cut below all the values.
+         */
+        private static final int BELOW_ALL = -1;
+
+        /**
+         * Rank of a cut next to a value.
+         */
+        private static final int FINITE = 0;
+
+        /**
+         * Rank of the cut above all the values.
+         */
+        private static final int ABOVE_ALL = 1;
+
+        /**
+         * {@link #BELOW_ALL}, {@link #FINITE} or {@link #ABOVE_ALL}.
+         */
+        private final int rank;
+
+        /**
+         * The value next to this cut, if finite.
+         */
+        private final T value;
+
+        /**
+         * Whether this cut is just above {@link #value} rather than just below.
+         */
+        private final boolean above;
+
+        /**
+         * Create a new Cut.
+         *
+         * @param rank {@link #BELOW_ALL}, {@link #FINITE} or {@link #ABOVE_ALL}
+         * @param value the value next to the cut, if finite
+         * @param above whether the cut is just above the value
+         */
+        private Cut(int rank, T value, boolean above) {
+            this.rank = rank;
+            this.value = value;
+            this.above = above;
+        }
+
+        /**
+         * Get the cut below all the values.
+         *
+         * @param <T> type of the values
+         * @return Cut
+         */
+        static <T extends Comparable<? super T>> Cut<T> belowAll() {
+            return new Cut<T>(BELOW_ALL, null, false);
+        }
+
+        /**
+         * Get the cut above all the values.
+         *
+         * @param <T> type of the values
+         * @return Cut
+         */
+        static <T extends Comparable<? super T>> Cut<T> aboveAll() {
+            return new Cut<T>(ABOVE_ALL, null, true);
+        }
+
+        /**
+         * Get the cut just below a value.
+         *
+         * @param <T> type of the values
+         * @param value the value
+         * @return Cut
+         */
+        static <T extends Comparable<? super T>> Cut<T> below(T value) {
+            return new Cut<T>(FINITE, value, false);
+        }
+
+        /**
+         * Get the cut just above a value.
+         *
+         * @param <T> type of the values
+         * @param value the value
+         * @return Cut
+         */
+        static <T extends Comparable<? super T>> Cut<T> above(T value) {
+            return new Cut<T>(FINITE, value, true);
+        }
+
+        /**
+         * Get a comparator of intervals, given as a list of two cuts, by
+         * their lower bound.
+         *
+         * @param <T> type of the values
+         * @return Comparator
+         */
+        static <T extends Comparable<? super T>> Comparator<List<Cut<T>>> byLowerBound() {
+            return new Comparator<List<Cut<T>>>() {
+                public int compare(List<Cut<T>> left, List<Cut<T>> right) {
+                    return left.get(0).compareTo(right.get(0));
+                }
+            };
+        }
+
+        /**
+         * Learn whether this cut is next to a value.
+         *
+         * @return boolean
+         */
+        boolean isFinite() {
+            return rank == FINITE;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public int compareTo(Cut<T> that) {
+            if (this.rank != that.rank) {
+                return this.rank < that.rank ? -1 : 1;
+            }
+            if (this.rank != FINITE) {
+                return 0;
+            }
+            int result = this.value.compareTo(that.value);
+            if (result != 0) {
+                return result;
+            }
+            return this.above == that.above ? 0 : (this.above ? 1 : -1);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Cut<?>)) {
+                return false;
+            }
+            Cut<?> that = (Cut<?>) obj;
+            return this.rank == that.rank && this.above == that.above
+                    && (this.value == null ? that.value == null : this.value.equals(that.value));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            int hash = "Cut".hashCode();
+            hash <<= 2;
+            hash ^= rank;
+            hash <<= 2;
+            hash ^= value == null ? 0 : value.hashCode();
+            hash <<= 2;
+            hash ^= above ? 1 : 0;
+            return hash;
+        }
+    }
+}
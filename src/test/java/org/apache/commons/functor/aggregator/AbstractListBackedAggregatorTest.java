@@ -146,6 +146,26 @@ public class AbstractListBackedAggregatorTest extends BaseFunctorTest {
         assertEquals(fct.callsCreateList, 0);
     }
 
+    /**
+     * Ensures evaluateAndReset swaps the series and evaluates the old one.
+     */
+    @Test
+    public void testEvaluateAndReset() throws Exception {
+        @SuppressWarnings("unchecked")
+        TestListBackedAggregator<Object> fct = (TestListBackedAggregator<Object>) makeFunctor();
+        TestUnaryFunction<Object> agg = (TestUnaryFunction<Object>) fct.getAggregationFunction();
+        int callsAdd = 31;
+        for (int i = 1; i <= callsAdd; i++)
+            fct.add(new Object());
+        List<Object> frozen = fct.getSeries();
+        assertNull(fct.evaluateAndReset());
+        assertEquals(agg.calls, 1);
+        assertEquals(fct.callsCreateList, 1);
+        assertEquals(fct.getSeries().size(), 0);
+        assertTrue(fct.getSeries() != frozen);
+        assertEquals(frozen.size(), callsAdd);
+    }
+
     @Test
     public void testGetSize() throws Exception {
         @SuppressWarnings("unchecked")
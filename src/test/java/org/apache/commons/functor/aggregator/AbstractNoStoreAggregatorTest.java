@@ -24,6 +24,8 @@ import static org.junit.Assert.assertTrue;
 import org.apache.commons.functor.BaseFunctorTest;
 import org.apache.commons.functor.BinaryFunction;
 import org.apache.commons.functor.aggregator.AbstractNoStoreAggregator;
+import org.apache.commons.functor.aggregator.functions.IntegerCountAggregatorBinaryFunction;
+import org.apache.commons.functor.aggregator.functions.IntegerSumAggregatorBinaryFunction;
 import org.junit.Test;
 
 /**
@@ -117,11 +119,72 @@ public class AbstractNoStoreAggregatorTest extends BaseFunctorTest {
         }
     }
 
+    @Test
+    public void testMerge() throws Exception {
+        AbstractNoStoreAggregator<Integer> node1 = new SumNoStoreAggregator();
+        AbstractNoStoreAggregator<Integer> node2 = new SumNoStoreAggregator();
+        node1.add(3);
+        node1.add(4);
+        node2.add(10);
+        node1.merge(node2.exportState());
+        assertEquals(17, node1.evaluate().intValue());
+        assertEquals(10, node2.exportState().intValue());
+        node1.merge(new SumNoStoreAggregator().exportState());
+        assertEquals(17, node1.evaluate().intValue());
+    }
+
+    @Test
+    public void testMergeCustomCombine() throws Exception {
+        AbstractNoStoreAggregator<Integer> node1 = new CountNoStoreAggregator();
+        AbstractNoStoreAggregator<Integer> node2 = new CountNoStoreAggregator();
+        node1.add(3);
+        node1.add(4);
+        node2.add(10);
+        node2.add(11);
+        node2.add(12);
+        node1.merge(node2.exportState());
+        assertEquals(5, node1.evaluate().intValue());
+    }
+
     @Test
     public void testDataSize() {
         assertEquals(0, new TestNoStoreAggregator<Object>(new Object()).retrieveDataSize());
     }
 
+    /**
+     * Aggregator which sums up integers.
+     */
+    static class SumNoStoreAggregator extends AbstractNoStoreAggregator<Integer> {
+        public SumNoStoreAggregator() {
+            super(new IntegerSumAggregatorBinaryFunction());
+        }
+
+        @Override
+        protected Integer initialValue() {
+            return 0;
+        }
+    }
+
+    /**
+     * Aggregator which counts the data added, and sums up the counts when
+     * merging.
+     */
+    static class CountNoStoreAggregator extends AbstractNoStoreAggregator<Integer> {
+        public CountNoStoreAggregator() {
+            super(new IntegerCountAggregatorBinaryFunction());
+        }
+
+        @Override
+        protected Integer combine(Integer value, Integer other) {
+            return value + other;
+        }
+
+        @Override
+        protected Integer initialValue() {
+            return 0;
+        }
+    }
+
     /**
      * Dummy binary function which always returns the first parameter.
      */
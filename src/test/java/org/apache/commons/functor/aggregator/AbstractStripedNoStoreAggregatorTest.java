@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.aggregator.functions.IntegerCountAggregatorBinaryFunction;
+import org.apache.commons.functor.aggregator.functions.IntegerMaxAggregatorBinaryFunction;
+import org.apache.commons.functor.aggregator.functions.IntegerSumAggregatorBinaryFunction;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link AbstractStripedNoStoreAggregator}.
+ */
+public class AbstractStripedNoStoreAggregatorTest extends BaseFunctorTest {
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new SumAggregator(4);
+    }
+
+    @Test
+    public void testStripesRoundedUp() throws Exception {
+        assertEquals(1, new SumAggregator(1).getStripes());
+        assertEquals(4, new SumAggregator(3).getStripes());
+        assertEquals(8, new SumAggregator(5).getStripes());
+        assertTrue(new SumAggregator(new IntegerSumAggregatorBinaryFunction()).getStripes() >= 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidStripes() throws Exception {
+        new SumAggregator(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyStripes() throws Exception {
+        // used to loop forever while rounding up to a power of 2
+        new SumAggregator(AbstractStripedNoStoreAggregator.MAX_STRIPES + 1);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullFunction() throws Exception {
+        new SumAggregator(null);
+    }
+
+    @Test
+    public void testDefaultCombineFunction() throws Exception {
+        IntegerSumAggregatorBinaryFunction fct = new IntegerSumAggregatorBinaryFunction();
+        SumAggregator agg = new SumAggregator(fct);
+        assertSame(fct, agg.getAggregationFunction());
+        assertSame(fct, agg.getCombineFunction());
+    }
+
+    @Test
+    public void testAddEvaluateReset() throws Exception {
+        SumAggregator agg = (SumAggregator) makeFunctor();
+        assertEquals(0, agg.evaluate().intValue());
+        int total = 0;
+        for (int i = 1; i <= 100; i++) {
+            agg.add(i);
+            total += i;
+            assertEquals(total, agg.evaluate().intValue());
+        }
+        assertEquals(0, agg.getDataSize());
+        agg.reset();
+        assertEquals(0, agg.evaluate().intValue());
+    }
+
+    @Test
+    public void testEvaluateAndReset() throws Exception {
+        SumAggregator agg = (SumAggregator) makeFunctor();
+        for (int i = 1; i <= 10; i++) {
+            agg.add(i);
+        }
+        assertEquals(55, agg.evaluateAndReset().intValue());
+        assertEquals(0, agg.evaluate().intValue());
+        agg.add(3);
+        assertEquals(3, agg.evaluateAndReset().intValue());
+    }
+
+    @Test
+    public void testMax() throws Exception {
+        AbstractStripedNoStoreAggregator<Integer> agg = new AbstractStripedNoStoreAggregator<Integer>(
+                new IntegerMaxAggregatorBinaryFunction()) {
+            @Override
+            protected Integer initialValue() {
+                return Integer.MIN_VALUE;
+            }
+        };
+        agg.add(3);
+        agg.add(-2);
+        agg.add(7);
+        assertEquals(7, agg.evaluate().intValue());
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        AbstractStripedNoStoreAggregator<Integer> node1 = new AbstractStripedNoStoreAggregator<Integer>(
+                new IntegerCountAggregatorBinaryFunction(), new IntegerSumAggregatorBinaryFunction(), 4, 0L, false) {
+            @Override
+            protected Integer initialValue() {
+                return 0;
+            }
+        };
+        AbstractStripedNoStoreAggregator<Integer> node2 = new AbstractStripedNoStoreAggregator<Integer>(
+                new IntegerCountAggregatorBinaryFunction(), new IntegerSumAggregatorBinaryFunction(), 4, 0L, false) {
+            @Override
+            protected Integer initialValue() {
+                return 0;
+            }
+        };
+        for (int i = 0; i < 5; i++) {
+            node1.add(i);
+        }
+        for (int i = 0; i < 3; i++) {
+            node2.add(i);
+        }
+        // counts are merged with the combine function (sum)
+        node1.merge(node2.exportState());
+        assertEquals(8, node1.evaluate().intValue());
+        assertEquals(3, node2.exportState().intValue());
+    }
+
+    @Test
+    public void testConcurrentCount() throws Exception {
+        final AbstractStripedNoStoreAggregator<Integer> agg = new AbstractStripedNoStoreAggregator<Integer>(
+                new IntegerCountAggregatorBinaryFunction(), new IntegerSumAggregatorBinaryFunction(), 4, 0L, false) {
+            @Override
+            protected Integer initialValue() {
+                return 0;
+            }
+        };
+        final int threads = 8;
+        final int calls = 10000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < calls; i++) {
+                            agg.add(i);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+        start.countDown();
+        done.await();
+        assertEquals(threads * calls, agg.evaluate().intValue());
+    }
+
+    /**
+     * Striped aggregator which sums up integers.
+     */
+    static class SumAggregator extends AbstractStripedNoStoreAggregator<Integer> {
+        public SumAggregator(int stripes) {
+            super(new IntegerSumAggregatorBinaryFunction(), new IntegerSumAggregatorBinaryFunction(), stripes, 0L,
+                    false);
+        }
+
+        public SumAggregator(BinaryFunction<Integer, Integer, Integer> fct) {
+            super(fct);
+        }
+
+        @Override
+        protected Integer initialValue() {
+            return 0;
+        }
+    }
+}
@@ -22,12 +22,15 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.functor.BaseFunctorTest;
 import org.apache.commons.functor.aggregator.AbstractTimedAggregator;
 import org.apache.commons.functor.aggregator.TimedAggregatorListener;
+import org.apache.commons.functor.core.NoOp;
 import org.junit.Test;
 
 public class AbstractTimedAggregatorTest extends BaseFunctorTest {
@@ -116,6 +119,62 @@ public class AbstractTimedAggregatorTest extends BaseFunctorTest {
         agg.stop();
     }
 
+    @Test
+    public void testCreateScheduler() throws Exception {
+        TimerWheelScheduler scheduler = new TimerWheelScheduler(5L, 64);
+        try {
+            SimpleStoreTimedAggregator agg = new SimpleStoreTimedAggregator(DEFAULT_INTERVAL, scheduler);
+            agg.start();
+            assertTrue(agg.isTimerEnabled());
+            assertFalse(agg.isSharedTimer());
+            standardTimerTesting(agg, DEFAULT_INTERVAL);
+            agg.stop();
+            assertFalse(agg.isTimerEnabled());
+            assertFalse(scheduler.cancel(NoOp.instance()));
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testCreateSchedulerNoTimer() throws Exception {
+        SimpleStoreTimedAggregator agg = new SimpleStoreTimedAggregator(0L, new TimerWheelScheduler());
+        assertFalse(agg.isTimerEnabled());
+        assertNull(agg.getTimerListeners());
+        agg.stop();
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testCreateNullScheduler() throws Exception {
+        new SimpleStoreTimedAggregator(DEFAULT_INTERVAL, (AggregatorScheduler) null);
+    }
+
+    @Test
+    public void testListenerExecutor() throws Exception {
+        final CountDownLatch notified = new CountDownLatch(1);
+        final Thread[] listenerThread = new Thread[1];
+        SimpleStoreTimedAggregator agg = new SimpleStoreTimedAggregator(SLEEP);
+        assertNull(agg.getListenerExecutor());
+        Executor executor = new Executor() {
+            public void execute(Runnable command) {
+                new Thread(command, "listener").start();
+            }
+        };
+        agg.setListenerExecutor(executor);
+        assertTrue(agg.getListenerExecutor() == executor);
+        agg.addTimerListener(new TimedAggregatorListener<Integer>() {
+            public void onTimer(AbstractTimedAggregator<Integer> aggregator, Integer evaluation) {
+                if (listenerThread[0] == null) {
+                    listenerThread[0] = Thread.currentThread();
+                    notified.countDown();
+                }
+            }
+        });
+        assertTrue(notified.await(DEFAULT_INTERVAL, TimeUnit.MILLISECONDS));
+        agg.stop();
+        assertEquals("listener", listenerThread[0].getName());
+    }
+
     /**
      * Simple timed aggregator which just stores the latest object and returns
      * it when evaluating the result.
@@ -137,6 +196,10 @@ public class AbstractTimedAggregatorTest extends BaseFunctorTest {
             super(interval, useSharedTimer);
         }
 
+        public SimpleStoreTimedAggregator(long interval, AggregatorScheduler scheduler) {
+            super(interval, scheduler);
+        }
+
         @Override
         protected void doAdd(Integer data) {
             this.object = data;
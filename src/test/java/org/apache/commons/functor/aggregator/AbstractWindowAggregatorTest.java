@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.aggregator.functions.IntegerCountAggregatorBinaryFunction;
+import org.apache.commons.functor.aggregator.functions.IntegerMaxAggregatorBinaryFunction;
+import org.apache.commons.functor.aggregator.functions.IntegerSumAggregatorBinaryFunction;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link AbstractWindowAggregator}.
+ */
+public class AbstractWindowAggregatorTest extends BaseFunctorTest {
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new TestWindow(new IntegerSumAggregatorBinaryFunction(), 5, 1000L, new AtomicLong());
+    }
+
+    @Test
+    public void testSlidingSum() throws Exception {
+        AtomicLong clock = new AtomicLong(10000L);
+        TestWindow agg = new TestWindow(new IntegerSumAggregatorBinaryFunction(), 3, 1000L, clock);
+        assertEquals(3000L, agg.getWindowDuration());
+        assertEquals(0, agg.evaluate().intValue());
+        agg.add(1);
+        agg.add(2);
+        assertEquals(3, agg.evaluate().intValue());
+        assertEquals(0, agg.evaluateCompleted().intValue());
+        clock.set(11500L);
+        agg.add(10);
+        assertEquals(13, agg.evaluate().intValue());
+        assertEquals(3, agg.evaluateCompleted().intValue());
+        clock.set(12000L);
+        agg.add(100);
+        assertEquals(113, agg.evaluate().intValue());
+        assertEquals(13, agg.evaluateCompleted().intValue());
+        // the first bucket drops out of the window
+        clock.set(13000L);
+        assertEquals(110, agg.evaluate().intValue());
+        assertEquals(113, agg.evaluateCompleted().intValue());
+        clock.set(14000L);
+        assertEquals(100, agg.evaluate().intValue());
+        assertEquals(110, agg.evaluateCompleted().intValue());
+        // long gap: everything expired
+        clock.set(60000L);
+        assertEquals(0, agg.evaluate().intValue());
+        assertEquals(0, agg.evaluateCompleted().intValue());
+    }
+
+    @Test
+    public void testSlidingMax() throws Exception {
+        AtomicLong clock = new AtomicLong(0L);
+        TestWindow agg = new TestWindow(new IntegerMaxAggregatorBinaryFunction(), 2, 10L, clock) {
+            @Override
+            protected Integer initialValue() {
+                return Integer.MIN_VALUE;
+            }
+        };
+        agg.add(7);
+        clock.set(10L);
+        agg.add(3);
+        assertEquals(7, agg.evaluate().intValue());
+        clock.set(20L);
+        agg.add(5);
+        assertEquals(5, agg.evaluate().intValue());
+        assertEquals(7, agg.evaluateCompleted().intValue());
+    }
+
+    @Test
+    public void testTumblingCount() throws Exception {
+        AtomicLong clock = new AtomicLong(0L);
+        TestWindow agg = new TestWindow(new IntegerCountAggregatorBinaryFunction(),
+                new IntegerSumAggregatorBinaryFunction(), 1, 100L, clock);
+        for (int i = 0; i < 5; i++) {
+            agg.add(i);
+        }
+        assertEquals(5, agg.evaluate().intValue());
+        assertEquals(0, agg.evaluateCompleted().intValue());
+        clock.set(150L);
+        agg.add(42);
+        assertEquals(1, agg.evaluate().intValue());
+        assertEquals(5, agg.evaluateCompleted().intValue());
+        agg.reset();
+        assertEquals(0, agg.evaluate().intValue());
+        assertEquals(0, agg.evaluateCompleted().intValue());
+    }
+
+    @Test
+    public void testClockGoingBack() throws Exception {
+        AtomicLong clock = new AtomicLong(5000L);
+        TestWindow agg = new TestWindow(new IntegerSumAggregatorBinaryFunction(), 2, 1000L, clock);
+        agg.add(1);
+        clock.set(3000L);
+        agg.add(2);
+        assertEquals(3, agg.evaluate().intValue());
+    }
+
+    @Test
+    public void testDefaultCombineFunction() throws Exception {
+        IntegerSumAggregatorBinaryFunction fct = new IntegerSumAggregatorBinaryFunction();
+        TestWindow agg = new TestWindow(fct, 2, 1000L, new AtomicLong());
+        assertSame(fct, agg.getAggregationFunction());
+        assertSame(fct, agg.getCombineFunction());
+        assertEquals(2, agg.getBucketCount());
+        assertEquals(1000L, agg.getBucketDuration());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBucketCount() throws Exception {
+        new TestWindow(new IntegerSumAggregatorBinaryFunction(), 0, 1000L, new AtomicLong());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBucketDuration() throws Exception {
+        new TestWindow(new IntegerSumAggregatorBinaryFunction(), 1, 0L, new AtomicLong());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullFunction() throws Exception {
+        new TestWindow(null, 1, 1000L, new AtomicLong());
+    }
+
+    /**
+     * Window of integers, starting at 0, with a manual clock.
+     */
+    static class TestWindow extends AbstractWindowAggregator<Integer> {
+        private final AtomicLong clock;
+
+        public TestWindow(BinaryFunction<Integer, Integer, Integer> fct, int bucketCount, long bucketDuration,
+                AtomicLong clock) {
+            this(fct, fct, bucketCount, bucketDuration, clock);
+        }
+
+        public TestWindow(BinaryFunction<Integer, Integer, Integer> fct,
+                BinaryFunction<Integer, Integer, Integer> combine, int bucketCount, long bucketDuration,
+                AtomicLong clock) {
+            super(fct, combine, bucketCount, bucketDuration);
+            this.clock = clock;
+        }
+
+        @Override
+        protected Integer initialValue() {
+            return 0;
+        }
+
+        @Override
+        protected long currentTimeMillis() {
+            return clock.get();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.aggregator.functions.DoubleSeriesSumAggregatorFunction;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link DoubleArrayBackedAggregator}.
+ */
+public class DoubleArrayBackedAggregatorTest extends BaseFunctorTest {
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new DoubleArrayBackedAggregator(new DoubleSeriesSumAggregatorFunction());
+    }
+
+    @Test
+    public void testAddEvaluateReset() throws Exception {
+        DoubleArrayBackedAggregator agg = (DoubleArrayBackedAggregator) makeFunctor();
+        assertNull(agg.evaluate());
+        double total = 0;
+        int calls = 100;
+        for (int i = 1; i <= calls; i++) {
+            if (i % 2 == 0) {
+                agg.add((double) i);
+            } else {
+                agg.add(Double.valueOf(i));
+            }
+            total += i;
+        }
+        assertEquals(calls, agg.getDataSize());
+        assertEquals(calls, agg.getSeries().size());
+        assertEquals(total, agg.evaluate().doubleValue(), 0.000001);
+        agg.reset();
+        assertEquals(0, agg.getDataSize());
+        assertNull(agg.evaluate());
+    }
+
+    @Test
+    public void testEvaluateAndReset() throws Exception {
+        DoubleArrayBackedAggregator agg = (DoubleArrayBackedAggregator) makeFunctor();
+        agg.add(1.5);
+        agg.add(2.5);
+        DoubleSeries frozen = agg.getSeries();
+        assertEquals(4.0, agg.evaluateAndReset().doubleValue(), 0.000001);
+        assertTrue(frozen != agg.getSeries());
+        assertEquals(0, agg.getDataSize());
+        assertEquals(2, frozen.size());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testAddNull() throws Exception {
+        DoubleArrayBackedAggregator agg = (DoubleArrayBackedAggregator) makeFunctor();
+        agg.add((Double) null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullFunction() throws Exception {
+        new DoubleArrayBackedAggregator(null);
+    }
+
+    @Test
+    public void testAggregationFunction() throws Exception {
+        DoubleSeriesSumAggregatorFunction fct = new DoubleSeriesSumAggregatorFunction();
+        assertSame(fct, new DoubleArrayBackedAggregator(fct, 0L).getAggregationFunction());
+    }
+}
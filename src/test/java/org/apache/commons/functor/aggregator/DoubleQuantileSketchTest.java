@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link DoubleQuantileSketch}.
+ */
+public class DoubleQuantileSketchTest {
+    private static final double[] PERCENTILES = {0, 1, 10, 25, 50, 75, 90, 99, 99.9, 100 };
+
+    @Test
+    public void testEmpty() throws Exception {
+        DoubleQuantileSketch sketch = new DoubleQuantileSketch();
+        assertTrue(sketch.isEmpty());
+        assertEquals(0L, sketch.getCount());
+        assertEquals(0.0, sketch.getSum(), 0.0);
+        assertTrue(Double.isNaN(sketch.getPercentile(50)));
+        assertTrue(Double.isNaN(sketch.getMin()));
+        assertTrue(Double.isNaN(sketch.getMax()));
+        assertEquals(DoubleQuantileSketch.DEFAULT_RELATIVE_ACCURACY, sketch.getRelativeAccuracy(), 0.0);
+        assertEquals(DoubleQuantileSketch.DEFAULT_MAX_BUCKETS, sketch.getMaxBuckets());
+    }
+
+    @Test
+    public void testSingleValue() throws Exception {
+        DoubleQuantileSketch sketch = new DoubleQuantileSketch();
+        sketch.add(42.5);
+        assertFalse(sketch.isEmpty());
+        for (double p : PERCENTILES) {
+            assertEquals(42.5, sketch.getPercentile(p), 0.0);
+        }
+    }
+
+    @Test
+    public void testPositiveValues() throws Exception {
+        Random rnd = new Random(1L);
+        double[] data = new double[10000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = Math.exp(rnd.nextGaussian() * 3);
+        }
+        checkAccuracy(new DoubleQuantileSketch(), data);
+        checkAccuracy(new DoubleQuantileSketch(0.001, 16384), data);
+    }
+
+    @Test
+    public void testMixedValues() throws Exception {
+        Random rnd = new Random(2L);
+        double[] data = new double[5000];
+        for (int i = 0; i < data.length; i++) {
+            int kind = rnd.nextInt(5);
+            if (kind == 0) {
+                data[i] = 0.0;
+            } else if (kind == 1) {
+                data[i] = -rnd.nextDouble() * 1000;
+            } else {
+                data[i] = rnd.nextDouble() * 1000;
+            }
+        }
+        checkAccuracy(new DoubleQuantileSketch(0.02), data);
+    }
+
+    @Test
+    public void testMinMaxSum() throws Exception {
+        DoubleQuantileSketch sketch = new DoubleQuantileSketch();
+        sketch.add(-3.0);
+        sketch.add(0.0);
+        sketch.add(10.0);
+        assertEquals(3L, sketch.getCount());
+        assertEquals(7.0, sketch.getSum(), 0.000001);
+        assertEquals(-3.0, sketch.getMin(), 0.0);
+        assertEquals(10.0, sketch.getMax(), 0.0);
+        assertEquals(-3.0, sketch.getPercentile(0), 0.0);
+        assertEquals(0.0, sketch.getPercentile(50), 0.0);
+        assertEquals(10.0, sketch.getPercentile(100), 0.0);
+    }
+
+    @Test
+    public void testBucketCapKeepsHighPercentiles() throws Exception {
+        DoubleQuantileSketch sketch = new DoubleQuantileSketch(0.01, 32);
+        double[] data = new double[100000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = i + 1;
+            sketch.add(data[i]);
+        }
+        double[] sorted = data.clone();
+        Arrays.sort(sorted);
+        for (double p : new double[] {90, 99, 99.9, 100 }) {
+            double exact = sorted[(int) Math.floor(p * (sorted.length - 1) / 100.0)];
+            assertEquals("p" + p, exact, sketch.getPercentile(p), exact * 0.01 + 0.000001);
+        }
+        // the lowest values were collapsed but are still accounted for
+        assertEquals(data.length, sketch.getCount());
+        assertTrue(sketch.getPercentile(0) >= 1.0);
+    }
+
+    @Test
+    public void testClearCopyNewEmpty() throws Exception {
+        DoubleQuantileSketch sketch = new DoubleQuantileSketch(0.05, 100);
+        for (int i = 1; i <= 100; i++) {
+            sketch.add(i);
+        }
+        DoubleQuantileSketch copy = sketch.copy();
+        DoubleQuantileSketch empty = sketch.newEmpty();
+        assertTrue(empty.isEmpty());
+        assertEquals(0.05, empty.getRelativeAccuracy(), 0.0);
+        assertEquals(100, empty.getMaxBuckets());
+        sketch.clear();
+        assertTrue(sketch.isEmpty());
+        assertEquals(100L, copy.getCount());
+        assertEquals(5050.0, copy.getSum(), 0.000001);
+        assertEquals(50.0, copy.getPercentile(50), 50.0 * 0.05);
+        sketch.add(7.0);
+        assertEquals(7.0, sketch.getPercentile(50), 0.0);
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        Random random = new Random(17);
+        DoubleQuantileSketch all = new DoubleQuantileSketch(0.01);
+        DoubleQuantileSketch left = all.newEmpty();
+        DoubleQuantileSketch right = all.newEmpty();
+        for (int i = 0; i < 10000; i++) {
+            double value = random.nextGaussian() * 100.0;
+            all.add(value);
+            if (i % 3 == 0) {
+                left.add(value);
+            } else {
+                right.add(value);
+            }
+        }
+        left.merge(right);
+        assertEquals(all.getCount(), left.getCount());
+        assertEquals(all.getSum(), left.getSum(), 0.000001);
+        assertEquals(all.getMin(), left.getMin(), 0.0);
+        assertEquals(all.getMax(), left.getMax(), 0.0);
+        for (double p : PERCENTILES) {
+            assertEquals(all.getPercentile(p), left.getPercentile(p), 0.0);
+        }
+        // merging an empty sketch (or into one) changes nothing
+        DoubleQuantileSketch empty = all.newEmpty();
+        left.merge(empty);
+        assertEquals(all.getCount(), left.getCount());
+        empty.merge(all);
+        assertEquals(all.getPercentile(50), empty.getPercentile(50), 0.0);
+        assertEquals(all.getMin(), empty.getMin(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeDifferentAccuracy() throws Exception {
+        new DoubleQuantileSketch(0.01).merge(new DoubleQuantileSketch(0.02));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddNaN() throws Exception {
+        new DoubleQuantileSketch().add(Double.NaN);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddInfinite() throws Exception {
+        new DoubleQuantileSketch().add(Double.POSITIVE_INFINITY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentile() throws Exception {
+        new DoubleQuantileSketch().getPercentile(100.5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidAccuracy() throws Exception {
+        new DoubleQuantileSketch(1.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxBuckets() throws Exception {
+        new DoubleQuantileSketch(0.01, 0);
+    }
+
+    private void checkAccuracy(DoubleQuantileSketch sketch, double[] data) {
+        for (double d : data) {
+            sketch.add(d);
+        }
+        double[] sorted = data.clone();
+        Arrays.sort(sorted);
+        for (double p : PERCENTILES) {
+            double exact = sorted[(int) Math.floor(p * (sorted.length - 1) / 100.0)];
+            double delta = Math.abs(exact) * sketch.getRelativeAccuracy() + 0.000001;
+            assertEquals("p" + p, exact, sketch.getPercentile(p), delta);
+        }
+    }
+}
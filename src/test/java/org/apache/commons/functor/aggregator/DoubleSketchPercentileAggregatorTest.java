@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.aggregator.functions.DoublePercentileAggregatorFunction;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link DoubleSketchPercentileAggregator}.
+ */
+public class DoubleSketchPercentileAggregatorTest extends BaseFunctorTest {
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new DoubleSketchPercentileAggregator(50, 0.01);
+    }
+
+    @Test
+    public void testAddEvaluateReset() throws Exception {
+        DoubleSketchPercentileAggregator agg = (DoubleSketchPercentileAggregator) makeFunctor();
+        assertNull(agg.evaluate());
+        assertNull(agg.getPercentile(99));
+        for (int i = 1; i <= 101; i++) {
+            if (i % 2 == 0) {
+                agg.add((double) i);
+            } else {
+                agg.add(Double.valueOf(i));
+            }
+        }
+        assertEquals(0, agg.getDataSize());
+        assertEquals(51.0, agg.evaluate().doubleValue(), 51.0 * 0.01);
+        assertEquals(1.0, agg.getPercentile(0).doubleValue(), 0.0);
+        assertEquals(101.0, agg.getPercentile(100).doubleValue(), 0.0);
+        agg.reset();
+        assertNull(agg.evaluate());
+    }
+
+    @Test
+    public void testAgainstExactPercentile() throws Exception {
+        Random rnd = new Random(3L);
+        List<Double> data = new ArrayList<Double>();
+        double[] percentiles = {50, 90, 99, 99.9 };
+        DoubleSketchPercentileAggregator agg = new DoubleSketchPercentileAggregator(99, 0.01);
+        for (int i = 0; i < 20000; i++) {
+            double d = Math.exp(rnd.nextGaussian() * 2);
+            data.add(d);
+            agg.add(d);
+        }
+        for (double p : percentiles) {
+            double exact = new DoublePercentileAggregatorFunction(p).evaluate(data).doubleValue();
+            assertEquals("p" + p, exact, agg.getPercentile(p).doubleValue(), exact * 0.01 + 0.000001);
+        }
+        assertEquals(agg.getPercentile(99), agg.evaluate());
+    }
+
+    @Test
+    public void testEvaluateAndReset() throws Exception {
+        DoubleSketchPercentileAggregator agg = (DoubleSketchPercentileAggregator) makeFunctor();
+        agg.add(5.0);
+        agg.add(5.0);
+        DoubleQuantileSketch copy = agg.getSketch();
+        assertEquals(5.0, agg.evaluateAndReset().doubleValue(), 0.0);
+        assertNull(agg.evaluate());
+        assertEquals(2L, copy.getCount());
+        agg.add(7.0);
+        assertEquals(7.0, agg.evaluateAndReset().doubleValue(), 0.0);
+        assertTrue(agg.getSketch().isEmpty());
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        DoubleSketchPercentileAggregator node1 = new DoubleSketchPercentileAggregator(50, 0.01);
+        DoubleSketchPercentileAggregator node2 = new DoubleSketchPercentileAggregator(50, 0.01);
+        DoubleSketchPercentileAggregator central = new DoubleSketchPercentileAggregator(90, 0.01);
+        for (int i = 1; i <= 90; i++) {
+            node1.add((double) i);
+        }
+        // the median of the medians would be wrong
+        for (int i = 0; i < 10; i++) {
+            node2.add(1000.0);
+        }
+        central.merge(node1.exportState());
+        central.merge(node2.exportState());
+        assertEquals(100L, central.getSketch().getCount());
+        assertEquals(50.0, central.getPercentile(50).doubleValue(), 50.0 * 0.01);
+        assertEquals(90.0, central.evaluate().doubleValue(), 90.0 * 0.01);
+        assertEquals(1000.0, central.getPercentile(100).doubleValue(), 0.0);
+        // the exported state is a copy
+        DoubleQuantileSketch state = node1.exportState();
+        node1.reset();
+        assertEquals(90L, state.getCount());
+    }
+
+    @Test
+    public void testGetters() throws Exception {
+        DoubleSketchPercentileAggregator agg = new DoubleSketchPercentileAggregator(95, 0.02, 128, 0L, false);
+        assertEquals(95.0, agg.getPercentile(), 0.0);
+        assertEquals(0.02, agg.getSketch().getRelativeAccuracy(), 0.0);
+        assertEquals(128, agg.getSketch().getMaxBuckets());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testAddNull() throws Exception {
+        DoubleSketchPercentileAggregator agg = (DoubleSketchPercentileAggregator) makeFunctor();
+        agg.add((Double) null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentile() throws Exception {
+        new DoubleSketchPercentileAggregator(-1, 0.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidAccuracy() throws Exception {
+        new DoubleSketchPercentileAggregator(50, 0.0);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link DoubleSummaryAggregator}.
+ */
+public class DoubleSummaryAggregatorTest extends BaseFunctorTest {
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new DoubleSummaryAggregator();
+    }
+
+    @Test
+    public void testAddEvaluateReset() throws Exception {
+        DoubleSummaryAggregator agg = new DoubleSummaryAggregator();
+        assertNull(agg.evaluate());
+        agg.add(1.0);
+        agg.add(Double.valueOf(2.0));
+        agg.add(6.0);
+        assertEquals(3.0, agg.evaluate().doubleValue(), 0.0);
+        assertEquals(0, agg.getDataSize());
+        assertEquals(new DoubleSummary(3L, 9.0, 1.0, 6.0), agg.exportState());
+        assertEquals(3.0, agg.evaluateAndReset().doubleValue(), 0.0);
+        assertNull(agg.evaluate());
+        assertEquals(DoubleSummary.EMPTY, agg.exportState());
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        DoubleSummaryAggregator node1 = new DoubleSummaryAggregator();
+        DoubleSummaryAggregator node2 = new DoubleSummaryAggregator();
+        DoubleSummaryAggregator central = new DoubleSummaryAggregator();
+        node1.add(1.0);
+        node1.add(3.0);
+        node2.add(10.0);
+        // the mean of the means would be 6
+        central.merge(node1.exportState());
+        central.merge(node2.exportState());
+        central.merge(new DoubleSummaryAggregator().exportState());
+        assertEquals(14.0 / 3.0, central.evaluate().doubleValue(), 0.000001);
+        DoubleSummary state = central.exportState();
+        assertEquals(3L, state.getCount());
+        assertEquals(1.0, state.getMin(), 0.0);
+        assertEquals(10.0, state.getMax(), 0.0);
+        assertEquals(state, node1.exportState().merge(node2.exportState()));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testAddNull() throws Exception {
+        new DoubleSummaryAggregator().add((Double) null);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link DoubleSummary}.
+ */
+public class DoubleSummaryTest {
+    @Test
+    public void testEmpty() throws Exception {
+        DoubleSummary empty = DoubleSummary.EMPTY;
+        assertEquals(0L, empty.getCount());
+        assertEquals(0.0, empty.getSum(), 0.0);
+        assertTrue(Double.isNaN(empty.getMin()));
+        assertTrue(Double.isNaN(empty.getMax()));
+        assertTrue(Double.isNaN(empty.getMean()));
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        DoubleSummary left = new DoubleSummary(2L, 3.0, 1.0, 2.0);
+        DoubleSummary right = new DoubleSummary(3L, 30.0, 5.0, 15.0);
+        DoubleSummary merged = left.merge(right);
+        assertEquals(5L, merged.getCount());
+        assertEquals(33.0, merged.getSum(), 0.0);
+        assertEquals(1.0, merged.getMin(), 0.0);
+        assertEquals(15.0, merged.getMax(), 0.0);
+        assertEquals(6.6, merged.getMean(), 0.000001);
+        assertEquals(merged, right.merge(left));
+        assertSame(left, left.merge(DoubleSummary.EMPTY));
+        assertSame(left, DoubleSummary.EMPTY.merge(left));
+    }
+
+    @Test
+    public void testEquals() throws Exception {
+        DoubleSummary summary = new DoubleSummary(2L, 3.0, 1.0, 2.0);
+        assertEquals(summary, summary);
+        assertEquals(summary, new DoubleSummary(2L, 3.0, 1.0, 2.0));
+        assertEquals(summary.hashCode(), new DoubleSummary(2L, 3.0, 1.0, 2.0).hashCode());
+        assertFalse(summary.equals(new DoubleSummary(2L, 3.0, 1.0, 2.5)));
+        assertFalse(summary.equals(new DoubleSummary(3L, 3.0, 1.0, 2.0)));
+        assertFalse(summary.equals(null));
+        assertFalse(summary.equals("summary"));
+        assertEquals("DoubleSummary<count=2, sum=3.0, min=1.0, max=2.0>", summary.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeCount() throws Exception {
+        new DoubleSummary(-1L, 0.0, 0.0, 0.0);
+    }
+}
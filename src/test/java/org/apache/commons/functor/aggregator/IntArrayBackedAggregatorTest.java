@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.aggregator.functions.IntSeriesSumAggregatorFunction;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link IntArrayBackedAggregator}.
+ */
+public class IntArrayBackedAggregatorTest extends BaseFunctorTest {
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new IntArrayBackedAggregator(new IntSeriesSumAggregatorFunction());
+    }
+
+    @Test
+    public void testAddEvaluateReset() throws Exception {
+        IntArrayBackedAggregator agg = (IntArrayBackedAggregator) makeFunctor();
+        assertNull(agg.evaluate());
+        int total = 0;
+        int calls = 100;
+        for (int i = 1; i <= calls; i++) {
+            if (i % 2 == 0) {
+                agg.add((int) i);
+            } else {
+                agg.add(Integer.valueOf(i));
+            }
+            total += i;
+        }
+        assertEquals(calls, agg.getDataSize());
+        assertEquals(calls, agg.getSeries().size());
+        assertEquals(total, agg.evaluate().intValue());
+        agg.reset();
+        assertEquals(0, agg.getDataSize());
+        assertNull(agg.evaluate());
+    }
+
+    @Test
+    public void testEvaluateAndReset() throws Exception {
+        IntArrayBackedAggregator agg = (IntArrayBackedAggregator) makeFunctor();
+        agg.add(1);
+        agg.add(2);
+        IntSeries frozen = agg.getSeries();
+        assertEquals(3, agg.evaluateAndReset().intValue());
+        assertTrue(frozen != agg.getSeries());
+        assertEquals(0, agg.getDataSize());
+        assertEquals(2, frozen.size());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testAddNull() throws Exception {
+        IntArrayBackedAggregator agg = (IntArrayBackedAggregator) makeFunctor();
+        agg.add((Integer) null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullFunction() throws Exception {
+        new IntArrayBackedAggregator(null);
+    }
+
+    @Test
+    public void testAggregationFunction() throws Exception {
+        IntSeriesSumAggregatorFunction fct = new IntSeriesSumAggregatorFunction();
+        assertSame(fct, new IntArrayBackedAggregator(fct, 0L).getAggregationFunction());
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link IntSeries}.
+ */
+public class IntSeriesTest {
+    @Test
+    public void testAddGrow() throws Exception {
+        IntSeries series = new IntSeries(0);
+        assertTrue(series.isEmpty());
+        int calls = 1000;
+        for (int i = 0; i < calls; i++) {
+            series.add(i);
+        }
+        assertFalse(series.isEmpty());
+        assertEquals(calls, series.size());
+        for (int i = 0; i < calls; i++) {
+            assertEquals(i, series.get(i));
+        }
+        int[] array = series.toArray();
+        assertEquals(calls, array.length);
+        assertEquals(calls - 1, array[calls - 1]);
+        series.clear();
+        assertEquals(0, series.size());
+    }
+
+    @Test
+    public void testGetOutOfBounds() throws Exception {
+        IntSeries series = new IntSeries();
+        series.add(1);
+        try {
+            series.get(1);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        try {
+            series.get(-1);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeCapacity() throws Exception {
+        new IntSeries(-1);
+    }
+
+    @Test
+    public void testSort() throws Exception {
+        IntSeries series = new IntSeries();
+        series.add(3);
+        series.add(1);
+        series.add(2);
+        series.sort();
+        assertEquals(1, series.get(0));
+        assertEquals(2, series.get(1));
+        assertEquals(3, series.get(2));
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.aggregator.functions.IntegerSumAggregatorBinaryFunction;
+import org.apache.commons.functor.core.Constant;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link KeyedAggregator}.
+ */
+public class KeyedAggregatorTest extends BaseFunctorTest {
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new TestKeyedAggregator(10, 0L, new AtomicLong());
+    }
+
+    @Test
+    public void testAddEvaluate() throws Exception {
+        TestKeyedAggregator agg = new TestKeyedAggregator(10, 0L, new AtomicLong());
+        assertNull(agg.evaluate("a"));
+        assertTrue(agg.add("a", 1));
+        assertTrue(agg.add("a", 2));
+        assertTrue(agg.add("b", 10));
+        assertEquals(3, agg.evaluate("a").intValue());
+        assertEquals(10, agg.evaluate("b").intValue());
+        assertEquals(2, agg.size());
+        Map<String, Integer> all = agg.evaluateAll();
+        assertEquals(2, all.size());
+        assertEquals(3, all.get("a").intValue());
+        assertEquals(10, all.get("b").intValue());
+    }
+
+    @Test
+    public void testFlush() throws Exception {
+        TestKeyedAggregator agg = new TestKeyedAggregator(10, 0L, new AtomicLong());
+        final List<Map<String, Integer>> received = new ArrayList<Map<String, Integer>>();
+        KeyedAggregatorListener<String, Integer> listener = new KeyedAggregatorListener<String, Integer>() {
+            public void onFlush(KeyedAggregator<String, Integer> aggregator, Map<String, Integer> values) {
+                received.add(values);
+            }
+        };
+        agg.addListener(listener);
+        agg.add("a", 1);
+        agg.add("b", 2);
+        Map<String, Integer> flushed = agg.flush();
+        assertEquals(1, flushed.get("a").intValue());
+        assertEquals(2, flushed.get("b").intValue());
+        assertEquals(1, received.size());
+        assertSame(flushed, received.get(0));
+        // keys are kept, with the initial value
+        assertEquals(2, agg.size());
+        assertEquals(0, agg.evaluate("a").intValue());
+        agg.add("a", 5);
+        flushed = agg.flush();
+        assertEquals(5, flushed.get("a").intValue());
+        assertEquals(0, flushed.get("b").intValue());
+        assertTrue(agg.removeListener(listener));
+        agg.flush();
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    public void testEvictIdle() throws Exception {
+        AtomicLong clock = new AtomicLong(1000L);
+        TestKeyedAggregator agg = new TestKeyedAggregator(10, 100L, clock);
+        agg.add("a", 1);
+        clock.set(1050L);
+        agg.add("b", 2);
+        clock.set(1120L);
+        // "a" is idle, but its data is still part of the flush
+        Map<String, Integer> flushed = agg.flush();
+        assertEquals(1, flushed.get("a").intValue());
+        assertEquals(2, flushed.get("b").intValue());
+        assertEquals(1, agg.size());
+        assertFalse(agg.keySet().contains("a"));
+        assertNull(agg.evaluate("a"));
+        clock.set(1200L);
+        assertEquals(1, agg.evictIdle());
+        assertEquals(0, agg.size());
+        // an evicted key can be added again
+        assertTrue(agg.add("a", 7));
+        assertEquals(7, agg.evaluate("a").intValue());
+    }
+
+    @Test
+    public void testEvictIdleKeepsDataNotFlushed() throws Exception {
+        AtomicLong clock = new AtomicLong(1000L);
+        TestKeyedAggregator agg = new TestKeyedAggregator(10, 100L, clock);
+        agg.add("a", 1);
+        agg.flush();
+        agg.add("a", 4);
+        clock.set(1200L);
+        // "a" is idle, but holds data the listeners haven't received yet
+        assertEquals(0, agg.evictIdle());
+        assertEquals(4, agg.evaluate("a").intValue());
+        // the flush passes the data on, then evicts the key
+        Map<String, Integer> flushed = agg.flush();
+        assertEquals(4, flushed.get("a").intValue());
+        assertEquals(0, agg.size());
+        // a key whose data has all been flushed is evicted once idle
+        agg.add("b", 2);
+        agg.flush();
+        clock.set(1400L);
+        assertEquals(1, agg.evictIdle());
+    }
+
+    @Test
+    public void testNoEviction() throws Exception {
+        AtomicLong clock = new AtomicLong(0L);
+        TestKeyedAggregator agg = new TestKeyedAggregator(10, 0L, clock);
+        agg.add("a", 1);
+        clock.set(Long.MAX_VALUE / 2);
+        assertEquals(0, agg.evictIdle());
+        agg.flush();
+        assertEquals(1, agg.size());
+    }
+
+    @Test
+    public void testCardinalityCap() throws Exception {
+        AtomicLong clock = new AtomicLong(0L);
+        TestKeyedAggregator agg = new TestKeyedAggregator(2, 10L, clock);
+        assertEquals(2, agg.getMaxKeys());
+        assertTrue(agg.add("a", 1));
+        assertTrue(agg.add("b", 1));
+        assertFalse(agg.add("c", 1));
+        assertFalse(agg.add("d", 1));
+        assertEquals(2L, agg.getRejectedCount());
+        // existing keys are still accepted
+        assertTrue(agg.add("a", 1));
+        assertEquals(2, agg.evaluate("a").intValue());
+        assertNull(agg.evaluate("c"));
+        // room is made by evicting the idle keys
+        clock.set(100L);
+        agg.flush();
+        assertTrue(agg.add("c", 1));
+        assertEquals(2L, agg.getRejectedCount());
+    }
+
+    @Test
+    public void testCardinalityCapWithConcurrentNewKeys() throws Exception {
+        final TestKeyedAggregator agg = new TestKeyedAggregator(10, 0L, new AtomicLong());
+        final int threads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicInteger accepted = new AtomicInteger();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < 1000; i++) {
+                            if (agg.add(thread + "-" + i, 1)) {
+                                accepted.incrementAndGet();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+        start.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        // every key is new, so exactly maxKeys adds are accepted
+        assertEquals(10, accepted.get());
+        assertEquals(10, agg.size());
+        assertEquals(threads * 1000L - 10L, agg.getRejectedCount());
+        // the slots are released by the eviction
+        agg.reset();
+        assertTrue(agg.add("a", 1));
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        TestKeyedAggregator agg = new TestKeyedAggregator(10, 0L, new AtomicLong());
+        agg.add("a", 1);
+        agg.add("b", 1);
+        agg.reset();
+        assertEquals(0, agg.size());
+        assertNull(agg.evaluate("a"));
+        assertTrue(agg.add("a", 3));
+        assertEquals(3, agg.evaluate("a").intValue());
+    }
+
+    @Test
+    public void testConcurrentAdd() throws Exception {
+        final TestKeyedAggregator agg = new TestKeyedAggregator(100, 0L, new AtomicLong());
+        final int threads = 4;
+        final int count = 10000;
+        final AtomicLong flushedTotal = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < count; i++) {
+                        agg.add("k" + (i % 10), 1);
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        while (!done.await(1L, TimeUnit.MILLISECONDS)) {
+            flushedTotal.addAndGet(sum(agg.flush()));
+        }
+        flushedTotal.addAndGet(sum(agg.flush()));
+        assertEquals(threads * count, flushedTotal.get());
+    }
+
+    @Test
+    public void testScheduledFlush() throws Exception {
+        TimerWheelScheduler scheduler = new TimerWheelScheduler(5L, 16);
+        try {
+            KeyedAggregator<String, Integer> agg = new KeyedAggregator<String, Integer>(
+                    new IntegerSumAggregatorBinaryFunction(), Constant.of(0), 10, 0L, 20L, scheduler);
+            assertEquals(20L, agg.getInterval());
+            final CountDownLatch flushed = new CountDownLatch(1);
+            final AtomicReference<Map<String, Integer>> values = new AtomicReference<Map<String, Integer>>();
+            agg.addListener(new KeyedAggregatorListener<String, Integer>() {
+                public void onFlush(KeyedAggregator<String, Integer> aggregator, Map<String, Integer> v) {
+                    if (!v.isEmpty() && v.get("a").intValue() > 0 && values.compareAndSet(null, v)) {
+                        flushed.countDown();
+                    }
+                }
+            });
+            agg.add("a", 4);
+            assertTrue(flushed.await(5L, TimeUnit.SECONDS));
+            assertEquals(4, values.get().get("a").intValue());
+            agg.stop();
+            assertFalse(agg.removeListener(null));
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testListenerExecutor() throws Exception {
+        TestKeyedAggregator agg = new TestKeyedAggregator(10, 0L, new AtomicLong());
+        final List<Runnable> queued = new ArrayList<Runnable>();
+        agg.setListenerExecutor(new Executor() {
+            public void execute(Runnable command) {
+                queued.add(command);
+            }
+        });
+        final List<Map<String, Integer>> received = new ArrayList<Map<String, Integer>>();
+        agg.addListener(new KeyedAggregatorListener<String, Integer>() {
+            public void onFlush(KeyedAggregator<String, Integer> aggregator, Map<String, Integer> values) {
+                received.add(values);
+            }
+        });
+        agg.add("a", 1);
+        agg.flush();
+        assertEquals(0, received.size());
+        assertEquals(1, queued.size());
+        queued.get(0).run();
+        assertEquals(1, received.size());
+        assertEquals(1, received.get(0).get("a").intValue());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullFunction() throws Exception {
+        new KeyedAggregator<String, Integer>(null, Constant.of(0), 10, 0L);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullInitialValue() throws Exception {
+        new KeyedAggregator<String, Integer>(new IntegerSumAggregatorBinaryFunction(), null, 10, 0L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxKeys() throws Exception {
+        new KeyedAggregator<String, Integer>(new IntegerSumAggregatorBinaryFunction(), Constant.of(0), 0, 0L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidInterval() throws Exception {
+        TimerWheelScheduler scheduler = new TimerWheelScheduler();
+        try {
+            new KeyedAggregator<String, Integer>(new IntegerSumAggregatorBinaryFunction(), Constant.of(0), 10, 0L, 0L,
+                    scheduler);
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * Sums the values of a flush.
+     *
+     * @param values
+     *            values to sum
+     * @return sum of the values
+     */
+    private static long sum(Map<String, Integer> values) {
+        long result = 0L;
+        for (Integer value : values.values()) {
+            result += value.intValue();
+        }
+        return result;
+    }
+
+    /**
+     * Sums integers per key, using a manual clock.
+     */
+    static class TestKeyedAggregator extends KeyedAggregator<String, Integer> {
+        /** Clock used for eviction. */
+        private final AtomicLong clock;
+
+        public TestKeyedAggregator(int maxKeys, long idleTimeout, AtomicLong clock) {
+            super(new IntegerSumAggregatorBinaryFunction(), Constant.of(0), maxKeys, idleTimeout);
+            this.clock = clock;
+        }
+
+        @Override
+        protected long currentTimeMillis() {
+            return clock.get();
+        }
+    }
+}
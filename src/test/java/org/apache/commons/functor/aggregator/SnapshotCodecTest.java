@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link SnapshotCodec}.
+ */
+public class SnapshotCodecTest {
+    @Test
+    public void testScalars() throws Exception {
+        assertNull(roundTrip(null));
+        assertEquals(Integer.valueOf(0), roundTrip(0));
+        assertEquals(Integer.valueOf(-1), roundTrip(-1));
+        assertEquals(Integer.valueOf(Integer.MIN_VALUE), roundTrip(Integer.MIN_VALUE));
+        assertEquals(Integer.valueOf(Integer.MAX_VALUE), roundTrip(Integer.MAX_VALUE));
+        assertEquals(Long.valueOf(Long.MIN_VALUE), roundTrip(Long.MIN_VALUE));
+        assertEquals(Long.valueOf(Long.MAX_VALUE), roundTrip(Long.MAX_VALUE));
+        assertEquals(Double.valueOf(Math.PI), roundTrip(Math.PI));
+        assertTrue(Double.isNaN(((Double) roundTrip(Double.NaN)).doubleValue()));
+        // header (3 bytes) + one byte for small values
+        assertEquals(4, SnapshotCodec.encode(Integer.valueOf(42)).remaining());
+    }
+
+    @Test
+    public void testIntSeries() throws Exception {
+        IntSeries series = new IntSeries();
+        Random random = new Random(3);
+        int value = 1000000;
+        for (int i = 0; i < 1000; i++) {
+            value += random.nextInt(100) - 50;
+            series.add(value);
+        }
+        series.add(Integer.MIN_VALUE);
+        series.add(Integer.MAX_VALUE);
+        ByteBuffer encoded = SnapshotCodec.encode(series);
+        // close values take 1 or 2 bytes instead of 4
+        assertTrue(encoded.remaining() < 2 * series.size());
+        IntSeries decoded = SnapshotCodec.decode(encoded, IntSeries.class);
+        assertEquals(series.size(), decoded.size());
+        for (int i = 0; i < series.size(); i++) {
+            assertEquals(series.get(i), decoded.get(i));
+        }
+        assertEquals(0, SnapshotCodec.decode(SnapshotCodec.encode(new IntSeries()), IntSeries.class).size());
+    }
+
+    @Test
+    public void testDoubleSeries() throws Exception {
+        DoubleSeries series = new DoubleSeries();
+        for (int i = 0; i < 1000; i++) {
+            series.add(100.0 + (i % 7));
+        }
+        ByteBuffer encoded = SnapshotCodec.encode(series);
+        assertTrue(encoded.remaining() < 4 * series.size());
+        assertSameSeries(series, SnapshotCodec.decode(encoded, DoubleSeries.class));
+
+        Random random = new Random(5);
+        series = new DoubleSeries();
+        for (int i = 0; i < 1000; i++) {
+            series.add(random.nextDouble());
+        }
+        series.add(-0.0);
+        series.add(Double.NaN);
+        series.add(Double.NEGATIVE_INFINITY);
+        series.add(Double.MIN_VALUE);
+        encoded = SnapshotCodec.encode(series);
+        // never more than one byte over the raw size
+        assertTrue(encoded.remaining() <= 9 * series.size() + 8);
+        assertSameSeries(series, SnapshotCodec.decode(encoded, DoubleSeries.class));
+    }
+
+    @Test
+    public void testSketch() throws Exception {
+        DoubleQuantileSketch sketch = new DoubleQuantileSketch(0.01, 512);
+        Random random = new Random(7);
+        for (int i = 0; i < 10000; i++) {
+            sketch.add(random.nextGaussian() * 1000.0);
+        }
+        sketch.add(0.0);
+        ByteBuffer encoded = SnapshotCodec.encode(sketch);
+        DoubleQuantileSketch decoded = SnapshotCodec.decode(encoded, DoubleQuantileSketch.class);
+        assertEquals(sketch.getRelativeAccuracy(), decoded.getRelativeAccuracy(), 0.0);
+        assertEquals(sketch.getMaxBuckets(), decoded.getMaxBuckets());
+        assertEquals(sketch.getCount(), decoded.getCount());
+        assertEquals(sketch.getSum(), decoded.getSum(), 0.0);
+        assertEquals(sketch.getMin(), decoded.getMin(), 0.0);
+        assertEquals(sketch.getMax(), decoded.getMax(), 0.0);
+        for (double p = 0; p <= 100; p += 0.5) {
+            assertEquals(sketch.getPercentile(p), decoded.getPercentile(p), 0.0);
+        }
+        // the decoded sketch can be merged and added to
+        decoded.merge(sketch);
+        decoded.add(1.0);
+        assertEquals(2 * sketch.getCount() + 1, decoded.getCount());
+
+        DoubleQuantileSketch empty = SnapshotCodec.decode(SnapshotCodec.encode(new DoubleQuantileSketch()),
+                DoubleQuantileSketch.class);
+        assertTrue(empty.isEmpty());
+    }
+
+    @Test
+    public void testSummary() throws Exception {
+        DoubleSummary summary = new DoubleSummary(3L, 6.5, -1.0, 5.0);
+        assertEquals(summary, roundTrip(summary));
+        assertEquals(DoubleSummary.EMPTY, roundTrip(DoubleSummary.EMPTY));
+    }
+
+    @Test
+    public void testChannel() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WritableByteChannel out = Channels.newChannel(bytes);
+        SnapshotCodec.write(Integer.valueOf(12), out);
+        SnapshotCodec.write(null, out);
+        SnapshotCodec.write(new DoubleSummary(1L, 2.0, 2.0, 2.0), out);
+        ReadableByteChannel in = Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(Integer.valueOf(12), SnapshotCodec.read(in));
+        assertNull(SnapshotCodec.read(in));
+        assertEquals(new DoubleSummary(1L, 2.0, 2.0, 2.0), SnapshotCodec.read(in));
+        try {
+            SnapshotCodec.read(in);
+            throw new AssertionError("expected EOFException");
+        } catch (EOFException e) {
+            // expected
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncatedChannel() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SnapshotCodec.write(Long.valueOf(Long.MAX_VALUE), Channels.newChannel(bytes));
+        byte[] truncated = new byte[bytes.size() - 1];
+        System.arraycopy(bytes.toByteArray(), 0, truncated, 0, truncated.length);
+        SnapshotCodec.read(Channels.newChannel(new ByteArrayInputStream(truncated)));
+    }
+
+    @Test(expected = EOFException.class)
+    public void testHugeChannelLength() throws Exception {
+        byte[] bytes = new byte[] {0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xF0, 1, 2, 3 };
+        SnapshotCodec.read(Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNegativeChannelLength() throws Exception {
+        byte[] bytes = new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 1, 2, 3 };
+        SnapshotCodec.read(Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    public void testCorruptChannel() throws Exception {
+        ByteBuffer corrupt = withHeader(new IntSeries(), 0xFF, 0xFF, 0xFF, 0x07);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Channels.newChannel(bytes).write((ByteBuffer) ByteBuffer.allocate(4).putInt(corrupt.remaining()).flip());
+        Channels.newChannel(bytes).write(corrupt);
+        try {
+            SnapshotCodec.read(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+            throw new AssertionError("expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHugeIntSeriesSize() throws Exception {
+        SnapshotCodec.decode(withHeader(new IntSeries(), 0xFF, 0xFF, 0xFF, 0xFF, 0x07));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIntSeriesSizeAboveRemaining() throws Exception {
+        SnapshotCodec.decode(withHeader(new IntSeries(), 3, 2, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeDoubleSeriesSize() throws Exception {
+        SnapshotCodec.decode(withHeader(new DoubleSeries(), 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF,
+            0x01));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSketchMaxBuckets() throws Exception {
+        ByteBuffer encoded = SnapshotCodec.encode(new DoubleQuantileSketch(0.01, 512));
+        ByteBuffer corrupt = ByteBuffer.allocate(21);
+        corrupt.put(encoded.array(), 0, 11);
+        corrupt.put(new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+            (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01 });
+        corrupt.flip();
+        SnapshotCodec.decode(corrupt);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSketchBucketsAboveRemaining() throws Exception {
+        DoubleQuantileSketch sketch = new DoubleQuantileSketch(0.01, 512);
+        sketch.add(1.0);
+        ByteBuffer encoded = SnapshotCodec.encode(sketch);
+        // the number of positive buckets in use follows the header (3 bytes),
+        // the relative accuracy, the maximum number of buckets (2 bytes), the
+        // count, the number of zeros and the sum, min and max
+        int used = 3 + 8 + 2 + 1 + 1 + 8 * 3;
+        assertEquals(1, encoded.get(used));
+        encoded.put(used, (byte) 100);
+        SnapshotCodec.decode(encoded);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedType() throws Exception {
+        SnapshotCodec.encode("text");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotASnapshot() throws Exception {
+        SnapshotCodec.decode(ByteBuffer.wrap(new byte[] {1, 2, 3 }));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedVersion() throws Exception {
+        ByteBuffer encoded = SnapshotCodec.encode(Integer.valueOf(1));
+        encoded.put(1, (byte) (SnapshotCodec.FORMAT_VERSION + 1));
+        SnapshotCodec.decode(encoded);
+    }
+
+    @Test(expected = ClassCastException.class)
+    public void testWrongType() throws Exception {
+        SnapshotCodec.decode(SnapshotCodec.encode(Integer.valueOf(1)), Long.class);
+    }
+
+    /**
+     * Builds a (corrupt) encoded value: the header of the encoded prototype,
+     * followed by the given bytes.
+     *
+     * @param prototype
+     *            value whose header to use
+     * @param tail
+     *            bytes following the header
+     * @return buffer holding the encoded value
+     */
+    private static ByteBuffer withHeader(Object prototype, int... tail) {
+        ByteBuffer result = ByteBuffer.allocate(3 + tail.length);
+        result.put(SnapshotCodec.encode(prototype).array(), 0, 3);
+        for (int b : tail) {
+            result.put((byte) b);
+        }
+        result.flip();
+        return result;
+    }
+
+    /**
+     * Encodes and decodes a value.
+     *
+     * @param value
+     *            value to encode
+     * @return decoded value
+     */
+    private static Object roundTrip(Object value) {
+        ByteBuffer encoded = SnapshotCodec.encode(value);
+        Object decoded = SnapshotCodec.decode(encoded);
+        assertEquals(0, encoded.remaining());
+        return decoded;
+    }
+
+    /**
+     * Checks that two series hold the same values, bit for bit.
+     *
+     * @param expected
+     *            expected values
+     * @param actual
+     *            actual values
+     */
+    private static void assertSameSeries(DoubleSeries expected, DoubleSeries actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(Double.doubleToRawLongBits(expected.get(i)), Double.doubleToRawLongBits(actual.get(i)));
+        }
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.aggregator.functions.IntegerSumAggregatorBinaryFunction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link TimerWheelScheduler}.
+ */
+public class TimerWheelSchedulerTest extends BaseFunctorTest {
+    /** Duration of a tick used in the tests. */
+    private static final long   TICK    = 5L;
+
+    /** Maximum time to wait for tasks to run. */
+    private static final long   TIMEOUT = 2000L;
+
+    private TimerWheelScheduler scheduler;
+
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return scheduler;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        // a small wheel, so intervals span several turns
+        scheduler = new TimerWheelScheduler(TICK, 4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testGroupsByInterval() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(100 * 3);
+        for (int i = 0; i < 100; i++) {
+            scheduler.schedule(new Procedure() {
+                public void run() {
+                    latch.countDown();
+                }
+            }, (i % 2 == 0) ? 20L : 18L);
+        }
+        // 18 and 20 ms are both 4 ticks
+        assertEquals(1, scheduler.getGroupCount());
+        scheduler.schedule(new CountingTask(), 100L);
+        assertEquals(2, scheduler.getGroupCount());
+        assertTrue(latch.await(TIMEOUT, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testInterval() throws Exception {
+        CountingTask task = new CountingTask();
+        long start = System.nanoTime();
+        scheduler.schedule(task, 50L);
+        assertTrue(task.await(3));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Elapsed " + elapsed, elapsed >= 100L);
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        CountingTask task = new CountingTask();
+        scheduler.schedule(task, TICK);
+        assertTrue(task.await(1));
+        assertTrue(scheduler.cancel(task));
+        assertFalse(scheduler.cancel(task));
+        TimeUnit.MILLISECONDS.sleep(TICK * 2);
+        int count = task.count.get();
+        TimeUnit.MILLISECONDS.sleep(TICK * 4);
+        assertEquals(count, task.count.get());
+        // the empty group is discarded, and a new one created when needed
+        TimeUnit.MILLISECONDS.sleep(TICK * 4);
+        assertEquals(0, scheduler.getGroupCount());
+        CountingTask other = new CountingTask();
+        scheduler.schedule(other, TICK);
+        assertTrue(other.await(2));
+    }
+
+    @Test
+    public void testFailingTask() throws Exception {
+        CountingTask task = new CountingTask();
+        scheduler.schedule(new Procedure() {
+            public void run() {
+                throw new IllegalStateException("expected");
+            }
+        }, TICK);
+        scheduler.schedule(task, TICK);
+        assertTrue(task.await(3));
+    }
+
+    @Test
+    public void testTaskThrowingError() throws Exception {
+        final AtomicInteger failures = new AtomicInteger();
+        scheduler.schedule(new Procedure() {
+            public void run() {
+                failures.incrementAndGet();
+                throw new Error("expected");
+            }
+        }, TICK);
+        CountingTask task = new CountingTask();
+        scheduler.schedule(task, TICK);
+        // the wheel thread survives the error: both tasks keep running
+        assertTrue(task.await(3));
+        assertTrue(failures.get() >= 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidInterval() throws Exception {
+        scheduler.schedule(new CountingTask(), 0L);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullTask() throws Exception {
+        scheduler.schedule(null, 1L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTick() throws Exception {
+        new TimerWheelScheduler(0L, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWheelSize() throws Exception {
+        // used to loop forever while rounding up to a power of 2
+        new TimerWheelScheduler(1L, TimerWheelScheduler.MAX_WHEEL_SIZE + 1);
+    }
+
+    @Test
+    public void testAggregators() throws Exception {
+        final CountDownLatch flushed = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++) {
+            final int value = i;
+            AbstractNoStoreAggregator<Integer> agg = new AbstractNoStoreAggregator<Integer>(
+                    new IntegerSumAggregatorBinaryFunction(), 20L, scheduler) {
+                @Override
+                protected Integer initialValue() {
+                    return 0;
+                }
+            };
+            agg.add(value);
+            agg.start();
+            agg.addTimerListener(new TimedAggregatorListener<Integer>() {
+                public void onTimer(AbstractTimedAggregator<Integer> aggregator, Integer evaluation) {
+                    if (evaluation.intValue() == value) {
+                        flushed.countDown();
+                    }
+                }
+            });
+        }
+        assertEquals(1, scheduler.getGroupCount());
+        assertTrue(flushed.await(TIMEOUT, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testFirstRunAfterFullInterval() throws Exception {
+        CountingTask running = new CountingTask();
+        scheduler.schedule(running, 50L);
+        assertTrue(running.await(1));
+        // joins a group whose next run is due in less than an interval
+        TimeUnit.MILLISECONDS.sleep(20L);
+        CountingTask joining = new CountingTask();
+        long start = System.nanoTime();
+        scheduler.schedule(joining, 50L);
+        assertTrue(joining.await(1));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Elapsed " + elapsed, elapsed >= 50L);
+        assertEquals(1, scheduler.getGroupCount());
+    }
+
+    @Test
+    public void testAggregatorsCreatedWhileTicking() throws Exception {
+        TimerWheelScheduler fast = new TimerWheelScheduler(1L, 8);
+        SlowAggregator.EARLY.set(0);
+        List<SlowAggregator> aggregators = new ArrayList<SlowAggregator>();
+        try {
+            for (int i = 0; i < 50; i++) {
+                SlowAggregator agg = new SlowAggregator(fast);
+                agg.start();
+                aggregators.add(agg);
+            }
+            TimeUnit.MILLISECONDS.sleep(20L);
+        } finally {
+            for (SlowAggregator agg : aggregators) {
+                agg.stop();
+            }
+            fast.shutdown();
+        }
+        assertEquals(0, SlowAggregator.EARLY.get());
+        for (SlowAggregator agg : aggregators) {
+            assertTrue(agg.flushes.get() > 0);
+        }
+    }
+
+    /**
+     * Task which counts how many times it ran.
+     */
+    static class CountingTask implements Procedure {
+        private final AtomicInteger count = new AtomicInteger();
+
+        public void run() {
+            synchronized (this) {
+                count.incrementAndGet();
+                notifyAll();
+            }
+        }
+
+        synchronized boolean await(int runs) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TIMEOUT;
+            while (count.get() < runs) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0) {
+                    return false;
+                }
+                wait(left);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Aggregator whose construction takes longer than its interval, and
+     * which counts the flushes taking place before it is constructed.
+     */
+    static class SlowAggregator extends AbstractStripedNoStoreAggregator<Integer> {
+        static final AtomicInteger EARLY = new AtomicInteger();
+        private final AtomicInteger flushes = new AtomicInteger();
+        private volatile boolean constructed;
+
+        SlowAggregator(AggregatorScheduler scheduler) throws InterruptedException {
+            super(new IntegerSumAggregatorBinaryFunction(), new IntegerSumAggregatorBinaryFunction(), 2, 1L,
+                    scheduler);
+            TimeUnit.MILLISECONDS.sleep(5L);
+            this.constructed = true;
+        }
+
+        @Override
+        protected Integer initialValue() {
+            if (Thread.currentThread().getName().startsWith(TimerWheelScheduler.THREAD_NAME)) {
+                if (constructed) {
+                    flushes.incrementAndGet();
+                } else {
+                    EARLY.incrementAndGet();
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator.functions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link DoubleSelectMedianValueAggregatorFunction}.
+ */
+public class DoubleSelectMedianValueAggregatorFunctionTest extends BaseFunctorTest {
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new DoubleSelectMedianValueAggregatorFunction();
+    }
+
+    @Test
+    public void testEmptyList() throws Exception {
+        DoubleSelectMedianValueAggregatorFunction fct = (DoubleSelectMedianValueAggregatorFunction) makeFunctor();
+        assertNull(fct.evaluate(null));
+        assertNull(fct.evaluate(new ArrayList<Double>()));
+    }
+
+    @Test
+    public void testSameAsSortingFunction() throws Exception {
+        DoubleSelectMedianValueAggregatorFunction fct = (DoubleSelectMedianValueAggregatorFunction) makeFunctor();
+        DoubleMedianValueAggregatorFunction sortFct = new DoubleMedianValueAggregatorFunction(false);
+        Random rnd = new Random(19);
+        for (int n = 1; n <= 200; n++) {
+            List<Double> list = new ArrayList<Double>();
+            for (int i = 0; i < n; i++) {
+                list.add(rnd.nextGaussian() * 100);
+            }
+            List<Double> original = new ArrayList<Double>(list);
+            assertEquals(sortFct.evaluate(list), fct.evaluate(original));
+        }
+    }
+
+    @Test
+    public void testListNotModified() throws Exception {
+        List<Double> list = new ArrayList<Double>();
+        for (int i = 10; i > 0; i--) {
+            list.add((double) i);
+        }
+        List<Double> copy = new ArrayList<Double>(list);
+        assertEquals(5.5, ((DoubleSelectMedianValueAggregatorFunction) makeFunctor()).evaluate(list), 0.0);
+        assertEquals(copy, list);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator.functions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link DoubleSelectPercentileAggregatorFunction}.
+ */
+public class DoubleSelectPercentileAggregatorFunctionTest extends BaseFunctorTest {
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new DoubleSelectPercentileAggregatorFunction(90.0);
+    }
+
+    @Test
+    public void testEmptyList() throws Exception {
+        DoubleSelectPercentileAggregatorFunction fct = (DoubleSelectPercentileAggregatorFunction) makeFunctor();
+        assertNull(fct.evaluate(null));
+        assertNull(fct.evaluate(new ArrayList<Double>()));
+    }
+
+    @Test
+    public void testSameAsSortingFunction() throws Exception {
+        Random rnd = new Random(17);
+        double[] percentiles = {0.0, 10.0, 50.0, 90.0, 99.0, 100.0 };
+        for (double p : percentiles) {
+            DoubleSelectPercentileAggregatorFunction fct = new DoubleSelectPercentileAggregatorFunction(p);
+            DoublePercentileAggregatorFunction sortFct = new DoublePercentileAggregatorFunction(p);
+            assertEquals(p, fct.getPercentile(), 0.0);
+            for (int n = 1; n <= 100; n++) {
+                List<Double> list = new ArrayList<Double>();
+                for (int i = 0; i < n; i++) {
+                    list.add(rnd.nextGaussian() * 100);
+                }
+                List<Double> original = new ArrayList<Double>(list);
+                assertEquals(sortFct.evaluate(list), fct.evaluate(original));
+                assertEquals(list.size(), original.size());
+            }
+        }
+    }
+
+    @Test
+    public void testListNotModified() throws Exception {
+        List<Double> list = new ArrayList<Double>();
+        for (int i = 10; i > 0; i--) {
+            list.add((double) i);
+        }
+        List<Double> copy = new ArrayList<Double>(list);
+        ((DoubleSelectPercentileAggregatorFunction) makeFunctor()).evaluate(list);
+        assertEquals(copy, list);
+    }
+
+    @Test
+    public void testNaN() throws Exception {
+        List<Double> list = new ArrayList<Double>();
+        list.add(Double.NaN);
+        list.add(1.0);
+        list.add(2.0);
+        list.add(3.0);
+        assertEquals(2.0, new DoubleSelectPercentileAggregatorFunction(50.0).evaluate(list).doubleValue(), 0.0);
+        assertEquals(Double.NaN, new DoubleSelectPercentileAggregatorFunction(100.0).evaluate(list).doubleValue(), 0.0);
+        assertEquals(new DoublePercentileAggregatorFunction(100.0).evaluate(list),
+                new DoubleSelectPercentileAggregatorFunction(100.0).evaluate(list));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentile() throws Exception {
+        new DoubleSelectPercentileAggregatorFunction(101.0);
+    }
+}
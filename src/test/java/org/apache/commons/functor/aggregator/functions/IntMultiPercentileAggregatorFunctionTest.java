@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator.functions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link IntegerMultiPercentileAggregatorFunction}.
+ */
+public class IntMultiPercentileAggregatorFunctionTest extends BaseFunctorTest {
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new IntegerMultiPercentileAggregatorFunction(50.0, 90.0, 99.0);
+    }
+
+    @Test
+    public void testEmptyList() throws Exception {
+        IntegerMultiPercentileAggregatorFunction fct = (IntegerMultiPercentileAggregatorFunction) makeFunctor();
+        assertNull(fct.evaluate(null));
+        assertNull(fct.evaluate(new ArrayList<Integer>()));
+    }
+
+    @Test
+    public void testSameAsSortingFunction() throws Exception {
+        double[] percentiles = {99.9, 0.0, 50.0, 50.0, 25.0, 100.0, 90.0 };
+        IntegerMultiPercentileAggregatorFunction fct = new IntegerMultiPercentileAggregatorFunction(percentiles);
+        assertArrayEquals(percentiles, fct.getPercentiles(), 0.0);
+        Random rnd = new Random(23);
+        for (int n = 1; n <= 300; n += 7) {
+            List<Integer> list = new ArrayList<Integer>();
+            for (int i = 0; i < n; i++) {
+                list.add(rnd.nextInt(100));
+            }
+            int[] result = fct.evaluate(list);
+            assertEquals(percentiles.length, result.length);
+            for (int i = 0; i < percentiles.length; i++) {
+                Integer expected = new IntegerPercentileAggregatorFunction(percentiles[i]).evaluate(list);
+                assertEquals(expected.intValue(), result[i]);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentile() throws Exception {
+        new IntegerMultiPercentileAggregatorFunction(50.0, -1.0);
+    }
+}
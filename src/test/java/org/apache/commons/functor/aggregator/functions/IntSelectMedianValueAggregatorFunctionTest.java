@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator.functions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link IntegerSelectMedianValueAggregatorFunction}.
+ */
+public class IntSelectMedianValueAggregatorFunctionTest extends BaseFunctorTest {
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new IntegerSelectMedianValueAggregatorFunction();
+    }
+
+    @Test
+    public void testEmptyList() throws Exception {
+        IntegerSelectMedianValueAggregatorFunction fct = (IntegerSelectMedianValueAggregatorFunction) makeFunctor();
+        assertNull(fct.evaluate(null));
+        assertNull(fct.evaluate(new ArrayList<Integer>()));
+    }
+
+    @Test
+    public void testSameAsSortingFunction() throws Exception {
+        IntegerSelectMedianValueAggregatorFunction fct = (IntegerSelectMedianValueAggregatorFunction) makeFunctor();
+        IntegerMedianValueAggregatorFunction sortFct = new IntegerMedianValueAggregatorFunction(false);
+        Random rnd = new Random(19);
+        for (int n = 1; n <= 200; n++) {
+            List<Integer> list = new ArrayList<Integer>();
+            for (int i = 0; i < n; i++) {
+                list.add(rnd.nextInt(1000) - 500);
+            }
+            List<Integer> original = new ArrayList<Integer>(list);
+            assertEquals(sortFct.evaluate(list), fct.evaluate(original));
+        }
+    }
+
+    @Test
+    public void testListNotModified() throws Exception {
+        List<Integer> list = new ArrayList<Integer>();
+        for (int i = 10; i > 0; i--) {
+            list.add(i);
+        }
+        List<Integer> copy = new ArrayList<Integer>(list);
+        assertEquals(5, ((IntegerSelectMedianValueAggregatorFunction) makeFunctor()).evaluate(list).intValue());
+        assertEquals(copy, list);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator.functions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.aggregator.IntSeries;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link IntSeriesMeanValueAggregatorFunction}.
+ */
+public class IntSeriesMeanValueAggregatorFunctionTest extends BaseFunctorTest {
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new IntSeriesMeanValueAggregatorFunction();
+    }
+
+    @Test
+    public void testEmptySeries() throws Exception {
+        IntSeriesMeanValueAggregatorFunction fct = (IntSeriesMeanValueAggregatorFunction) makeFunctor();
+        assertNull(fct.evaluate(null));
+        assertNull(fct.evaluate(new IntSeries()));
+    }
+
+    @Test
+    public void testSameAsListFunction() throws Exception {
+        IntSeriesMeanValueAggregatorFunction fct = (IntSeriesMeanValueAggregatorFunction) makeFunctor();
+        IntegerMeanValueAggregatorFunction listFct = new IntegerMeanValueAggregatorFunction();
+        Random rnd = new Random(31);
+        for (int n = 1; n <= 31; n++) {
+            IntSeries series = new IntSeries(1);
+            List<Integer> list = new ArrayList<Integer>();
+            for (int i = 0; i < n; i++) {
+                int value = rnd.nextInt(1000) - 500;
+                series.add(value);
+                list.add(value);
+            }
+            assertEquals(listFct.evaluate(list), fct.evaluate(series));
+        }
+    }
+}
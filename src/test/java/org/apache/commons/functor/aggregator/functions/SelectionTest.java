@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator.functions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link Selection}.
+ */
+public class SelectionTest {
+    @Test
+    public void testSelectDouble() throws Exception {
+        Random rnd = new Random(5);
+        for (int n = 1; n <= 200; n++) {
+            double[] data = new double[n];
+            for (int i = 0; i < n; i++) {
+                data[i] = rnd.nextInt(n);
+            }
+            double[] sorted = data.clone();
+            Arrays.sort(sorted);
+            for (int rank = 0; rank < n; rank += 1 + n / 10) {
+                double[] a = data.clone();
+                assertEquals(sorted[rank], Selection.select(a, n, rank), 0.0);
+                for (int i = 0; i < n; i++) {
+                    assertTrue(i < rank ? a[i] <= a[rank] : a[i] >= a[rank]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSelectInt() throws Exception {
+        Random rnd = new Random(7);
+        for (int n = 1; n <= 200; n++) {
+            int[] data = new int[n];
+            for (int i = 0; i < n; i++) {
+                data[i] = rnd.nextInt();
+            }
+            int[] sorted = data.clone();
+            Arrays.sort(sorted);
+            for (int rank = 0; rank < n; rank += 1 + n / 10) {
+                assertEquals(sorted[rank], Selection.select(data.clone(), n, rank));
+            }
+        }
+    }
+
+    @Test
+    public void testSelectAdversarial() throws Exception {
+        int n = 100000;
+        int[] ascending = new int[n];
+        int[] same = new int[n];
+        int[] organPipe = new int[n];
+        for (int i = 0; i < n; i++) {
+            ascending[i] = i;
+            same[i] = 42;
+            organPipe[i] = i < n / 2 ? i : n - i;
+        }
+        assertEquals(n / 2, Selection.select(ascending, n, n / 2));
+        assertEquals(42, Selection.select(same, n, n / 3));
+        int[] sorted = organPipe.clone();
+        Arrays.sort(sorted);
+        assertEquals(sorted[n / 2], Selection.select(organPipe, n, n / 2));
+    }
+
+    @Test
+    public void testSelectAll() throws Exception {
+        Random rnd = new Random(11);
+        int[] ranks = {0, 3, 3, 10, 50, 98, 99 };
+        for (int round = 0; round < 50; round++) {
+            double[] data = new double[100];
+            int[] ints = new int[100];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = rnd.nextGaussian();
+                ints[i] = rnd.nextInt(20);
+            }
+            double[] sorted = data.clone();
+            Arrays.sort(sorted);
+            int[] sortedInts = ints.clone();
+            Arrays.sort(sortedInts);
+            Selection.selectAll(data, data.length, ranks, ranks.length);
+            Selection.selectAll(ints, ints.length, ranks, ranks.length);
+            for (int rank : ranks) {
+                assertEquals(sorted[rank], data[rank], 0.0);
+                assertEquals(sortedInts[rank], ints[rank]);
+            }
+        }
+    }
+
+    @Test
+    public void testBorrowReusesScratch() throws Exception {
+        AtomicReference<double[]> scratch = new AtomicReference<double[]>();
+        List<Double> data = new ArrayList<Double>();
+        data.add(1.0);
+        data.add(Double.NaN);
+        data.add(2.0);
+        double[] a = Selection.borrowDoubles(scratch, data);
+        assertEquals(2, Selection.countNumbers(a, data.size()));
+        assertTrue(Double.isNaN(a[2]));
+        scratch.set(a);
+        data.remove(1);
+        assertSame(a, Selection.borrowDoubles(scratch, data));
+        assertEquals(2, Selection.countNumbers(a, data.size()));
+
+        AtomicReference<int[]> intScratch = new AtomicReference<int[]>();
+        List<Integer> ints = new ArrayList<Integer>();
+        ints.add(4);
+        ints.add(5);
+        int[] b = Selection.borrowInts(intScratch, ints);
+        assertArrayEquals(new int[] {4, 5 }, b);
+        intScratch.set(b);
+        ints.add(6);
+        assertTrue(b != Selection.borrowInts(intScratch, ints));
+    }
+}
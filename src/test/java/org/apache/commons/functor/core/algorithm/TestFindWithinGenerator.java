@@ -21,6 +21,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -28,6 +29,8 @@ import org.apache.commons.functor.BaseFunctorTest;
 import org.apache.commons.functor.UnaryPredicate;
 import org.apache.commons.functor.adapter.LeftBoundPredicate;
 import org.apache.commons.functor.core.IsEqual;
+import org.apache.commons.functor.generator.FilteredGenerator;
+import org.apache.commons.functor.generator.Generator;
 import org.apache.commons.functor.generator.loop.IteratorToGeneratorAdapter;
 import org.junit.Test;
 
@@ -95,6 +98,23 @@ public class TestFindWithinGenerator extends BaseFunctorTest {
         assertEquals("Xyzzy",new FindWithinGenerator<String>("Xyzzy").evaluate(IteratorToGeneratorAdapter.adapt(strings.iterator()),equalsXyZ));
     }
 
+    @Test
+    public void testStopsAtFirstMatch() {
+        int[] pulled = new int[1];
+        Generator<Integer> gen = counting(numbers, pulled);
+        assertEquals(new Integer(3), new FindWithinGenerator<Integer>().evaluate(gen, equalsThree));
+        assertEquals(4, pulled[0]);
+        pulled[0] = 0;
+        UnaryPredicate<Integer> greaterThanOne = new UnaryPredicate<Integer>() {
+            public boolean test(Integer obj) {
+                return obj > 1;
+            }
+        };
+        Generator<Integer> filtered = new FilteredGenerator<Integer>(counting(numbers, pulled), greaterThanOne);
+        assertEquals(new Integer(3), new FindWithinGenerator<Integer>().evaluate(filtered, equalsThree));
+        assertEquals(4, pulled[0]);
+    }
+
     @Test
     public void testInstance() {
         assertNotNull("FindWithinGenerator instance must not be null", FindWithinGenerator.instance());
@@ -109,4 +129,21 @@ public class TestFindWithinGenerator extends BaseFunctorTest {
     private UnaryPredicate<Integer> equalsTwentyThree = LeftBoundPredicate.bind(IsEqual.instance(),new Integer(23));
     private UnaryPredicate<String> equalsXyZ = LeftBoundPredicate.bind(IsEqual.instance(),"xyZ");
 
+    private Generator<Integer> counting(final List<Integer> elements, final int[] pulled) {
+        final Iterator<Integer> iter = elements.iterator();
+        return IteratorToGeneratorAdapter.adapt(new Iterator<Integer>() {
+            public boolean hasNext() {
+                return iter.hasNext();
+            }
+
+            public Integer next() {
+                pulled[0]++;
+                return iter.next();
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        });
+    }
 }
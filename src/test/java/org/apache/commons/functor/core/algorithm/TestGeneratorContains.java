@@ -16,18 +16,24 @@
  */
 package org.apache.commons.functor.core.algorithm;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.functor.BaseFunctorTest;
 import org.apache.commons.functor.UnaryPredicate;
 import org.apache.commons.functor.adapter.LeftBoundPredicate;
+import org.apache.commons.functor.core.Identity;
 import org.apache.commons.functor.core.IsEqual;
 import org.apache.commons.functor.core.algorithm.GeneratorContains;
+import org.apache.commons.functor.generator.FilteredGenerator;
+import org.apache.commons.functor.generator.Generator;
 import org.apache.commons.functor.generator.loop.IteratorToGeneratorAdapter;
+import org.apache.commons.functor.generator.loop.TransformedGenerator;
 import org.junit.Test;
 
 /**
@@ -46,11 +52,45 @@ public class TestGeneratorContains extends BaseFunctorTest {
         assertFalse(new GeneratorContains<Integer>().test(IteratorToGeneratorAdapter.adapt(list.iterator()),equalsTwentyThree));
     }
 
+    @Test
+    public void testStopsAtFirstMatch() {
+        int[] pulled = new int[1];
+        assertTrue(new GeneratorContains<Integer>().test(counting(list, pulled), equalsThree));
+        assertEquals(4, pulled[0]);
+        pulled[0] = 0;
+        Generator<Integer> wrapped = new FilteredGenerator<Integer>(new TransformedGenerator<Integer, Integer>(
+            counting(list, pulled), Identity.<Integer> instance()), isOdd);
+        assertTrue(new GeneratorContains<Integer>().test(wrapped, equalsThree));
+        assertEquals(4, pulled[0]);
+    }
+
     // Attributes
     // ------------------------------------------------------------------------
 
     private List<Integer> list = Arrays.asList(0,1,2,3,4,5,6,7,8,9);
     private UnaryPredicate<Integer> equalsThree = LeftBoundPredicate.bind(IsEqual.instance(),new Integer(3));
+    private UnaryPredicate<Integer> isOdd = new UnaryPredicate<Integer>() {
+        public boolean test(Integer obj) {
+            return obj % 2 == 1;
+        }
+    };
     private UnaryPredicate<Integer> equalsTwentyThree = LeftBoundPredicate.bind(IsEqual.instance(),new Integer(23));
 
+    private Generator<Integer> counting(final List<Integer> elements, final int[] pulled) {
+        final Iterator<Integer> iter = elements.iterator();
+        return IteratorToGeneratorAdapter.adapt(new Iterator<Integer>() {
+            public boolean hasNext() {
+                return iter.hasNext();
+            }
+
+            public Integer next() {
+                pulled[0]++;
+                return iter.next();
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        });
+    }
 }
@@ -17,7 +17,9 @@
 package org.apache.commons.functor.generator;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -115,6 +117,50 @@ public class TestBaseGenerator {
         assertEquals("[0, 1, 2, 3, 4]", col.toString());
     }
 
+    @Test
+    public void testIsStopRequested() {
+        final boolean[] stopped = new boolean[1];
+        StoppableUnaryProcedure<Integer> proc = new StoppableUnaryProcedure<Integer>() {
+            public void run(Integer obj) {
+            }
+
+            public boolean isStopped() {
+                return stopped[0];
+            }
+        };
+        assertFalse(BaseGenerator.isStopRequested(proc));
+        stopped[0] = true;
+        assertTrue(BaseGenerator.isStopRequested(proc));
+        assertFalse(BaseGenerator.isStopRequested(new UnaryProcedure<Integer>() {
+            public void run(Integer obj) {
+            }
+        }));
+    }
+
+    @Test
+    public void testRunBatched() {
+        final List<List<Integer>> batches = new ArrayList<List<Integer>>();
+        ((BaseGenerator<Integer>) simpleGenerator).runBatched(2, new UnaryProcedure<List<Integer>>() {
+            public void run(List<Integer> obj) {
+                batches.add(obj);
+            }
+        });
+        assertEquals("[[0, 1], [2, 3], [4]]", batches.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRunBatchedProhibitsNonPositiveSize() {
+        ((BaseGenerator<Integer>) simpleGenerator).runBatched(0, new UnaryProcedure<List<Integer>>() {
+            public void run(List<Integer> obj) {
+            }
+        });
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testRunBatchedProhibitsNullProcedure() {
+        ((BaseGenerator<Integer>) simpleGenerator).runBatched(2, null);
+    }
+
     // Attributes
     // ------------------------------------------------------------------------
     private List<Integer> list = null;
@@ -111,6 +111,23 @@ public class TestFilteredGenerator
     	assertEquals(expected, evenNumbers);
     }
 
+    @Test
+    public void testPropagatesStop() {
+        final List<Integer> evenNumbers = new ArrayList<Integer>();
+        filteredGenerator.run(new StoppableUnaryProcedure<Integer>() {
+            public void run(Integer obj) {
+                evenNumbers.add(obj);
+            }
+
+            public boolean isStopped() {
+                return evenNumbers.size() == 2;
+            }
+        });
+        assertEquals(Arrays.asList(2, 4), evenNumbers);
+        // the generator itself is not stopped, and the range is run again
+        assertEquals(Arrays.asList(2, 4, 6, 8), filteredGenerator.toCollection());
+    }
+
     // Attributes
     // ------------------------------------------------------------------------
     private Generator<Integer> wrappedGenerator = null;
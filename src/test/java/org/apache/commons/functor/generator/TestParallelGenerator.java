@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.UnaryFunction;
+import org.apache.commons.functor.UnaryPredicate;
+import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.functor.generator.loop.IntegerRangeGenerator;
+import org.apache.commons.functor.generator.util.EachElement;
+import org.apache.commons.functor.range.IntegerRange;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the Parallel Generator class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestParallelGenerator extends BaseFunctorTest {
+
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return EachElement.splittable(1, 2, 3).parallel();
+    }
+
+    // Lifecycle
+    // ------------------------------------------------------------------------
+
+    private ExecutorService executor = null;
+
+    private List<Integer> list = null;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(3);
+        list = new ArrayList<Integer>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(i);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        executor = null;
+        list = null;
+    }
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testRunKeepsOrder() {
+        List<Integer> result = ParallelGenerator.of(EachElement.splittable(list), executor, 4)
+            .filter(isEven).map(square).to(new ArrayList<Integer>());
+        List<Integer> expected = new ArrayList<Integer>();
+        for (int i = 0; i < 1000; i += 2) {
+            expected.add(i * i);
+        }
+        assertEquals(expected, result);
+    }
+
+    @Test
+    public void testRunsOnSeveralThreads() {
+        final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+        ParallelGenerator.of(EachElement.splittable(list), executor, 4).map(new UnaryFunction<Integer, Integer>() {
+            public Integer evaluate(Integer obj) {
+                threads.add(Thread.currentThread());
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return obj;
+            }
+        }).count();
+        assertTrue(threads.size() > 1);
+        assertTrue(threads.contains(Thread.currentThread()));
+    }
+
+    @Test
+    public void testRunUnordered() {
+        final AtomicLong sum = new AtomicLong();
+        ParallelGenerator.of(EachElement.splittable(list), executor, 4).runUnordered(new UnaryProcedure<Integer>() {
+            public void run(Integer obj) {
+                sum.addAndGet(obj);
+            }
+        });
+        assertEquals(999 * 1000 / 2, sum.get());
+    }
+
+    @Test
+    public void testReduce() {
+        ParallelGenerator<Integer> gen = ParallelGenerator.of(EachElement.splittable(list), executor, 4);
+        assertEquals(999 * 1000 / 2, gen.reduce(0, sum).intValue());
+        assertEquals(0, gen.filter(isNegative).reduce(0, sum).intValue());
+        assertEquals(500L, gen.filter(isEven).count());
+    }
+
+    @Test
+    public void testRange() {
+        ParallelGenerator<Integer> gen = ParallelGenerator.of(new IntegerRangeGenerator(new IntegerRange(0, 100)),
+            executor, 3);
+        assertEquals(4950, gen.reduce(0, sum).intValue());
+        assertEquals(100L, gen.count());
+    }
+
+    @Test
+    public void testSingleThread() {
+        ParallelGenerator<Integer> gen = ParallelGenerator.of(EachElement.splittable(list), executor, 1);
+        assertEquals(1, gen.getParallelism());
+        assertEquals(list, gen.to(new ArrayList<Integer>()));
+    }
+
+    @Test
+    public void testEmpty() {
+        ParallelGenerator<Integer> gen = ParallelGenerator.of(EachElement.splittable(new ArrayList<Integer>()),
+            executor, 4);
+        assertTrue(gen.toCollection().isEmpty());
+        assertEquals(0, gen.reduce(0, sum).intValue());
+        assertEquals(0L, gen.count());
+    }
+
+    @Test
+    public void testBusyExecutor() {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        try {
+            // the only thread of the executor is busy: the calling thread does all the work
+            single.execute(new Runnable() {
+                public void run() {
+                    try {
+                        Thread.sleep(60000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            assertEquals(500L, ParallelGenerator.of(EachElement.splittable(list), single, 4).filter(isEven).count());
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testExceptionIsPropagated() {
+        ParallelGenerator.of(EachElement.splittable(list), executor, 4).map(new UnaryFunction<Integer, Integer>() {
+            public Integer evaluate(Integer obj) {
+                if (obj.intValue() == 500) {
+                    throw new IllegalStateException();
+                }
+                return obj;
+            }
+        }).count();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidParallelism() {
+        ParallelGenerator.of(EachElement.splittable(list), executor, 0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullExecutor() {
+        ParallelGenerator.of(EachElement.splittable(list), null, 2);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullPredicate() {
+        EachElement.splittable(list).parallel().filter(null);
+    }
+
+    // Attributes
+    // ------------------------------------------------------------------------
+    private UnaryPredicate<Integer> isEven = new UnaryPredicate<Integer>() {
+        public boolean test(Integer obj) {
+            return obj.intValue() % 2 == 0;
+        }
+    };
+
+    private UnaryPredicate<Integer> isNegative = new UnaryPredicate<Integer>() {
+        public boolean test(Integer obj) {
+            return obj.intValue() < 0;
+        }
+    };
+
+    private UnaryFunction<Integer, Integer> square = new UnaryFunction<Integer, Integer>() {
+        public Integer evaluate(Integer obj) {
+            return obj.intValue() * obj.intValue();
+        }
+    };
+
+    private BinaryFunction<Integer, Integer, Integer> sum = new BinaryFunction<Integer, Integer, Integer>() {
+        public Integer evaluate(Integer left, Integer right) {
+            return left.intValue() + right.intValue();
+        }
+    };
+}
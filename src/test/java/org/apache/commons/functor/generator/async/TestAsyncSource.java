@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests the Async Source class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestAsyncSource {
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testPassesRequestedElementsOnly() {
+        AsyncSource<Integer> source = new AsyncSource<Integer>(10);
+        Recorder<Integer> recorder = new Recorder<Integer>();
+        source.subscribe(recorder);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(source.offer(i));
+        }
+        assertTrue(recorder.elements.isEmpty());
+        recorder.subscription.request(2);
+        assertEquals(Arrays.asList(0, 1), recorder.elements);
+        recorder.subscription.request(10);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), recorder.elements);
+        source.offer(5);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5), recorder.elements);
+        assertFalse(recorder.completed);
+        source.complete();
+        assertTrue(recorder.completed);
+    }
+
+    @Test
+    public void testFullBuffer() {
+        AsyncSource<Integer> source = new AsyncSource<Integer>(2);
+        Recorder<Integer> recorder = new Recorder<Integer>();
+        source.subscribe(recorder);
+        assertTrue(source.offer(1));
+        assertTrue(source.offer(2));
+        assertEquals(0, source.remainingCapacity());
+        assertFalse(source.offer(3));
+        recorder.subscription.request(1);
+        assertTrue(source.offer(3));
+        recorder.subscription.request(Long.MAX_VALUE);
+        assertEquals(Arrays.asList(1, 2, 3), recorder.elements);
+    }
+
+    @Test
+    public void testBuffersBeforeSubscription() {
+        AsyncSource<String> source = new AsyncSource<String>(4);
+        source.offer("a");
+        source.offer(null);
+        source.complete();
+        Recorder<String> recorder = new Recorder<String>();
+        source.subscribe(recorder);
+        assertFalse(recorder.completed);
+        recorder.subscription.request(5);
+        assertEquals(Arrays.asList("a", null), recorder.elements);
+        assertTrue(recorder.completed);
+    }
+
+    @Test
+    public void testCompletesWithoutDemand() {
+        AsyncSource<String> source = new AsyncSource<String>(4);
+        Recorder<String> recorder = new Recorder<String>();
+        source.subscribe(recorder);
+        source.complete();
+        assertTrue(recorder.completed);
+    }
+
+    @Test
+    public void testFail() {
+        AsyncSource<String> source = new AsyncSource<String>(4);
+        Recorder<String> recorder = new Recorder<String>();
+        source.subscribe(recorder);
+        source.offer("a");
+        Exception e = new Exception("expected");
+        source.fail(e);
+        assertNull(recorder.error);
+        recorder.subscription.request(1);
+        assertEquals(Arrays.asList("a"), recorder.elements);
+        assertSame(e, recorder.error);
+        assertFalse(recorder.completed);
+    }
+
+    @Test
+    public void testCancel() {
+        AsyncSource<Integer> source = new AsyncSource<Integer>(2);
+        Recorder<Integer> recorder = new Recorder<Integer>();
+        source.subscribe(recorder);
+        source.offer(1);
+        recorder.subscription.cancel();
+        assertTrue(source.isCancelled());
+        assertTrue(source.offer(2));
+        assertTrue(source.offer(3));
+        assertTrue(source.offer(4));
+        recorder.subscription.request(5);
+        assertTrue(recorder.elements.isEmpty());
+    }
+
+    @Test
+    public void testInvalidRequest() {
+        AsyncSource<Integer> source = new AsyncSource<Integer>(2);
+        Recorder<Integer> recorder = new Recorder<Integer>();
+        source.subscribe(recorder);
+        recorder.subscription.request(0);
+        assertTrue(recorder.error instanceof IllegalArgumentException);
+        assertTrue(source.isCancelled());
+    }
+
+    @Test
+    public void testSingleSubscriber() {
+        AsyncSource<Integer> source = new AsyncSource<Integer>(2);
+        source.subscribe(new Recorder<Integer>());
+        Recorder<Integer> second = new Recorder<Integer>();
+        source.subscribe(second);
+        assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testOfferAfterComplete() {
+        AsyncSource<Integer> source = new AsyncSource<Integer>(2);
+        source.complete();
+        source.offer(1);
+    }
+
+    @Test
+    public void testThrottlesProducer() throws Exception {
+        final AsyncSource<Integer> source = new AsyncSource<Integer>(4);
+        final Recorder<Integer> recorder = new Recorder<Integer>();
+        final AtomicInteger produced = new AtomicInteger();
+        source.subscribe(recorder);
+        Thread producer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < 100; i++) {
+                        source.put(i);
+                        produced.incrementAndGet();
+                    }
+                    source.complete();
+                } catch (InterruptedException e) {
+                    // test over
+                }
+            }
+        };
+        producer.start();
+        for (int i = 0; i < 100; i++) {
+            while (recorder.size() < i) {
+                Thread.sleep(1);
+            }
+            // the producer can't be more than the buffer ahead of the consumer
+            assertTrue(produced.get() <= recorder.size() + 4);
+            recorder.subscription.request(1);
+        }
+        producer.join(5000);
+        assertFalse(producer.isAlive());
+        recorder.subscription.request(1);
+        assertEquals(100, recorder.size());
+        assertTrue(recorder.completed);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new AsyncSource<Integer>(0);
+    }
+
+    // Helpers
+    // ------------------------------------------------------------------------
+
+    private static class Recorder<E> implements AsyncSubscriber<E> {
+        private final List<E> elements = new ArrayList<E>();
+        private volatile AsyncSubscription subscription;
+        private volatile boolean completed;
+        private volatile Throwable error;
+
+        public void onSubscribe(AsyncSubscription s) {
+            this.subscription = s;
+        }
+
+        public void onNext(E obj) {
+            synchronized (elements) {
+                elements.add(obj);
+            }
+        }
+
+        public void onError(Throwable e) {
+            this.error = e;
+        }
+
+        public void onComplete() {
+            this.completed = true;
+        }
+
+        int size() {
+            synchronized (elements) {
+                return elements.size();
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.functor.generator.StoppableUnaryProcedure;
+import org.apache.commons.functor.generator.util.EachElement;
+import org.junit.Test;
+
+/**
+ * Tests the Async to Generator Adapter class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestAsyncToGeneratorAdapter extends BaseFunctorTest {
+
+    private final AsyncGenerator<String> letters = new GeneratorToAsyncAdapter<String>(
+        EachElement.splittable("a", "b", "c", "d", "e"), 2);
+
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new AsyncToGeneratorAdapter<String>(letters, 2);
+    }
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testRun() {
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e"), new AsyncToGeneratorAdapter<String>(letters, 2)
+            .toCollection());
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e"), new AsyncToGeneratorAdapter<String>(letters, 1)
+            .toCollection());
+    }
+
+    @Test
+    public void testStop() {
+        final List<String> result = new ArrayList<String>();
+        new AsyncToGeneratorAdapter<String>(letters, 2).run(new StoppableUnaryProcedure<String>() {
+            public void run(String obj) {
+                result.add(obj);
+            }
+
+            public boolean isStopped() {
+                return result.size() == 3;
+            }
+        });
+        assertEquals(Arrays.asList("a", "b", "c"), result);
+    }
+
+    @Test
+    public void testFailure() {
+        AsyncSource<String> source = new AsyncSource<String>(4);
+        source.offer("a");
+        source.fail(new IOException("expected"));
+        final List<String> result = new ArrayList<String>();
+        try {
+            new AsyncToGeneratorAdapter<String>(source, 4).run(new UnaryProcedure<String>() {
+                public void run(String obj) {
+                    result.add(obj);
+                }
+            });
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertEquals(Arrays.asList("a"), result);
+    }
+
+    @Test
+    public void testSlowConsumerThrottlesSource() throws Exception {
+        final AsyncSource<Integer> source = new AsyncSource<Integer>(4);
+        final AtomicInteger produced = new AtomicInteger();
+        Thread producer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < 50; i++) {
+                        source.put(i);
+                        produced.incrementAndGet();
+                    }
+                    source.complete();
+                } catch (InterruptedException e) {
+                    // test over
+                }
+            }
+        };
+        producer.start();
+        final AtomicInteger consumed = new AtomicInteger();
+        final int[] maxAhead = new int[1];
+        new AsyncToGeneratorAdapter<Integer>(source, 3).run(new UnaryProcedure<Integer>() {
+            public void run(Integer obj) {
+                assertEquals(consumed.getAndIncrement(), obj.intValue());
+                maxAhead[0] = Math.max(maxAhead[0], produced.get() - consumed.get());
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        producer.join(5000);
+        assertEquals(50, consumed.get());
+        // at most the prefetch and the buffer ahead, plus the element being put
+        assertTrue(String.valueOf(maxAhead[0]), maxAhead[0] <= 3 + 4 + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPrefetch() {
+        new AsyncToGeneratorAdapter<String>(letters, 0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullSource() {
+        new AsyncToGeneratorAdapter<String>(null, 1);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.apache.commons.functor.UnaryFunction;
+import org.apache.commons.functor.UnaryPredicate;
+import org.apache.commons.functor.generator.util.EachElement;
+import org.junit.Test;
+
+/**
+ * Tests the Base Async Generator class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestBaseAsyncGenerator {
+
+    private final BaseAsyncGenerator<Integer> numbers = new GeneratorToAsyncAdapter<Integer>(
+        EachElement.splittable(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), 4);
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testFilter() {
+        assertEquals(Arrays.asList(2, 4, 6, 8, 10), numbers.filter(isEven).toGenerator(1).toCollection());
+        assertEquals(Arrays.asList(2, 4, 6, 8, 10), numbers.filter(isEven).toGenerator(16).toCollection());
+    }
+
+    @Test
+    public void testMap() {
+        assertEquals(Arrays.asList("1", "4", "9"), numbers.filter(lessThanFour).map(squareToString).toGenerator(2)
+            .toCollection());
+    }
+
+    @Test
+    public void testFilterKeepsBackpressure() {
+        AsyncSource<Integer> source = new AsyncSource<Integer>(10);
+        for (int i = 1; i <= 10; i++) {
+            source.offer(i);
+        }
+        final int[] received = new int[1];
+        final AsyncSubscription[] subscription = new AsyncSubscription[1];
+        source.filter(isEven).subscribe(new AsyncSubscriber<Integer>() {
+            public void onSubscribe(AsyncSubscription s) {
+                subscription[0] = s;
+            }
+
+            public void onNext(Integer obj) {
+                received[0]++;
+            }
+
+            public void onError(Throwable error) {
+            }
+
+            public void onComplete() {
+            }
+        });
+        subscription[0].request(2);
+        assertEquals(2, received[0]);
+        // 1 to 4 were taken from the source to pass 2 and 4
+        assertEquals(4, source.remainingCapacity());
+    }
+
+    @Test
+    public void testFailingFunction() {
+        UnaryFunction<Integer, Integer> failing = new UnaryFunction<Integer, Integer>() {
+            public Integer evaluate(Integer obj) {
+                if (obj == 3) {
+                    throw new IllegalArgumentException("expected");
+                }
+                return obj;
+            }
+        };
+        try {
+            numbers.map(failing).toGenerator(4).toCollection();
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals("expected", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testToString() {
+        assertTrue(numbers.filter(isEven).toString().contains(".filter("));
+        assertTrue(numbers.map(squareToString).toString().contains(".map("));
+    }
+
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    private final UnaryPredicate<Integer> isEven = new UnaryPredicate<Integer>() {
+        public boolean test(Integer obj) {
+            return obj % 2 == 0;
+        }
+    };
+
+    private final UnaryPredicate<Integer> lessThanFour = new UnaryPredicate<Integer>() {
+        public boolean test(Integer obj) {
+            return obj < 4;
+        }
+    };
+
+    private final UnaryFunction<Integer, String> squareToString = new UnaryFunction<Integer, String>() {
+        public String evaluate(Integer obj) {
+            return String.valueOf(obj * obj);
+        }
+    };
+}
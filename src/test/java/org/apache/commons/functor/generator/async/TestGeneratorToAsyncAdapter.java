@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.functor.generator.BaseGenerator;
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.loop.IteratorToGeneratorAdapter;
+import org.apache.commons.functor.generator.util.EachElement;
+import org.junit.Test;
+
+/**
+ * Tests the Generator to Async Adapter class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestGeneratorToAsyncAdapter extends BaseFunctorTest {
+
+    private static final Executor DIRECT = new Executor() {
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new GeneratorToAsyncAdapter<String>(EachElement.splittable("a", "b"), 4);
+    }
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testPassesRequestedElementsOnly() {
+        Recorder recorder = new Recorder();
+        new GeneratorToAsyncAdapter<String>(EachElement.splittable("a", "b", "c"), 4, DIRECT).subscribe(
+            recorder);
+        assertTrue(recorder.elements.isEmpty());
+        recorder.subscription.request(2);
+        assertEquals(Arrays.asList("a", "b"), recorder.elements);
+        assertFalse(recorder.completed);
+        recorder.subscription.request(1);
+        assertEquals(Arrays.asList("a", "b", "c"), recorder.elements);
+        recorder.subscription.request(1);
+        assertTrue(recorder.completed);
+    }
+
+    @Test
+    public void testGeneratorOnProducerThread() {
+        Generator<String> gen = IteratorToGeneratorAdapter.adapt(Arrays.asList("a", null, "c").iterator());
+        Recorder recorder = new Recorder();
+        new GeneratorToAsyncAdapter<String>(gen, 1, DIRECT).subscribe(recorder);
+        recorder.subscription.request(Long.MAX_VALUE);
+        assertEquals(Arrays.asList("a", null, "c"), recorder.elements);
+        assertTrue(recorder.completed);
+    }
+
+    @Test
+    public void testFailure() {
+        Generator<String> gen = new BaseGenerator<String>() {
+            public void run(UnaryProcedure<? super String> proc) {
+                proc.run("a");
+                throw new IllegalStateException("expected");
+            }
+        };
+        Recorder recorder = new Recorder();
+        new GeneratorToAsyncAdapter<String>(gen, 4, DIRECT).subscribe(recorder);
+        recorder.subscription.request(5);
+        assertEquals(Arrays.asList("a"), recorder.elements);
+        assertTrue(recorder.error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testCancelFromOnNext() {
+        Recorder recorder = new Recorder() {
+            @Override
+            public void onNext(String obj) {
+                super.onNext(obj);
+                subscription.cancel();
+            }
+        };
+        new GeneratorToAsyncAdapter<String>(EachElement.splittable("a", "b", "c"), 4, DIRECT).subscribe(
+            recorder);
+        recorder.subscription.request(3);
+        assertEquals(Arrays.asList("a"), recorder.elements);
+        assertFalse(recorder.completed);
+    }
+
+    @Test
+    public void testRequestDoesNotBlock() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        Generator<String> gen = new BaseGenerator<String>() {
+            public void run(UnaryProcedure<? super String> proc) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                proc.run("a");
+            }
+        };
+        Recorder recorder = new Recorder();
+        new GeneratorToAsyncAdapter<String>(gen, 1).subscribe(recorder);
+        recorder.subscription.request(2);
+        assertTrue(recorder.elements.isEmpty());
+        release.countDown();
+        assertTrue(recorder.terminated.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("a"), recorder.elements);
+        assertTrue(recorder.completed);
+    }
+
+    @Test
+    public void testRequestFromOnNext() throws Exception {
+        Recorder recorder = new Recorder() {
+            @Override
+            public void onSubscribe(AsyncSubscription s) {
+                super.onSubscribe(s);
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(String obj) {
+                super.onNext(obj);
+                subscription.request(1);
+            }
+        };
+        new GeneratorToAsyncAdapter<String>(EachElement.splittable("a", "b", "c"), 1).subscribe(recorder);
+        assertTrue(recorder.terminated.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("a", "b", "c"), recorder.elements);
+        assertTrue(recorder.completed);
+    }
+
+    @Test
+    public void testRejected() {
+        Executor rejecting = new Executor() {
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException("expected");
+            }
+        };
+        Recorder recorder = new Recorder();
+        new GeneratorToAsyncAdapter<String>(EachElement.splittable("a"), 1, rejecting).subscribe(recorder);
+        recorder.subscription.request(1);
+        assertTrue(recorder.elements.isEmpty());
+        assertTrue(recorder.error instanceof RejectedExecutionException);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullExecutor() {
+        new GeneratorToAsyncAdapter<String>(EachElement.splittable("a"), 1, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new GeneratorToAsyncAdapter<String>(EachElement.splittable("a"), 0);
+    }
+
+    // Helpers
+    // ------------------------------------------------------------------------
+
+    private static class Recorder implements AsyncSubscriber<String> {
+        final List<String> elements = new ArrayList<String>();
+        AsyncSubscription subscription;
+        final CountDownLatch terminated = new CountDownLatch(1);
+        boolean completed;
+        Throwable error;
+
+        public void onSubscribe(AsyncSubscription s) {
+            this.subscription = s;
+        }
+
+        public void onNext(String obj) {
+            elements.add(obj);
+        }
+
+        public void onError(Throwable e) {
+            this.error = e;
+            terminated.countDown();
+        }
+
+        public void onComplete() {
+            this.completed = true;
+            terminated.countDown();
+        }
+    }
+}
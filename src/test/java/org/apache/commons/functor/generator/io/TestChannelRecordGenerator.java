@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.functor.generator.StoppableUnaryProcedure;
+import org.junit.Test;
+
+/**
+ * Tests the Channel Record Generator class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestChannelRecordGenerator {
+
+    private final DirectBufferPool pool = new DirectBufferPool(4, 1);
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testFixed() throws IOException {
+        assertEquals(Arrays.asList("abc", "def", "gh"), records(ChannelRecordGenerator.fixed(channel("abcdefgh"),
+            3, pool)));
+        assertEquals(Arrays.asList("abcd", "efgh"), records(ChannelRecordGenerator.fixed(channel("abcdefgh"), 4,
+            pool)));
+    }
+
+    @Test
+    public void testFixedLargerThanBuffer() throws IOException {
+        assertEquals(Arrays.asList("abcdef", "gh"), records(ChannelRecordGenerator.fixed(channel("abcdefgh"), 6,
+            pool)));
+    }
+
+    @Test
+    public void testDelimited() throws IOException {
+        assertEquals(Arrays.asList("a", "", "bcdefghij", "k"), records(ChannelRecordGenerator.delimited(
+            channel("a;;bcdefghij;k"), (byte) ';', pool)));
+        assertEquals(Arrays.asList("a", "b"), records(ChannelRecordGenerator.delimited(channel("a;b;"), (byte) ';',
+            pool)));
+        assertEquals(new ArrayList<String>(), records(ChannelRecordGenerator.delimited(channel(""), (byte) ';',
+            pool)));
+    }
+
+    @Test
+    public void testBufferIsReturnedToPool() throws IOException {
+        records(ChannelRecordGenerator.delimited(channel("a;bcdefghij;k"), (byte) ';', pool));
+        assertEquals(1, pool.getPooledCount());
+    }
+
+    @Test
+    public void testViewIsReadOnly() throws IOException {
+        ChannelRecordGenerator.fixed(channel("ab"), 1, pool).run(new UnaryProcedure<ByteBuffer>() {
+            public void run(ByteBuffer obj) {
+                assertTrue(obj.isReadOnly());
+                assertEquals(1, obj.remaining());
+            }
+        });
+    }
+
+    @Test
+    public void testStopClosesChannel() throws IOException {
+        ReadableByteChannel channel = channel("a;b;c;d");
+        final List<String> result = new ArrayList<String>();
+        ChannelRecordGenerator.delimited(channel, (byte) ';', pool).run(new StoppableUnaryProcedure<ByteBuffer>() {
+            public void run(ByteBuffer obj) {
+                result.add(decode(obj));
+            }
+
+            public boolean isStopped() {
+                return result.size() == 2;
+            }
+        });
+        assertEquals(Arrays.asList("a", "b"), result);
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    public void testClose() throws IOException {
+        ReadableByteChannel channel = channel("a;b;c;d");
+        final ChannelRecordGenerator gen = ChannelRecordGenerator.delimited(channel, (byte) ';', pool);
+        final List<String> result = new ArrayList<String>();
+        gen.run(new UnaryProcedure<ByteBuffer>() {
+            public void run(ByteBuffer obj) {
+                result.add(decode(obj));
+                try {
+                    gen.close();
+                } catch (IOException e) {
+                    fail(e.toString());
+                }
+            }
+        });
+        assertEquals(Arrays.asList("a"), result);
+        assertTrue(gen.isStopped());
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    public void testFailure() {
+        ReadableByteChannel failing = new ReadableByteChannel() {
+            public int read(ByteBuffer dst) throws IOException {
+                throw new IOException("expected");
+            }
+
+            public boolean isOpen() {
+                return true;
+            }
+
+            public void close() {
+            }
+        };
+        try {
+            ChannelRecordGenerator.fixed(failing, 1, pool).toCollection();
+            fail("Expected GeneratorIOException");
+        } catch (GeneratorIOException e) {
+            assertEquals("expected", e.getCause().getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRecordSize() throws IOException {
+        ChannelRecordGenerator.fixed(channel("a"), 0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullChannel() {
+        ChannelRecordGenerator.delimited(null, (byte) 0);
+    }
+
+    // Helpers
+    // ------------------------------------------------------------------------
+
+    private static ReadableByteChannel channel(String content) throws UnsupportedEncodingException {
+        return Channels.newChannel(new ByteArrayInputStream(content.getBytes("US-ASCII")));
+    }
+
+    private static String decode(ByteBuffer buffer) {
+        StringBuilder result = new StringBuilder();
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            result.append((char) buffer.get(i));
+        }
+        return result.toString();
+    }
+
+    private static List<String> records(ChannelRecordGenerator gen) {
+        final List<String> result = new ArrayList<String>();
+        gen.run(new UnaryProcedure<ByteBuffer>() {
+            public void run(ByteBuffer obj) {
+                result.add(decode(obj));
+            }
+        });
+        return result;
+    }
+}
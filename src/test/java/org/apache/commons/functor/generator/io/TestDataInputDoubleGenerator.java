@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.io;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.generator.StoppableUnaryProcedure;
+import org.junit.Test;
+
+/**
+ * Tests the DataInput Double Generator class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestDataInputDoubleGenerator {
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testUntilEnd() throws IOException {
+        assertEquals(Arrays.toString(new double[] { 1.5, -2.25, 3.0 }), Arrays.toString(new DataInputDoubleGenerator(
+            input(1.5, -2.25, 3.0)).toArray()));
+    }
+
+    @Test
+    public void testCount() throws IOException {
+        assertEquals(Arrays.toString(new double[] { 1.5, -2.25 }), Arrays.toString(new DataInputDoubleGenerator(
+            input(1.5, -2.25, 3.0), 2).toArray()));
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        assertEquals(0, new DataInputDoubleGenerator(input()).toArray().length);
+    }
+
+    @Test
+    public void testStoppableProcedure() throws IOException {
+        final List<Double> seen = new ArrayList<Double>();
+        new DataInputDoubleGenerator(input(1.5, -2.25, 3.0)).run(new StoppableUnaryProcedure<Double>() {
+            public void run(Double obj) {
+                seen.add(obj);
+            }
+
+            public boolean isStopped() {
+                return seen.size() == 2;
+            }
+        });
+        assertEquals(Arrays.asList(1.5, -2.25), seen);
+    }
+
+    // Helpers
+    // ------------------------------------------------------------------------
+
+    private static DataInputStream input(double... values) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+        out.close();
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+}
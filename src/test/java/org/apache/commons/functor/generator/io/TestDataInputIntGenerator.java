@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.functor.generator.primitive.StoppableIntUnaryProcedure;
+import org.apache.commons.functor.primitive.IntBinaryFunction;
+import org.apache.commons.functor.primitive.IntUnaryProcedure;
+import org.junit.Test;
+
+/**
+ * Tests the DataInput Int Generator class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestDataInputIntGenerator {
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testUntilEnd() throws IOException {
+        assertArrayEquals(new int[] { 1, -2, 3 }, new DataInputIntGenerator(input(1, -2, 3)).toArray());
+    }
+
+    @Test
+    public void testCount() throws IOException {
+        assertArrayEquals(new int[] { 1, -2 }, new DataInputIntGenerator(input(1, -2, 3), 2).toArray());
+    }
+
+    @Test
+    public void testPrematureEnd() throws IOException {
+        try {
+            new DataInputIntGenerator(input(1, -2, 3), 4).toArray();
+            fail("Expected GeneratorIOException");
+        } catch (GeneratorIOException e) {
+            assertTrue(e.getCause() instanceof EOFException);
+        }
+    }
+
+    @Test
+    public void testClosesInput() throws IOException {
+        final AtomicBoolean closed = new AtomicBoolean();
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes(1, 2))) {
+            @Override
+            public void close() throws IOException {
+                closed.set(true);
+                super.close();
+            }
+        };
+        assertEquals(3, new DataInputIntGenerator(input).fold(0, Sum.INSTANCE));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void testClose() throws IOException {
+        final DataInputIntGenerator gen = new DataInputIntGenerator(input(1, 2, 3, 4));
+        final int[] seen = new int[1];
+        gen.runInt(new IntUnaryProcedure() {
+            public void run(int value) {
+                seen[0] += value;
+                try {
+                    gen.close();
+                } catch (IOException e) {
+                    fail(e.toString());
+                }
+            }
+        });
+        assertEquals(1, seen[0]);
+    }
+
+    @Test
+    public void testStoppableProcedure() throws IOException {
+        final AtomicBoolean closed = new AtomicBoolean();
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes(1, 2, 3, 4))) {
+            @Override
+            public void close() throws IOException {
+                closed.set(true);
+                super.close();
+            }
+        };
+        final int[] seen = new int[2];
+        new DataInputIntGenerator(input).runInt(new StoppableIntUnaryProcedure() {
+            public void run(int value) {
+                seen[0] += value;
+                seen[1]++;
+            }
+
+            public boolean isStopped() {
+                return seen[1] == 2;
+            }
+        });
+        assertEquals(3, seen[0]);
+        assertTrue(closed.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCount() throws IOException {
+        new DataInputIntGenerator(input(1), -2);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullInput() {
+        new DataInputIntGenerator(null);
+    }
+
+    // Helpers
+    // ------------------------------------------------------------------------
+
+    private static DataInputStream input(int... values) throws IOException {
+        return new DataInputStream(new ByteArrayInputStream(bytes(values)));
+    }
+
+    private static byte[] bytes(int... values) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static final class Sum implements IntBinaryFunction {
+        static final Sum INSTANCE = new Sum();
+
+        public int evaluate(int left, int right) {
+            return left + right;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.io;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.generator.StoppableUnaryProcedure;
+import org.junit.Test;
+
+/**
+ * Tests the DataInput Long Generator class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestDataInputLongGenerator {
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testUntilEnd() throws IOException {
+        assertEquals(Arrays.toString(new long[] { 1L, -2L, 3L }), Arrays.toString(new DataInputLongGenerator(
+            input(1L, -2L, 3L)).toArray()));
+    }
+
+    @Test
+    public void testCount() throws IOException {
+        assertEquals(Arrays.toString(new long[] { 1L, -2L }), Arrays.toString(new DataInputLongGenerator(
+            input(1L, -2L, 3L), 2).toArray()));
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        assertEquals(0, new DataInputLongGenerator(input()).toArray().length);
+    }
+
+    @Test
+    public void testStoppableProcedure() throws IOException {
+        final List<Long> seen = new ArrayList<Long>();
+        new DataInputLongGenerator(input(1L, -2L, 3L)).run(new StoppableUnaryProcedure<Long>() {
+            public void run(Long obj) {
+                seen.add(obj);
+            }
+
+            public boolean isStopped() {
+                return seen.size() == 2;
+            }
+        });
+        assertEquals(Arrays.asList(1L, -2L), seen);
+    }
+
+    // Helpers
+    // ------------------------------------------------------------------------
+
+    private static DataInputStream input(long... values) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (long value : values) {
+            out.writeLong(value);
+        }
+        out.close();
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+}
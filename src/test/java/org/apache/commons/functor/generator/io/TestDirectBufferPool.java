@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/**
+ * Tests the Direct Buffer Pool class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestDirectBufferPool {
+
+    @Test
+    public void testAcquireRelease() {
+        DirectBufferPool pool = new DirectBufferPool(16, 2);
+        ByteBuffer a = pool.acquire();
+        assertTrue(a.isDirect());
+        assertEquals(16, a.capacity());
+        a.put((byte) 1);
+        pool.release(a);
+        assertEquals(1, pool.getPooledCount());
+        ByteBuffer b = pool.acquire();
+        assertTrue(a == b);
+        assertEquals(0, b.position());
+        assertEquals(0, pool.getPooledCount());
+    }
+
+    @Test
+    public void testMaxPooled() {
+        DirectBufferPool pool = new DirectBufferPool(16, 2);
+        ByteBuffer a = pool.acquire();
+        ByteBuffer b = pool.acquire();
+        ByteBuffer c = pool.acquire();
+        pool.release(a);
+        pool.release(b);
+        pool.release(c);
+        assertEquals(2, pool.getPooledCount());
+    }
+
+    @Test
+    public void testForeignBuffersAreNotPooled() {
+        DirectBufferPool pool = new DirectBufferPool(16, 2);
+        pool.release(ByteBuffer.allocate(16));
+        pool.release(ByteBuffer.allocateDirect(32));
+        pool.release(ByteBuffer.allocateDirect(16).asReadOnlyBuffer());
+        pool.release(null);
+        assertEquals(0, pool.getPooledCount());
+    }
+
+    @Test
+    public void testDefault() {
+        assertTrue(DirectBufferPool.getDefault() == DirectBufferPool.getDefault());
+        assertEquals(DirectBufferPool.DEFAULT_BUFFER_SIZE, DirectBufferPool.getDefault().getBufferSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBufferSize() {
+        new DirectBufferPool(0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxPooled() {
+        new DirectBufferPool(1, -1);
+    }
+}
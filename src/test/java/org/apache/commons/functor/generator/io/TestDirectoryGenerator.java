@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.functor.generator.StoppableUnaryProcedure;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the Directory Generator class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestDirectoryGenerator {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File root;
+
+    @Before
+    public void setUp() throws IOException {
+        root = folder.newFolder("root");
+        assertTrue(new File(root, "b/c").mkdirs());
+        assertTrue(new File(root, "b/c/d.txt").createNewFile());
+        assertTrue(new File(root, "a.txt").createNewFile());
+        assertTrue(new File(root, "e").mkdir());
+    }
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testWalk() {
+        assertEquals(Arrays.asList("", "a.txt", "b", "b/c", "b/c/d.txt", "e"), paths(new DirectoryGenerator(root)));
+    }
+
+    @Test
+    public void testMaxDepth() {
+        assertEquals(Arrays.asList(""), paths(new DirectoryGenerator(root, 0)));
+        assertEquals(Arrays.asList("", "a.txt", "b", "e"), paths(new DirectoryGenerator(root, 1)));
+        assertEquals(Arrays.asList("", "a.txt", "b", "b/c", "e"), paths(new DirectoryGenerator(root, 2)));
+    }
+
+    @Test
+    public void testFileRoot() {
+        File file = new File(root, "a.txt");
+        assertEquals(Arrays.asList(file), new ArrayList<Object>(new DirectoryGenerator(file).toCollection()));
+    }
+
+    @Test
+    public void testStop() {
+        final List<File> result = new ArrayList<File>();
+        new DirectoryGenerator(root).run(new StoppableUnaryProcedure<File>() {
+            public void run(File obj) {
+                result.add(obj);
+            }
+
+            public boolean isStopped() {
+                return result.size() == 3;
+            }
+        });
+        assertEquals(Arrays.asList(root, new File(root, "a.txt"), new File(root, "b")), result);
+    }
+
+    @Test
+    public void testListsLazily() {
+        final List<String> result = new ArrayList<String>();
+        new DirectoryGenerator(root).run(new UnaryProcedure<File>() {
+            public void run(File obj) {
+                result.add(obj.getName());
+                if (obj.getName().equals("b")) {
+                    // b isn't listed yet
+                    assertTrue(new File(obj, "c/d.txt").delete());
+                    assertTrue(new File(obj, "c").delete());
+                }
+            }
+        });
+        assertEquals(Arrays.asList("root", "a.txt", "b", "e"), result);
+    }
+
+    @Test(expected = GeneratorIOException.class)
+    public void testMissingRoot() {
+        new DirectoryGenerator(new File(root, "missing")).run(new UnaryProcedure<File>() {
+            public void run(File obj) {
+            }
+        });
+    }
+
+    @Test
+    public void testEquals() {
+        DirectoryGenerator gen = new DirectoryGenerator(root);
+        assertEquals(gen, gen);
+        assertEquals(gen, new DirectoryGenerator(root, Integer.MAX_VALUE));
+        assertEquals(gen.hashCode(), new DirectoryGenerator(root).hashCode());
+        assertFalse(gen.equals(new DirectoryGenerator(root, 1)));
+        assertFalse(gen.equals(null));
+        assertEquals(root, gen.getRoot());
+        assertEquals(1, new DirectoryGenerator(root, 1).getMaxDepth());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxDepth() {
+        new DirectoryGenerator(root, -1);
+    }
+
+    // Helpers
+    // ------------------------------------------------------------------------
+
+    private List<String> paths(DirectoryGenerator gen) {
+        final String prefix = root.getPath();
+        final List<String> result = new ArrayList<String>();
+        gen.run(new UnaryProcedure<File>() {
+            public void run(File obj) {
+                String path = obj.getPath().substring(prefix.length()).replace(File.separatorChar, '/');
+                result.add(path.startsWith("/") ? path.substring(1) : path);
+            }
+        });
+        return result;
+    }
+}
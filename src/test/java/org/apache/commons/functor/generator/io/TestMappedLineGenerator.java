@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.UnaryPredicate;
+import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.functor.generator.StoppableUnaryProcedure;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the Mapped Line Generator class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestMappedLineGenerator {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testLines() throws IOException {
+        File file = write("alpha\nbeta\r\n\ngamma");
+        assertEquals(Arrays.asList("alpha", "beta", "", "gamma"), lines(new MappedLineGenerator(file)));
+    }
+
+    @Test
+    public void testTrailingDelimiter() throws IOException {
+        File file = write("alpha\nbeta\n");
+        assertEquals(Arrays.asList("alpha", "beta"), lines(new MappedLineGenerator(file)));
+        assertEquals(2L, new MappedLineGenerator(file).size());
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        assertEquals(new ArrayList<String>(), lines(new MappedLineGenerator(write(""))));
+    }
+
+    @Test
+    public void testRecords() throws IOException {
+        File file = write("a\r;b;;c");
+        assertEquals(Arrays.asList("a\r", "b", "", "c"), lines(new MappedLineGenerator(file, (byte) ';')));
+    }
+
+    @Test
+    public void testSmallWindows() throws IOException {
+        File file = write("one\ntwo\nthree hundred and forty two\nfour\n");
+        for (int window = 1; window < 12; window++) {
+            MappedLineGenerator gen = new MappedLineGenerator(file, (byte) '\n', true, 0L, -1L, window);
+            assertEquals(Arrays.asList("one", "two", "three hundred and forty two", "four"), lines(gen));
+        }
+    }
+
+    @Test
+    public void testViewIsReused() throws IOException {
+        final List<CharSequence> views = new ArrayList<CharSequence>();
+        new MappedLineGenerator(write("a\nb\n")).run(new UnaryProcedure<CharSequence>() {
+            public void run(CharSequence obj) {
+                views.add(obj);
+            }
+        });
+        assertEquals(2, views.size());
+        assertTrue(views.get(0) == views.get(1));
+    }
+
+    @Test
+    public void testRecordView() throws IOException {
+        final List<String> checked = new ArrayList<String>();
+        new MappedLineGenerator(write("caf\u00e9 ol\u00e9\n"), (byte) '\n').run(new UnaryProcedure<CharSequence>() {
+            public void run(CharSequence obj) {
+                MappedRecord record = (MappedRecord) obj;
+                assertEquals(10, record.length());
+                assertEquals('c', record.charAt(0));
+                assertEquals(3, record.indexOf("\u00c3\u00a9"));
+                assertEquals(-1, record.indexOf("tea"));
+                assertEquals("caf", record.subSequence(0, 3).toString());
+                assertEquals(10, record.getBytes().length);
+                assertEquals(10, record.asByteBuffer().remaining());
+                checked.add(record.toString(Charset.forName("UTF-8")));
+            }
+        });
+        assertEquals(Arrays.asList("caf\u00e9 ol\u00e9"), checked);
+    }
+
+    @Test
+    public void testStop() throws IOException {
+        final List<String> result = new ArrayList<String>();
+        new MappedLineGenerator(write("a\nb\nc\nd\n")).run(new StoppableUnaryProcedure<CharSequence>() {
+            public void run(CharSequence obj) {
+                result.add(obj.toString());
+            }
+
+            public boolean isStopped() {
+                return result.size() == 2;
+            }
+        });
+        assertEquals(Arrays.asList("a", "b"), result);
+    }
+
+    @Test
+    public void testSplit() throws IOException {
+        StringBuilder content = new StringBuilder();
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 100; i++) {
+            String line = "line " + i + (i % 7 == 0 ? " with some more text" : "");
+            expected.add(line);
+            content.append(line).append('\n');
+        }
+        MappedLineGenerator gen = new MappedLineGenerator(write(content.toString()));
+        for (int parts = 1; parts < 20; parts++) {
+            List<MappedLineGenerator> split = gen.split(parts);
+            assertTrue(split.size() <= parts);
+            List<String> result = new ArrayList<String>();
+            for (MappedLineGenerator part : split) {
+                result.addAll(lines(part));
+            }
+            assertEquals(expected, result);
+        }
+        assertEquals(1, new MappedLineGenerator(write("no delimiter")).split(4).size());
+    }
+
+    @Test
+    public void testParallel() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append(i % 3 == 0 ? "ERROR " : "INFO ").append(i).append('\n');
+        }
+        MappedLineGenerator gen = new MappedLineGenerator(write(content.toString()));
+        UnaryPredicate<CharSequence> isError = new UnaryPredicate<CharSequence>() {
+            public boolean test(CharSequence obj) {
+                return ((MappedRecord) obj).indexOf("ERROR") == 0;
+            }
+        };
+        assertEquals(334L, gen.parallel().filter(isError).count());
+        List<String> errors = new ArrayList<String>(gen.parallel().filter(isError).map(
+            MappedRecord.decoder(Charset.forName("US-ASCII"))).toCollection());
+        assertEquals(334, errors.size());
+        assertEquals("ERROR 0", errors.get(0));
+        assertEquals("ERROR 999", errors.get(333));
+    }
+
+    @Test
+    public void testParallelFilterValues() throws IOException {
+        StringBuilder content = new StringBuilder();
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 20; i++) {
+            content.append("line").append(i).append("\n\n");
+            expected.add("line" + i);
+        }
+        MappedLineGenerator gen = new MappedLineGenerator(write(content.toString()));
+        final List<String> seen = new ArrayList<String>();
+        gen.parallel().filter(new UnaryPredicate<CharSequence>() {
+            public boolean test(CharSequence obj) {
+                return obj.length() > 0;
+            }
+        }).run(new UnaryProcedure<CharSequence>() {
+            public void run(CharSequence obj) {
+                seen.add(obj.toString());
+            }
+        });
+        assertEquals(expected, seen);
+        List<CharSequence> kept = new ArrayList<CharSequence>(gen.parallel().toCollection());
+        assertEquals(40, kept.size());
+        assertEquals("line19", kept.get(38).toString());
+    }
+
+    @Test
+    public void testParallelDecodesCopies() throws IOException {
+        MappedLineGenerator gen = new MappedLineGenerator(write("caf\u00e9\nna\u00efve\n"));
+        assertEquals(Arrays.asList("caf\u00e9", "na\u00efve"), new ArrayList<String>(gen.parallel().map(
+            MappedRecord.decoder(Charset.forName("UTF-8"))).toCollection()));
+    }
+
+    @Test
+    public void testCopy() throws IOException {
+        MappedLineGenerator gen = new MappedLineGenerator(write("alpha\nbeta\n"));
+        final List<CharSequence> copies = new ArrayList<CharSequence>();
+        gen.run(new UnaryProcedure<CharSequence>() {
+            public void run(CharSequence obj) {
+                copies.add(MappedRecord.copier().evaluate(obj));
+            }
+        });
+        assertEquals("alpha", copies.get(0).toString());
+        assertEquals("beta", copies.get(1).toString());
+        assertEquals("x", MappedRecord.copier().evaluate("x"));
+    }
+
+    @Test
+    public void testMissingFile() {
+        try {
+            new MappedLineGenerator(new File(folder.getRoot(), "missing")).run(new UnaryProcedure<CharSequence>() {
+                public void run(CharSequence obj) {
+                }
+            });
+            fail("Expected GeneratorIOException");
+        } catch (GeneratorIOException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testEquals() throws IOException {
+        File file = write("a");
+        MappedLineGenerator gen = new MappedLineGenerator(file);
+        assertEquals(gen, gen);
+        assertEquals(gen, new MappedLineGenerator(file));
+        assertEquals(gen.hashCode(), new MappedLineGenerator(file).hashCode());
+        assertFalse(gen.equals(new MappedLineGenerator(file, (byte) '\n')));
+        assertFalse(gen.equals(null));
+        assertEquals(file, gen.getFile());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullFile() {
+        new MappedLineGenerator(null);
+    }
+
+    // Helpers
+    // ------------------------------------------------------------------------
+
+    private File write(String content) throws IOException {
+        File file = folder.newFile();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private static List<String> lines(MappedLineGenerator gen) {
+        final List<String> result = new ArrayList<String>();
+        gen.run(new UnaryProcedure<CharSequence>() {
+            public void run(CharSequence obj) {
+                result.add(obj.toString());
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.loop;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.UnaryProcedure;
+import org.junit.Test;
+
+/**
+ * Tests the Array Generator class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestArrayGenerator extends BaseFunctorTest {
+
+    private final String[] array = {"a", "b", "c", "d", "e" };
+
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new ArrayGenerator<String>(array);
+    }
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testRun() {
+        ArrayGenerator<String> gen = new ArrayGenerator<String>(array);
+        assertEquals(5L, gen.size());
+        assertEquals(Arrays.asList(array), gen.toCollection());
+        // it can be run again
+        assertEquals(Arrays.asList(array), gen.toCollection());
+        assertEquals(Arrays.asList("b", "c"), new ArrayGenerator<String>(array, 1, 3).toCollection());
+    }
+
+    @Test
+    public void testSplit() {
+        ArrayGenerator<String> gen = new ArrayGenerator<String>(array);
+        List<IndexedGenerator<String>> parts = gen.split(2);
+        assertEquals(2, parts.size());
+        assertEquals(Arrays.asList("a", "b"), parts.get(0).toCollection());
+        assertEquals(Arrays.asList("c", "d", "e"), parts.get(1).toCollection());
+        parts = gen.split(10);
+        assertEquals(5, parts.size());
+        List<String> all = new ArrayList<String>();
+        for (IndexedGenerator<String> part : parts) {
+            assertEquals(1L, part.size());
+            part.to(all);
+        }
+        assertEquals(Arrays.asList(array), all);
+        assertSame(gen, gen.split(1).get(0));
+        assertEquals(1, new ArrayGenerator<String>(array, 2, 2).split(4).size());
+    }
+
+    @Test
+    public void testStop() {
+        final ArrayGenerator<String> gen = new ArrayGenerator<String>(array);
+        final List<String> result = new ArrayList<String>();
+        gen.run(new UnaryProcedure<String>() {
+            public void run(String obj) {
+                result.add(obj);
+                if (obj.equals("b")) {
+                    gen.stop();
+                }
+            }
+        });
+        assertEquals(Arrays.asList("a", "b"), result);
+    }
+
+    @Test
+    public void testEquals() {
+        assertObjectsAreEqual(new ArrayGenerator<String>(array, 1, 3), new ArrayGenerator<String>(array, 1, 3));
+        assertObjectsAreNotEqual(new ArrayGenerator<String>(array, 1, 3), new ArrayGenerator<String>(array, 1, 4));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullArray() {
+        new ArrayGenerator<String>(null);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testInvalidInterval() {
+        new ArrayGenerator<String>(array, 2, 6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidParts() {
+        new ArrayGenerator<String>(array).split(0);
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.loop;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.functor.UnaryFunction;
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.StoppableUnaryProcedure;
+import org.apache.commons.functor.range.IntegerRange;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the Concurrent Transformed Generator class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestConcurrentTransformedGenerator {
+
+    private final Generator<Integer> wrappedGenerator = IteratorToGeneratorAdapter.adapt(new IntegerRange(1, 21));
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testOrdered() {
+        assertEquals(expected(), new ConcurrentTransformedGenerator<Integer, Integer>(wrappedGenerator, 4,
+            slowDouble).toCollection());
+    }
+
+    @Test
+    public void testUnordered() {
+        List<Integer> result = new ArrayList<Integer>(new ConcurrentTransformedGenerator<Integer, Integer>(
+            wrappedGenerator, 4, slowDouble, false, executor).toCollection());
+        Collections.sort(result);
+        assertEquals(expected(), result);
+    }
+
+    @Test
+    public void testRunsConcurrently() {
+        final CyclicBarrier barrier = new CyclicBarrier(3);
+        UnaryFunction<Integer, Integer> meet = new UnaryFunction<Integer, Integer>() {
+            public Integer evaluate(Integer obj) {
+                try {
+                    // fails unless three elements are in flight together
+                    barrier.await(5, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                return obj;
+            }
+        };
+        Generator<Integer> gen = IteratorToGeneratorAdapter.adapt(new IntegerRange(0, 6));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5), new ConcurrentTransformedGenerator<Integer, Integer>(gen, 3,
+            meet).toCollection());
+    }
+
+    @Test
+    public void testMaxInFlight() {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        UnaryFunction<Integer, Integer> tracking = new UnaryFunction<Integer, Integer>() {
+            public Integer evaluate(Integer obj) {
+                int now = running.incrementAndGet();
+                while (maxRunning.get() < now && !maxRunning.compareAndSet(maxRunning.get(), now)) {
+                    // retry
+                }
+                try {
+                    return slowDouble.evaluate(obj);
+                } finally {
+                    running.decrementAndGet();
+                }
+            }
+        };
+        new ConcurrentTransformedGenerator<Integer, Integer>(wrappedGenerator, 3, tracking, false, executor)
+            .toCollection();
+        assertTrue(String.valueOf(maxRunning.get()), maxRunning.get() <= 3);
+    }
+
+    @Test
+    public void testRejectedRunsOnCaller() {
+        Executor rejecting = new Executor() {
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        };
+        assertEquals(expected(), new ConcurrentTransformedGenerator<Integer, Integer>(wrappedGenerator, 2,
+            slowDouble, true, rejecting).toCollection());
+    }
+
+    @Test
+    public void testFailure() {
+        UnaryFunction<Integer, Integer> failing = new UnaryFunction<Integer, Integer>() {
+            public Integer evaluate(Integer obj) {
+                if (obj == 5) {
+                    throw new IllegalArgumentException("expected");
+                }
+                return obj;
+            }
+        };
+        try {
+            new ConcurrentTransformedGenerator<Integer, Integer>(wrappedGenerator, 4, failing).toCollection();
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals("expected", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testStop() {
+        final AtomicInteger pulled = new AtomicInteger();
+        Generator<Integer> counting = new TransformedGenerator<Integer, Integer>(wrappedGenerator,
+            new UnaryFunction<Integer, Integer>() {
+                public Integer evaluate(Integer obj) {
+                    pulled.incrementAndGet();
+                    return obj;
+                }
+            });
+        final List<Integer> result = new ArrayList<Integer>();
+        new ConcurrentTransformedGenerator<Integer, Integer>(counting, 2, slowDouble).run(
+            new StoppableUnaryProcedure<Integer>() {
+                public void run(Integer obj) {
+                    result.add(obj);
+                }
+
+                public boolean isStopped() {
+                    return result.size() == 3;
+                }
+            });
+        assertEquals(Arrays.asList(2, 4, 6), result);
+        assertTrue(String.valueOf(pulled.get()), pulled.get() <= 3 + 2);
+    }
+
+    @Test
+    public void testStopStopsWrapped() {
+        LoopGenerator<Integer> wrapped = IteratorToGeneratorAdapter.adapt(new IntegerRange(1, 21));
+        ConcurrentTransformedGenerator<Integer, Integer> gen = new ConcurrentTransformedGenerator<Integer, Integer>(
+            wrapped, 2, slowDouble);
+        gen.stop();
+        assertTrue(gen.isStopped());
+        assertTrue(wrapped.isStopped());
+    }
+
+    @Test
+    public void testMapConcurrent() {
+        LoopGenerator<Integer> wrapped = IteratorToGeneratorAdapter.adapt(new IntegerRange(1, 21));
+        assertEquals(new ConcurrentTransformedGenerator<Integer, Integer>(wrapped, 4, slowDouble),
+            wrapped.mapConcurrent(4, slowDouble));
+        assertEquals(expected(), IteratorToGeneratorAdapter.adapt(new IntegerRange(1, 21))
+            .mapConcurrent(4, slowDouble).toCollection());
+        List<Integer> result = new ArrayList<Integer>(IteratorToGeneratorAdapter.adapt(new IntegerRange(1, 21))
+            .<Integer> mapConcurrent(4, slowDouble, false, executor).toCollection());
+        Collections.sort(result);
+        assertEquals(expected(), result);
+    }
+
+    @Test
+    public void testNullElements() {
+        Generator<String> gen = IteratorToGeneratorAdapter.adapt(Arrays.asList("a", null, "c").iterator());
+        UnaryFunction<String, String> identity = new UnaryFunction<String, String>() {
+            public String evaluate(String obj) {
+                return obj;
+            }
+        };
+        assertEquals(Arrays.asList("a", null, "c"), new ConcurrentTransformedGenerator<String, String>(gen, 2,
+            identity).toCollection());
+    }
+
+    @Test
+    public void testEquals() {
+        ConcurrentTransformedGenerator<Integer, Integer> gen = new ConcurrentTransformedGenerator<Integer, Integer>(
+            wrappedGenerator, 4, slowDouble);
+        assertEquals(gen, gen);
+        assertEquals(gen, new ConcurrentTransformedGenerator<Integer, Integer>(wrappedGenerator, 4, slowDouble));
+        assertEquals(gen.hashCode(), new ConcurrentTransformedGenerator<Integer, Integer>(wrappedGenerator, 4,
+            slowDouble).hashCode());
+        assertFalse(gen.equals(new ConcurrentTransformedGenerator<Integer, Integer>(wrappedGenerator, 5,
+            slowDouble)));
+        assertFalse(gen.equals(new TransformedGenerator<Integer, Integer>(wrappedGenerator, slowDouble)));
+        assertFalse(gen.equals(null));
+        assertTrue(gen.isOrdered());
+        assertEquals(4, gen.getMaxInFlight());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxInFlight() {
+        new ConcurrentTransformedGenerator<Integer, Integer>(wrappedGenerator, 0, slowDouble);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullWrappedGenerator() {
+        new ConcurrentTransformedGenerator<Integer, Integer>(null, 1, slowDouble);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullUnaryFunction() {
+        new ConcurrentTransformedGenerator<Integer, Integer>(wrappedGenerator, 1, null);
+    }
+
+    // Helpers
+    // ------------------------------------------------------------------------
+
+    private static List<Integer> expected() {
+        List<Integer> result = new ArrayList<Integer>();
+        for (int i = 1; i < 21; i++) {
+            result.add(i * 2);
+        }
+        return result;
+    }
+
+    private final UnaryFunction<Integer, Integer> slowDouble = new UnaryFunction<Integer, Integer>() {
+        public Integer evaluate(Integer obj) {
+            try {
+                // later elements finish first
+                Thread.sleep(21 - obj);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return obj * 2;
+        }
+    };
+}
@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.loop;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.functor.UnaryFunction;
+import org.apache.commons.functor.UnaryPredicate;
+import org.apache.commons.functor.generator.FilteredGenerator;
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.util.EachElement;
+import org.apache.commons.functor.range.IntegerRange;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the Fused Generator class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestFusedGenerator {
+
+    private List<Integer> elements;
+    private int pulled;
+
+    @Before
+    public void setUp() throws Exception {
+        elements = new ArrayList<Integer>();
+        for (Integer i : new IntegerRange(0, 20)) {
+            elements.add(i);
+        }
+        pulled = 0;
+    }
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected=NullPointerException.class)
+    public void testFromProhibitsNull() {
+        FusedGenerator.from(null);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testFilterProhibitsNull() {
+        FusedGenerator.from(source()).filter(null);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testMapProhibitsNull() {
+        FusedGenerator.from(source()).map(null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testLimitProhibitsNegative() {
+        FusedGenerator.from(source()).limit(-1);
+    }
+
+    @Test
+    public void testNoStages() {
+        assertEquals(elements, FusedGenerator.from(source()).toCollection());
+    }
+
+    @Test
+    public void testFilter() {
+        Generator<Integer> expected = new FilteredGenerator<Integer>(source(), isEven);
+        assertEquals(expected.toCollection(), FusedGenerator.from(source()).filter(isEven).toCollection());
+    }
+
+    @Test
+    public void testMap() {
+        Generator<Integer> expected = new TransformedGenerator<Integer, Integer>(source(), square);
+        assertEquals(expected.toCollection(), FusedGenerator.from(source()).map(square).toCollection());
+    }
+
+    @Test
+    public void testFilterMap() {
+        Generator<Integer> expected = new TransformedGenerator<Integer, Integer>(
+            new FilteredGenerator<Integer>(source(), isEven), square);
+        assertEquals(expected.toCollection(),
+            FusedGenerator.from(source()).filter(isEven).map(square).toCollection());
+    }
+
+    @Test
+    public void testMapFilter() {
+        Generator<Integer> expected = new FilteredGenerator<Integer>(
+            new TransformedGenerator<Integer, Integer>(source(), increment), isEven);
+        assertEquals(expected.toCollection(),
+            FusedGenerator.from(source()).map(increment).filter(isEven).toCollection());
+    }
+
+    @Test
+    public void testLongerPipeline() {
+        Generator<Integer> expected = new TransformedGenerator<Integer, Integer>(
+            new FilteredGenerator<Integer>(new TransformedGenerator<Integer, Integer>(
+                new FilteredGenerator<Integer>(source(), isEven), increment), isMultipleOfThree), square);
+        assertEquals(expected.toCollection(), FusedGenerator.from(source()).filter(isEven).map(increment)
+            .filter(isMultipleOfThree).map(square).toCollection());
+    }
+
+    @Test
+    public void testLimitStopsSource() {
+        assertEquals(Arrays.asList(0, 1, 2), FusedGenerator.from(counting()).limit(3).toCollection());
+        assertEquals(3, pulled);
+    }
+
+    @Test
+    public void testFilterMapLimitStopsSource() {
+        assertEquals(Arrays.asList(0, 4, 16),
+            FusedGenerator.from(counting()).filter(isEven).map(square).limit(3).toCollection());
+        assertEquals(5, pulled);
+    }
+
+    @Test
+    public void testLimitedPipelineRunsTwiceAndLeavesSourceUsable() {
+        Generator<Integer> source = EachElement.splittable(elements);
+        FusedGenerator<Integer> gen = FusedGenerator.from(source).limit(2);
+        assertEquals(Arrays.asList(0, 1), gen.toCollection());
+        assertEquals(Arrays.asList(0, 1), gen.toCollection());
+        assertEquals(Arrays.asList(0, 4), FusedGenerator.from(source).filter(isEven).map(square).limit(2)
+            .toCollection());
+        assertEquals(elements, source.toCollection());
+        // a limit in the middle of the pipeline
+        FusedGenerator<Integer> general = FusedGenerator.from(source).filter(isEven).limit(2).map(increment);
+        assertEquals(Arrays.asList(1, 3), general.toCollection());
+        assertEquals(Arrays.asList(1, 3), general.toCollection());
+        assertEquals(elements, source.toCollection());
+    }
+
+    @Test
+    public void testLimitInTheMiddle() {
+        // the first 5 even numbers, of which the multiples of 3 once incremented
+        assertEquals(Arrays.asList(3, 9),
+            FusedGenerator.from(counting()).filter(isEven).limit(5).map(increment).filter(isMultipleOfThree)
+            .toCollection());
+        assertEquals(9, pulled);
+    }
+
+    @Test
+    public void testLimitZero() {
+        assertEquals(Collections.emptyList(), FusedGenerator.from(counting()).limit(0).toCollection());
+        assertEquals(0, pulled);
+        assertEquals(Collections.emptyList(),
+            FusedGenerator.from(source()).filter(isEven).limit(0).map(square).toCollection());
+    }
+
+    @Test
+    public void testConsecutiveLimits() {
+        FusedGenerator<Integer> gen = FusedGenerator.from(source());
+        assertEquals(gen.limit(4), gen.limit(7).limit(4));
+        assertEquals(gen.limit(4), gen.limit(4).limit(7));
+        assertEquals(Arrays.asList(0, 1, 2, 3), gen.limit(4).limit(7).toCollection());
+    }
+
+    @Test
+    public void testLimitGreaterThanSize() {
+        assertEquals(elements, FusedGenerator.from(source()).limit(100).toCollection());
+    }
+
+    @Test
+    public void testBuildersLeaveOriginalUnchanged() {
+        FusedGenerator<Integer> gen = FusedGenerator.from(source());
+        gen.filter(isEven);
+        gen.limit(1);
+        assertEquals(elements, gen.toCollection());
+    }
+
+    @Test
+    public void testEquals() {
+        Generator<Integer> wrapped = source();
+        FusedGenerator<Integer> gen = FusedGenerator.from(wrapped).filter(isEven).map(square);
+        assertEquals(gen, gen);
+        assertEquals(gen, FusedGenerator.from(wrapped).filter(isEven).map(square));
+        assertEquals(gen.hashCode(), FusedGenerator.from(wrapped).filter(isEven).map(square).hashCode());
+        assertFalse(gen.equals(null));
+        assertFalse(gen.equals(FusedGenerator.from(wrapped).map(square).filter(isEven)));
+        assertFalse(gen.equals(FusedGenerator.from(wrapped).filter(isEven)));
+        assertFalse(gen.equals(FusedGenerator.from(source()).filter(isEven).map(square)));
+        assertTrue(gen.toString().startsWith("FusedGenerator<"));
+    }
+
+    // Helpers
+    // ------------------------------------------------------------------------
+
+    private Generator<Integer> source() {
+        return IteratorToGeneratorAdapter.adapt(elements.iterator());
+    }
+
+    private Generator<Integer> counting() {
+        final Iterator<Integer> iter = elements.iterator();
+        return IteratorToGeneratorAdapter.adapt(new Iterator<Integer>() {
+            public boolean hasNext() {
+                return iter.hasNext();
+            }
+
+            public Integer next() {
+                pulled++;
+                return iter.next();
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        });
+    }
+
+    private final UnaryPredicate<Integer> isEven = new UnaryPredicate<Integer>() {
+        public boolean test(Integer obj) {
+            return obj.intValue() % 2 == 0;
+        }
+    };
+
+    private final UnaryPredicate<Integer> isMultipleOfThree = new UnaryPredicate<Integer>() {
+        public boolean test(Integer obj) {
+            return obj.intValue() % 3 == 0;
+        }
+    };
+
+    private final UnaryFunction<Integer, Integer> square = new UnaryFunction<Integer, Integer>() {
+        public Integer evaluate(Integer obj) {
+            return obj.intValue() * obj.intValue();
+        }
+    };
+
+    private final UnaryFunction<Integer, Integer> increment = new UnaryFunction<Integer, Integer>() {
+        public Integer evaluate(Integer obj) {
+            return obj.intValue() + 1;
+        }
+    };
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.loop;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.functor.range.BoundType;
+import org.apache.commons.functor.range.IntegerRange;
+import org.junit.Test;
+
+/**
+ * Tests the Integer Range Generator class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestIntegerRangeGenerator extends BaseFunctorTest {
+
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new IntegerRangeGenerator(new IntegerRange(0, 10));
+    }
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testSameElementsAsRange() {
+        assertSameElements(new IntegerRange(0, 10));
+        assertSameElements(new IntegerRange(0, 10, 3));
+        assertSameElements(new IntegerRange(10, 0));
+        assertSameElements(new IntegerRange(10, -5, -4));
+        assertSameElements(new IntegerRange(0, BoundType.OPEN, 10, BoundType.CLOSED, 2));
+        assertSameElements(new IntegerRange(0, BoundType.OPEN, -9, BoundType.CLOSED, -3));
+        assertSameElements(new IntegerRange(0, BoundType.OPEN, 1, BoundType.OPEN, 1));
+        assertSameElements(new IntegerRange(5, 5));
+    }
+
+    @Test
+    public void testSplit() {
+        IntegerRangeGenerator gen = new IntegerRangeGenerator(new IntegerRange(1, 20, 2));
+        assertEquals(10L, gen.size());
+        List<Integer> all = new ArrayList<Integer>();
+        for (IndexedGenerator<Integer> part : gen.split(3)) {
+            part.to(all);
+        }
+        assertEquals(gen.toCollection(), all);
+        assertEquals(Arrays.asList(1, 3, 5), gen.split(3).get(0).toCollection());
+    }
+
+    @Test
+    public void testEquals() {
+        assertObjectsAreEqual(new IntegerRangeGenerator(new IntegerRange(0, 10)),
+            new IntegerRangeGenerator(new IntegerRange(0, 10)));
+        assertObjectsAreNotEqual(new IntegerRangeGenerator(new IntegerRange(0, 10)),
+            new IntegerRangeGenerator(new IntegerRange(0, 10, 2)));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullRange() {
+        new IntegerRangeGenerator(null);
+    }
+
+    private static void assertSameElements(IntegerRange range) {
+        List<Integer> expected = new ArrayList<Integer>();
+        for (Integer value : range) {
+            expected.add(value);
+        }
+        assertEquals(expected, new IntegerRangeGenerator(range).toCollection());
+    }
+
+    @Test
+    public void testRunBatched() {
+        final List<List<Integer>> batches = new ArrayList<List<Integer>>();
+        new IntegerRangeGenerator(new IntegerRange(0, 10, 2)).runBatched(2, new UnaryProcedure<List<Integer>>() {
+            public void run(List<Integer> obj) {
+                batches.add(obj);
+            }
+        });
+        assertEquals("[[0, 2], [4, 6], [8]]", batches.toString());
+    }
+}
@@ -26,6 +26,7 @@ import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.UnaryProcedure;
 import org.apache.commons.functor.generator.Generator;
 import org.apache.commons.functor.generator.loop.IteratorToGeneratorAdapter;
 import org.junit.After;
@@ -69,7 +70,8 @@ public class TestIteratorToGeneratorAdapter extends BaseFunctorTest {
 
     @Test
     public void testAdaptNull() {
-        assertNull(IteratorToGeneratorAdapter.adapt(null));
+        assertNull(IteratorToGeneratorAdapter.adapt((Iterator<?>) null));
+        assertNull(IteratorToGeneratorAdapter.adapt((Iterable<?>) null));
     }
 
     @Test
@@ -77,6 +79,15 @@ public class TestIteratorToGeneratorAdapter extends BaseFunctorTest {
         assertNotNull(IteratorToGeneratorAdapter.adapt(list.iterator()));
     }
 
+    @Test
+    public void testAdaptIterableRunsMoreThanOnce() {
+        Generator<String> gen = IteratorToGeneratorAdapter.adapt(list);
+        assertEquals(list, gen.toCollection());
+        assertEquals(list, gen.toCollection());
+        assertEquals(gen, IteratorToGeneratorAdapter.adapt(list));
+        assertEquals(gen.hashCode(), IteratorToGeneratorAdapter.adapt(list).hashCode());
+    }
+
     @Test
     public void testGenerate() {
         Iterator<String> iter = list.iterator();
@@ -98,4 +109,28 @@ public class TestIteratorToGeneratorAdapter extends BaseFunctorTest {
         assertObjectsAreEqual(gen,gen);
         assertObjectsAreEqual(gen,new IteratorToGeneratorAdapter<String>(iter));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testRunBatched() {
+        final List<List<String>> batches = new ArrayList<List<String>>();
+        new IteratorToGeneratorAdapter<String>(list.iterator()).runBatched(2, new UnaryProcedure<List<String>>() {
+            public void run(List<String> obj) {
+                batches.add(obj);
+            }
+        });
+        assertEquals("[[1, two], [c]]", batches.toString());
+    }
+
+    @Test
+    public void testRunBatchedStop() {
+        final List<List<String>> batches = new ArrayList<List<String>>();
+        final IteratorToGeneratorAdapter<String> gen = new IteratorToGeneratorAdapter<String>(list.iterator());
+        gen.runBatched(1, new UnaryProcedure<List<String>>() {
+            public void run(List<String> obj) {
+                batches.add(obj);
+                gen.stop();
+            }
+        });
+        assertEquals("[[1]]", batches.toString());
+    }
+}
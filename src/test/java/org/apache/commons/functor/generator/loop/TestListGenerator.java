@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.loop;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.UnaryProcedure;
+import org.junit.Test;
+
+/**
+ * Tests the List Generator class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestListGenerator extends BaseFunctorTest {
+
+    private final List<String> list = Arrays.asList("a", "b", "c", "d", "e");
+
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new ListGenerator<String>(list);
+    }
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testRun() {
+        assertEquals(list, new ListGenerator<String>(list).toCollection());
+        assertEquals(Arrays.asList("c", "d"), new ListGenerator<String>(list, 2, 4).toCollection());
+    }
+
+    @Test
+    public void testSequentialList() {
+        List<String> linked = new LinkedList<String>(list);
+        ListGenerator<String> gen = new ListGenerator<String>(linked);
+        assertEquals(list, gen.toCollection());
+        List<String> all = new ArrayList<String>();
+        for (IndexedGenerator<String> part : gen.split(3)) {
+            part.to(all);
+        }
+        assertEquals(list, all);
+    }
+
+    @Test
+    public void testStopSequentialList() {
+        final ListGenerator<String> gen = new ListGenerator<String>(new LinkedList<String>(list));
+        final List<String> result = new ArrayList<String>();
+        gen.run(new UnaryProcedure<String>() {
+            public void run(String obj) {
+                result.add(obj);
+                gen.stop();
+            }
+        });
+        assertEquals(Arrays.asList("a"), result);
+    }
+
+    @Test
+    public void testEquals() {
+        assertObjectsAreEqual(new ListGenerator<String>(list), new ListGenerator<String>(list));
+        assertObjectsAreNotEqual(new ListGenerator<String>(list), new ListGenerator<String>(list, 0, 4));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullList() {
+        new ListGenerator<String>(null);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testInvalidInterval() {
+        new ListGenerator<String>(list, 3, 2);
+    }
+}
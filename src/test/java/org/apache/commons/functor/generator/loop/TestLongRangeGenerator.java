@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.loop;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.range.BoundType;
+import org.apache.commons.functor.range.LongRange;
+import org.apache.commons.functor.range.Ranges;
+import org.junit.Test;
+
+/**
+ * Tests the Long Range Generator class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestLongRangeGenerator extends BaseFunctorTest {
+
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new LongRangeGenerator(new LongRange(0, 10));
+    }
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testSameElementsAsRange() {
+        assertSameElements(new LongRange(0, 10));
+        assertSameElements(new LongRange(0, 10, 3));
+        assertSameElements(new LongRange(10, 0));
+        assertSameElements(new LongRange(10, -5, -4));
+        assertSameElements(new LongRange(0, BoundType.OPEN, 10, BoundType.CLOSED, 2));
+        assertSameElements(new LongRange(0, BoundType.OPEN, -9, BoundType.CLOSED, -3));
+        assertSameElements(new LongRange(0, BoundType.OPEN, 1, BoundType.OPEN, 1));
+        assertSameElements(new LongRange(5, 5));
+    }
+
+    @Test
+    public void testSplit() {
+        LongRangeGenerator gen = new LongRangeGenerator(new LongRange(1, 20, 2));
+        assertEquals(10L, gen.size());
+        List<Long> all = new ArrayList<Long>();
+        for (IndexedGenerator<Long> part : gen.split(3)) {
+            part.to(all);
+        }
+        assertEquals(gen.toCollection(), all);
+        assertEquals(Arrays.asList(1L, 3L, 5L), gen.split(3).get(0).toCollection());
+    }
+
+    @Test
+    public void testSplitHugeRange() {
+        LongRangeGenerator gen = new LongRangeGenerator(Ranges.longRange(0, Long.MAX_VALUE / 2));
+        List<IndexedGenerator<Long>> parts = gen.split(16);
+        assertEquals(16, parts.size());
+        long expectedFrom = 0L;
+        for (IndexedGenerator<Long> part : parts) {
+            assertEquals(expectedFrom, part.getFrom());
+            assertTrue(part.size() >= gen.size() / 16);
+            expectedFrom = part.getTo();
+        }
+        assertEquals(gen.size(), expectedFrom);
+        IndexedGenerator<Long> last = parts.get(15);
+        assertEquals(Long.valueOf(last.getFrom()), last.iterator().next());
+        assertEquals(gen.size(), last.getTo());
+    }
+
+    @Test
+    public void testSplitNearMaxValue() {
+        LongRangeGenerator gen = new LongRangeGenerator(new LongRange(Long.MAX_VALUE - 10, BoundType.CLOSED,
+                Long.MAX_VALUE, BoundType.CLOSED, 1L));
+        List<Long> all = new ArrayList<Long>();
+        for (IndexedGenerator<Long> part : gen.split(4)) {
+            part.to(all);
+        }
+        assertEquals(11, all.size());
+        assertEquals(Long.valueOf(Long.MAX_VALUE), all.get(10));
+    }
+
+    @Test
+    public void testEquals() {
+        assertObjectsAreEqual(new LongRangeGenerator(new LongRange(0, 10)),
+            new LongRangeGenerator(new LongRange(0, 10)));
+        assertObjectsAreNotEqual(new LongRangeGenerator(new LongRange(0, 10)),
+            new LongRangeGenerator(new LongRange(0, 10, 2)));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullRange() {
+        new LongRangeGenerator(null);
+    }
+
+    private static void assertSameElements(LongRange range) {
+        List<Long> expected = new ArrayList<Long>();
+        for (Long value : range) {
+            expected.add(value);
+        }
+        assertEquals(expected, new LongRangeGenerator(range).toCollection());
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.generator.StoppableUnaryProcedure;
+import org.apache.commons.functor.primitive.DoubleBinaryFunction;
+import org.apache.commons.functor.primitive.DoubleUnaryFunction;
+import org.apache.commons.functor.primitive.DoubleUnaryPredicate;
+import org.junit.Test;
+
+/**
+ * Tests the Double Step Generator class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestDoubleStepGenerator extends BaseFunctorTest {
+
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new DoubleStepGenerator(1.0, 2.0, 5L);
+    }
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testToArray() {
+        assertArrayEquals(new double[] {1.0, 3.0, 5.0, 7.0, 9.0}, new DoubleStepGenerator(1.0, 2.0, 5L).toArray(), 0.0);
+        assertArrayEquals(new double[] {3.0, 0.0, -3.0}, new DoubleStepGenerator(3.0, -3.0, 3L).toArray(), 0.0);
+        assertArrayEquals(new double[] {}, new DoubleStepGenerator(3.0, -3.0, 0L).toArray(), 0.0);
+    }
+
+    @Test
+    public void testToArrayGrows() {
+        double[] values = new DoubleStepGenerator(0.0, 1.0, 100L).toArray();
+        assertEquals(100, values.length);
+        assertEquals(99.0, values[99], 0.0);
+    }
+
+    @Test
+    public void testBoxedRun() {
+        assertEquals(Arrays.asList(1.0, 3.0, 5.0), new DoubleStepGenerator(1.0, 2.0, 3L).toCollection());
+    }
+
+    @Test
+    public void testFold() {
+        assertEquals(25.0, new DoubleStepGenerator(1.0, 2.0, 5L).fold(0.0, sum), 0.0);
+        assertEquals(7.0, new DoubleStepGenerator(1.0, 2.0, 0L).fold(7.0, sum), 0.0);
+    }
+
+    @Test
+    public void testFilterMap() {
+        DoubleGenerator gen = new DoubleStepGenerator(0.0, 1.0, 10L).filter(isEven).map(square);
+        assertArrayEquals(new double[] {0.0, 4.0, 16.0, 36.0, 64.0}, gen.toArray(), 0.0);
+        assertEquals(120.0, gen.fold(0.0, sum), 0.0);
+    }
+
+    @Test
+    public void testStoppableProcedure() {
+        final List<Double> seen = new ArrayList<Double>();
+        new DoubleStepGenerator(0.0, 1.0, 1000000L).filter(isEven).runDouble(new StoppableDoubleUnaryProcedure() {
+            public void run(double value) {
+                seen.add(value);
+            }
+
+            public boolean isStopped() {
+                return seen.size() == 3;
+            }
+        });
+        assertEquals(Arrays.asList(0.0, 2.0, 4.0), seen);
+    }
+
+    @Test
+    public void testBoxedStoppableProcedure() {
+        final List<Double> seen = new ArrayList<Double>();
+        new DoubleStepGenerator(0.0, 1.0, 1000000L).map(square).run(new StoppableUnaryProcedure<Double>() {
+            public void run(Double obj) {
+                seen.add(obj);
+            }
+
+            public boolean isStopped() {
+                return seen.size() == 3;
+            }
+        });
+        assertEquals(Arrays.asList(0.0, 1.0, 4.0), seen);
+    }
+
+    @Test
+    public void testNoAccumulatedError() {
+        double[] values = new DoubleStepGenerator(0.0, 0.1, 11).toArray();
+        assertEquals(1.0, values[10], 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeCount() {
+        new DoubleStepGenerator(0.0, 1.0, -1L);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullFunction() {
+        new DoubleStepGenerator(0.0, 1.0, 1L).fold(0.0, null);
+    }
+
+    @Test
+    public void testEquals() {
+        DoubleStepGenerator gen = new DoubleStepGenerator(1.0, 2.0, 5L);
+        assertObjectsAreEqual(gen, new DoubleStepGenerator(1.0, 2.0, 5L));
+        assertObjectsAreNotEqual(gen, new DoubleStepGenerator(1.0, 2.0, 4L));
+        assertObjectsAreNotEqual(gen, new DoubleStepGenerator(1.0, 3.0, 5L));
+        assertObjectsAreNotEqual(gen, new DoubleStepGenerator(0.0, 2.0, 5L));
+    }
+
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    private final DoubleBinaryFunction sum = new DoubleBinaryFunction() {
+        public double evaluate(double left, double right) {
+            return left + right;
+        }
+    };
+
+    private final DoubleUnaryPredicate isEven = new DoubleUnaryPredicate() {
+        public boolean test(double value) {
+            return value % 2 == 0;
+        }
+    };
+
+    private final DoubleUnaryFunction square = new DoubleUnaryFunction() {
+        public double evaluate(double value) {
+            return value * value;
+        }
+    };
+}
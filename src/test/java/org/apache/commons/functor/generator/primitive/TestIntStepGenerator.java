@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.generator.StoppableUnaryProcedure;
+import org.apache.commons.functor.primitive.IntBinaryFunction;
+import org.apache.commons.functor.primitive.IntUnaryFunction;
+import org.apache.commons.functor.primitive.IntUnaryPredicate;
+import org.junit.Test;
+
+/**
+ * Tests the Int Step Generator class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestIntStepGenerator extends BaseFunctorTest {
+
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new IntStepGenerator(1, 2, 5L);
+    }
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testToArray() {
+        assertArrayEquals(new int[] {1, 3, 5, 7, 9}, new IntStepGenerator(1, 2, 5L).toArray());
+        assertArrayEquals(new int[] {3, 0, -3}, new IntStepGenerator(3, -3, 3L).toArray());
+        assertArrayEquals(new int[] {}, new IntStepGenerator(3, -3, 0L).toArray());
+    }
+
+    @Test
+    public void testToArrayGrows() {
+        int[] values = new IntStepGenerator(0, 1, 100L).toArray();
+        assertEquals(100, values.length);
+        assertEquals(99, values[99]);
+    }
+
+    @Test
+    public void testBoxedRun() {
+        assertEquals(Arrays.asList(1, 3, 5), new IntStepGenerator(1, 2, 3L).toCollection());
+    }
+
+    @Test
+    public void testFold() {
+        assertEquals(25, new IntStepGenerator(1, 2, 5L).fold(0, sum));
+        assertEquals(7, new IntStepGenerator(1, 2, 0L).fold(7, sum));
+    }
+
+    @Test
+    public void testFilterMap() {
+        IntGenerator gen = new IntStepGenerator(0, 1, 10L).filter(isEven).map(square);
+        assertArrayEquals(new int[] {0, 4, 16, 36, 64}, gen.toArray());
+        assertEquals(120, gen.fold(0, sum));
+    }
+
+    @Test
+    public void testStoppableProcedure() {
+        final List<Integer> seen = new ArrayList<Integer>();
+        new IntStepGenerator(0, 1, 1000000L).filter(isEven).runInt(new StoppableIntUnaryProcedure() {
+            public void run(int value) {
+                seen.add(value);
+            }
+
+            public boolean isStopped() {
+                return seen.size() == 3;
+            }
+        });
+        assertEquals(Arrays.asList(0, 2, 4), seen);
+    }
+
+    @Test
+    public void testBoxedStoppableProcedure() {
+        final List<Integer> seen = new ArrayList<Integer>();
+        new IntStepGenerator(0, 1, 1000000L).map(square).run(new StoppableUnaryProcedure<Integer>() {
+            public void run(Integer obj) {
+                seen.add(obj);
+            }
+
+            public boolean isStopped() {
+                return seen.size() == 3;
+            }
+        });
+        assertEquals(Arrays.asList(0, 1, 4), seen);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeCount() {
+        new IntStepGenerator(0, 1, -1L);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullFunction() {
+        new IntStepGenerator(0, 1, 1L).fold(0, null);
+    }
+
+    @Test
+    public void testEquals() {
+        IntStepGenerator gen = new IntStepGenerator(1, 2, 5L);
+        assertObjectsAreEqual(gen, new IntStepGenerator(1, 2, 5L));
+        assertObjectsAreNotEqual(gen, new IntStepGenerator(1, 2, 4L));
+        assertObjectsAreNotEqual(gen, new IntStepGenerator(1, 3, 5L));
+        assertObjectsAreNotEqual(gen, new IntStepGenerator(0, 2, 5L));
+    }
+
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    private final IntBinaryFunction sum = new IntBinaryFunction() {
+        public int evaluate(int left, int right) {
+            return left + right;
+        }
+    };
+
+    private final IntUnaryPredicate isEven = new IntUnaryPredicate() {
+        public boolean test(int value) {
+            return value % 2 == 0;
+        }
+    };
+
+    private final IntUnaryFunction square = new IntUnaryFunction() {
+        public int evaluate(int value) {
+            return value * value;
+        }
+    };
+
+    @Test
+    public void testSplit() {
+        IntStepGenerator gen = new IntStepGenerator(3, -2, 11L);
+        List<IntStepGenerator> parts = gen.split(3);
+        assertEquals(3, parts.size());
+        assertEquals(4L, parts.get(0).size());
+        assertEquals(4L, parts.get(1).size());
+        assertEquals(3L, parts.get(2).size());
+        List<Integer> joined = new ArrayList<Integer>();
+        for (IntStepGenerator part : parts) {
+            joined.addAll(part.toCollection());
+        }
+        assertEquals(gen.toCollection(), joined);
+        assertEquals(Collections.singletonList(gen), gen.split(1));
+        assertEquals(2, new IntStepGenerator(0, 1, 2L).split(5).size());
+    }
+
+    @Test
+    public void testParallel() {
+        IntStepGenerator gen = new IntStepGenerator(0, 1, 10000L);
+        assertEquals(gen.toCollection(), gen.parallel().toCollection());
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.generator.StoppableUnaryProcedure;
+import org.apache.commons.functor.primitive.LongBinaryFunction;
+import org.apache.commons.functor.primitive.LongUnaryFunction;
+import org.apache.commons.functor.primitive.LongUnaryPredicate;
+import org.junit.Test;
+
+/**
+ * Tests the Long Step Generator class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestLongStepGenerator extends BaseFunctorTest {
+
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new LongStepGenerator(1L, 2L, 5L);
+    }
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testToArray() {
+        assertArrayEquals(new long[] {1L, 3L, 5L, 7L, 9L}, new LongStepGenerator(1L, 2L, 5L).toArray());
+        assertArrayEquals(new long[] {3L, 0L, -3L}, new LongStepGenerator(3L, -3L, 3L).toArray());
+        assertArrayEquals(new long[] {}, new LongStepGenerator(3L, -3L, 0L).toArray());
+    }
+
+    @Test
+    public void testToArrayGrows() {
+        long[] values = new LongStepGenerator(0L, 1L, 100L).toArray();
+        assertEquals(100, values.length);
+        assertEquals(99L, values[99]);
+    }
+
+    @Test
+    public void testBoxedRun() {
+        assertEquals(Arrays.asList(1L, 3L, 5L), new LongStepGenerator(1L, 2L, 3L).toCollection());
+    }
+
+    @Test
+    public void testFold() {
+        assertEquals(25L, new LongStepGenerator(1L, 2L, 5L).fold(0L, sum));
+        assertEquals(7L, new LongStepGenerator(1L, 2L, 0L).fold(7L, sum));
+    }
+
+    @Test
+    public void testFilterMap() {
+        LongGenerator gen = new LongStepGenerator(0L, 1L, 10L).filter(isEven).map(square);
+        assertArrayEquals(new long[] {0L, 4L, 16L, 36L, 64L}, gen.toArray());
+        assertEquals(120L, gen.fold(0L, sum));
+    }
+
+    @Test
+    public void testStoppableProcedure() {
+        final List<Long> seen = new ArrayList<Long>();
+        new LongStepGenerator(0L, 1L, 1000000L).filter(isEven).runLong(new StoppableLongUnaryProcedure() {
+            public void run(long value) {
+                seen.add(value);
+            }
+
+            public boolean isStopped() {
+                return seen.size() == 3;
+            }
+        });
+        assertEquals(Arrays.asList(0L, 2L, 4L), seen);
+    }
+
+    @Test
+    public void testBoxedStoppableProcedure() {
+        final List<Long> seen = new ArrayList<Long>();
+        new LongStepGenerator(0L, 1L, 1000000L).map(square).run(new StoppableUnaryProcedure<Long>() {
+            public void run(Long obj) {
+                seen.add(obj);
+            }
+
+            public boolean isStopped() {
+                return seen.size() == 3;
+            }
+        });
+        assertEquals(Arrays.asList(0L, 1L, 4L), seen);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeCount() {
+        new LongStepGenerator(0L, 1L, -1L);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullFunction() {
+        new LongStepGenerator(0L, 1L, 1L).fold(0L, null);
+    }
+
+    @Test
+    public void testEquals() {
+        LongStepGenerator gen = new LongStepGenerator(1L, 2L, 5L);
+        assertObjectsAreEqual(gen, new LongStepGenerator(1L, 2L, 5L));
+        assertObjectsAreNotEqual(gen, new LongStepGenerator(1L, 2L, 4L));
+        assertObjectsAreNotEqual(gen, new LongStepGenerator(1L, 3L, 5L));
+        assertObjectsAreNotEqual(gen, new LongStepGenerator(0L, 2L, 5L));
+    }
+
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    private final LongBinaryFunction sum = new LongBinaryFunction() {
+        public long evaluate(long left, long right) {
+            return left + right;
+        }
+    };
+
+    private final LongUnaryPredicate isEven = new LongUnaryPredicate() {
+        public boolean test(long value) {
+            return value % 2 == 0;
+        }
+    };
+
+    private final LongUnaryFunction square = new LongUnaryFunction() {
+        public long evaluate(long value) {
+            return value * value;
+        }
+    };
+
+    @Test
+    public void testSplit() {
+        LongStepGenerator gen = new LongStepGenerator(Long.MIN_VALUE, 1L << 60, 16L);
+        List<LongStepGenerator> parts = gen.split(5);
+        assertEquals(5, parts.size());
+        List<Long> joined = new ArrayList<Long>();
+        for (LongStepGenerator part : parts) {
+            joined.addAll(part.toCollection());
+        }
+        assertEquals(gen.toCollection(), joined);
+    }
+
+    @Test
+    public void testParallel() {
+        LongStepGenerator gen = new LongStepGenerator(0L, 3L, 10000L);
+        assertEquals(gen.toCollection(), gen.parallel().toCollection());
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.functor.UnaryProcedure;
+import org.apache.commons.functor.generator.BaseGenerator;
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.loop.IteratorToGeneratorAdapter;
+import org.apache.commons.functor.generator.loop.ListGenerator;
+import org.junit.Test;
+
+/**
+ * Tests the Generator to Iterator Adapter class.
+ * @version $Revision:$ $Date:$
+ */
+public class TestGeneratorToIteratorAdapter {
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testIterate() {
+        Iterator<Integer> iter = new GeneratorToIteratorAdapter<Integer>(counting(100, null), 4);
+        List<Integer> result = new ArrayList<Integer>();
+        while (iter.hasNext()) {
+            result.add(iter.next());
+        }
+        assertEquals(100, result.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(i), result.get(i));
+        }
+        assertFalse(iter.hasNext());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testNextAfterEnd() {
+        Iterator<Integer> iter = new GeneratorToIteratorAdapter<Integer>(counting(1, null), 4);
+        iter.next();
+        iter.next();
+    }
+
+    @Test
+    public void testNullElements() {
+        Generator<String> gen = IteratorToGeneratorAdapter.adapt(Arrays.asList("a", null, "b").iterator());
+        Iterator<String> iter = new GeneratorToIteratorAdapter<String>(gen, 1);
+        assertEquals("a", iter.next());
+        assertTrue(iter.hasNext());
+        assertNull(iter.next());
+        assertEquals("b", iter.next());
+        assertFalse(iter.hasNext());
+    }
+
+    @Test
+    public void testBoundedBuffer() throws Exception {
+        AtomicInteger generated = new AtomicInteger();
+        Iterator<Integer> iter = new GeneratorToIteratorAdapter<Integer>(counting(1000, generated), 8);
+        assertEquals(Integer.valueOf(0), iter.next());
+        // give the producer time to run ahead
+        Thread.sleep(100);
+        assertTrue(generated.get() <= 10);
+    }
+
+    @Test
+    public void testCloseInterruptsOtherGenerator() throws Exception {
+        final CountDownLatch stopped = new CountDownLatch(1);
+        final AtomicInteger pulled = new AtomicInteger();
+        final Iterator<Integer> source = new Iterator<Integer>() {
+            public boolean hasNext() {
+                return true;
+            }
+
+            public Integer next() {
+                return pulled.incrementAndGet();
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        Generator<Integer> gen = new BaseGenerator<Integer>() {
+            public void run(UnaryProcedure<? super Integer> proc) {
+                try {
+                    while (true) {
+                        proc.run(source.next());
+                    }
+                } finally {
+                    stopped.countDown();
+                }
+            }
+        };
+        GeneratorToIteratorAdapter<Integer> iter = new GeneratorToIteratorAdapter<Integer>(gen, 2);
+        assertEquals(Integer.valueOf(1), iter.next());
+        iter.close();
+        assertTrue(stopped.await(5, TimeUnit.SECONDS));
+        assertFalse(iter.hasNext());
+    }
+
+    @Test
+    public void testCloseStopsLoopGenerator() throws Exception {
+        final AtomicInteger pulled = new AtomicInteger();
+        Generator<Integer> gen = IteratorToGeneratorAdapter.adapt(new Iterator<Integer>() {
+            public boolean hasNext() {
+                return true;
+            }
+
+            public Integer next() {
+                return pulled.incrementAndGet();
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        });
+        GeneratorToIteratorAdapter<Integer> iter = new GeneratorToIteratorAdapter<Integer>(gen, 2);
+        iter.next();
+        iter.close();
+        Thread.sleep(100);
+        int count = pulled.get();
+        Thread.sleep(100);
+        assertEquals(count, pulled.get());
+    }
+
+    @Test
+    public void testFailure() {
+        Generator<Integer> gen = new BaseGenerator<Integer>() {
+            public void run(UnaryProcedure<? super Integer> proc) {
+                proc.run(1);
+                throw new IllegalStateException("expected");
+            }
+        };
+        Iterator<Integer> iter = new GeneratorToIteratorAdapter<Integer>(gen, 4);
+        assertEquals(Integer.valueOf(1), iter.next());
+        try {
+            iter.hasNext();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("expected", e.getMessage());
+        }
+        assertFalse(iter.hasNext());
+    }
+
+    @Test
+    public void testAdaptIndexedGenerator() {
+        List<String> list = Arrays.asList("a", "b", "c");
+        Iterator<String> iter = GeneratorToIteratorAdapter.adapt(new ListGenerator<String>(list), 1);
+        assertFalse(iter instanceof GeneratorToIteratorAdapter<?>);
+        List<String> result = new ArrayList<String>();
+        while (iter.hasNext()) {
+            result.add(iter.next());
+        }
+        assertEquals(list, result);
+    }
+
+    @Test
+    public void testAdapt() {
+        assertNull(GeneratorToIteratorAdapter.adapt(null, 1));
+        assertTrue(GeneratorToIteratorAdapter.adapt(counting(1, null), 1) instanceof GeneratorToIteratorAdapter<?>);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new GeneratorToIteratorAdapter<Integer>(counting(1, null), 0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullGenerator() {
+        new GeneratorToIteratorAdapter<Integer>(null, 1);
+    }
+
+    // Helpers
+    // ------------------------------------------------------------------------
+
+    private static Generator<Integer> counting(final int count, final AtomicInteger generated) {
+        return new BaseGenerator<Integer>() {
+            public void run(UnaryProcedure<? super Integer> proc) {
+                for (int i = 0; i < count; i++) {
+                    if (generated != null) {
+                        generated.incrementAndGet();
+                    }
+                    proc.run(i);
+                }
+            }
+        };
+    }
+}
@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.functor.BaseFunctorTest;
@@ -75,6 +76,21 @@ public class TestCharacterRange extends BaseFunctorTest {
     // Generator tests
     // ---------------------------------------------------------------
 
+    @Test
+    public void testIterableMoreThanOnce() {
+        CharacterRange range = Ranges.characterRange('a', 'c');
+        List<Character> first = new ArrayList<Character>();
+        List<Character> second = new ArrayList<Character>();
+        for (Character value : range) {
+            first.add(value);
+        }
+        for (Character value : range) {
+            second.add(value);
+        }
+        assertEquals(Arrays.asList('a', 'b', 'c'), first);
+        assertEquals(first, second);
+    }
+
     @Test
     public void testStepChecking() {
         {
@@ -168,6 +184,32 @@ public class TestCharacterRange extends BaseFunctorTest {
                      range.getRightEndpoint());
     }
 
+    @Test
+    public void testIteratorAtTypeLimits() {
+        assertEquals(Arrays.asList((char) (Character.MAX_VALUE - 2), (char) (Character.MAX_VALUE - 1), Character.MAX_VALUE),
+            firstElements(Ranges.characterRange((char) (Character.MAX_VALUE - 2), BoundType.CLOSED, Character.MAX_VALUE,
+                BoundType.CLOSED, 1)));
+        assertEquals(Arrays.asList((char) (Character.MAX_VALUE - 4), (char) (Character.MAX_VALUE - 1)),
+            firstElements(Ranges.characterRange((char) (Character.MAX_VALUE - 4), BoundType.CLOSED, Character.MAX_VALUE,
+                BoundType.CLOSED, 3)));
+        assertEquals(Arrays.asList((char) (Character.MIN_VALUE + 1), Character.MIN_VALUE),
+            firstElements(Ranges.characterRange((char) (Character.MIN_VALUE + 1), BoundType.CLOSED, Character.MIN_VALUE,
+                BoundType.CLOSED, -1)));
+    }
+
+    /**
+     * Get at most ten elements of a range, so that an iterator which never
+     * ends makes the test fail instead of hanging.
+     */
+    private static List<Character> firstElements(CharacterRange range) {
+        List<Character> result = new ArrayList<Character>();
+        Iterator<Character> iter = range.iterator();
+        for (int i = 0; i < 10 && iter.hasNext(); i++) {
+            result.add(iter.next());
+        }
+        return result;
+    }
+
     @Test
     public void testClosedClosedAscending() {
         // [b, l], 3 = b, e, h, k
@@ -727,4 +769,27 @@ public class TestCharacterRange extends BaseFunctorTest {
                      CharacterRange.DEFAULT_STEP.evaluate('a', 'c'));
     }
 
+    @Test
+    public void testSizeGetAndIndexOf() {
+        CharacterRange range = new CharacterRange('a', BoundType.OPEN, 'z', BoundType.CLOSED, 5);
+        assertEquals(5L, range.size());
+        assertEquals('f', range.get(0));
+        assertEquals('z', range.get(4));
+        assertEquals(2L, range.indexOf('p'));
+        assertEquals(-1L, range.indexOf('a'));
+        assertEquals(-1L, range.indexOf('g'));
+        assertTrue(range.contains('u'));
+        assertFalse(range.contains('v'));
+        try {
+            range.get(5);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        CharacterRange all = new CharacterRange(Character.MIN_VALUE, Character.MAX_VALUE);
+        assertEquals(1L << 16, all.size());
+        assertEquals(Character.MAX_VALUE, all.get(0xFFFF));
+        assertTrue(new CharacterRange(Character.MAX_VALUE, BoundType.OPEN, Character.MAX_VALUE,
+                BoundType.CLOSED, 1).isEmpty());
+    }
 }
@@ -32,6 +32,7 @@ import org.apache.commons.functor.BaseFunctorTest;
 import org.apache.commons.functor.UnaryFunction;
 import org.apache.commons.functor.generator.Generator;
 import org.apache.commons.functor.generator.loop.IteratorToGeneratorAdapter;
+import org.apache.commons.functor.generator.primitive.DoubleGenerator;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -108,6 +109,21 @@ public class TestDoubleRange extends BaseFunctorTest {
         }
     }
 
+    @Test
+    public void testIterableMoreThanOnce() {
+        DoubleRange range = Ranges.doubleRange(0, 1.5, 0.5);
+        List<Double> first = new ArrayList<Double>();
+        List<Double> second = new ArrayList<Double>();
+        for (Double value : range) {
+            first.add(value);
+        }
+        for (Double value : range) {
+            second.add(value);
+        }
+        assertEquals(Arrays.asList(0.0, 0.5, 1.0), first);
+        assertEquals(first, second);
+    }
+
     @Test
     public void testStepChecking() {
         {
@@ -766,4 +782,87 @@ public class TestDoubleRange extends BaseFunctorTest {
                      DoubleRange.DEFAULT_STEP.evaluate(1.0d, 10.0d));
     }
 
+    @Test
+    public void testToDoubleGenerator() {
+        assertSameElements(new DoubleRange(0.0, 10.0));
+        assertSameElements(new DoubleRange(0.0, 10.0, 0.5));
+        assertSameElements(new DoubleRange(10.0, -5.0, -4.0));
+        assertSameElements(new DoubleRange(0.0, BoundType.OPEN, 10.0, BoundType.CLOSED, 2.5));
+        assertSameElements(new DoubleRange(0.0, BoundType.OPEN, -9.0, BoundType.CLOSED, -3.0));
+        assertSameElements(new DoubleRange(0.0, BoundType.OPEN, 1.0, BoundType.OPEN, 1.0));
+        assertSameElements(new DoubleRange(5.0, 5.0));
+    }
+
+    @Test
+    public void testToDoubleGeneratorExactSteps() {
+        DoubleGenerator gen = new DoubleRange(0.0, BoundType.CLOSED, 1.0, BoundType.CLOSED, 0.1).toDoubleGenerator();
+        double[] values = gen.toArray();
+        assertEquals(11, values.length);
+        assertEquals(1.0, values[10], 0.0);
+        assertEquals(10, new DoubleRange(0.0, 1.0, 0.1).toDoubleGenerator().toArray().length);
+    }
+
+    private void assertSameElements(DoubleRange range) {
+        Collection<?> generated = range.toDoubleGenerator().toCollection();
+        List<Double> expected = new ArrayList<Double>();
+        for (Double d : range) {
+            expected.add(d);
+        }
+        assertEquals(range.toString(), expected, generated);
+    }
+
+    @Test
+    public void testNoAccumulatedError() {
+        DoubleRange range = new DoubleRange(0.0, BoundType.CLOSED, 1.0, BoundType.CLOSED, 0.1);
+        assertEquals(11L, range.size());
+        assertEquals(1.0, range.get(10), 0.0);
+        List<Double> elements = new ArrayList<Double>();
+        for (Double d : range) {
+            elements.add(d);
+        }
+        assertEquals(11, elements.size());
+        assertEquals(Double.valueOf(1.0), elements.get(10));
+        for (int i = 0; i < elements.size(); i++) {
+            assertEquals(i * 0.1, elements.get(i), 0.0);
+            assertEquals(i, range.indexOf(elements.get(i)));
+            assertTrue(range.contains(elements.get(i)));
+        }
+        assertEquals(elements, range.toDoubleGenerator().toCollection());
+    }
+
+    @Test
+    public void testLargeSweep() {
+        DoubleRange range = new DoubleRange(0.0, 1.0e6, 0.1);
+        assertEquals(10000000L, range.size());
+        assertEquals(9999999 * 0.1, range.get(9999999L), 0.0);
+        for (long i = 0L; i < range.size(); i += 999983L) {
+            double value = range.get(i);
+            assertEquals(i, range.indexOf(value));
+            assertFalse(range.contains(Math.nextUp(value)));
+        }
+        // 0.3 is not an element: the third one is 3 * 0.1 = 0.30000000000000004
+        assertFalse(range.contains(0.3));
+        assertTrue(range.contains(3 * 0.1));
+        assertEquals(-1L, range.indexOf(-0.1));
+        assertEquals(-1L, range.indexOf(1.0e6));
+        assertEquals(-1L, range.indexOf(Double.NaN));
+    }
+
+    @Test
+    public void testDescendingIndexOf() {
+        DoubleRange range = new DoubleRange(1.0, BoundType.OPEN, -1.0, BoundType.CLOSED, -0.25);
+        assertEquals(8L, range.size());
+        assertEquals(0.75, range.get(0), 0.0);
+        assertEquals(-1.0, range.get(7), 0.0);
+        assertEquals(3L, range.indexOf(0.0));
+        assertFalse(range.contains(1.0));
+        assertFalse(range.isEmpty());
+        assertTrue(new DoubleRange(1.0, BoundType.OPEN, 1.0, BoundType.CLOSED, 0.5).isEmpty());
+        try {
+            range.get(8);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
 }
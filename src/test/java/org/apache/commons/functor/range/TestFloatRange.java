@@ -106,6 +106,21 @@ public class TestFloatRange extends BaseFunctorTest {
         }
     }
 
+    @Test
+    public void testIterableMoreThanOnce() {
+        FloatRange range = Ranges.floatRange(0, 1.5f, 0.5f);
+        List<Float> first = new ArrayList<Float>();
+        List<Float> second = new ArrayList<Float>();
+        for (Float value : range) {
+            first.add(value);
+        }
+        for (Float value : range) {
+            second.add(value);
+        }
+        assertEquals(Arrays.asList(0.0f, 0.5f, 1.0f), first);
+        assertEquals(first, second);
+    }
+
     @Test
     public void testStepChecking() {
         {
@@ -754,4 +769,31 @@ public class TestFloatRange extends BaseFunctorTest {
                      FloatRange.DEFAULT_STEP.evaluate(1.0f, 10.0f));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testNoAccumulatedError() {
+        FloatRange range = new FloatRange(0.0f, BoundType.CLOSED, 1.0f, BoundType.CLOSED, 0.1f);
+        assertEquals(11L, range.size());
+        List<Float> elements = new ArrayList<Float>();
+        for (Float f : range) {
+            elements.add(f);
+        }
+        assertEquals(11, elements.size());
+        assertEquals(Float.valueOf(1.0f), elements.get(10));
+        for (int i = 0; i < elements.size(); i++) {
+            assertEquals((float) (i * (double) 0.1f), elements.get(i), 0.0f);
+            assertEquals(elements.get(i).floatValue(), range.get(i), 0.0f);
+            assertEquals(i, range.indexOf(elements.get(i)));
+            assertTrue(range.contains(elements.get(i)));
+        }
+        assertFalse(range.contains(0.35f));
+    }
+
+    @Test
+    public void testLargeSweep() {
+        FloatRange range = new FloatRange(0.0f, 100000.0f, 0.5f);
+        assertEquals(200000L, range.size());
+        assertEquals(99999.5f, range.get(199999L), 0.0f);
+        assertEquals(123457L, range.indexOf(61728.5f));
+        assertFalse(range.contains(61728.25f));
+    }
+}
@@ -25,12 +25,19 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.functor.BaseFunctorTest;
 import org.apache.commons.functor.UnaryFunction;
+import org.apache.commons.functor.UnaryPredicate;
+import org.apache.commons.functor.core.algorithm.FindWithinGenerator;
 import org.apache.commons.functor.generator.Generator;
 import org.apache.commons.functor.generator.loop.IteratorToGeneratorAdapter;
+import org.apache.commons.functor.generator.primitive.IntGenerator;
+import org.apache.commons.functor.primitive.IntUnaryFunction;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -92,6 +99,55 @@ public class TestIntegerRange extends BaseFunctorTest {
         }
     }
 
+    @Test
+    public void testIterableMoreThanOnce() {
+        IntegerRange range = Ranges.integerRange(0, 3);
+        Iterator<Integer> first = range.iterator();
+        assertEquals(new Integer(0), first.next());
+        List<Integer> result = new ArrayList<Integer>();
+        for (Integer i : range) {
+            result.add(i);
+        }
+        assertEquals(Arrays.asList(0, 1, 2), result);
+        assertEquals(new Integer(1), first.next());
+        assertEquals(new Integer(2), first.next());
+        assertFalse(first.hasNext());
+        try {
+            first.next();
+            fail("Expected NoSuchElementException");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testConcurrentIteration() throws Exception {
+        final IntegerRange range = Ranges.integerRange(0, 10000);
+        final AtomicInteger failures = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    int expected = 0;
+                    for (Integer i : range) {
+                        if (i.intValue() != expected++) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    if (expected != 10000) {
+                        failures.incrementAndGet();
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, failures.get());
+    }
+
     @Test
     public void testStepChecking() {
         {
@@ -177,6 +233,32 @@ public class TestIntegerRange extends BaseFunctorTest {
                      range.getRightEndpoint());
     }
 
+    @Test
+    public void testIteratorAtTypeLimits() {
+        assertEquals(Arrays.asList(Integer.MAX_VALUE - 2, Integer.MAX_VALUE - 1, Integer.MAX_VALUE),
+            firstElements(Ranges.integerRange(Integer.MAX_VALUE - 2, BoundType.CLOSED, Integer.MAX_VALUE,
+                BoundType.CLOSED, 1)));
+        assertEquals(Arrays.asList(Integer.MAX_VALUE - 4, Integer.MAX_VALUE - 1),
+            firstElements(Ranges.integerRange(Integer.MAX_VALUE - 4, BoundType.CLOSED, Integer.MAX_VALUE,
+                BoundType.CLOSED, 3)));
+        assertEquals(Arrays.asList(Integer.MIN_VALUE + 1, Integer.MIN_VALUE),
+            firstElements(Ranges.integerRange(Integer.MIN_VALUE + 1, BoundType.CLOSED, Integer.MIN_VALUE,
+                BoundType.CLOSED, -1)));
+    }
+
+    /**
+     * Get at most ten elements of a range, so that an iterator which never
+     * ends makes the test fail instead of hanging.
+     */
+    private static List<Integer> firstElements(IntegerRange range) {
+        List<Integer> result = new ArrayList<Integer>();
+        Iterator<Integer> iter = range.iterator();
+        for (int i = 0; i < 10 && iter.hasNext(); i++) {
+            result.add(iter.next());
+        }
+        return result;
+    }
+
     @Test
     public void testClosedClosedAscending() {
         // [-5, 5], 3 = -5, -2, 1, 4
@@ -744,4 +826,155 @@ public class TestIntegerRange extends BaseFunctorTest {
                      IntegerRange.DEFAULT_STEP.evaluate(1, 10));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testToIntGenerator() {
+        assertSameElements(new IntegerRange(0, 10));
+        assertSameElements(new IntegerRange(0, 10, 3));
+        assertSameElements(new IntegerRange(10, -5, -4));
+        assertSameElements(new IntegerRange(0, BoundType.OPEN, 10, BoundType.CLOSED, 2));
+        assertSameElements(new IntegerRange(0, BoundType.OPEN, -9, BoundType.CLOSED, -3));
+        assertSameElements(new IntegerRange(0, BoundType.OPEN, 1, BoundType.OPEN, 1));
+        assertSameElements(new IntegerRange(5, BoundType.CLOSED, 5, BoundType.CLOSED, 1));
+        assertSameElements(new IntegerRange(5, 5));
+    }
+
+    @Test
+    public void testToIntGeneratorCanBeRunTwice() {
+        IntGenerator gen = new IntegerRange(0, 5).toIntGenerator();
+        assertEquals(gen.toCollection(), gen.toCollection());
+        assertEquals(5, gen.toArray().length);
+    }
+
+    @Test
+    public void testToIntGeneratorStopsEarly() {
+        final AtomicInteger visited = new AtomicInteger();
+        IntGenerator gen = new IntegerRange(0, 1000000).toIntGenerator().map(new IntUnaryFunction() {
+            public int evaluate(int value) {
+                visited.incrementAndGet();
+                return value;
+            }
+        });
+        Integer found = new FindWithinGenerator<Integer>().evaluate(gen, new UnaryPredicate<Integer>() {
+            public boolean test(Integer obj) {
+                return obj.intValue() == 5;
+            }
+        });
+        assertEquals(Integer.valueOf(5), found);
+        assertEquals(6, visited.get());
+    }
+
+    private void assertSameElements(IntegerRange range) {
+        Collection<?> generated = range.toIntGenerator().toCollection();
+        List<Integer> expected = new ArrayList<Integer>();
+        for (Integer i : range) {
+            expected.add(i);
+        }
+        assertEquals(range.toString(), expected, generated);
+    }
+
+    @Test
+    public void testSizeGetAndIndexOf() {
+        IntegerRange range = new IntegerRange(10, BoundType.CLOSED, -10, BoundType.OPEN, -3);
+        List<Integer> elements = new ArrayList<Integer>();
+        for (Integer i : range) {
+            elements.add(i);
+        }
+        assertEquals(elements.size(), range.size());
+        for (int i = 0; i < elements.size(); i++) {
+            assertEquals(elements.get(i).intValue(), range.get(i));
+            assertEquals(i, range.indexOf(elements.get(i)));
+            assertTrue(range.contains(elements.get(i)));
+        }
+        assertEquals(-1L, range.indexOf(9));
+        assertEquals(-1L, range.indexOf(-11));
+        assertFalse(range.contains(-10));
+        assertFalse(range.contains(null));
+        try {
+            range.get(elements.size());
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSizeAtExtremes() {
+        IntegerRange all = new IntegerRange(Integer.MIN_VALUE, BoundType.CLOSED, Integer.MAX_VALUE,
+                BoundType.CLOSED, 1);
+        assertEquals(1L << 32, all.size());
+        assertEquals(Integer.MAX_VALUE, all.get(all.size() - 1));
+        assertEquals((1L << 32) - 1, all.indexOf(Integer.MAX_VALUE));
+        IntegerRange overflow = new IntegerRange(Integer.MAX_VALUE, BoundType.OPEN, Integer.MAX_VALUE,
+                BoundType.CLOSED, 1);
+        assertTrue(overflow.isEmpty());
+        assertEquals(0L, overflow.size());
+    }
+
+    @Test
+    public void testSplit() {
+        IntegerRange range = new IntegerRange(0, BoundType.OPEN, 30, BoundType.CLOSED, 3);
+        List<IntegerRange> parts = range.split(4);
+        assertEquals(4, parts.size());
+        List<Integer> joined = new ArrayList<Integer>();
+        long min = Long.MAX_VALUE;
+        long max = 0L;
+        for (IntegerRange part : parts) {
+            assertEquals(range.getStep(), part.getStep());
+            min = Math.min(min, part.size());
+            max = Math.max(max, part.size());
+            for (Integer i : part) {
+                joined.add(i);
+            }
+        }
+        assertTrue(max - min <= 1L);
+        List<Integer> expected = new ArrayList<Integer>();
+        for (Integer i : range) {
+            expected.add(i);
+        }
+        assertEquals(expected, joined);
+        assertEquals(10, range.split(100).size());
+        assertEquals(Collections.singletonList(range), range.split(1));
+        IntegerRange empty = new IntegerRange(5, 5);
+        assertEquals(Collections.singletonList(empty), empty.split(3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSplitNoParts() {
+        new IntegerRange(0, 10).split(0);
+    }
+
+    @Test
+    public void testFill() {
+        IntegerRange range = new IntegerRange(10, 0, -2);
+        int[] array = new int[6];
+        assertEquals(4, range.fill(1L, array, 2, 4));
+        assertTrue(Arrays.equals(new int[] {0, 0, 8, 6, 4, 2}, array));
+        assertEquals(2, range.fill(3L, array, 0, 4));
+        assertTrue(Arrays.equals(new int[] {4, 2, 8, 6, 4, 2}, array));
+        assertEquals(0, range.fill(range.size(), array, 0, 6));
+        try {
+            range.fill(6L, array, 0, 1);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        try {
+            range.fill(0L, array, 4, 3);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        IntegerRange top = new IntegerRange(Integer.MAX_VALUE - 2, BoundType.CLOSED, Integer.MAX_VALUE,
+                BoundType.CLOSED, 1);
+        int[] last = new int[4];
+        assertEquals(3, top.fill(0L, last, 0, 4));
+        assertEquals(Integer.MAX_VALUE, last[2]);
+    }
+
+    @Test
+    public void testParallelGenerator() {
+        IntegerRange range = new IntegerRange(0, 1000);
+        assertEquals(Long.valueOf(1000L), Long.valueOf(range.toIntGenerator().parallel().count()));
+        assertEquals(range.toIntGenerator().toCollection(), range.toIntGenerator().parallel().toCollection());
+    }
+}
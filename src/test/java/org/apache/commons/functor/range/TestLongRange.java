@@ -25,12 +25,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.functor.BaseFunctorTest;
 import org.apache.commons.functor.UnaryFunction;
 import org.apache.commons.functor.generator.Generator;
 import org.apache.commons.functor.generator.loop.IteratorToGeneratorAdapter;
+import org.apache.commons.functor.generator.primitive.LongGenerator;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -80,7 +82,7 @@ public class TestLongRange extends BaseFunctorTest {
     public void testGenerateListExample() {
         // generates a collection of Integers from 0 (inclusive) to 10 (exclusive)
         {
-            LongRange range = Ranges.longRange(0, 10);
+            Iterator<Long> range = Ranges.longRange(0, 10).iterator();
             for (int i=0;i<10;i++) {
                 assertEquals(new Long(i), range.next());
             }
@@ -88,13 +90,28 @@ public class TestLongRange extends BaseFunctorTest {
 
         // generates a collection of Integers from 10 (inclusive) to 0 (exclusive)
         {
-            LongRange range = Ranges.longRange(10, 0);
+            Iterator<Long> range = Ranges.longRange(10, 0).iterator();
             for (int i=10;i>0;i--) {
                 assertEquals(new Long(i), range.next());
             }
         }
     }
 
+    @Test
+    public void testIterableMoreThanOnce() {
+        LongRange range = Ranges.longRange(0, 3);
+        List<Long> first = new ArrayList<Long>();
+        List<Long> second = new ArrayList<Long>();
+        for (Long value : range) {
+            first.add(value);
+        }
+        for (Long value : range) {
+            second.add(value);
+        }
+        assertEquals(Arrays.asList(0L, 1L, 2L), first);
+        assertEquals(first, second);
+    }
+
     @Test
     public void testStepChecking() {
         {
@@ -171,6 +188,32 @@ public class TestLongRange extends BaseFunctorTest {
         assertEquals("[9223372036854775804, 9223372036854775805, 9223372036854775806]", IteratorToGeneratorAdapter.adapt(range).toCollection().toString());
     }
     
+    @Test
+    public void testIteratorAtTypeLimits() {
+        assertEquals(Arrays.asList(Long.MAX_VALUE - 2L, Long.MAX_VALUE - 1L, Long.MAX_VALUE),
+            firstElements(Ranges.longRange(Long.MAX_VALUE - 2L, BoundType.CLOSED, Long.MAX_VALUE,
+                BoundType.CLOSED, 1L)));
+        assertEquals(Arrays.asList(Long.MAX_VALUE - 4L, Long.MAX_VALUE - 1L),
+            firstElements(Ranges.longRange(Long.MAX_VALUE - 4L, BoundType.CLOSED, Long.MAX_VALUE,
+                BoundType.CLOSED, 3L)));
+        assertEquals(Arrays.asList(Long.MIN_VALUE + 1L, Long.MIN_VALUE),
+            firstElements(Ranges.longRange(Long.MIN_VALUE + 1L, BoundType.CLOSED, Long.MIN_VALUE,
+                BoundType.CLOSED, -1L)));
+    }
+
+    /**
+     * Get at most ten elements of a range, so that an iterator which never
+     * ends makes the test fail instead of hanging.
+     */
+    private static List<Long> firstElements(LongRange range) {
+        List<Long> result = new ArrayList<Long>();
+        Iterator<Long> iter = range.iterator();
+        for (int i = 0; i < 10 && iter.hasNext(); i++) {
+            result.add(iter.next());
+        }
+        return result;
+    }
+
     @Test
     public void testClosedClosedAscending() {
         // [-5L, 5L], 3L = -5L, -2L, 1L, 4L
@@ -737,4 +780,157 @@ public class TestLongRange extends BaseFunctorTest {
                      LongRange.DEFAULT_STEP.evaluate(1L, 10L));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testToLongGenerator() {
+        assertSameElements(new LongRange(0, 10));
+        assertSameElements(new LongRange(0, 10, 3));
+        assertSameElements(new LongRange(10, -5, -4));
+        assertSameElements(new LongRange(0, BoundType.OPEN, 10, BoundType.CLOSED, 2));
+        assertSameElements(new LongRange(0, BoundType.OPEN, -9, BoundType.CLOSED, -3));
+        assertSameElements(new LongRange(0, BoundType.OPEN, 1, BoundType.OPEN, 1));
+        assertSameElements(new LongRange(5, 5));
+    }
+
+    @Test
+    public void testToLongGeneratorCanBeRunTwice() {
+        LongGenerator gen = new LongRange(0, 5).toLongGenerator();
+        assertEquals(gen.toCollection(), gen.toCollection());
+        assertEquals(5, gen.toArray().length);
+    }
+
+    private void assertSameElements(LongRange range) {
+        Collection<?> generated = range.toLongGenerator().toCollection();
+        List<Long> expected = new ArrayList<Long>();
+        for (Long i : range) {
+            expected.add(i);
+        }
+        assertEquals(range.toString(), expected, generated);
+    }
+
+    @Test
+    public void testSizeGetAndIndexOf() {
+        LongRange range = new LongRange(1, BoundType.OPEN, 20, BoundType.OPEN, 3);
+        List<Long> elements = new ArrayList<Long>();
+        for (Long l : range) {
+            elements.add(l);
+        }
+        assertEquals(elements.size(), range.size());
+        for (int i = 0; i < elements.size(); i++) {
+            assertEquals(elements.get(i).longValue(), range.get(i));
+            assertEquals(i, range.indexOf(elements.get(i)));
+        }
+        assertEquals(-1L, range.indexOf(5L));
+        assertEquals(-1L, range.indexOf(1L));
+        assertEquals(-1L, range.indexOf(22L));
+        assertEquals(0L, new LongRange(5, BoundType.CLOSED, 5, BoundType.OPEN, 1).size());
+        assertEquals(1L, new LongRange(5, BoundType.CLOSED, 5, BoundType.CLOSED, 1).size());
+    }
+
+    @Test
+    public void testGetOutOfBounds() {
+        LongRange range = new LongRange(0, 10);
+        for (long index : new long[] {-1L, 10L, Long.MAX_VALUE}) {
+            try {
+                range.get(index);
+                fail("Expected IndexOutOfBoundsException for " + index);
+            } catch (IndexOutOfBoundsException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testExactBeyondDoublePrecision() {
+        final long big = 1L << 53;
+        LongRange range = new LongRange(big, big + 10);
+        assertEquals(10L, range.size());
+        assertTrue(range.contains(big + 1));
+        assertEquals(1L, range.indexOf(big + 1));
+        assertEquals(big + 9, range.get(9));
+        assertFalse(range.contains(big + 10));
+        assertFalse(range.contains(big - 1));
+        LongRange odd = new LongRange(big + 1, big + 100, 2);
+        assertFalse(odd.contains(big + 2));
+        assertTrue(odd.contains(big + 3));
+        assertEquals(50L, odd.size());
+    }
+
+    @Test
+    public void testExtremes() {
+        LongRange all = new LongRange(Long.MIN_VALUE, BoundType.CLOSED, Long.MAX_VALUE, BoundType.CLOSED, 1L);
+        assertEquals(Long.MAX_VALUE, all.size());
+        assertFalse(all.isEmpty());
+        assertTrue(all.contains(Long.MAX_VALUE));
+        assertTrue(all.contains(0L));
+        assertEquals(Long.MIN_VALUE + 5, all.get(5));
+        assertEquals(Long.MAX_VALUE - 1, all.indexOf(-2L));
+        // beyond the first Long.MAX_VALUE elements
+        assertEquals(-1L, all.indexOf(0L));
+
+        LongRange wide = new LongRange(Long.MIN_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+        assertEquals(3L, wide.size());
+        assertEquals(Long.MAX_VALUE - 1, wide.get(2));
+        assertEquals(2L, wide.indexOf(Long.MAX_VALUE - 1));
+        assertFalse(wide.contains(Long.MAX_VALUE));
+        assertEquals(Arrays.asList(Long.MIN_VALUE, -1L, Long.MAX_VALUE - 1),
+                wide.toLongGenerator().toCollection());
+
+        LongRange down = new LongRange(Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE);
+        assertEquals(2L, down.size());
+        assertEquals(-1L, down.get(1));
+
+        LongRange overflow = new LongRange(Long.MAX_VALUE, BoundType.OPEN, Long.MAX_VALUE, BoundType.CLOSED, 1L);
+        assertTrue(overflow.isEmpty());
+        assertFalse(overflow.contains(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void testSplit() {
+        LongRange range = new LongRange(-7, 100, 5);
+        List<Long> joined = new ArrayList<Long>();
+        for (LongRange part : range.split(7)) {
+            for (Long l : part) {
+                joined.add(l);
+            }
+        }
+        List<Long> expected = new ArrayList<Long>();
+        for (Long l : range) {
+            expected.add(l);
+        }
+        assertEquals(expected, joined);
+        LongRange all = new LongRange(Long.MIN_VALUE, BoundType.CLOSED, Long.MAX_VALUE, BoundType.CLOSED, 1L);
+        List<LongRange> halves = all.split(2);
+        assertEquals(2, halves.size());
+        assertEquals(Long.valueOf(Long.MIN_VALUE), halves.get(0).getLeftEndpoint().getValue());
+        assertEquals(halves.get(0).getRightEndpoint().getValue() + 1, halves.get(1).getLeftEndpoint().getValue()
+                .longValue());
+    }
+
+    @Test
+    public void testSplitAndFillCoverFirstMaxValueElements() {
+        // 2^64 elements, of which only the first Long.MAX_VALUE have an index
+        LongRange all = new LongRange(Long.MIN_VALUE, BoundType.CLOSED, Long.MAX_VALUE, BoundType.CLOSED, 1L);
+        assertEquals(Long.MAX_VALUE, all.size());
+        List<LongRange> parts = all.split(3);
+        assertEquals(3, parts.size());
+        long covered = 0L;
+        for (LongRange part : parts) {
+            covered += part.size();
+        }
+        assertEquals(Long.MAX_VALUE, covered);
+        assertEquals(Long.valueOf(-2L), parts.get(2).getRightEndpoint().getValue());
+        assertEquals(0, all.fill(Long.MAX_VALUE, new long[1], 0, 1));
+        long[] array = new long[2];
+        assertEquals(1, all.fill(Long.MAX_VALUE - 1L, array, 0, 2));
+        assertEquals(-2L, array[0]);
+    }
+
+    @Test
+    public void testFill() {
+        final long big = 1L << 53;
+        LongRange range = new LongRange(big, big + 10, 3);
+        long[] array = new long[5];
+        assertEquals(4, range.fill(0L, array, 1, 4));
+        assertTrue(Arrays.equals(new long[] {0L, big, big + 3, big + 6, big + 9}, array));
+    }
+}
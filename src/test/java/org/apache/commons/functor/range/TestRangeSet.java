@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.range;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.functor.core.algorithm.FindWithinGenerator;
+import org.apache.commons.functor.generator.loop.IteratorToGeneratorAdapter;
+import org.junit.Test;
+
+/**
+ * Tests for {@link RangeSet}.
+ *
+ * @version $Revision:$ $Date:$
+ */
+public class TestRangeSet {
+
+    private static RangeSet<Double> interval(double from, BoundType leftBoundType, double to,
+            BoundType rightBoundType) {
+        return RangeSet.interval(Double.valueOf(from), leftBoundType, Double.valueOf(to), rightBoundType);
+    }
+
+    private static RangeSet<Double> randomSet(Random random) {
+        RangeSet<Double> set = RangeSet.empty();
+        int count = random.nextInt(5);
+        for (int i = 0; i < count; i++) {
+            int from = random.nextInt(20);
+            int to = from + random.nextInt(6);
+            set = set.union(interval(from, random.nextBoolean() ? BoundType.OPEN : BoundType.CLOSED, to,
+                    random.nextBoolean() ? BoundType.OPEN : BoundType.CLOSED));
+        }
+        return set;
+    }
+
+    private static List<Double> probes() {
+        List<Double> probes = new ArrayList<Double>();
+        for (int k = -2; k <= 52; k++) {
+            probes.add(k / 2.0);
+        }
+        return probes;
+    }
+
+    @Test
+    public void testEmptyAndAll() {
+        RangeSet<Integer> empty = RangeSet.empty();
+        RangeSet<Integer> all = RangeSet.all();
+        assertTrue(empty.isEmpty());
+        assertFalse(all.isEmpty());
+        assertFalse(empty.contains(0));
+        assertTrue(all.contains(Integer.MIN_VALUE));
+        assertFalse(all.contains(null));
+        assertEquals(all, empty.complement());
+        assertEquals(empty, all.complement());
+        assertEquals("RangeSet<>", empty.toString());
+        assertEquals("RangeSet<(-inf, +inf)>", all.toString());
+    }
+
+    @Test
+    public void testInterval() {
+        RangeSet<Double> set = interval(1, BoundType.OPEN, 3, BoundType.CLOSED);
+        assertFalse(set.contains(1.0));
+        assertTrue(set.contains(1.5));
+        assertTrue(set.contains(3.0));
+        assertFalse(set.contains(3.5));
+        assertTrue(interval(3, BoundType.CLOSED, 1, BoundType.CLOSED).isEmpty());
+        assertTrue(interval(1, BoundType.CLOSED, 1, BoundType.OPEN).isEmpty());
+        assertFalse(interval(1, BoundType.CLOSED, 1, BoundType.CLOSED).isEmpty());
+        assertEquals(RangeSet.interval(null, new Endpoint<Double>(3.0, BoundType.CLOSED)),
+                interval(3, BoundType.OPEN, 3, BoundType.OPEN).union(
+                        RangeSet.<Double>interval(new Endpoint<Double>(3.0, BoundType.OPEN), null)).complement());
+    }
+
+    @Test
+    public void testNormalization() {
+        RangeSet<Double> set = interval(3, BoundType.CLOSED, 5, BoundType.CLOSED)
+                .union(interval(1, BoundType.CLOSED, 3, BoundType.OPEN))
+                .union(interval(7, BoundType.OPEN, 9, BoundType.OPEN))
+                .union(interval(5, BoundType.OPEN, 7, BoundType.OPEN));
+        assertEquals(2, set.getIntervalCount());
+        assertEquals(new Endpoint<Double>(1.0, BoundType.CLOSED), set.getLeftEndpoint(0));
+        assertEquals(new Endpoint<Double>(7.0, BoundType.OPEN), set.getRightEndpoint(0));
+        assertEquals(new Endpoint<Double>(7.0, BoundType.OPEN), set.getLeftEndpoint(1));
+        assertEquals(new Endpoint<Double>(9.0, BoundType.OPEN), set.getRightEndpoint(1));
+        assertEquals("RangeSet<[1.0, 7.0), (7.0, 9.0)>", set.toString());
+        assertEquals(set.hashCode(), interval(1, BoundType.CLOSED, 7, BoundType.OPEN)
+                .union(interval(7, BoundType.OPEN, 9, BoundType.OPEN)).hashCode());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testInvalidIntervalIndex() {
+        interval(1, BoundType.CLOSED, 2, BoundType.CLOSED).getLeftEndpoint(1);
+    }
+
+    @Test
+    public void testUnboundedEndpoints() {
+        RangeSet<Double> set = interval(1, BoundType.CLOSED, 2, BoundType.CLOSED).complement();
+        assertEquals(2, set.getIntervalCount());
+        assertNull(set.getLeftEndpoint(0));
+        assertNull(set.getRightEndpoint(1));
+        assertEquals("RangeSet<(-inf, 1.0), (2.0, +inf)>", set.toString());
+        assertTrue(set.contains(-1e300));
+        assertTrue(set.contains(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    public void testOperationsAgainstBruteForce() {
+        Random random = new Random(42);
+        List<Double> probes = probes();
+        for (int n = 0; n < 500; n++) {
+            RangeSet<Double> a = randomSet(random);
+            RangeSet<Double> b = randomSet(random);
+            RangeSet<Double> union = a.union(b);
+            RangeSet<Double> intersection = a.intersection(b);
+            RangeSet<Double> difference = a.difference(b);
+            RangeSet<Double> complement = a.complement();
+            for (Double x : probes) {
+                boolean inA = a.contains(x);
+                boolean inB = b.contains(x);
+                assertEquals(inA || inB, union.contains(x));
+                assertEquals(inA && inB, intersection.contains(x));
+                assertEquals(inA && !inB, difference.contains(x));
+                assertEquals(!inA, complement.contains(x));
+            }
+            assertEquals(union, b.union(a));
+            assertEquals(a, complement.complement());
+            assertEquals(difference, a.intersection(b.complement()));
+            assertEquals(union.complement(), a.complement().intersection(b.complement()));
+        }
+    }
+
+    @Test
+    public void testIntersectsAndEncloses() {
+        RangeSet<Double> set = interval(1, BoundType.CLOSED, 3, BoundType.OPEN)
+                .union(interval(5, BoundType.OPEN, 7, BoundType.CLOSED));
+        assertTrue(set.intersects(new Endpoint<Double>(2.0, BoundType.CLOSED),
+                new Endpoint<Double>(4.0, BoundType.CLOSED)));
+        assertFalse(set.intersects(new Endpoint<Double>(3.0, BoundType.CLOSED),
+                new Endpoint<Double>(5.0, BoundType.CLOSED)));
+        assertTrue(set.intersects(new Endpoint<Double>(3.0, BoundType.CLOSED),
+                new Endpoint<Double>(5.5, BoundType.OPEN)));
+        assertTrue(set.intersects(null, null));
+        assertFalse(set.intersects(new Endpoint<Double>(7.0, BoundType.OPEN), null));
+        assertTrue(set.encloses(new Endpoint<Double>(1.0, BoundType.CLOSED),
+                new Endpoint<Double>(3.0, BoundType.OPEN)));
+        assertFalse(set.encloses(new Endpoint<Double>(1.0, BoundType.CLOSED),
+                new Endpoint<Double>(3.0, BoundType.CLOSED)));
+        assertFalse(set.encloses(new Endpoint<Double>(2.0, BoundType.CLOSED),
+                new Endpoint<Double>(6.0, BoundType.CLOSED)));
+        assertTrue(set.encloses(new Endpoint<Double>(4.0, BoundType.CLOSED),
+                new Endpoint<Double>(4.0, BoundType.OPEN)));
+    }
+
+    @Test
+    public void testOfRange() {
+        RangeSet<Integer> set = RangeSet.of(new IntegerRange(10, 0, -3));
+        assertEquals(RangeSet.interval(0, BoundType.OPEN, 10, BoundType.CLOSED), set);
+        // the step is ignored
+        assertTrue(set.contains(5));
+    }
+
+    @Test
+    public void testUnionOf() {
+        List<IntegerRange> ranges = new ArrayList<IntegerRange>();
+        Random random = new Random(7);
+        RangeSet<Integer> expected = RangeSet.empty();
+        for (int i = 0; i < 200; i++) {
+            int from = random.nextInt(1000);
+            IntegerRange range = new IntegerRange(from, from + random.nextInt(10));
+            ranges.add(range);
+            expected = expected.union(RangeSet.of(range));
+        }
+        Collections.shuffle(ranges, random);
+        RangeSet<Integer> set = RangeSet.unionOf(ranges);
+        assertEquals(expected, set);
+        for (int i = -1; i <= 1010; i++) {
+            boolean linear = false;
+            for (IntegerRange range : ranges) {
+                linear |= range.getLeftEndpoint().getValue() <= i && i < range.getRightEndpoint().getValue();
+            }
+            assertEquals(String.valueOf(i), linear, set.contains(i));
+        }
+        assertTrue(RangeSet.unionOf(Collections.<IntegerRange>emptyList()).isEmpty());
+    }
+
+    @Test
+    public void testAsPredicate() {
+        RangeSet<Integer> set = RangeSet.interval(1, BoundType.CLOSED, 3, BoundType.CLOSED);
+        assertEquals(Integer.valueOf(2), new FindWithinGenerator<Integer>().evaluate(
+                IteratorToGeneratorAdapter.adapt(Arrays.asList(5, 4, 2, 1).iterator()), set));
+    }
+}